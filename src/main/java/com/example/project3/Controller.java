@@ -2,19 +2,31 @@ package com.example.project3;
 
 import com.example.project3.banking.*;
 import com.example.project3.util.*;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.util.Scanner;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 
 /**
  * Controller class handles functionality in the GUI.
@@ -26,26 +38,148 @@ import java.io.FileNotFoundException;
  */
 public class Controller {
 
+    /**
+     * Why the accounts are stored on the heap instead of the storage chosen by the system properties,
+     * or null if the chosen storage is used. Shown in the result area when the program starts.
+     */
+    private static String storageFallback;
+
     /**
      * Account Database holds each account.
+     * Its accounts are stored outside the Java heap when the system property project3.storage is offheap,
+     * in a file mapped into memory when project3.storage.file names one.
+     * It is shared by the teller requests, the imports and the followed activities file,
+     * unless the system property project3.concurrent is false.
+     */
+    public static final AccountDatabase accountDatabase = createDatabase();
+
+    /**
+     * Snapshot restored when the program starts and saved by a checkpoint of the journal.
+     * Can be set with the system property project3.snapshot.
+     */
+    private static final Path SNAPSHOT_FILE = Path.of(System.getProperty("project3.snapshot", "bank.snapshot"));
+
+    /**
+     * Journal that records the changes of the database, replayed when the program starts.
+     * Can be set with the system property project3.journal.
+     */
+    private static final Path JOURNAL_FILE = Path.of(System.getProperty("project3.journal", "bank.journal"));
+
+    /**
+     * Number of journal records committed together.
+     * Can be set with the system property project3.journal.groupSize.
+     */
+    private static final int JOURNAL_GROUP_SIZE = Integer.getInteger("project3.journal.groupSize", Journal.DEFAULT_GROUP_SIZE);
+
+    /**
+     * Number of milliseconds a journal record may wait before it is committed.
+     * Can be set with the system property project3.journal.groupMillis.
+     */
+    private static final long JOURNAL_GROUP_MILLIS = Long.getLong("project3.journal.groupMillis", Journal.DEFAULT_GROUP_MILLIS);
+
+    /**
+     * Journal recording the changes of the database, or null until it is recovered or if it could not be opened.
+     * Set by the recovery thread.
+     */
+    private volatile Journal journal;
+
+    /**
+     * Carries out the requests to open and close accounts, deposit, and withdraw, on virtual threads.
+     */
+    private final TransactionService transactions = new TransactionService(accountDatabase);
+
+    /**
+     * Number of accounts written to each file when exporting statements.
+     * Can be set with the system property project3.statements.perFile.
+     */
+    private static final int STATEMENTS_PER_FILE = Integer.getInteger("project3.statements.perFile", 100_000);
+
+    /**
+     * Time between the end of one poll of a followed activities file and the start of the next, in milliseconds.
+     */
+    private static final long FOLLOW_MILLIS = 1000;
+
+    /**
+     * Tailer of the activities file being followed, or null if no file is followed.
+     */
+    private ActivityTailer tailer;
+
+    /**
+     * Background thread polling the followed activities file, or null if no file is followed.
+     */
+    private ScheduledExecutorService follower;
+
+    /**
+     * True while a file is being imported into a database that cannot be shared between threads,
+     * so the tabs stay locked and the follower skips its polls until the import stops.
+     */
+    private volatile boolean importing;
+
+    /**
+     * True while the import is applying a batch to the database, so the tabs are locked.
+     */
+    private volatile boolean applying;
+
+    /**
+     * True while the JavaFX thread has yet to update the tabs to the latest value of applying.
+     */
+    private final AtomicBoolean tabsScheduled = new AtomicBoolean();
+
+    /**
+     * Button that starts and stops following an activities file.
+     */
+    @FXML
+    private Button followButton;
+
+    /**
+     * Tabs holding every control that reads or changes the database, locked while a file is being imported.
+     */
+    @FXML
+    private TabPane tabs;
+
+    /**
+     * Row showing the progress of the file being imported or exported, hidden when no file is being imported or exported.
+     */
+    @FXML
+    private HBox progressBox;
+
+    /**
+     * Shows how much of the file being imported is committed.
      */
-    public static final AccountDatabase accountDatabase = new AccountDatabase();
+    @FXML
+    private ProgressBar progressBar;
 
     /**
-     * Formats numbers for easy readability.
+     * Shows the number of kilobytes of the file being imported that are committed.
      */
-    private static final DecimalFormat df = new DecimalFormat("#,##0.00");
+    @FXML
+    private Label progressLabel;
 
     /**
-     * Represents the decimal value for ten percent, used to calculate a percentage or ratio.
-     * Typically employed in financial calculations or percentage adjustments throughout the system.
+     * Button that stops the file being imported after its current batch.
      */
-    private static final double TEN_PERCENT = 0.1;
+    @FXML
+    private Button cancelButton;
 
     /**
-     * Amount of days in one year is 365.
+     * Import running on a background thread, or null if no file is being imported.
      */
-    private static final double DAYS_IN_YEAR = 365;
+    private ImportTask importTask;
+
+    /**
+     * Thread running the import, or null if no file is being imported.
+     */
+    private Thread importThread;
+
+    /**
+     * Export, or snapshot being saved or restored, running on a background thread, or null if none is running.
+     */
+    private Task<String> exportTask;
+
+    /**
+     * Output of background threads waiting to be added to the result area by the JavaFX thread.
+     */
+    private final StringBuilder pending = new StringBuilder();
 
     /**
      * Initialization of a Stage variable that will hold the components of the GUI.
@@ -196,17 +330,6 @@ public class Controller {
     @FXML
     private DatePicker dwc_dob;
 
-    /**
-     * Represents the minimum initial deposit required to open a Money Market account.
-     * A Money Market account cannot be created if the provided balance is below this threshold.
-     */
-    private static final double MONEY_MARKET_MINIMUM = 2000;
-
-    /**
-     * Represents the minimum balance required to open or maintain a Certificate of Deposit (CD) account
-     */
-    private static final double CD_MINIMUM = 1000;
-
     /**
      * When the user interface is created, the program initializes the items in the combo boxes.
      */
@@ -262,112 +385,77 @@ public class Controller {
     /**
      * Executed to open a new Account using user input from the Open Account tab pane.
      * Checks for valid inputs values and empty arguments.
-     * Checks for duplicate account, minimum balance, and money market specifications.
-     * Adds the opened account to the database.
+     * The TransactionService checks for duplicate account, minimum balance, and money market specifications,
+     * and adds the opened account to the database.
      */
     @FXML
     private void openAccount() {
         AccountType accountType = getAccountType();
-
         Branch branch = branchComboBox.getSelectionModel().getSelectedItem();
-
-        if(branch == null) {
-            resultText.appendText("Select Branch\n");
-            return;
-        }
-        if(dob.getValue() == null) {
-            resultText.appendText("Date input Invalid\n");
-            return;
-        }
-
-        Date dateOfBirth = getDate(dob);
-
-        if (!checkDateOfBirth(accountType, dateOfBirth)) { return; }
+        Date dateOfBirth = dob.getValue() == null ? null : getDate(dob);
         String first = firstName.getText();
         String last = lastName.getText();
-        if(first.isEmpty() || last.isEmpty()) {
-            resultText.appendText("Name invalid\n");
+        String invalid = TransactionService.checkHolder(accountType, branch, first, last, dateOfBirth);
+        if (invalid != null) {
+            resultText.appendText(invalid + "\n");
             return;
         }
 
-        double balanceNum;
-        try { balanceNum = Double.parseDouble(balance.getText()); }
+        long balanceNum;
+        try { balanceNum = Money.parse(balance.getText()); }
         catch (NumberFormatException e) {
             resultText.appendText("For input string \"" + balance.getText() + "\" - not a valid amount.\n");
             return;
         }
-        if (accountType != AccountType.CD && accountDatabase.contains(first, last, dateOfBirth, accountType)) {
-            resultText.appendText(first + " " + last + " already has a " + accountType + " account.\n");
-            return;
-        }
-        if (!checkBalance(balanceNum, accountType)) { return; }
-        Account account = getAccount(first, last, dateOfBirth, branch,accountType, balanceNum);
-        accountDatabase.add(account);
-        resultText.appendText(account.getAccountNumber().getType() + " account " + account.getAccountNumber() + " has been opened.\n");
-        clearArgumentsOpen();
+        boolean cd = accountType == AccountType.CD;
+        whenDone(transactions.openAccount(first, last, dateOfBirth, accountType, branch, balanceNum,
+                accountType == AccountType.COLLEGE_CHECKING ? getCampus() : null,
+                cd ? termComboBox.getValue() : 0, cd ? getDate(openDate) : null), result -> {
+            if (show(result)) {
+                clearArgumentsOpen();
+            }
+        });
     }
 
     /**
-     * Initializes a Date object based on the date chosen in DatePicker.
+     * Hands the result of a request made to the TransactionService to the JavaFX thread once the request is done,
+     * so the interface is never blocked while the request waits for the database.
      *
-     * @param datePicker DatePicker date that needs to changed to Date object
-     * @return Date object that represents the date of birth of a holder
+     * @param request the result of the request, completed once it is carried out
+     * @param done    shows the result, run on the JavaFX thread
      */
-    private Date getDate(DatePicker datePicker) {
-        String date = datePicker.getValue().toString();
-        String[] dateArray = date.split("-");
-        return new Date(Integer.parseInt(dateArray[1]),
-                Integer.parseInt(dateArray[2]),
-                Integer.parseInt(dateArray[0]));
+    private void whenDone(CompletableFuture<TransactionResult> request, Consumer<TransactionResult> done) {
+        request.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                resultText.appendText("Request failed - " + error.getMessage() + "\n");
+            } else {
+                done.accept(result);
+            }
+        }));
     }
 
     /**
-     * Helper method that checks the validity of a Date.
-     * Checks for a valid date, whether the date is after today, whether the holder is 18,
-     * and whether a College Checking Account holder is between the age 18-24.
+     * Prints the messages of the result of a request made to the TransactionService.
      *
-     * @param accountType AccountType object that represents type of Account
-     * @param dob Date object that represents date of birth
-     * @return true if valid date, false otherwise
+     * @param result the result of the request
+     * @return true if the request was carried out, false otherwise
      */
-    private boolean checkDateOfBirth(AccountType accountType, Date dob) {
-        if (dob.isAfterToday()) {
-            resultText.appendText("DOB invalid: " + dob + " cannot be today or a future day.\n");
-            return false;
-        } else if (!dob.isEighteen()) {
-            resultText.appendText("Not eligible to open: " + dob + " under 18.\n");
-            return false;
-        } else if (accountType == AccountType.COLLEGE_CHECKING && !dob.isOverTwentyFour()) {
-            resultText.appendText("Not eligible to open: " + dob + " over 24.\n");
-            return false;
+    private boolean show(TransactionResult result) {
+        for (String message : result.getMessages()) {
+            resultText.appendText(message + "\n");
         }
-        return true;
+        return result.isCompleted();
     }
 
     /**
-     * Creates and returns an Account object based on the provided parameters.
-     * Determines the account type, creates a profile for the holder, and initializes
-     * the appropriate Account subtype with the provided details.
-     * Used in the above method.
+     * Initializes a Date object based on the date chosen in DatePicker.
      *
-     * @param firstName    the first name of the account holder
-     * @param lastName     the last name of the account holder
-     * @param dateOfBirth  a Date object representing the birthdate of the account holder
-     * @param branch       the Branch object representing the bank branch where the account is opened
-     * @param accountType  a String representation of the type of account to create
-     * @param balance      the initial balance to set for the account
-     * @return the created Account object, initialized based on the provided parameters
-     * @throws IllegalStateException if the provided accountType is not a valid account type
-     */
-    private Account getAccount(String firstName, String lastName, Date dateOfBirth, Branch branch, AccountType accountType, double balance) {
-        Profile holder = new Profile(firstName, lastName, dateOfBirth);
-        return switch (accountType) {
-            case CHECKING ->  new Checking(branch, AccountType.CHECKING, holder, balance);
-            case SAVINGS -> new Savings(branch, AccountType.SAVINGS, holder, balance);
-            case MONEY_MARKET -> new MoneyMarket(branch, AccountType.MONEY_MARKET, holder, balance);
-            case COLLEGE_CHECKING -> new CollegeChecking(branch, AccountType.COLLEGE_CHECKING, holder, getCampus(), balance);
-            case CD -> new CertificateDeposit(branch, AccountType.CD, holder, termComboBox.getValue(), getDate(openDate), balance);
-        };
+     * @param datePicker DatePicker date that needs to changed to Date object
+     * @return Date object that represents the date of birth of a holder
+     */
+    private Date getDate(DatePicker datePicker) {
+        LocalDate date = datePicker.getValue();
+        return Date.valueOf(date.getMonthValue(), date.getDayOfMonth(), date.getYear());
     }
 
     /**
@@ -387,27 +475,6 @@ public class Controller {
         }
     }
 
-    /**
-     * Checks whether the balance of an account is valid.
-     *
-     * @param balance double value that represents the balance
-     * @param acctType AccountType object that represents type of Account
-     * @return true if valid balance for the AccountType, false otherwise
-     */
-    private boolean checkBalance(double balance, AccountType acctType) {
-        if (balance <= 0) { //balance must be more than 0
-            resultText.appendText("Initial deposit cannot be 0 or negative.\n");
-            return false;
-        } else if (balance < MONEY_MARKET_MINIMUM && acctType.equals(AccountType.MONEY_MARKET)) { //Money Market account must have at least $2000
-            resultText.appendText("Minimum of $2,000 to open a Money Market account.\n");
-            return false;
-        } else if (balance < CD_MINIMUM && acctType.equals(AccountType.CD)) {
-            resultText.appendText("Minimum of $1,000 to open a Certificate Deposit account.\n");
-            return false;
-        }
-        return true;
-    }
-
     /**
      * Uses the client's selection in the account type toggle group to determine the type of account they want to open.
      *
@@ -427,94 +494,254 @@ public class Controller {
     }
 
     /**
-     * Prints all the Accounts in the AccountDatabase from the beginning of AccountDatabase to the end.
+     * Prints the Accounts of a view in the order they are visited.
+     * The shared lock keeps every Account in the AccountDatabase while the view is taken and printed,
+     * and each Account is read while no deposit or withdrawal changes it.
+     *
+     * @param view returns the Accounts to be printed
      */
-    private void print() {
-        for (int i = 0; i < accountDatabase.size(); i++) {
-            resultText.appendText(accountDatabase.get(i) + "\n");
-        }
-        resultText.appendText("*end of list.\n\n");
+    private void print(Supplier<Iterable<Account>> view) {
+        StringBuilder list = new StringBuilder();
+        readShared(() -> {
+            for (Account account : view.get()) {
+                list.append(accountDatabase.readAccount(account, Account::toString)).append('\n');
+            }
+        });
+        list.append("*end of list.\n\n");
+        resultText.appendText(list.toString());
     }
 
     /**
-     * Orders and prints AccountDatabase by the 2-digit String, Branch.
-     * Bubble Sort implementation is used to iterate through the array
-     * and swap adjacent elements if they are out of order.
-     * To print, iterate through AccountDatabase and print County followed by City.
+     * Prints AccountDatabase ordered by Branch.
+     * Iterates through the branch view of the AccountDatabase, which is already sorted,
+     * and prints County followed by City.
      */
     @FXML
     private void printByBranch() {
-        Sort.account(accountDatabase, 'B');
-        String currentCounty = null;
-        resultText.appendText("\n*List of accounts ordered by branch location (county, city).\n");
-        for (int i = 0; i < accountDatabase.size(); i++) {
-            Account account = accountDatabase.get(i);
-            String county = account.getAccountNumber().getBranch().getCounty();
-            if (currentCounty == null || !currentCounty.equals(county)) { // Print county header when encountering a new county
-                resultText.appendText("County: " + county + "\n");
-                currentCounty = county;
+        StringBuilder list = new StringBuilder("\n*List of accounts ordered by branch location (county, city).\n");
+        readShared(() -> {
+            String currentCounty = null;
+            for (Account account : accountDatabase.viewByBranch()) {
+                String county = account.getAccountNumber().getBranch().getCounty();
+                if (currentCounty == null || !currentCounty.equals(county)) { // Print county header when encountering a new county
+                    list.append("County: ").append(county).append('\n');
+                    currentCounty = county;
+                }
+                list.append(accountDatabase.readAccount(account, Account::toString)).append('\n');
             }
-            resultText.appendText(account + "\n");
-        }
-        resultText.appendText("*end of list.\n\n");
+        });
+        list.append("*end of list.\n\n");
+        resultText.appendText(list.toString());
     }
 
     /**
-     * Orders and prints AccountDatabase by the name and date of birth of the account.
-     * Bubble Sort implementation is used to iterate through the array
-     * and swap adjacent elements if they are out of order.
-     * Calls the print() method.
+     * Prints AccountDatabase ordered by the name and date of birth of the account holder.
+     * Calls the print() method with the holder view of the AccountDatabase.
      */
     @FXML
     private void printByHolder() {
         resultText.appendText("\n*List of accounts ordered by account holder and number.\n");
-        Sort.account(accountDatabase, 'H');
-        print();
+        print(accountDatabase::viewByHolder);
     }
 
     /**
-     * Orders and prints AccountDatabase by the AccountType.
-     * Bubble Sort implementation is used to iterate through the array
-     * and swap adjacent elements if they are out of order.
-     * The compareTo method referenced below compares by AccountNumber.
-     * Prints sorted by AccountType.
+     * Prints AccountDatabase ordered by the AccountType.
+     * Iterates through the account type view of the AccountDatabase, which is ordered by AccountType
+     * and then by AccountNumber.
      */
     @FXML
     private void printByType() {
-        Sort.account(accountDatabase, 'T');
-        resultText.appendText("\n*List of accounts ordered by account type and number.\n");
-
-        AccountType currentType = null;
-        for (int i = 0; i < accountDatabase.size(); i++) {
-            Account account = accountDatabase.get(i);
-            AccountType accountType = account.getAccountNumber().getType();
-            if (currentType == null || !currentType.equals(accountType)) { // Print type header when encountering a new type
-                resultText.appendText("Account Type: " + accountType + "\n");
-                currentType = accountType;
+        StringBuilder list = new StringBuilder("\n*List of accounts ordered by account type and number.\n");
+        readShared(() -> {
+            AccountType currentType = null;
+            for (Account account : accountDatabase.viewByType()) {
+                AccountType accountType = account.getAccountNumber().getType();
+                if (currentType == null || !currentType.equals(accountType)) { // Print type header when encountering a new type
+                    list.append("Account Type: ").append(accountType).append('\n');
+                    currentType = accountType;
+                }
+                list.append(accountDatabase.readAccount(account, Account::toString)).append('\n');
             }
-            resultText.appendText(account + "\n");
-        }
-        resultText.appendText("*end of list.\n\n");
+        });
+        list.append("*end of list.\n\n");
+        resultText.appendText(list.toString());
     }
 
     /**
      * Prints the statements of all accounts in the AccountDatabase in a formatted manner.
-     * The method iterates through all accounts in the Account
+     * The method iterates through all accounts in the holder view of the AccountDatabase,
+     * so the accounts of each holder are printed together.
+     * Each statement is read while no deposit or withdrawal changes its Account.
      */
     @FXML
     private void printStatements() {
-        resultText.appendText("*Account statements by account holder.\n");
-        int holderCount = 0;
-        for (int i = 0; i < accountDatabase.size(); i++) {
-            if (i == 0 || !accountDatabase.get(i).getHolder().equals(accountDatabase.get(i - 1).getHolder())) {
-                holderCount++;
-                resultText.appendText(holderCount + "." + accountDatabase.get(i).getHolder() + "\n");
+        StringBuilder statements = new StringBuilder("*Account statements by account holder.\n");
+        readShared(() -> {
+            int holderCount = 0;
+            Profile previous = null;
+            for (Account account : accountDatabase.viewByHolder()) {
+                if (previous == null || !account.getHolder().equals(previous)) {
+                    holderCount++;
+                    statements.append(holderCount).append('.').append(account.getHolder()).append('\n');
+                }
+                previous = account.getHolder();
+                statements.append("\t[Account#] ").append(account.getAccountNumber()).append('\n');
+                int mark = statements.length();
+                accountDatabase.readAccount(account, read -> {
+                    statements.setLength(mark); //a lock-free read may run again
+                    read.appendStatement(statements);
+                    return null;
+                });
+                statements.append('\n');
+            }
+        });
+        statements.append("*end of statements.\n\n");
+        resultText.appendText(statements.toString());
+    }
+
+    /**
+     * Runs a reader while holding the shared lock of the AccountDatabase, so no account is opened, closed, or moved
+     * while it goes over the accounts, but tellers can keep making deposits and withdrawals.
+     *
+     * @param reader reads the accounts
+     */
+    private void readShared(Runnable reader) {
+        Lock shared = accountDatabase.sharedLock();
+        if (shared != null) {
+            shared.lock();
+        }
+        try {
+            reader.run();
+        } finally {
+            if (shared != null) {
+                shared.unlock();
             }
-            resultText.appendText("\t[Account#] " + accountDatabase.get(i).getAccountNumber() + "\n");
-            resultText.appendText(accountDatabase.get(i).statement());
-            resultText.appendText("\n");
         }
-        resultText.appendText("*end of statements.\n\n");
+    }
+
+    /**
+     * Writes the statements of every Account, grouped by account holder, to files chosen by the user
+     * instead of the text area, starting a new file every STATEMENTS_PER_FILE accounts.
+     * The statements are written on a background thread that shows its progress, and tellers can keep making
+     * deposits and withdrawals meanwhile.
+     */
+    @FXML
+    private void exportStatements() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName("statements.txt");
+        File file = fileChooser.showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+        resultText.appendText("Exporting statements of " + accountDatabase.size() + " accounts to \"" + file + "\"...\n");
+        runExport(file, new Task<>() {
+            @Override
+            protected String call() throws IOException {
+                long start = System.nanoTime();
+                List<Path> files = new StatementExporter(accountDatabase, STATEMENTS_PER_FILE).export(file.toPath(),
+                        (exported, total) -> {
+                            updateProgress(exported, total);
+                            updateMessage(String.format("%,d of %,d statements", exported, total));
+                        });
+                StringBuilder text = new StringBuilder();
+                for (Path written : files) {
+                    text.append("Statements written to \"").append(written).append("\".\n");
+                }
+                return text.append(String.format("*end of export, %.1f ms.\n\n", (System.nanoTime() - start) / 1e6))
+                        .toString();
+            }
+        });
+    }
+
+    /**
+     * Starts running an export on a background thread, which shows its progress and prints the text it returns
+     * once it is done. Only one import or export runs at a time.
+     *
+     * @param file   the file chosen for the export
+     * @param export writes the file and returns the text to print
+     */
+    private void runExport(File file, Task<String> export) {
+        runTask(export, "export " + file.getName(), "Cannot write \"" + file + "\" - ", false);
+    }
+
+    /**
+     * Starts running a task that reads or writes a file on a background thread, which shows its progress and prints
+     * the text it returns once it is done, or the reason it failed.
+     * Only one import, export, or snapshot runs at a time.
+     *
+     * @param task   reads or writes the file and returns the text to print
+     * @param name   the name of the background thread
+     * @param failed the message printed before the reason the task failed
+     * @param locked true to lock the tabs until the task is done, for tasks holding the exclusive lock of the database
+     */
+    private void runTask(Task<String> task, String name, String failed, boolean locked) {
+        if (importTask != null || exportTask != null) {
+            resultText.appendText("Wait for the " + (importTask != null ? "import" : "export")
+                    + " in progress to finish.\n");
+            return;
+        }
+        exportTask = task;
+        task.setOnSucceeded(event -> {
+            resultText.appendText(task.getValue());
+            finishExport();
+        });
+        task.setOnFailed(event -> {
+            resultText.appendText(failed + task.getException().getMessage() + "\n");
+            finishExport();
+        });
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressLabel.textProperty().bind(task.messageProperty());
+        cancelButton.setDisable(true);
+        progressBox.setManaged(true);
+        progressBox.setVisible(true);
+        tabs.setDisable(locked);
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Hides the progress of the export or snapshot that just stopped, and unlocks the tabs.
+     */
+    private void finishExport() {
+        progressBar.progressProperty().unbind();
+        progressLabel.textProperty().unbind();
+        progressBox.setVisible(false);
+        progressBox.setManaged(false);
+        tabs.setDisable(false);
+        exportTask = null;
+    }
+
+    /**
+     * Writes every open and closed Account and every activity to a columnar file chosen by the user,
+     * for analysis outside the program. The file is written on a background thread that shows its progress.
+     */
+    @FXML
+    private void exportAnalytics() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName("accounts.bcol");
+        File file = fileChooser.showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+        runExport(file, new Task<>() {
+            @Override
+            protected String call() throws IOException {
+                long start = System.nanoTime();
+                ColumnarExporter exporter = new ColumnarExporter(accountDatabase);
+                try {
+                    exporter.export(file.toPath(), (done, total) -> {
+                        updateProgress(done, total);
+                        updateMessage(String.format("%,d of %,d accounts", done, total));
+                    });
+                } catch (UncheckedIOException e) { //a segment of the archive cannot be read
+                    throw e.getCause();
+                }
+                return String.format("%d accounts and %d activities exported to \"%s\" in %.1f ms.%n",
+                        exporter.getAccountsWritten(), exporter.getActivitiesWritten(), file,
+                        (System.nanoTime() - start) / 1e6);
+            }
+        });
     }
 
     /**
@@ -523,358 +750,647 @@ public class Controller {
     @FXML
     private void printArchive() {
         resultText.appendText("\n*List of closed accounts in the archive.\n");
-        AccountNode current = accountDatabase.getArchive().getFirst();
-        while (current != null) {
-            resultText.appendText(current + "\n");
-            current = current.getNext();
+        for (AccountNode node : accountDatabase.getArchive()) { //segments are read from disk one at a time
+            resultText.appendText(node + "\n");
         }
         resultText.appendText("*end of list.\n\n");
     }
 
     /**
      * Opens a file and reads in the Accounts provided in the file.
-     *
-     * @throws FileNotFoundException error that will be thrown if there are issues finding file
+     * Lines that cannot be read are listed with their line numbers and quarantined, and the other lines are still loaded.
+     * The file is loaded in committed batches on a background thread, so loading it again after a failure
+     * or a cancellation resumes where it stopped.
      */
     @FXML
-    private void loadAccounts() throws FileNotFoundException {
+    private void loadAccounts() {
+        FileChooser fileChooser = new FileChooser();
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
         try {
-            FileChooser fileChooser = new FileChooser();
-            File file = fileChooser.showOpenDialog(stage);
-            if (file == null) {
-                return;
-            }
-            Scanner scanner = new Scanner(file);
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                String[] parts = line.split(",");
-                Account account = createAccount(parts);
-                accountDatabase.add(account);
-            }
-            resultText.appendText("Accounts in \"" + file + "\" loaded to the database.\n");
-        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
-            resultText.appendText("Incorrect File Format\n");
+            BulkImport bulkImport = BulkImport.accounts(accountDatabase, file.toPath());
+            runImport(bulkImport, "Accounts in \"" + file + "\" loaded to the database.\n");
+        } catch (IOException e) {
+            resultText.appendText("Cannot read \"" + file + "\" - " + e.getMessage() + "\n");
         }
     }
 
     /**
-     * Helper method for loadAccounts() that will create an Account based on input from a File.
+     * Starts running the rest of a bulk import on a background thread, which prints the rejected lines of each batch
+     * as it is committed, and the given message and its summary once it is done.
+     * The window stays responsive and shows the progress of the import, and the import can be cancelled.
+     * With a shared database, the tabs are locked only while a batch is being applied, since the batch holds the
+     * exclusive lock of the database anyway. Otherwise the tabs are locked, and the followed activities file is not
+     * polled, until the import stops changing the database.
      *
-     * @param commandArray a String array representation of the information of an Account
-     * @return Account object that can later be added to the AccountDatabase
+     * @param bulkImport the import of an accounts or activities file
+     * @param loaded     the message printed once the whole file has been loaded
      */
-    public Account createAccount(String[] commandArray) {
-        String accountType = commandArray[0];
-        Branch branch = createBranch(commandArray[1]); //second input is the Branch
-        String firstName = commandArray[2]; //third input is the first name of the holder
-        String lastName = commandArray[3]; //fourth input is the last name of the holder
-        Date dateOfBirth = createDate(commandArray[4]); //fifth input is the Date of Birth of the holder
-        double amount = Double.parseDouble(commandArray[5]);
-        return getAccount(commandArray, firstName, lastName, dateOfBirth, branch, accountType, amount);
+    private void runImport(BulkImport bulkImport, String loaded) {
+        Path file = bulkImport.getFile();
+        if (importTask != null || exportTask != null) {
+            resultText.appendText("Wait for the " + (importTask != null ? "import" : "export")
+                    + " in progress to finish before loading \"" + file + "\".\n");
+            return;
+        }
+        if (bulkImport.isComplete() && bulkImport.getOffset() == file.toFile().length()) {
+            resultText.appendText("\"" + file + "\" was already loaded: " + bulkImport
+                    + ". Delete \"" + bulkImport.getCheckpoint() + "\" to load it again.\n");
+            return;
+        }
+        if (bulkImport.getOffset() > 0) {
+            resultText.appendText("Resuming \"" + file + "\" from line " + bulkImport.getLine() + ".\n");
+        }
+        importTask = new ImportTask(bulkImport, loaded);
+        importTask.setOnSucceeded(event -> {
+            finishImport();
+            printJournal();
+        });
+        importTask.setOnFailed(event -> {
+            Throwable e = importTask.getException();
+            resultText.appendText("Cannot read \"" + file + "\" - " + e.getMessage() + "\n");
+            resultText.appendText("Stopped at line " + bulkImport.getLine() + "; load the file again to resume.\n");
+            finishImport();
+        });
+        progressBar.progressProperty().bind(importTask.progressProperty());
+        progressLabel.textProperty().bind(importTask.messageProperty());
+        cancelButton.setDisable(false);
+        progressBox.setManaged(true);
+        progressBox.setVisible(true);
+        importing = !(accountDatabase instanceof ConcurrentAccountDatabase); //a shared database is locked by each batch
+        tabs.setDisable(importing);
+        importThread = new Thread(importTask, "import " + file.getFileName());
+        importThread.setDaemon(true);
+        importThread.start();
     }
 
     /**
-     * Helper method for createAccount()/processActivities()
-     * that will create a Branch object based on String input.
-     *
-     * @param branchName name of Branch where holder wants to use Account
-     * @return Branch object which represents location of branch
+     * Stops the file being imported once its current batch is committed. Loading the file again resumes it.
      */
-    public Branch createBranch(String branchName) {
-        Branch branch = null;
-        try {
-            branch = Branch.valueOf(branchName.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            resultText.appendText(branchName + " - invalid branch.\n");
+    @FXML
+    private void cancelImport() {
+        if (importTask != null) {
+            importTask.cancelled = true;
+            cancelButton.setDisable(true);
         }
-        return branch;
     }
 
     /**
-     * Creates a Date object based on a String input for File implementations.
-     *
-     * @param date String separated by '/' that represents date of birth
-     * @return Date object that represents date of birth
+     * Hides the progress of the import that just stopped, and unlocks the tabs.
      */
-    public Date createDate(String date) {
-        String[] dateParts = date.split("/");
-        int month = Integer.parseInt(dateParts[0]);
-        int day = Integer.parseInt(dateParts[1]);
-        int year = Integer.parseInt(dateParts[2]);
-        return new Date(month, day, year);
+    private void finishImport() {
+        progressBar.progressProperty().unbind();
+        progressLabel.textProperty().unbind();
+        progressBox.setVisible(false);
+        progressBox.setManaged(false);
+        importing = false;
+        applying = false;
+        tabs.setDisable(false);
+        importTask = null;
+        importThread = null;
     }
 
     /**
-     * Creates and returns an Account object based on the provided parameters.
-     * The type of account created depends on the `accountType` parameter.
+     * Locks the tabs while the import applies a batch, and unlocks them between batches, from the import thread.
+     * Changes made before the JavaFX thread gets to them are applied at once, so only the latest one is shown.
      *
-     * @param commandArray strings containing additional command arguments
-     * @param firstName first name of the account holder
-     * @param lastName last name of the account holder
-     * @param dateOfBirth date of birth of the account holder
-     * @param branch branch where the account is held
-     * @param accountType type of account to create
-     * @param balance initial balance of the account
-     * @return Account object corresponding to the specified account type
-     * @throws IllegalStateException If the `accountType` does not match any known account type
-     */
-    private Account getAccount(String[] commandArray, String firstName, String lastName, Date dateOfBirth, Branch branch, String accountType, double balance) {
-        Profile holder = new Profile(firstName, lastName, dateOfBirth);
-        accountType = accountType.toLowerCase();
-        return switch (accountType) {
-            case "checking" -> new Checking(branch, AccountType.CHECKING, holder, balance);
-            case "savings" -> new Savings(branch, AccountType.SAVINGS, holder, balance);
-            case "moneymarket" ->
-                    new MoneyMarket(branch, AccountType.MONEY_MARKET, holder, balance);
-            case "college" ->
-                    new CollegeChecking(branch, AccountType.COLLEGE_CHECKING, holder, Campus.fromCode(commandArray[commandArray.length - 1]), balance);
-            case "certificate" ->
-                    new CertificateDeposit(branch, AccountType.CD, holder, Integer.parseInt(commandArray[commandArray.length - 2]), createDate(commandArray[commandArray.length - 1]), balance);
-            default -> throw new IllegalStateException("Unexpected value: " + accountType);
-        };
+     * @param locked true when a batch starts, false once it is committed
+     */
+    private void lockTabs(boolean locked) {
+        applying = locked;
+        if (!tabsScheduled.getAndSet(true)) {
+            Platform.runLater(() -> {
+                tabsScheduled.set(false); //a change made from now on schedules another update
+                tabs.setDisable(applying || importing);
+            });
+        }
     }
 
     /**
-     * Processes account activities from a file selected by the user.
-     * The file is expected to contain lines of activity data in a specific format.
-     * Each line is parsed, and the corresponding account activity (deposit or withdrawal) is processed.
+     * Adds text to the result area from any thread. Text posted before the JavaFX thread gets to it is added at once,
+     * so a background thread printing many lines does not flood the JavaFX thread with updates.
      *
-     * @throws IOException if an input/output error occurs while reading the file
+     * @param text the text to be added
      */
-    @FXML
-    public void processActivities() throws IOException {
-        try {
-            FileChooser fileChooser = new FileChooser();
-            File file = fileChooser.showOpenDialog(stage);
-            if (file == null) {
+    private void post(String text) {
+        synchronized (pending) {
+            boolean scheduled = pending.length() > 0;
+            pending.append(text);
+            if (scheduled || text.isEmpty()) {
                 return;
             }
-            resultText.appendText("Processing \"" + file + "\"...\n");
-            Scanner scanner = new Scanner(file);
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                if (line.trim().isEmpty()) {
-                    continue;
+        }
+        Platform.runLater(() -> {
+            String posted;
+            synchronized (pending) {
+                posted = pending.toString();
+                pending.setLength(0);
+            }
+            resultText.appendText(posted);
+        });
+    }
+
+    /**
+     * Runs a BulkImport on a background thread, reporting the kilobytes committed to the progress bar,
+     * and stops it between two batches once the teller cancels it.
+     * The thread is never interrupted, since interrupting it would close the files being read and written.
+     */
+    private final class ImportTask extends Task<LoadReport> {
+
+        /**
+         * The import being run.
+         */
+        private final BulkImport bulkImport;
+
+        /**
+         * Message printed once the whole file has been loaded.
+         */
+        private final String loaded;
+
+        /**
+         * Set by the JavaFX thread to stop the import before its next batch.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * Number of rejected lines printed so far, at most BulkImport.KEPT_REJECTED.
+         */
+        private int printed;
+
+        /**
+         * Creates the task of an import.
+         *
+         * @param bulkImport the import of an accounts or activities file
+         * @param loaded     the message printed once the whole file has been loaded
+         */
+        private ImportTask(BulkImport bulkImport, String loaded) {
+            this.bulkImport = bulkImport;
+            this.loaded = loaded;
+        }
+
+        /**
+         * Runs the import, posting the rejected lines of each batch once it is committed,
+         * and then the loaded message and the summary, or the line it can be resumed from if it was cancelled.
+         *
+         * @return the lines loaded and rejected by the import
+         * @throws IOException if the file, the quarantine, or the checkpoint cannot be read or written
+         */
+        @Override
+        protected LoadReport call() throws IOException {
+            updateMessage(String.format("0 of %,d KB", bulkImport.getFile().toFile().length() / 1024));
+            LoadReport report = bulkImport.run(new Progress() {
+                @Override
+                public void update(int done, int total) {
+                    updateProgress(done, total);
+                    updateMessage(String.format("%,d of %,d KB", done, total));
                 }
-                String[] parts = line.split(",");
-                Date date = createDate(parts[2]);
-                Branch branch = createBranch(parts[3]);
-                char type = parts[0].charAt(0);
-                double amount = Double.parseDouble(parts[4]);
-                Activity activity = new Activity(date, branch, type, amount, true);
-                AccountNumber accountNumber = new AccountNumber(parts[1]);
-                int index = accountDatabase.find(accountNumber);
-                if (index == -1) {
-                    continue;
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelled;
                 }
-                if (type == 'W') {
-                    accountDatabase.get(index).withdraw(date, branch, amount);
-                } else {
-                    accountDatabase.get(index).deposit(date, branch, amount);
+
+                @Override
+                public void batchStarted() {
+                    lockTabs(true);
                 }
-                resultText.appendText(accountNumber + "::" + activity + "\n");
+
+                @Override
+                public void batchFinished(LoadReport batch) {
+                    lockTabs(false);
+                    postRejected(batch);
+                }
+            });
+            StringBuilder text = new StringBuilder();
+            if (report.getRejectedCount() > printed) {
+                text.append("... ").append(report.getRejectedCount() - printed).append(" more rejected lines.\n");
+            }
+            if (bulkImport.getRejected() > 0) {
+                text.append("Rejected lines written to \"").append(bulkImport.getQuarantine()).append("\".\n");
             }
-        resultText.appendText("Account activities in \"activities.txt\" processed.\n");
-        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
-            resultText.appendText("Incorrect File Format\n");
+            if (bulkImport.isComplete()) {
+                text.append(loaded).append(report).append('\n');
+            } else {
+                text.append("Cancelled \"").append(bulkImport.getFile()).append("\" at line ").append(bulkImport.getLine())
+                        .append("; load the file again to resume.\n");
+            }
+            post(text.toString());
+            return report;
+        }
+
+        /**
+         * Posts the rejected lines of a committed batch, until BulkImport.KEPT_REJECTED lines have been printed.
+         * The lines of batches committed before the JavaFX thread gets to them are added to the result area at once.
+         *
+         * @param batch the report of the batch
+         */
+        private void postRejected(LoadReport batch) {
+            StringBuilder text = new StringBuilder();
+            for (RejectedLine line : batch.getRejected()) {
+                if (printed == BulkImport.KEPT_REJECTED) {
+                    break;
+                }
+                text.append(line).append('\n');
+                printed++;
+            }
+            post(text.toString());
         }
     }
 
     /**
-     * Takes in arguments from user and uses it to close an Account.
+     * Saves every account, closed account, and activity to a binary snapshot file chosen by the user.
+     * The snapshot is written on a background thread that shows its progress, and the tabs are locked meanwhile,
+     * since the snapshot holds the exclusive lock of the database.
      */
     @FXML
-    private void closeSingleAccount() {
+    private void saveSnapshot() {
+        FileChooser fileChooser = new FileChooser();
+        File file = fileChooser.showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+        Journal checkpointed = journal != null && file.toPath().toAbsolutePath().equals(SNAPSHOT_FILE.toAbsolutePath())
+                ? journal : null;
+        runTask(new Task<>() {
+            @Override
+            protected String call() throws IOException {
+                Progress progress = (saved, total) -> {
+                    updateProgress(saved, total);
+                    updateMessage(String.format("%,d of %,d accounts saved", saved, total));
+                };
+                if (checkpointed != null) { //the journal is emptied once its records are in the snapshot
+                    checkpointed.checkpoint(SNAPSHOT_FILE, progress);
+                } else {
+                    Snapshot.save(accountDatabase, file.toPath(), progress);
+                }
+                return "Snapshot saved to \"" + file + "\".\n";
+            }
+        }, "snapshot " + file.getName(), "Cannot write \"" + file + "\" - ", true);
+    }
+
+    /**
+     * Restores the accounts, closed accounts, and activities saved in a snapshot file chosen by the user.
+     * A snapshot can only be restored when the database and the archive are empty.
+     * The snapshot is read on a background thread that shows its progress, and the tabs are locked meanwhile.
+     */
+    @FXML
+    private void restoreSnapshot() {
+        if (!accountDatabase.isEmpty() || !accountDatabase.getArchive().isEmpty()) {
+            resultText.appendText("A snapshot can only be restored into an empty database.\n");
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        Journal restoring = journal;
+        runTask(new Task<>() {
+            @Override
+            protected String call() throws IOException {
+                Progress progress = (read, total) -> {
+                    updateProgress(read, total);
+                    updateMessage(String.format("%,d of %,d accounts restored", read, total));
+                };
+                if (restoring != null) {
+                    restoring.restore(file.toPath(), SNAPSHOT_FILE, progress);
+                } else {
+                    Snapshot.restore(file.toPath(), accountDatabase, progress);
+                }
+                return "Snapshot \"" + file + "\" restored, " + accountDatabase.size() + " accounts.\n";
+            }
+        }, "restore " + file.getName(), "Cannot restore \"" + file + "\" - ", true);
+    }
+
+    /**
+     * Restores the database when the program starts, after reporting if the chosen storage could not be used:
+     * the snapshot is restored if it exists,
+     * and then the journal records written after the snapshot are replayed.
+     * The changes made from then on are recorded in the journal.
+     * Recovery runs on a background thread that shows its progress, so the window appears at once,
+     * and the tabs stay locked until the database is recovered.
+     */
+    void recover() {
+        if (storageFallback != null) {
+            resultText.appendText(storageFallback);
+        }
+        runTask(new Task<>() {
+            @Override
+            protected String call() throws IOException {
+                StringBuilder text = new StringBuilder();
+                if (Files.exists(SNAPSHOT_FILE)) {
+                    Snapshot.restore(SNAPSHOT_FILE, accountDatabase, (read, total) -> {
+                        updateProgress(read, total);
+                        updateMessage(String.format("%,d of %,d accounts restored", read, total));
+                    });
+                    text.append("Snapshot \"").append(SNAPSHOT_FILE).append("\" restored, ")
+                            .append(accountDatabase.size()).append(" accounts.\n");
+                }
+                Journal opened = new Journal(JOURNAL_FILE, JOURNAL_GROUP_SIZE, JOURNAL_GROUP_MILLIS);
+                LoadReport report = opened.recover(accountDatabase, (replayed, total) -> {
+                    updateProgress(replayed, total);
+                    updateMessage(String.format("%,d of %,d KB of the journal replayed", replayed, total));
+                });
+                journal = opened;
+                for (RejectedLine record : report.getRejected()) {
+                    text.append(record).append('\n');
+                }
+                return text.append("Journal \"").append(JOURNAL_FILE).append("\" replayed: ").append(report)
+                        .append('\n').toString();
+            }
+        }, "recover", "Cannot recover the database - ", true);
+    }
+
+    /**
+     * Commits the journal and closes it when the program stops.
+     */
+    void shutdown() {
+        if (follower != null) {
+            ScheduledExecutorService stopping = stopFollowing();
+            try {
+                stopping.awaitTermination(1, TimeUnit.MINUTES); //the current poll commits its batch first
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (importThread != null) {
+            importTask.cancelled = true;
+            try {
+                importThread.join(); //the journal is closed once the current batch is committed
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        transactions.close();
         try {
-            String num = dwc_accnum.getText();
-            if(dwc_dateClose.getValue() == null) {
-                resultText.appendText("Date input Invalid\n");
-                return;
+            if (journal != null) {
+                journal.close();
             }
-            Date closeDate = getDate(dwc_dateClose);
-            AccountNumber accountNumber = new AccountNumber(num);
-            if (!accountDatabase.contains(accountNumber)) {
-                resultText.appendText(accountNumber + " account does not exist.\n");
-                return;
+        } catch (IOException e) {
+            System.err.println("Cannot close the journal - " + e.getMessage());
+        }
+        try {
+            if (accountDatabase.getAccountTable() != null) {
+                accountDatabase.getAccountTable().close();
             }
-            resultText.appendText("Closing account " + accountNumber + "\n");
-            int index = accountDatabase.find(accountNumber);
-            resultText.appendText("--");
-            printInterest(accountDatabase.get(index), closeDate);
-            accountDatabase.closeAccount(accountDatabase.get(index), closeDate);
-            clearArgumentsClose();
-        }catch(StringIndexOutOfBoundsException  | NullPointerException e) {
-            resultText.appendText("For input string: \"" + dwc_accnum.getText() + "\" - not a valid account number.\n");
+        } catch (IOException e) {
+            System.err.println("Cannot close the account table - " + e.getMessage());
         }
     }
 
     /**
-     * Finds the amount of interest accumulated for an Account.
+     * Creates the Account Database with the storage chosen by the system properties
+     * project3.storage (heap or offheap) and project3.storage.file.
+     * Falls back to storing the accounts on the heap if the file cannot be mapped, and keeps the reason to be shown
+     * when the program starts.
+     * The database is a ConcurrentAccountDatabase with project3.concurrent.stripes stripe locks
+     * unless project3.concurrent is false, and changes balances with compare-and-set instead of taking the stripe locks
+     * when project3.concurrent.lockFree is also true.
      *
-     * @param account Account object that represents holder's Account
-     * @param closeDate Date object that represents when an Account was closed
-     */
-    private void printInterest(Account account, Date closeDate) {
-        double interestRate;
-        resultText.appendText("interest earned: $");
-
-        if (account.getType() == AccountType.CD) {
-            CertificateDeposit cd = (CertificateDeposit) account;
-            Date openDate = cd.getOpen();
-            int daysHeld = closeDate.daysFrom(openDate);
-            double interest;
-            if (closeDate.isAfter(openDate.addMonths(cd.getTerm()))) {
-                interestRate = account.interestRate();
-                interest = account.getBalance() * interestRate / DAYS_IN_YEAR * daysHeld;
-                resultText.appendText(df.format(interest) + "\n");
-            } else {
-                interestRate = cd.interestRate(closeDate);
-                interest = account.getBalance() * interestRate / DAYS_IN_YEAR * daysHeld;
-                resultText.appendText(df.format(interest) + "\n");
-                resultText.appendText("  [penalty] $" + df.format(TEN_PERCENT * interest) + "\n");
+     * @return the empty AccountDatabase
+     */
+    private static AccountDatabase createDatabase() {
+        String file = System.getProperty("project3.storage.file");
+        AccountTable table = null;
+        try {
+            if (file != null) {
+                table = new AccountTable(Path.of(file));
+            } else if ("offheap".equalsIgnoreCase(System.getProperty("project3.storage", "heap"))) {
+                table = new AccountTable();
             }
-        } else {
-            interestRate = account.interestRate();
-            double interest = account.getBalance() * interestRate / DAYS_IN_YEAR * closeDate.getDay();
-            resultText.appendText(df.format(interest)+ "\n");
+        } catch (IOException e) {
+            storageFallback = "Cannot map \"" + file + "\" - " + e.getMessage() + "; the accounts are stored on the heap.\n";
+        }
+        if (Boolean.parseBoolean(System.getProperty("project3.concurrent", "true"))) {
+            return new ConcurrentAccountDatabase(table,
+                    Integer.getInteger("project3.concurrent.stripes", ConcurrentAccountDatabase.DEFAULT_STRIPES),
+                    Boolean.getBoolean("project3.concurrent.lockFree"));
         }
+        return table == null ? new AccountDatabase() : new AccountDatabase(table);
     }
 
     /**
-     * Closes all Accounts for a holder based on first/last name and date of birth.
+     * Prints the commit statistics of the journal.
+     */
+    private void printJournal() {
+        if (journal != null) {
+            resultText.appendText("Journal: " + journal + "\n");
+        }
+    }
+
+    /**
+     * Processes account activities from a file selected by the user.
+     * The file is expected to contain lines of activity data in a specific format.
+     * The lines are read and applied on several threads, keeping the order of the activities of each account,
+     * and lines that cannot be applied are listed with their line numbers and quarantined.
+     * The file is applied in committed batches on a background thread, so processing it again after a failure
+     * or a cancellation resumes where it stopped.
      */
     @FXML
-    private void closeMultipleAccounts() {
-            String firstName = this.dwc_firstName.getText();
-            String lastName = this.dwc_lastName.getText();
-            if (firstName.isEmpty() || lastName.isEmpty()) {
-                resultText.appendText("Name Invalid\n");
+    public void processActivities() {
+        FileChooser fileChooser = new FileChooser();
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        resultText.appendText("Processing \"" + file + "\"...\n");
+        try {
+            BulkImport bulkImport = BulkImport.activities(accountDatabase, file.toPath());
+            runImport(bulkImport, "Account activities in \"" + file.getName() + "\" processed.\n");
+        } catch (IOException e) {
+            resultText.appendText("Cannot read \"" + file + "\" - " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Starts following an activities file selected by the user, or stops following the current one.
+     * While a file is followed, a background thread applies the lines appended to it every second and posts the
+     * results, and processing resumes from the position reached when the same file is followed again.
+     */
+    @FXML
+    private void followActivities() {
+        if (follower != null) {
+            stopFollowing();
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        ActivityTailer followed;
+        try {
+            followed = new ActivityTailer(accountDatabase, file.toPath());
+        } catch (IOException e) {
+            resultText.appendText("Cannot follow \"" + file + "\" - " + e.getMessage() + "\n");
+            return;
+        }
+        resultText.appendText("Following \"" + file + "\" from line " + followed.getLine() + ".\n");
+        tailer = followed;
+        follower = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "follow " + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        follower.scheduleWithFixedDelay(() -> pollActivities(followed), 0, FOLLOW_MILLIS, TimeUnit.MILLISECONDS);
+        followButton.setText("Stop Following");
+    }
+
+    /**
+     * Applies the lines appended to the followed activities file since the last poll, on the follower thread.
+     * Nothing is read while a file is being imported into a database that cannot be shared.
+     * Following stops if the file cannot be read.
+     *
+     * @param followed the tailer of the followed file
+     */
+    private void pollActivities(ActivityTailer followed) {
+        if (importing) {
+            return;
+        }
+        try {
+            LoadReport report = followed.poll();
+            if (report.getLines() == 0) {
                 return;
             }
-            if (dwc_dob.getValue() == null || dwc_dateClose.getValue() == null) {
-                resultText.appendText("Date input Invalid\n");
-                return;
+            StringBuilder text = new StringBuilder();
+            for (RejectedLine line : report.getRejected()) {
+                text.append(line).append('\n');
             }
-            Date dateOfBirth = getDate(dwc_dob);
-            Date closeDate = getDate(dwc_dateClose);
-            Profile holder = new Profile(firstName, lastName, dateOfBirth);
-            List<Account> accounts = findAllAccounts(holder);
-            if (accounts.isEmpty()) {
-                resultText.appendText(firstName + " " + lastName + " " + dateOfBirth + " does not have any accounts in the database.\n");
-            } else {
-                resultText.appendText("Closing accounts for " + firstName + " " + lastName + " " + dateOfBirth + "\n");
-                for (Account account : accounts) {
-                    resultText.appendText("--" + account.getAccountNumber() + " ");
-                    printInterest(account, closeDate);
-                }
-                int index = accountDatabase.find(firstName, lastName, dateOfBirth);
-                while (index != -1) {
-                    accountDatabase.closeAccount(accountDatabase.get(index), closeDate);
-                    index = accountDatabase.find(firstName, lastName, dateOfBirth);
-                }
-                resultText.appendText("All accounts for " + firstName + " " + lastName + " " + dateOfBirth + " are closed and moved to archive.\n");
+            text.append("Account activities in \"").append(followed.getFile().getFileName())
+                    .append("\" processed up to line ").append(followed.getLine() - 1).append(".\n");
+            text.append(report).append('\n');
+            if (journal != null) {
+                text.append("Journal: ").append(journal).append('\n');
             }
-            clearArgumentsClose();
+            post(text.toString());
+        } catch (IOException | UncheckedIOException e) {
+            post("Cannot read \"" + followed.getFile() + "\" - " + e.getMessage() + "\n");
+            Platform.runLater(() -> {
+                if (tailer == followed) {
+                    stopFollowing();
+                }
+            });
+        }
     }
 
     /**
-     * Finds and returns a list of all accounts associated with a given account holder.
-     * The method iterates through the AccountDatabase and checks if the holder of each account
-     * matches the provided holder's Profile.
+     * Stops polling the followed activities file. The poll in progress, if any, finishes its batch first,
+     * and the tailer is then closed and the position reached is posted by the follower thread.
      *
-     * @param holder the profile of the account holder whose accounts are to be found
-     * @return a list of accounts associated with the given holder
-     */
-    private List<Account> findAllAccounts(Profile holder) {
-        List<Account> accounts = new List<>();
-        for (int i = 0; i < accountDatabase.size(); i++) {
-            if (accountDatabase.get(i).getHolder().equals(holder)) {
-                accounts.add(accountDatabase.get(i));
+     * @return the executor of the follower, which terminates once the tailer is closed
+     */
+    private ScheduledExecutorService stopFollowing() {
+        ScheduledExecutorService stopping = follower;
+        ActivityTailer followed = tailer;
+        stopping.execute(() -> {
+            followed.close();
+            post("Stopped following \"" + followed.getFile() + "\" at line " + followed.getLine() + ".\n");
+        });
+        stopping.shutdown(); //cancels the next polls but still runs the task closing the tailer
+        follower = null;
+        tailer = null;
+        followButton.setText("Follow Activities File");
+        return stopping;
+    }
+
+    /**
+     * Takes in arguments from user and uses it to close an Account.
+     */
+    @FXML
+    private void closeSingleAccount() {
+        try {
+            String num = dwc_accnum.getText();
+            if(dwc_dateClose.getValue() == null) {
+                resultText.appendText("Date input Invalid\n");
+                return;
             }
+            Date closeDate = getDate(dwc_dateClose);
+            AccountNumber accountNumber = new AccountNumber(num);
+            whenDone(transactions.closeAccount(accountNumber, closeDate), result -> {
+                if (show(result)) {
+                    clearArgumentsClose();
+                }
+            });
+        }catch(IllegalArgumentException | NullPointerException e) {
+            resultText.appendText("For input string: \"" + dwc_accnum.getText() + "\" - not a valid account number.\n");
         }
-        return accounts;
+    }
+
+    /**
+     * Closes all Accounts for a holder based on first/last name and date of birth.
+     */
+    @FXML
+    private void closeMultipleAccounts() {
+        Date dateOfBirth = dwc_dob.getValue() == null ? null : getDate(dwc_dob);
+        Date closeDate = dwc_dateClose.getValue() == null ? null : getDate(dwc_dateClose);
+        whenDone(transactions.closeAccounts(dwc_firstName.getText(), dwc_lastName.getText(), dateOfBirth, closeDate),
+                result -> {
+                    show(result);
+                    if (result.getStatus() != TransactionStatus.INVALID) {
+                        clearArgumentsClose();
+                    }
+                });
     }
 
     /**
      * Handles the withdrawal of money from an account.
-     * The method validates the withdrawal amount and account number, checks for sufficient funds,
-     * and updates the account balance if the withdrawal is successful.
-     * If the account is a Money Market account, it ensures the balance does not fall below the minimum required.
+     * The method validates the withdrawal amount and account number, and the TransactionService
+     * checks for sufficient funds and updates the account balance if the withdrawal is successful.
+     * If the account is a Money Market account, a warning is shown when the balance falls below the minimum required.
      *
-     * @throws StringIndexOutOfBoundsException if the account number is invalid
+     * @throws IllegalArgumentException if the account number is invalid
      * @throws NullPointerException if the account number is null or invalid
      * @throws NumberFormatException if the withdrawal amount is not a valid number
      */
     @FXML
     private void withdrawMoney() {
         try {
-            double withdrawalAmount = Double.parseDouble(dwc_amount.getText());
-            if (withdrawalAmount <= 0) {
-                resultText.appendText(withdrawalAmount + " withdrawal amount cannot be 0 or negative.\n");
+            long withdrawalAmount = Money.parse(dwc_amount.getText());
+            String invalid = TransactionService.checkWithdrawal(withdrawalAmount);
+            if (invalid != null) {
+                resultText.appendText(invalid + "\n");
                 return;
             }
             AccountNumber accountNumber = new AccountNumber(dwc_accnum.getText());
-            int index = accountDatabase.find(accountNumber);
-            if (index == -1) {
-                resultText.appendText(accountNumber + " does not exist.\n");
-                return;
-            }
-            boolean sufficientFunds = accountDatabase.get(index).getBalance() >= withdrawalAmount;
-            if (accountDatabase.get(index).getBalance() - withdrawalAmount < MONEY_MARKET_MINIMUM && accountDatabase.get(index).getType() == AccountType.MONEY_MARKET) {
-                if (sufficientFunds) {
-                    resultText.appendText(accountNumber + " balance below $2,000 - $" + df.format(withdrawalAmount) + " withdrawn from " + accountNumber + "\n");
-                    accountDatabase.withdraw(accountNumber, withdrawalAmount);
-                } else {
-                    resultText.appendText(accountNumber + " balance below $2,000 - withdrawing $" + df.format(withdrawalAmount) + " - insufficient funds." + "\n");
-                }
-            } else {
-                if (sufficientFunds) {
-                    resultText.appendText("$" + df.format(withdrawalAmount) + " withdrawn from " + accountNumber + "\n");
-                    accountDatabase.withdraw(accountNumber, withdrawalAmount);
-                } else {
-                    resultText.appendText("$" + df.format(withdrawalAmount) + " - insufficient funds.\n");
-                }
-            }
-        }catch(StringIndexOutOfBoundsException  | NullPointerException e) {
-            resultText.appendText("For input string: \"" + dwc_accnum.getText() + "\" - not a valid account number.\n");
+            whenDone(transactions.withdraw(accountNumber, withdrawalAmount), this::show);
         }
         catch (NumberFormatException e) {
             resultText.appendText("For input string: \"" + dwc_amount.getText() + "\" - not a valid amount.\n");
         }
+        catch(IllegalArgumentException | NullPointerException e) {
+            resultText.appendText("For input string: \"" + dwc_accnum.getText() + "\" - not a valid account number.\n");
+        }
     }
 
     /**
      * Handles the deposit of money into an account.
-     * The method validates the deposit amount and account number, and updates the account balance if the deposit is successful.
+     * The method validates the deposit amount and account number, and the TransactionService
+     * updates the account balance if the deposit is successful.
      *
-     * @throws StringIndexOutOfBoundsException if the account number is invalid
+     * @throws IllegalArgumentException if the account number is invalid
      * @throws NullPointerException if the account number is null or invalid
      * @throws NumberFormatException if the deposit amount is not a valid number
      */
     @FXML
     private void depositMoney() {
         try {
-            double depositAmount = Double.parseDouble(dwc_amount.getText());
-            if (depositAmount <= 0) {
-                resultText.appendText(depositAmount + " - deposit amount cannot be 0 or negative.\n");
+            long depositAmount = Money.parse(dwc_amount.getText());
+            String invalid = TransactionService.checkDeposit(depositAmount);
+            if (invalid != null) {
+                resultText.appendText(invalid + "\n");
                 return;
             }
             AccountNumber accountNumber = new AccountNumber(dwc_accnum.getText());
-            if (!accountDatabase.contains(accountNumber)) {
-                resultText.appendText(accountNumber + " does not exist.\n");
-                return;
-            }
-            accountDatabase.deposit(accountNumber, depositAmount);
-            resultText.appendText("$" + df.format(depositAmount) + " deposited to " + accountNumber + "\n");
-        } catch(StringIndexOutOfBoundsException | NullPointerException e) {
-            resultText.appendText("For input string: \"" + dwc_accnum.getText() + "\" - not a valid account number.\n");
+            whenDone(transactions.deposit(accountNumber, depositAmount), this::show);
         }
         catch (NumberFormatException e) {
             resultText.appendText("For input string: \"" + dwc_amount.getText() + "\" - not a valid amount." + "\n");
         }
+        catch(IllegalArgumentException | NullPointerException e) {
+            resultText.appendText("For input string: \"" + dwc_accnum.getText() + "\" - not a valid account number.\n");
+        }
     }
 
     /**
@@ -24,9 +24,12 @@ public class Main extends Application {
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("view.fxml"));
         Scene scene = new Scene(fxmlLoader.load());
+        Controller controller = fxmlLoader.getController();
+        stage.setOnHidden(event -> controller.shutdown());
         stage.setTitle("Transaction Manager");
         stage.setScene(scene);
         stage.show();
+        controller.recover(); //the window shows the progress of the recovery
     }
 
     /**
@@ -1,13 +1,25 @@
 package com.example.project3.banking;
 
 import com.example.project3.util.Date;
-import com.example.project3.util.List;
+import com.example.project3.util.Money;
 
-import java.text.DecimalFormat;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * The Account class holds the information regarding a bank account
- * The account number, Profile object of the holder, and the balance are held in each account
+ * The account number, Profile object of the holder, and the balance are held in each account.
+ * While the Account is in an AccountDatabase that stores its accounts in an AccountTable,
+ * the holder and the balance live in a record of the table instead, and the Account is a view over that record.
+ * The AccountNumber never changes, so the Account keeps it and does not create one from the record on every call.
+ * The balance is changed with atomic compare-and-set operations, so deposits and withdrawals made by different threads
+ * are never lost and a withdrawal never takes the balance below zero, without locking the account.
+ * Each activity gets its own position in the log and is linked after the previous one by atomically swapping the
+ * position of the latest activity, so activities recorded at the same time are all kept, in the order of the swaps.
+ * Every change counts itself as started and finished, so a reader that needs the balance, the activities, and the
+ * values of the subclass to belong to the same state can read them again until no change ran in between.
  *
  * @author Vishal Saravanan, Yining Chen
  */
@@ -22,33 +34,119 @@ public abstract class Account implements Comparable<Account> {
      * A constant representing the absence of any applicable fees for an account.
      * Used to signify that no fees are applied during certain operations or account types.
      */
-    public static final double NO_FEE = 0;
+    public static final long NO_FEE = 0;
 
     /**
-     * formatted in a readable manner for money
+     * Denominator that turns a yearly interest rate in basis points into a monthly fraction of the balance.
      */
-    private static final DecimalFormat df = new DecimalFormat("#,##0.00");
+    protected static final long MONTHLY_RATE_DENOMINATOR = (long) Money.BASIS_POINTS * MONTHS_IN_YEAR;
+
+    /**
+     * Source of the id given to each Account when it is created.
+     */
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    /**
+     * Gives atomic access to the balance field.
+     */
+    private static final VarHandle BALANCE;
+
+    /**
+     * Gives atomic access to the position of the latest activity.
+     */
+    private static final VarHandle LAST_ACTIVITY;
+
+    /**
+     * Gives atomic access to the number of activities.
+     */
+    private static final VarHandle ACTIVITY_COUNT;
+
+    /**
+     * Gives atomic access to the number of changes started.
+     */
+    private static final VarHandle STARTED;
+
+    /**
+     * Gives atomic access to the number of changes finished.
+     */
+    private static final VarHandle FINISHED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BALANCE = lookup.findVarHandle(Account.class, "balance", long.class);
+            LAST_ACTIVITY = lookup.findVarHandle(Account.class, "lastActivity", int.class);
+            ACTIVITY_COUNT = lookup.findVarHandle(Account.class, "activityCount", int.class);
+            STARTED = lookup.findVarHandle(Account.class, "started", int.class);
+            FINISHED = lookup.findVarHandle(Account.class, "finished", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Unique id of the Account, increasing in the order Accounts are created.
+     * Unlike the AccountNumber, no two Accounts share an id.
+     */
+    private final int id;
 
     /**
      * AccountNumber object with information about 9-digit number that represents bank account.
+     * Kept while the Account is stored in an AccountTable, which also stores it packed into its record.
      */
-    protected AccountNumber number;
+    private final AccountNumber number;
 
     /**
      * Profile object with information about account holder.
+     * Null while the Account is stored in an AccountTable.
+     */
+    private Profile holder;
+
+    /**
+     * Amount of money currently in bank account, in cents. Not used while the Account is stored in an AccountTable.
      */
-    protected Profile holder;
+    private long balance;
 
     /**
-     * Amount of money currently in bank account.
+     * Table holding the record of the Account, or null if its values are held in its own fields.
      */
-    protected double balance;
+    private AccountTable table;
 
     /**
-     * List of account activities:
-     * Deposit or Withdraw.
+     * Row of the record of the Account in its table.
      */
-    protected List<Activity> activities;
+    private int row = -1;
+
+    /**
+     * Log that stores the account activities (deposits and withdrawals).
+     * The Account uses its own log until it is added to an AccountDatabase, which shares one log among all its accounts.
+     */
+    private ActivityLog log;
+
+    /**
+     * Position of the first activity of the Account in the log, or ActivityLog.NONE if it has none.
+     */
+    private volatile int firstActivity = ActivityLog.NONE;
+
+    /**
+     * Position of the latest activity of the Account in the log, or ActivityLog.NONE if it has none.
+     */
+    private volatile int lastActivity = ActivityLog.NONE;
+
+    /**
+     * Number of activities of the Account that are linked in the log.
+     */
+    private volatile int activityCount;
+
+    /**
+     * Number of deposits and withdrawals that started changing the Account.
+     */
+    private volatile int started;
+
+    /**
+     * Number of deposits and withdrawals that finished changing the Account.
+     */
+    private volatile int finished;
 
     /**
      * Creates an Account object.
@@ -56,31 +154,226 @@ public abstract class Account implements Comparable<Account> {
      * @param branch 3-digit integer representation of a Branch
      * @param type   2-digit integer representation of the type of Account
      * @param holder Profile object that represents the full name and date of birth of an Account holder
-     * @param balance amount of money that is in an Account
+     * @param balance amount of money that is in an Account, in cents
      */
-    public Account(Branch branch, AccountType type, Profile holder, double balance) {
+    public Account(Branch branch, AccountType type, Profile holder, long balance) {
+        this.id = NEXT_ID.getAndIncrement();
         this.number = new AccountNumber(branch, type);
         this.holder = holder;
-        this.activities = new List<>();
         this.balance = balance;
     }
 
+    /**
+     * Recreates an Account that already has an AccountNumber, such as one read back from a Snapshot.
+     * No new account number is generated, so the sequence of generated numbers is not changed.
+     *
+     * @param number  the AccountNumber of the Account
+     * @param holder  Profile object that represents the full name and date of birth of an Account holder
+     * @param balance amount of money that is in an Account, in cents
+     */
+    Account(AccountNumber number, Profile holder, long balance) {
+        this.id = NEXT_ID.getAndIncrement();
+        this.number = number;
+        this.holder = holder;
+        this.balance = balance;
+    }
+
+    /**
+     * Returns the unique id of the Account.
+     * Ids increase in the order Accounts are created, and no two Accounts share an id.
+     *
+     * @return the id of the Account
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Retrieves the Profile object representing the account holder.
      *
      * @return the Profile object of the account holder
      */
     public Profile getHolder() {
-        return holder;
+        return table == null ? holder : table.getHolder(row);
     }
 
     /**
-     * Retrieves the list of activities associated with this account.
+     * Retrieves the activities associated with this account.
      *
-     * @return a List of Activity objects representing the transactions performed on this account
+     * @return a view of the Activity objects representing the transactions performed on this account
      */
-    public List<Activity> getActivities() {
-        return activities;
+    public ActivityView getActivities() {
+        return new ActivityView(log, firstActivity, activityCount);
+    }
+
+    /**
+     * Moves the activities of this account into the given log, which is then used for all later activities.
+     * Called when the account is added to an AccountDatabase so that all its accounts share one log.
+     *
+     * @param shared the log to be used by this account
+     */
+    void attach(ActivityLog shared) {
+        if (log == shared) {
+            return;
+        }
+        ActivityLog previous = log;
+        int index = firstActivity;
+        log = shared;
+        firstActivity = ActivityLog.NONE;
+        lastActivity = ActivityLog.NONE;
+        int count = activityCount;
+        activityCount = 0;
+        for (int i = 0; i < count; i++) {
+            record(ActivityLog.NONE, previous.getEpochDay(index), previous.getLocation(index), previous.getType(index),
+                    previous.getAmount(index), previous.isAtm(index));
+            index = previous.next(index);
+        }
+    }
+
+    /**
+     * Copies the account number, and moves the holder, balance, and the values of the subclass, into a new record of a table.
+     * Called when the account is added to an AccountDatabase that stores its accounts in an AccountTable.
+     *
+     * @param shared the table the record is added to
+     */
+    void store(AccountTable shared) {
+        if (table == shared) {
+            return;
+        }
+        unstore();
+        row = shared.add(number.intValue(), number.getType(), number.getBranch(), holder, balance);
+        table = shared;
+        storeFields(shared, row);
+        holder = null;
+    }
+
+    /**
+     * Moves the values of the account out of its record, back into its own fields, and frees the record.
+     * Called when the account is removed from an AccountDatabase that stores its accounts in an AccountTable.
+     */
+    void unstore() {
+        if (table == null) {
+            return;
+        }
+        holder = getHolder();
+        balance = getBalance();
+        loadFields(table, row);
+        table.remove(row);
+        table = null;
+        row = -1;
+    }
+
+    /**
+     * Copies the values of a subclass into the record of the account. Subclasses with values of their own override this.
+     *
+     * @param table the table holding the record
+     * @param row   the row of the record
+     */
+    void storeFields(AccountTable table, int row) {
+    }
+
+    /**
+     * Copies the values of a subclass that can change out of the record of the account, before the record is freed.
+     * Subclasses with such values override this.
+     *
+     * @param table the table holding the record
+     * @param row   the row of the record
+     */
+    void loadFields(AccountTable table, int row) {
+    }
+
+    /**
+     * Returns the table holding the record of the account.
+     *
+     * @return the table, or null if the account holds its values in its own fields
+     */
+    AccountTable table() {
+        return table;
+    }
+
+    /**
+     * Returns the row of the record of the account in its table.
+     *
+     * @return the row, or -1 if the account is not stored in a table
+     */
+    int row() {
+        return row;
+    }
+
+    /**
+     * Atomically adds an amount to the balance of the account, in its own field or in its record.
+     *
+     * @param amount the amount added, negative to take money out, in cents
+     * @return the balance after the amount was added, in cents
+     */
+    private long addBalance(long amount) {
+        if (table == null) {
+            return (long) BALANCE.getAndAdd(this, amount) + amount;
+        }
+        return table.addBalance(row, amount);
+    }
+
+    /**
+     * Atomically takes an amount out of the balance of the account if the balance covers it.
+     * The balance is read and replaced with compare-and-set until no other thread changed it in between.
+     *
+     * @param amount the amount taken out, in cents
+     * @return the balance left, or the balance minus the amount, which is negative, if the amount was not taken out
+     */
+    private long takeBalance(long amount) {
+        if (table != null) {
+            return table.takeBalance(row, amount);
+        }
+        long current;
+        do {
+            current = (long) BALANCE.getVolatile(this);
+            if (current < amount) {
+                return current - amount;
+            }
+        } while (!BALANCE.compareAndSet(this, current, current - amount));
+        return current - amount;
+    }
+
+    /**
+     * Returns the log that stores the activities of this account.
+     *
+     * @return the log, or null if the account has no activities and is not in an AccountDatabase
+     */
+    ActivityLog activityLog() {
+        return log;
+    }
+
+    /**
+     * Returns the position of the first activity of this account in its log.
+     *
+     * @return the position of the first activity, or ActivityLog.NONE if the account has none
+     */
+    int firstActivity() {
+        return firstActivity;
+    }
+
+    /**
+     * Returns the position of the latest activity of this account in its log.
+     *
+     * @return the position of the latest activity, or ActivityLog.NONE if the account has none
+     */
+    int lastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Points this account at activities already stored in a log, such as a log read back from a Snapshot.
+     *
+     * @param log   the log holding the activities
+     * @param first the position of the first activity, or ActivityLog.NONE if the account has none
+     * @param last  the position of the latest activity, or ActivityLog.NONE if the account has none
+     * @param count the number of activities
+     */
+    void restoreActivities(ActivityLog log, int first, int last, int count) {
+        this.log = log;
+        this.firstActivity = first;
+        this.lastActivity = last;
+        this.activityCount = count;
     }
 
     /**
@@ -89,13 +382,23 @@ public abstract class Account implements Comparable<Account> {
      * @return String full statement to describe activities of a bank
      */
     public final String statement() {
-        String returnString = "";
-        returnString += printActivities();
-        double interest = interest();
-        double fee = fee();
-        returnString += printInterestFee(interest, fee);
-        returnString += printBalance(interest, fee);
-        return returnString;
+        StringBuilder returnString = new StringBuilder();
+        appendStatement(returnString);
+        return returnString.toString();
+    }
+
+    /**
+     * Appends the statement detailing activities of a bank to a StringBuilder,
+     * so many statements can be written through one reused StringBuilder.
+     *
+     * @param returnString the StringBuilder the statement is appended to
+     */
+    public final void appendStatement(StringBuilder returnString) {
+        printActivities(returnString);
+        long interest = interest();
+        long fee = fee();
+        printInterestFee(returnString, interest, fee);
+        printBalance(returnString, interest, fee);
     }
 
     /**
@@ -104,44 +407,162 @@ public abstract class Account implements Comparable<Account> {
      * @param activity the Activity object representing the transaction to be added
      */
     public void addActivity(Activity activity) {
-        this.activities.add(activity);
+        record(ActivityLog.NONE, activity.getDate().toEpochDay(), activity.getLocation(), activity.getType(),
+                activity.getAmount(), activity.isAtm());
+    }
+
+    /**
+     * Appends an activity to the account's log, or stores it at a position reserved in the log,
+     * and links it after the latest activity of the account.
+     * The activity becomes the latest one by atomically swapping the position of the latest activity, so activities of
+     * one account recorded by several threads at the same time are linked in the order of the swaps without a lock.
+     *
+     * @param position the reserved position in the log, or ActivityLog.NONE to append the activity
+     * @param epochDay the date of the activity as the number of days from 1/1/1970
+     * @param location the branch where the activity took place
+     * @param type     'D' for deposit or 'W' for withdrawal
+     * @param amount   the amount of money of the activity, in cents
+     * @param atm      true if the activity was performed at an ATM
+     */
+    private void record(int position, int epochDay, Branch location, char type, long amount, boolean atm) {
+        if (log == null) {
+            log = new ActivityLog();
+        }
+        int index = position == ActivityLog.NONE ? log.append(this.id, epochDay, location, type, amount, atm)
+                : log.set(position, this.id, epochDay, location, type, amount, atm);
+        int previous = (int) LAST_ACTIVITY.getAndSet(this, index);
+        if (previous == ActivityLog.NONE) {
+            firstActivity = index;
+        } else {
+            log.link(previous, index);
+        }
+        ACTIVITY_COUNT.getAndAdd(this, 1);
+    }
+
+    /**
+     * Counts a deposit or withdrawal as started. Every change of the balance or activities is made between
+     * startChange and finishChange.
+     */
+    private void startChange() {
+        STARTED.getAndAdd(this, 1);
+    }
+
+    /**
+     * Counts a deposit or withdrawal as finished.
+     */
+    private void finishChange() {
+        FINISHED.getAndAdd(this, 1);
+    }
+
+    /**
+     * Reads the Account so that every value read belongs to the same state, without holding back the threads
+     * changing it: the reader is run again until no deposit or withdrawal started or was running while it ran.
+     * A reader of an account that never stops changing waits until the changes pause.
+     *
+     * @param reader reads the values needed from the Account
+     * @param <T>    the type of the value read
+     * @return the value returned by the last run of the reader
+     */
+    <T> T readConsistent(Function<? super Account, T> reader) {
+        while (true) {
+            int done = finished;
+            int begun = started;
+            if (begun == done) {
+                T value = reader.apply(this);
+                VarHandle.loadLoadFence(); //the values read above must not be read after the check below
+                if (started == begun) {
+                    return value;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Called after each successful withdrawal, before the change is finished.
+     * Subclasses that count withdrawals override this.
+     */
+    void withdrawn() {
+    }
+
+    /**
+     * Called after a deposit or withdrawal made by a teller, before the change is finished, with the balance it left.
+     * Withdrawals that were refused are included, with the balance they found. Subclasses with values that depend
+     * on the balance override this.
+     *
+     * @param type    'D' for deposit or 'W' for withdrawal
+     * @param balance the balance left by the change, in cents
+     */
+    void balanceChanged(char type, long balance) {
     }
 
     /**
      * Has the monthly interest of an Account.
      *
-     * @return amount of interest to be paid for an Account
+     * @return amount of interest to be paid for an Account, in cents
      */
-    public abstract double interest();
+    public abstract long interest();
 
     /**
      * Has the value of the fee on an Account if there is one.
      *
-     * @return amount required to be paid on an Account
+     * @return amount required to be paid on an Account, in cents
      */
-    public abstract double fee();
+    public abstract long fee();
 
     /**
-     * Determines the interest rate applicable to this account.
+     * Determines the yearly interest rate applicable to this account.
      *
-     * @return the interest rate as a double value
+     * @return the interest rate in basis points, where 10,000 basis points is 100%
      */
-    public abstract double interestRate();
+    public abstract int interestRate();
 
     /**
      * Deducts money from the account and updates the balance.
      *
-     * @param amount quantity of money deducted from the account
+     * @param amount quantity of money deducted from the account, in cents
      * @return true if successfully withdrawn, false otherwise
      */
-    public boolean withdraw(double amount) { //to update the balance
-        if (this.balance < amount) {
-            return false;
+    public boolean withdraw(long amount) { //to update the balance
+        return withdraw(amount, new Date().toEpochDay());
+    }
+
+    /**
+     * Deducts money from the account on the given day and updates the balance.
+     * Used to replay a withdrawal from a Journal on the day it first took place.
+     *
+     * @param amount   quantity of money deducted from the account, in cents
+     * @param epochDay the date of the withdrawal as the number of days from 1/1/1970
+     * @return true if successfully withdrawn, false otherwise
+     */
+    boolean withdraw(long amount, int epochDay) {
+        return withdraw(amount, epochDay, true);
+    }
+
+    /**
+     * Deducts money from the account on the given day, checking the balance first or not.
+     * A withdrawal that is not checked already passed the check when it first took place, and is replayed from a Journal.
+     *
+     * @param amount   quantity of money deducted from the account, in cents
+     * @param epochDay the date of the withdrawal as the number of days from 1/1/1970
+     * @param checked  true to refuse the withdrawal if the balance is less than the amount
+     * @return true if successfully withdrawn, false otherwise
+     */
+    boolean withdraw(long amount, int epochDay, boolean checked) {
+        startChange();
+        try {
+            long left = checked ? takeBalance(amount) : addBalance(-amount);
+            if (checked && left < 0) {
+                balanceChanged('W', left + amount);
+                return false;
+            }
+            record(ActivityLog.NONE, epochDay, this.getAccountNumber().getBranch(), 'W', amount, false);
+            withdrawn();
+            balanceChanged('W', left);
+            return true;
+        } finally {
+            finishChange();
         }
-        this.balance -= amount;
-        Activity activity = new Activity(new Date(), this.getAccountNumber().getBranch(), 'W', amount, false);
-        addActivity(activity);
-        return true;
     }
 
     /**
@@ -150,23 +571,57 @@ public abstract class Account implements Comparable<Account> {
      *
      * @param date   the date when the withdrawal takes place
      * @param branch the branch where the withdrawal occurs
-     * @param amount the amount to be withdrawn from the account balance
+     * @param amount the amount to be withdrawn from the account balance, in cents
      */
-    public void withdraw(Date date, Branch branch, double amount) {
-        this.balance -= amount;
-        Activity activity = new Activity(date, branch, 'W', amount, true);
-        addActivity(activity);
+    public void withdraw(Date date, Branch branch, long amount) {
+        withdraw(date.toEpochDay(), branch, amount, ActivityLog.NONE);
+    }
+
+    /**
+     * Deducts the specified amount from the account balance and records the withdrawal
+     * at a position reserved in the log of the AccountDatabase holding the account.
+     *
+     * @param epochDay the date of the withdrawal as the number of days from 1/1/1970
+     * @param branch   the branch where the withdrawal occurs
+     * @param amount   the amount to be withdrawn from the account balance, in cents
+     * @param position the reserved position in the log, or ActivityLog.NONE to append the activity
+     */
+    void withdraw(int epochDay, Branch branch, long amount, int position) {
+        startChange();
+        try {
+            addBalance(-amount);
+            record(position, epochDay, branch, 'W', amount, true);
+            withdrawn();
+        } finally {
+            finishChange();
+        }
     }
 
     /**
      * Adds money to the account and updates the balance.
      *
-     * @param amount quantity of money added to the account
+     * @param amount quantity of money added to the account, in cents
      */
-    public void deposit(double amount) { //to update the balance
-        this.balance += amount;
-        Activity activity = new Activity(new Date(), this.getAccountNumber().getBranch(), 'D', amount, false);
-        addActivity(activity);
+    public void deposit(long amount) { //to update the balance
+        deposit(amount, new Date().toEpochDay());
+    }
+
+    /**
+     * Adds money to the account on the given day and updates the balance.
+     * Used to replay a deposit from a Journal on the day it first took place.
+     *
+     * @param amount   quantity of money added to the account, in cents
+     * @param epochDay the date of the deposit as the number of days from 1/1/1970
+     */
+    void deposit(long amount, int epochDay) {
+        startChange();
+        try {
+            long left = addBalance(amount);
+            record(ActivityLog.NONE, epochDay, this.getAccountNumber().getBranch(), 'D', amount, false);
+            balanceChanged('D', left);
+        } finally {
+            finishChange();
+        }
     }
 
     /**
@@ -175,12 +630,29 @@ public abstract class Account implements Comparable<Account> {
      *
      * @param date   the date on which the deposit occurs
      * @param branch the branch where the deposit is made
-     * @param amount the amount of money to be deposited into the account
+     * @param amount the amount of money to be deposited into the account, in cents
      */
-    public void deposit(Date date, Branch branch, double amount) {
-        this.balance += amount;
-        Activity activity = new Activity(date, branch, 'D', amount, true);
-        addActivity(activity);
+    public void deposit(Date date, Branch branch, long amount) {
+        deposit(date.toEpochDay(), branch, amount, ActivityLog.NONE);
+    }
+
+    /**
+     * Adds money to the account and records the deposit
+     * at a position reserved in the log of the AccountDatabase holding the account.
+     *
+     * @param epochDay the date of the deposit as the number of days from 1/1/1970
+     * @param branch   the branch where the deposit is made
+     * @param amount   the amount of money to be deposited into the account, in cents
+     * @param position the reserved position in the log, or ActivityLog.NONE to append the activity
+     */
+    void deposit(int epochDay, Branch branch, long amount, int position) {
+        startChange();
+        try {
+            addBalance(amount);
+            record(position, epochDay, branch, 'D', amount, true);
+        } finally {
+            finishChange();
+        }
     }
 
     /**
@@ -193,12 +665,12 @@ public abstract class Account implements Comparable<Account> {
     }
 
     /**
-     * Returns a double value that represents the balance of an Account.
+     * Returns the balance of an Account in cents.
      *
-     * @return balance of an Account
+     * @return balance of an Account, in cents
      */
-    public double getBalance() {
-        return this.balance;
+    public long getBalance() {
+        return table == null ? (long) BALANCE.getAcquire(this) : table.getBalance(row);
     }
 
     /**
@@ -208,7 +680,7 @@ public abstract class Account implements Comparable<Account> {
      * @return AccountType of the account
      */
     public AccountType getType() {
-        return this.number.getType();
+        return this.getAccountNumber().getType();
     }
 
     /**
@@ -217,7 +689,7 @@ public abstract class Account implements Comparable<Account> {
      * @return first name of an Account
      */
     public String getFirstName() {
-        return this.holder.getFirstName();
+        return this.getHolder().getFirstName();
     }
 
     /**
@@ -226,7 +698,7 @@ public abstract class Account implements Comparable<Account> {
      * @return last name of an Account
      */
     public String getLastName() {
-        return this.holder.getLastName();
+        return this.getHolder().getLastName();
     }
 
     /**
@@ -235,7 +707,7 @@ public abstract class Account implements Comparable<Account> {
      * @return Date object representation of date of birth
      */
     public Date getDateOfBirth() {
-        return this.holder.getDateOfBirth();
+        return this.getHolder().getDateOfBirth();
     }
 
     /**
@@ -247,7 +719,7 @@ public abstract class Account implements Comparable<Account> {
      * 1 if first AccountType is greater than second
      */
     public int compareByAccountType(Account other) {
-        int cmp = this.number.getType().compareTo(other.number.getType());
+        int cmp = this.getType().compareTo(other.getType());
         if (cmp != 0) {
             return cmp;
         }
@@ -283,40 +755,41 @@ public abstract class Account implements Comparable<Account> {
     /**
      * Prints the list of activities associated with this account.
      *
-     * @return String representation of all the Activities of an Account
+     * @param returnString the StringBuilder the Activities of the Account are appended to
      */
-    private String printActivities() {
-        StringBuilder returnString = new StringBuilder();
-        if (!this.activities.isEmpty()) {
+    private void printActivities(StringBuilder returnString) {
+        ActivityView activities = getActivities();
+        if (!activities.isEmpty()) {
             returnString.append("\t[Activity]\n");
         }
-        for (Activity activity : this.activities) {
-            returnString.append("\t\t").append(activity).append("\n");
+        for (Activity activity : activities) {
+            returnString.append("\t\t");
+            activity.appendTo(returnString);
+            returnString.append("\n");
         }
-
-        return returnString.toString();
     }
 
     /**
      * Prints the interest and fee amounts for the account in a formatted manner.
      *
-     * @param interest the interest amount to be displayed
-     * @param fee      the fee amount to be displayed
-     * @return String that represents the interest fee formatted
+     * @param returnString the StringBuilder the formatted interest and fee are appended to
+     * @param interest     the interest amount to be displayed, in cents
+     * @param fee          the fee amount to be displayed, in cents
      */
-    private String printInterestFee(double interest, double fee) {
-        return ("\t[interest] $" + df.format(interest) + " [Fee] $" + df.format(fee) + "\n");
+    private void printInterestFee(StringBuilder returnString, long interest, long fee) {
+        Money.format(interest, returnString.append("\t[interest] $"));
+        Money.format(fee, returnString.append(" [Fee] $")).append("\n");
     }
 
     /**
      * Prints the account balance after adding the given interest and deducting the given fee.
      *
-     * @param interest the interest amount to be added to the balance
-     * @param fee      the fee amount to be deducted from the balance
-     * @return String that represents the balance based on interest and fee
+     * @param returnString the StringBuilder the formatted balance is appended to
+     * @param interest     the interest amount to be added to the balance, in cents
+     * @param fee          the fee amount to be deducted from the balance, in cents
      */
-    private String printBalance(double interest, double fee) {
-        return ("\t[Balance] $" + df.format(balance + interest - fee) + "\n");
+    private void printBalance(StringBuilder returnString, long interest, long fee) {
+        Money.format(getBalance() + interest - fee, returnString.append("\t[Balance] $")).append("\n");
     }
 
     /**
@@ -342,9 +815,7 @@ public abstract class Account implements Comparable<Account> {
         if (cmp != 0) {
             return cmp;
         }
-        int aNumber = Integer.parseInt(this.getAccountNumber().toString());
-        int bNumber = Integer.parseInt(other.getAccountNumber().toString());
-        return aNumber - bNumber;
+        return this.getAccountNumber().compareTo(other.getAccountNumber());
     }
 
     /**
@@ -354,7 +825,8 @@ public abstract class Account implements Comparable<Account> {
      */
     @Override
     public String toString() {
-        return "Account#[" + this.number + "] Holder[" + this.holder + "] Balance[$" + df.format(this.balance) + "] Branch[" + this.getAccountNumber().getBranch() + "]";
+        AccountNumber accountNumber = this.getAccountNumber();
+        return "Account#[" + accountNumber + "] Holder[" + this.getHolder() + "] Balance[$" + Money.format(this.getBalance()) + "] Branch[" + accountNumber.getBranch() + "]";
     }
 
     /**
@@ -368,8 +840,18 @@ public abstract class Account implements Comparable<Account> {
     public boolean equals(Object obj) {
         if (obj instanceof Account) {
             Account other = (Account) obj;
-            return other.number.equals(this.number);
+            return other.getAccountNumber().equals(this.getAccountNumber());
         }
         return false;
     }
+
+    /**
+     * Returns a hash code for the Account that is consistent with equals.
+     *
+     * @return the hash code of the AccountNumber
+     */
+    @Override
+    public int hashCode() {
+        return this.getAccountNumber().hashCode();
+    }
 }
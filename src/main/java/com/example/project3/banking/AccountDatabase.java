@@ -1,18 +1,33 @@
 package com.example.project3.banking;
 
 import com.example.project3.util.Date;
+import com.example.project3.util.HashMap;
+import com.example.project3.util.IntHashIndex;
 import com.example.project3.util.List;
 import com.example.project3.util.Sort;
+import com.example.project3.util.SortedList;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.Scanner;
+import java.util.Comparator;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * The AccountDatabase class holds the information regarding all the bank accounts.
  * A new account is always added to the end of the array. An instance of this class is a growable list
- * with an initial array capacity of 4, and it automatically increases the capacity by 4 whenever it is full.
+ * with an initial array capacity of 4 unless a capacity is given, and it grows by half whenever it is full.
  * The list does not decrease in capacity.
+ * A hash index from the packed account number to the position of each account is kept in sync with the list,
+ * so finding an account by its AccountNumber takes the same time no matter how many accounts are stored.
+ * A second index groups the accounts by holder, so the accounts of one customer are found without scanning the list.
+ * Three sorted views (by branch, by holder, and by account type) are updated as accounts are added and removed,
+ * so reports can be printed in order without sorting or reordering the list itself.
+ * The deposits and withdrawals of all accounts are stored together in one columnar ActivityLog.
+ * Once most of the log belongs to accounts that were closed or removed, the activities of the accounts still in the
+ * database are copied to a new log and the old one is dropped, so closed accounts do not stay on the heap.
+ * Many deposits and withdrawals can be applied together with applyBatch, which looks up each account once.
+ * If the database is given an AccountTable, the account number, holder, balance, and the other values of every
+ * account are stored in fixed-size records outside the Java heap while the account is in the database.
  *
  * @author Vishal Saravanan, Yining Chen
  */
@@ -23,6 +38,96 @@ public class AccountDatabase extends List<Account> {
      */
     private final Archive archive;
 
+    /**
+     * Smallest number of transactions of a batch worth applying in several partitions at the same time.
+     */
+    private static final int PARALLEL_BATCH_SIZE = 1 << 14;
+
+    /**
+     * Smallest number of activities of removed accounts worth copying the rest of the log to a new log.
+     */
+    private static final int MIN_DROPPED_ACTIVITIES = 1 << 12;
+
+    /**
+     * Maps the packed AccountNumber of every account to its position in the list.
+     */
+    private final IntHashIndex positions;
+
+    /**
+     * Maps each holder Profile to the accounts it holds. Profile equality and hashing ignore the case of the names.
+     */
+    private final HashMap<Profile, List<Account>> holders;
+
+    /**
+     * Log shared by every account in the database that stores all their deposits and withdrawals.
+     * Replaced by a compacted copy once most of it belongs to accounts no longer in the database.
+     */
+    private volatile ActivityLog activityLog;
+
+    /**
+     * Number of activities in the log that belong to accounts no longer in the database.
+     */
+    private int droppedActivities;
+
+    /**
+     * Table storing the records of the accounts outside the Java heap, or null if accounts hold their own values.
+     */
+    private final AccountTable accountTable;
+
+    /**
+     * Journal the changes of the database are recorded in, or null if they are not recorded.
+     */
+    private volatile Journal journal;
+
+    /**
+     * Number of journal records whose changes are in the database, which is also the number of the next record.
+     */
+    private long sequence;
+
+    /**
+     * Latest position reached in each input file applied in batches, saved and restored with the database.
+     */
+    private final List<ImportPosition> importPositions = new List<>();
+
+    /**
+     * Orders accounts by county and city, ignoring case; accounts at the same branch are kept in the order they were created.
+     */
+    private static final Comparator<Account> BRANCH_ORDER = (a, b) -> {
+        int cmp = Long.compare(Sort.branchKey(a), Sort.branchKey(b));
+        return cmp != 0 ? cmp : Integer.compare(a.getId(), b.getId());
+    };
+
+    /**
+     * Orders accounts by holder name, date of birth, and account number, as Account.compareTo does.
+     */
+    private static final Comparator<Account> HOLDER_ORDER = (a, b) -> {
+        int cmp = a.compareTo(b);
+        return cmp != 0 ? cmp : Integer.compare(a.getId(), b.getId());
+    };
+
+    /**
+     * Orders accounts by account type and account number, as compareByAccountType does.
+     */
+    private static final Comparator<Account> TYPE_ORDER = (a, b) -> {
+        int cmp = Long.compare(Sort.typeKey(a), Sort.typeKey(b));
+        return cmp != 0 ? cmp : Integer.compare(a.getId(), b.getId());
+    };
+
+    /**
+     * Accounts ordered by branch location (county, city).
+     */
+    private final SortedList<Account> byBranch = new SortedList<>(BRANCH_ORDER);
+
+    /**
+     * Accounts ordered by account holder and account number.
+     */
+    private final SortedList<Account> byHolder = new SortedList<>(HOLDER_ORDER);
+
+    /**
+     * Accounts ordered by account type and account number.
+     */
+    private final SortedList<Account> byType = new SortedList<>(TYPE_ORDER);
+
     /**
      * Constructs an empty AccountDatabase object.
      * Initializes a new Archive instance that will store accounts that have been closed.
@@ -30,6 +135,463 @@ public class AccountDatabase extends List<Account> {
     public AccountDatabase() {
         super();
         this.archive = new Archive();
+        this.positions = new IntHashIndex();
+        this.holders = new HashMap<>();
+        this.activityLog = new ActivityLog();
+        this.accountTable = null;
+    }
+
+    /**
+     * Constructs an empty AccountDatabase object that stores the records of its accounts in the given table.
+     * The table is closed by its owner once the database is no longer used.
+     *
+     * @param accountTable the table the records of the accounts are stored in
+     */
+    public AccountDatabase(AccountTable accountTable) {
+        super();
+        this.archive = new Archive();
+        this.positions = new IntHashIndex();
+        this.holders = new HashMap<>();
+        this.activityLog = new ActivityLog();
+        this.accountTable = accountTable;
+    }
+
+    /**
+     * Constructs an empty AccountDatabase object with room for the given number of accounts.
+     *
+     * @param expectedSize the number of accounts the database is expected to hold
+     */
+    public AccountDatabase(int expectedSize) {
+        super(expectedSize);
+        this.archive = new Archive();
+        this.positions = new IntHashIndex(expectedSize);
+        this.holders = new HashMap<>();
+        this.activityLog = new ActivityLog();
+        this.accountTable = null;
+    }
+
+    /**
+     * Makes sure the AccountDatabase and its index can hold the given number of accounts without growing again.
+     *
+     * @param minCapacity the number of accounts the database must be able to hold
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        super.ensureCapacity(minCapacity);
+        positions.ensureCapacity(minCapacity);
+    }
+
+    /**
+     * Adds an Account to the end of the AccountDatabase and records its position in the index.
+     * If the database has a Journal, returns once the opening of the account is durable.
+     *
+     * @param account the Account to be added
+     */
+    @Override
+    public void add(Account account) {
+        applyAdd(account);
+        awaitJournal();
+    }
+
+    /**
+     * Adds an Account and records it in the Journal, without waiting for the record to be durable.
+     *
+     * @param account the Account to be added
+     */
+    void applyAdd(Account account) {
+        if (journal != null) {
+            journal.logOpen(account);
+        }
+        super.add(account);
+        positions.put(account.getAccountNumber().intValue(), this.size() - 1);
+        addToIndexes(account);
+    }
+
+    /**
+     * Adds every Account of a list to the end of the AccountDatabase and indexes them.
+     * If the database has a Journal, returns once all of them are durable, waiting for one commit only.
+     *
+     * @param accounts the accounts to be added
+     */
+    @Override
+    public void addAll(List<? extends Account> accounts) {
+        applyAddAll(accounts);
+        awaitJournal();
+    }
+
+    /**
+     * Adds every Account of a list and records them in the Journal, without waiting for the records to be durable.
+     *
+     * @param accounts the accounts to be added
+     */
+    void applyAddAll(List<? extends Account> accounts) {
+        ensureCapacity(this.size() + accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            applyAdd(accounts.get(i));
+        }
+    }
+
+    /**
+     * Adds every Account of an array to the end of the AccountDatabase and indexes them.
+     * If the database has a Journal, returns once all of them are durable, waiting for one commit only.
+     *
+     * @param accounts the accounts to be added
+     */
+    @Override
+    public void addAll(Account[] accounts) {
+        applyAddAll(accounts);
+        awaitJournal();
+    }
+
+    /**
+     * Adds every Account of an array and records them in the Journal, without waiting for the records to be durable.
+     *
+     * @param accounts the accounts to be added
+     */
+    void applyAddAll(Account[] accounts) {
+        ensureCapacity(this.size() + accounts.length);
+        for (Account account : accounts) {
+            applyAdd(account);
+        }
+    }
+
+    /**
+     * Removes the Account with the same AccountNumber from the AccountDatabase, if it exists.
+     *
+     * @param account the Account to be removed
+     */
+    @Override
+    public void remove(Account account) {
+        int index = find(account.getAccountNumber());
+        if (index == -1) {
+            return;
+        }
+        removeAt(index);
+    }
+
+    /**
+     * Removes the Account at the given position.
+     * The last Account is moved into the emptied position, and its index entry is moved with it.
+     *
+     * @param index the position of the Account to be removed
+     */
+    @Override
+    public void removeAt(int index) {
+        int last = this.size() - 1;
+        removeFromIndexes(this.get(index));
+        positions.remove(this.get(index).getAccountNumber().intValue(), index);
+        if (index != last) {
+            positions.replace(this.get(last).getAccountNumber().intValue(), last, index);
+        }
+        super.removeAt(index);
+        compactIfMostlyDropped();
+    }
+
+    /**
+     * Removes the Account at the given position and shifts the later Accounts towards the beginning,
+     * updating the index entry of every shifted Account.
+     *
+     * @param index the position of the Account to be removed
+     * @return the Account that was removed
+     */
+    @Override
+    public Account removeOrdered(int index) {
+        Account removed = super.removeOrdered(index);
+        positions.remove(removed.getAccountNumber().intValue(), index);
+        removeFromIndexes(removed);
+        for (int i = index; i < this.size(); i++) {
+            positions.replace(this.get(i).getAccountNumber().intValue(), i + 1, i);
+        }
+        compactIfMostlyDropped();
+        return removed;
+    }
+
+    /**
+     * Removes every Account from the AccountDatabase and clears both indexes. The Archive is kept,
+     * and the activities of the removed Accounts are dropped with the log.
+     * Accounts stored in the AccountTable get their values back before their records are freed.
+     */
+    @Override
+    public void clear() {
+        if (accountTable != null) {
+            for (int i = 0; i < this.size(); i++) {
+                this.get(i).unstore();
+            }
+        }
+        super.clear();
+        positions.clear();
+        holders.clear();
+        byBranch.clear();
+        byHolder.clear();
+        byType.clear();
+        activityLog = new ActivityLog();
+        droppedActivities = 0;
+    }
+
+    /**
+     * Sorts the Accounts with the given Comparator and records the new position of every Account in the index.
+     *
+     * @param comparator the Comparator that decides the order of the Accounts
+     */
+    @Override
+    public void sort(Comparator<? super Account> comparator) {
+        super.sort(comparator);
+        reindex();
+    }
+
+    /**
+     * Replaces the Accounts with the same Accounts in a new order and records the new position of every Account.
+     *
+     * @param accounts every Account of the database, in the new order
+     */
+    @Override
+    public void reorder(Account[] accounts) {
+        super.reorder(accounts);
+        reindex();
+    }
+
+    /**
+     * Rebuilds the index from AccountNumber to position after the Accounts have been reordered.
+     */
+    protected void reindex() {
+        positions.clear();
+        for (int i = 0; i < this.size(); i++) {
+            positions.put(this.get(i).getAccountNumber().intValue(), i);
+        }
+    }
+
+    /**
+     * Replaces the Account at the given position and updates the index for both Accounts.
+     *
+     * @param index   the position in the AccountDatabase
+     * @param account the Account to be stored at that position
+     */
+    @Override
+    public void set(int index, Account account) {
+        removeFromIndexes(this.get(index));
+        positions.remove(this.get(index).getAccountNumber().intValue(), index);
+        super.set(index, account);
+        positions.put(account.getAccountNumber().intValue(), index);
+        addToIndexes(account);
+        compactIfMostlyDropped();
+    }
+
+    /**
+     * Adds an Account to the list of accounts of its holder and to the sorted views,
+     * moves its activities into the shared activity log, and moves its values into the AccountTable if there is one.
+     *
+     * @param account the Account being indexed
+     */
+    private void addToIndexes(Account account) {
+        account.attach(activityLog);
+        if (accountTable != null) {
+            account.store(accountTable);
+        }
+        byBranch.add(account);
+        byHolder.add(account);
+        byType.add(account);
+        List<Account> accounts = holders.get(account.getHolder());
+        if (accounts == null) {
+            accounts = new List<>();
+            holders.put(account.getHolder(), accounts);
+        }
+        accounts.add(account);
+    }
+
+    /**
+     * Removes an Account from the list of accounts of its holder and from the sorted views.
+     * The holder is removed from the index once it has no accounts left,
+     * the Account gets its values back from the AccountTable, and its activities are counted as dropped from the log.
+     *
+     * @param account the Account being removed from the index
+     */
+    private void removeFromIndexes(Account account) {
+        account.unstore();
+        if (account.activityLog() == activityLog) {
+            droppedActivities += account.getActivities().size();
+        }
+        byBranch.remove(account);
+        byHolder.remove(account);
+        byType.remove(account);
+        List<Account> accounts = holders.get(account.getHolder());
+        if (accounts == null) {
+            return;
+        }
+        for (int i = 0; i < accounts.size(); i++) {
+            if (accounts.get(i) == account) {
+                accounts.removeAt(i);
+                break;
+            }
+        }
+        if (accounts.isEmpty()) {
+            holders.remove(account.getHolder());
+        }
+    }
+
+    /**
+     * Copies the activities of the accounts still in the database to a new log once most of the log belongs to
+     * accounts that were closed or removed, so the log does not grow with the Archive.
+     */
+    private void compactIfMostlyDropped() {
+        if (droppedActivities >= MIN_DROPPED_ACTIVITIES && droppedActivities > activityLog.size() / 2) {
+            compactActivities();
+        }
+    }
+
+    /**
+     * Copies the activities of every account still in the database, in order, to a new log that replaces the shared
+     * log, leaving out the activities of accounts that were closed or removed, such as the closed accounts of a
+     * restored snapshot of an old version. Positions in the old log never change, so a view of activities taken
+     * before keeps reading the old log. The caller holds the exclusive lock, if any.
+     */
+    void compactActivities() {
+        long live = 0;
+        for (int i = 0; i < this.size(); i++) {
+            live += at(i).getActivities().size();
+        }
+        if (live != activityLog.size()) {
+            ActivityLog compacted = new ActivityLog((int) live);
+            for (int i = 0; i < this.size(); i++) {
+                at(i).attach(compacted);
+            }
+            activityLog = compacted;
+        }
+        droppedActivities = 0;
+    }
+
+    /**
+     * Returns the position of the given Account object in the list.
+     *
+     * @param account the Account being searched for
+     * @return the index of the Account, or -1 if it is not in the AccountDatabase
+     */
+    private int position(Account account) {
+        int index = find(account.getAccountNumber());
+        if (index == -1 || this.get(index) == account) {
+            return index;
+        }
+        for (int i = 0; i < this.size(); i++) { //another account has the same number, which is rare
+            if (this.get(i) == account) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns every Account of a holder, in the order they appear in the AccountDatabase.
+     * Takes time proportional to the number of accounts of the holder.
+     *
+     * @param holder Profile of the account holder
+     * @return a list of the holder's accounts, empty if the holder has none
+     */
+    public List<Account> findAll(Profile holder) {
+        List<Account> found = new List<>();
+        List<Account> accounts = holders.get(holder);
+        if (accounts == null) {
+            return found;
+        }
+        int[] indexes = new int[accounts.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = position(accounts.get(i));
+            for (int j = i; j > 0 && indexes[j - 1] > indexes[j]; j--) { //insertion sort, a holder has few accounts
+                int temp = indexes[j];
+                indexes[j] = indexes[j - 1];
+                indexes[j - 1] = temp;
+            }
+        }
+        for (int index : indexes) {
+            found.add(this.get(index));
+        }
+        return found;
+    }
+
+    /**
+     * Closes every Account of a holder and moves them to the Archive.
+     * Accounts are closed in the order they appear in the AccountDatabase.
+     * If the database has a Journal, returns once every closing is durable.
+     *
+     * @param holder    Profile of the account holder
+     * @param closeDate the Date on which the accounts are closed
+     */
+    public void closeAccounts(Profile holder, Date closeDate) {
+        applyCloseAll(holder, closeDate);
+        awaitJournal();
+    }
+
+    /**
+     * Closes every Account of a holder and records them in the Journal, without waiting for the records to be durable.
+     *
+     * @param holder    Profile of the account holder
+     * @param closeDate the Date on which the accounts are closed
+     */
+    void applyCloseAll(Profile holder, Date closeDate) {
+        List<Account> accounts = findAll(holder);
+        for (int i = 0; i < accounts.size(); i++) {
+            applyClose(accounts.get(i), closeDate);
+        }
+    }
+
+    /**
+     * Checks if an Account with the same AccountNumber is in the AccountDatabase.
+     *
+     * @param account the Account being searched for
+     * @return true if the Account is found, false otherwise
+     */
+    @Override
+    public boolean contains(Account account) {
+        return find(account.getAccountNumber()) != -1;
+    }
+
+    /**
+     * Returns the position of the Account with the same AccountNumber.
+     *
+     * @param account the Account being searched for
+     * @return the index of the Account, or -1 if it is not found
+     */
+    @Override
+    public int indexOf(Account account) {
+        return find(account.getAccountNumber());
+    }
+
+    /**
+     * Returns the Accounts ordered by branch location: by county, then by city, ignoring case.
+     * The view is kept up to date as Accounts are added and closed.
+     *
+     * @return the Accounts in branch order
+     */
+    public Iterable<Account> viewByBranch() {
+        return byBranch;
+    }
+
+    /**
+     * Returns the Accounts ordered by holder last name, first name, date of birth, and account number.
+     * The view is kept up to date as Accounts are added and closed.
+     *
+     * @return the Accounts in holder order
+     */
+    public Iterable<Account> viewByHolder() {
+        return byHolder;
+    }
+
+    /**
+     * Returns the Accounts ordered by account type and account number.
+     * The view is kept up to date as Accounts are added and closed.
+     *
+     * @return the Accounts in account type order
+     */
+    public Iterable<Account> viewByType() {
+        return byType;
+    }
+
+    /**
+     * Returns the log that stores the activities of every account in the AccountDatabase. It may still hold the
+     * activities of accounts that have since been closed, until the log is compacted.
+     *
+     * @return the shared ActivityLog
+     */
+    public ActivityLog getActivityLog() {
+        return activityLog;
     }
 
     /**
@@ -41,53 +603,315 @@ public class AccountDatabase extends List<Account> {
         return archive;
     }
 
+    /**
+     * Returns the table the records of the accounts are stored in.
+     *
+     * @return the AccountTable, or null if accounts hold their own values
+     */
+    public AccountTable getAccountTable() {
+        return accountTable;
+    }
+
+    /**
+     * Returns the Journal the changes of the database are recorded in.
+     *
+     * @return the Journal, or null if changes are not recorded
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Starts or stops recording the changes of the database in a Journal. Called by the Journal itself.
+     *
+     * @param journal the Journal, or null to stop recording
+     */
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the number of journal records whose changes are in the database.
+     * A Snapshot saves this number so that replaying the journal skips the records already in the snapshot.
+     *
+     * @return the number of the next journal record
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the number of journal records whose changes are in the database.
+     *
+     * @param sequence the number of the next journal record
+     */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the latest position reached in an input file applied in batches.
+     *
+     * @param source the name of the source
+     * @return the position of the source, or null if none was recorded
+     */
+    public ImportPosition getPosition(String source) {
+        synchronized (importPositions) {
+            for (int i = 0; i < importPositions.size(); i++) {
+                if (importPositions.get(i).getSource().equals(source)) {
+                    return importPositions.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns the latest position of every source, in the order the sources were first recorded.
+     *
+     * @return a copy of the positions
+     */
+    ImportPosition[] getPositions() {
+        synchronized (importPositions) {
+            ImportPosition[] copy = new ImportPosition[importPositions.size()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = importPositions.get(i);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Records the position reached in an input file, replacing the previous position of the same source.
+     * If the database has a Journal, the position is recorded in it, in the same group as the batch that reached it
+     * when the caller has begun one.
+     *
+     * @param position the position reached
+     */
+    void setPosition(ImportPosition position) {
+        if (journal != null) {
+            journal.logPosition(position);
+        }
+        synchronized (importPositions) {
+            for (int i = 0; i < importPositions.size(); i++) {
+                if (importPositions.get(i).getSource().equals(position.getSource())) {
+                    importPositions.set(i, position);
+                    return;
+                }
+            }
+            importPositions.add(position);
+        }
+    }
+
     /**
      * Deposits money into an Account which will increase the Account's balance.
      * Searches through the AccountDatabase for the Account before depositing the amount of money into that Account.
      * Does nothing if Account is not found using the number.
+     * If the database has a Journal, returns once the deposit is durable.
      *
      * @param number AccountNumber that identifies the account
-     * @param amount value of money that will be deposited
+     * @param amount value of money that will be deposited, in cents
      */
-    public void deposit(AccountNumber number, double amount) {
-        for (int i = 0; i < this.size(); i++) {
-            if (this.get(i).getAccountNumber().equals(number)) {
-                this.get(i).deposit(amount);
-                return;
-            }
+    public void deposit(AccountNumber number, long amount) {
+        applyDeposit(number, amount);
+        awaitJournal();
+    }
+
+    /**
+     * Deposits money into an Account and records it in the Journal, without waiting for the record to be durable.
+     *
+     * @param number AccountNumber that identifies the account
+     * @param amount value of money that will be deposited, in cents
+     */
+    void applyDeposit(AccountNumber number, long amount) {
+        int index = find(number);
+        if (index == -1) {
+            return;
         }
+        int today = new Date().toEpochDay();
+        if (journal != null) {
+            journal.logTransaction(false, number.intValue(), amount, today);
+        }
+        this.get(index).deposit(amount, today);
     }
 
     /**
      * Checks if money can be withdrawn from an account.
      * If the AccountType is Money Market and the balance falls below 2000, changes the AccountType to a savings account.
      *
+     * If the database has a Journal, returns once the withdrawal is durable.
+     *
      * @param number AccountNumber that identifies the Account
-     * @param amount value of money that will be withdrawn
+     * @param amount value of money that will be withdrawn, in cents
      * @return true if the amount can be withdrawn
      * false otherwise
      */
-    public boolean withdraw(AccountNumber number, double amount) {
+    public boolean withdraw(AccountNumber number, long amount) {
+        boolean withdrawn = applyWithdraw(number, amount);
+        awaitJournal();
+        return withdrawn;
+    }
+
+    /**
+     * Withdraws money from an Account and records it in the Journal, without waiting for the record to be durable.
+     *
+     * @param number AccountNumber that identifies the Account
+     * @param amount value of money that will be withdrawn, in cents
+     * @return true if the amount can be withdrawn, false otherwise
+     */
+    boolean applyWithdraw(AccountNumber number, long amount) {
         int index = find(number);
         if (index == -1) {
             return false;
         }
         Account account = this.get(index);
+        int today = new Date().toEpochDay();
+        if (journal != null) {
+            journal.logTransaction(true, number.intValue(), amount, today);
+        }
+        return account.withdraw(amount, today);
+    }
 
-        return account.withdraw(amount);
+    /**
+     * Applies a batch of deposits and withdrawals, in the order they were added to the batch,
+     * as they are applied from an activities file: withdrawals are not checked against the balance.
+     * The transactions are grouped by account, keeping their order within each account, so each account is looked up
+     * once. Positions in the ActivityLog are reserved for all of them at once, in batch order, so the log ends up the
+     * same as if they had been applied one by one. If the database has a Journal, the transactions are recorded in it
+     * as one batch record, in batch order, before any of them is applied, and the batch is forced to disk with one
+     * commit before applyBatch returns.
+     *
+     * @param batch the transactions to apply
+     * @return the result of each transaction, APPLIED or UNKNOWN_ACCOUNT, in batch order
+     */
+    public byte[] applyBatch(TransactionBatch batch) {
+        return applyBatch(batch, 1);
+    }
+
+    /**
+     * Applies a batch of deposits and withdrawals, dividing the accounts between the given number of partitions
+     * that are applied at the same time when the batch is large. Every transaction of an account is applied by the
+     * partition of that account, in batch order, and each one fills in its own reserved position of the log.
+     *
+     * @param batch      the transactions to apply
+     * @param partitions the number of partitions applied at the same time
+     * @return the result of each transaction, APPLIED or UNKNOWN_ACCOUNT, in batch order
+     * @throws IllegalArgumentException if the number of partitions is not positive
+     */
+    public byte[] applyBatch(TransactionBatch batch, int partitions) {
+        byte[] results = applyTransactions(batch, partitions);
+        Journal recording = journal;
+        if (recording != null) {
+            recording.commitNow();
+        }
+        return results;
+    }
+
+    /**
+     * Applies a batch of deposits and withdrawals and records it in the Journal,
+     * without waiting for the batch record to be durable.
+     *
+     * @param batch      the transactions to apply
+     * @param partitions the number of partitions applied at the same time
+     * @return the result of each transaction, APPLIED or UNKNOWN_ACCOUNT, in batch order
+     * @throws IllegalArgumentException if the number of partitions is not positive
+     */
+    byte[] applyTransactions(TransactionBatch batch, int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Invalid number of partitions: " + partitions);
+        }
+        int size = batch.size();
+        byte[] results = new byte[size];
+        IntHashIndex groupOf = new IntHashIndex(size);
+        int[] accounts = new int[size]; //position in the database of the account of each group, or -1
+        int[] heads = new int[size];
+        int[] tails = new int[size];
+        int[] next = new int[size];
+        int groups = 0;
+        int applied = 0;
+        for (int i = 0; i < size; i++) {
+            int number = batch.getNumber(i);
+            int group = groupOf.get(number);
+            if (group == IntHashIndex.NOT_FOUND) {
+                group = groups++;
+                groupOf.put(number, group);
+                accounts[group] = locate(number);
+                heads[group] = ActivityLog.NONE;
+            }
+            next[i] = ActivityLog.NONE;
+            if (accounts[group] == -1) {
+                results[i] = TransactionBatch.UNKNOWN_ACCOUNT;
+                continue;
+            }
+            if (heads[group] == ActivityLog.NONE) {
+                heads[group] = i;
+            } else {
+                next[tails[group]] = i;
+            }
+            tails[group] = i;
+            applied++;
+        }
+        if (applied == 0) {
+            return results;
+        }
+        if (journal != null) {
+            journal.logBatch(batch, results, applied);
+        }
+        int[] positions = new int[size];
+        int position = activityLog.reserve(applied);
+        for (int i = 0; i < size; i++) {
+            if (results[i] == TransactionBatch.APPLIED) {
+                positions[i] = position++;
+            }
+        }
+        int groupCount = groups;
+        int parts = applied < PARALLEL_BATCH_SIZE ? 1 : Math.min(partitions, groupCount);
+        IntStream partitionStream = IntStream.range(0, parts);
+        (parts > 1 ? partitionStream.parallel() : partitionStream).forEach(partition -> {
+            for (int group = partition; group < groupCount; group += parts) {
+                if (accounts[group] == -1) {
+                    continue;
+                }
+                Account account = at(accounts[group]);
+                for (int i = heads[group]; i != ActivityLog.NONE; i = next[i]) {
+                    if (batch.getType(i) == 'W') {
+                        account.withdraw(batch.getEpochDay(i), batch.getLocation(i), batch.getAmount(i), positions[i]);
+                    } else {
+                        account.deposit(batch.getEpochDay(i), batch.getLocation(i), batch.getAmount(i), positions[i]);
+                    }
+                }
+            }
+        });
+        return results;
     }
 
     /**
      * Closes the specified account and removes it from the AccountDatabase.
+     * If the database has a Journal, returns once the closing is durable.
      *
      * @param account   the Account object to be closed
      * @param closeDate the Date on which the account is closed
      */
     public void closeAccount(Account account, Date closeDate) {
+        applyClose(account, closeDate);
+        awaitJournal();
+    }
+
+    /**
+     * Closes an Account and records it in the Journal, without waiting for the record to be durable.
+     *
+     * @param account   the Account object to be closed
+     * @param closeDate the Date on which the account is closed
+     */
+    void applyClose(Account account, Date closeDate) {
+        if (journal != null) {
+            journal.logClose(account.getAccountNumber().intValue(), closeDate);
+        }
         if (account.getAccountNumber().getType() == AccountType.CHECKING) {
-            for (int i = 0; i < this.size(); i++) {
-                if (this.get(i).getHolder().equals(account.getHolder()) && this.get(i).getAccountNumber().getType() == AccountType.SAVINGS) {
-                    ((Savings) this.get(i)).setIsLoyal(false);
+            List<Account> accounts = holders.get(account.getHolder());
+            for (int i = 0; accounts != null && i < accounts.size(); i++) {
+                if (accounts.get(i).getAccountNumber().getType() == AccountType.SAVINGS) {
+                    ((Savings) accounts.get(i)).setIsLoyal(false);
                 }
             }
         }
@@ -98,6 +922,7 @@ public class AccountDatabase extends List<Account> {
     /**
      * Finds the index of an account in the AccountDatabase based on the holder's first name,
      * last name, and date of birth. The search is case-insensitive for the names.
+     * When the holder has several accounts, the one closest to the beginning of the AccountDatabase is returned.
      *
      * @param firstName   the first name of the account holder to search for
      * @param lastName    the last name of the account holder to search for
@@ -106,48 +931,121 @@ public class AccountDatabase extends List<Account> {
      * -1 if the account is not found
      */
     public int find(String firstName, String lastName, Date dateOfBirth) {
-        for (int i = 0; i < this.size(); i++) {
-            if (this.get(i).getFirstName().equalsIgnoreCase(firstName)
-                    && this.get(i).getLastName().equalsIgnoreCase(lastName)
-                    && this.get(i).getDateOfBirth().equals(dateOfBirth)) {
-                return i;
+        List<Account> accounts = holders.get(new Profile(firstName, lastName, dateOfBirth));
+        int first = -1;
+        for (int i = 0; accounts != null && i < accounts.size(); i++) {
+            int index = position(accounts.get(i));
+            if (first == -1 || index < first) {
+                first = index;
             }
         }
-        return -1;
+        return first;
     }
 
     /**
      * Checks if Account is contained in the AccountDatabase and returns index of location in database.
-     * Searches for an Account in the AccountDatabase using AccountNumber.
+     * Looks up the position of the Account in the hash index using the packed AccountNumber.
      *
      * @param accountNumber that is being searched for
      * @return index of the Account in the AccountDatabase when found,
      * -1 otherwise
      */
     public int find(AccountNumber accountNumber) {
-        for (int i = 0; i < this.size(); i++) {
-            if (this.get(i).getAccountNumber().equals(accountNumber)) {
-                return i;
-            }
+        return find(accountNumber.intValue());
+    }
+
+    /**
+     * Finds the position of the Account with the given packed 9-digit account number,
+     * without creating an AccountNumber object.
+     *
+     * @param accountNumber the account number as an int, as returned by AccountNumber.parse
+     * @return index of the Account in the AccountDatabase when found,
+     * -1 otherwise
+     */
+    public int find(int accountNumber) {
+        return locate(accountNumber);
+    }
+
+    /**
+     * Waits until every change recorded in the Journal so far is durable, if the database has a Journal.
+     * Called once the change has been applied and every lock of the database has been released,
+     * so threads waiting for the same commit do not hold each other back.
+     */
+    private void awaitJournal() {
+        Journal recording = journal;
+        if (recording != null) {
+            recording.awaitDurable();
         }
-        return -1;
+    }
+
+    /**
+     * Finds the position of the Account with the given packed account number without taking any lock,
+     * for worker threads of a task whose caller holds the exclusive lock.
+     *
+     * @param accountNumber the account number as an int
+     * @return index of the Account when found, -1 otherwise
+     */
+    final int locate(int accountNumber) {
+        int index = positions.get(accountNumber);
+        return index == IntHashIndex.NOT_FOUND ? -1 : index;
+    }
+
+    /**
+     * Returns the Account at the given position without taking any lock,
+     * for worker threads of a task whose caller holds the exclusive lock.
+     *
+     * @param index the position of the Account
+     * @return the Account at that position
+     */
+    final Account at(int index) {
+        return super.get(index);
+    }
+
+    /**
+     * Returns the lock a task holds to be the only one reading or changing the database,
+     * for tasks that go over every account, such as saving a snapshot or applying a file of activities.
+     * An AccountDatabase is used by one thread at a time, so it has no such lock.
+     *
+     * @return the exclusive lock, or null if the database is not shared between threads
+     */
+    Lock exclusiveLock() {
+        return null;
+    }
+
+    /**
+     * Returns the lock a task holds so that no account is opened, closed, or moved while it reads every account,
+     * for tasks that let deposits and withdrawals go on meanwhile, such as exporting statements.
+     * An AccountDatabase is used by one thread at a time, so it has no such lock.
+     *
+     * @return the shared lock, or null if the database is not shared between threads
+     */
+    public Lock sharedLock() {
+        return null;
+    }
+
+    /**
+     * Reads an Account of the database so that every value read belongs to the same state of the Account.
+     * An AccountDatabase is used by one thread at a time, so the reader is simply run.
+     *
+     * @param account the Account, which must be in the database
+     * @param reader  reads the values needed from the Account, and may be run more than once
+     * @param <T>     the type of the value read
+     * @return the value returned by the reader
+     */
+    public <T> T readAccount(Account account, Function<? super Account, T> reader) {
+        return reader.apply(account);
     }
 
     /**
      * Checks if Account is contained in the AccountDatabase.
-     * Searches through the AccountDatabase for an Account using accountNumber.
+     * Looks up the AccountNumber in the hash index.
      *
      * @param accountNumber that is being searched for
      * @return true if Account is found in AccountDatabase
      * false otherwise
      */
     public boolean contains(AccountNumber accountNumber) {
-        for (int i = 0; i < this.size(); i++) {
-            if (this.get(i).getAccountNumber().equals(accountNumber)) {
-                return true;
-            }
-        }
-        return false;
+        return find(accountNumber) != -1;
     }
 
     /**
@@ -169,7 +1067,7 @@ public class AccountDatabase extends List<Account> {
 
     /**
      * Checks if an Account with the specified holder and account type exists in the AccountDatabase.
-     * Iterates through the list of accounts stored in the database.
+     * Iterates through the accounts of the holder only.
      *
      * @param holder Profile object representing the account holder to search for
      * @param type   AccountType object representing the type of account to search for
@@ -177,15 +1075,12 @@ public class AccountDatabase extends List<Account> {
      * false otherwise
      */
     public boolean contains(Profile holder, AccountType type) {
-        for (int i = 0; i < this.size(); i++) {
-            if (this.get(i).getAccountNumber().getType().equals(type) && this.get(i).getHolder().equals(holder)) {
+        List<Account> accounts = holders.get(holder);
+        for (int i = 0; accounts != null && i < accounts.size(); i++) {
+            if (accounts.get(i).getAccountNumber().getType().equals(type)) {
                 return true;
             }
         }
         return false;
     }
-
-
-
-
 }
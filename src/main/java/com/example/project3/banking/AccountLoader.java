@@ -0,0 +1,313 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.ByteText;
+import com.example.project3.util.Date;
+import com.example.project3.util.Money;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The AccountLoader class opens the accounts listed in a text file and adds them to an AccountDatabase.
+ * Each line has the form type,branch,first name,last name,date of birth,balance; a college checking line adds
+ * the campus code, and a certificate line adds the term and the date it was opened.
+ * The file is memory-mapped and each line is split into fields by position, without creating a String
+ * for every line or field. A line that cannot be read is recorded in the LoadReport with its line number,
+ * and loading continues with the next line.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class AccountLoader {
+
+    /**
+     * Largest number of bytes mapped into memory at once.
+     */
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    /**
+     * Expected number of bytes per line, used to estimate the number of accounts in a file.
+     */
+    private static final int AVERAGE_LINE_BYTES = 48;
+
+    /**
+     * Number of fields of a checking, savings, or money market line.
+     */
+    private static final int BASIC_FIELDS = 6;
+
+    /**
+     * Number of fields of a college checking line.
+     */
+    private static final int COLLEGE_FIELDS = 7;
+
+    /**
+     * Number of fields of a certificate of deposit line.
+     */
+    private static final int CERTIFICATE_FIELDS = 8;
+
+    /**
+     * Every Branch, searched when reading the branch field.
+     */
+    private static final Branch[] BRANCHES = Branch.values();
+
+    /**
+     * The database the accounts are added to.
+     */
+    private final AccountDatabase database;
+
+    /**
+     * Position of the first character of each field of the current line.
+     */
+    private final int[] fieldStart = new int[CERTIFICATE_FIELDS];
+
+    /**
+     * Position after the last character of each field of the current line.
+     */
+    private final int[] fieldEnd = new int[CERTIFICATE_FIELDS];
+
+    /**
+     * Creates an AccountLoader that adds accounts to the given database.
+     *
+     * @param database the database the accounts are added to
+     */
+    public AccountLoader(AccountDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Opens every account listed in a file and adds it to the database, in the order the lines appear.
+     * Blank lines are skipped, and lines that cannot be read are recorded as rejected.
+     *
+     * @param file the file listing the accounts
+     * @return the number of accounts loaded, the rejected lines, and the throughput
+     * @throws IOException if the file cannot be read, or a line is longer than the largest mapped window
+     */
+    public LoadReport load(Path file) throws IOException {
+        return load(file, 0, -1, 1);
+    }
+
+    /**
+     * Opens the accounts listed in part of a file and adds them to the database, in the order the lines appear.
+     * The part should start at the beginning of a line and end after a line break or at the end of the file.
+     * If the database has a Journal, the accounts of the part are forced to disk with one commit before load returns.
+     * Blank lines are skipped, and lines that cannot be read are recorded as rejected.
+     *
+     * @param file      the file listing the accounts
+     * @param from      the position in the file of the first byte to be read
+     * @param to        the position after the last byte to be read, or -1 to read to the end of the file
+     * @param firstLine the line number of the first line read, used to number the rejected lines
+     * @return the number of accounts loaded and lines read, the rejected lines, and the throughput
+     * @throws IOException              if the file cannot be read, or a line is longer than the largest mapped window
+     * @throws IllegalArgumentException if the part is not inside the file
+     */
+    public LoadReport load(Path file, long from, long to, int firstLine) throws IOException {
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        long end;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            end = to == -1 ? channel.size() : to;
+            if (from < 0 || from > end || end > channel.size()) {
+                throw new IllegalArgumentException("Invalid range " + from + "-" + to + " of " + file);
+            }
+            long expected = (end - from) / AVERAGE_LINE_BYTES + 1;
+            database.ensureCapacity((int) Math.min(database.size() + expected, Integer.MAX_VALUE - 8));
+            long position = from;
+            int lineNumber = firstLine - 1;
+            while (position < end) {
+                int length = (int) Math.min(WINDOW_SIZE, end - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                ByteText text = new ByteText(window);
+                boolean lastWindow = position + length == end;
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (window.get(i) == '\n') {
+                        loadLine(text, lineStart, i, ++lineNumber, report);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastWindow) {
+                    if (lineStart < length) {
+                        loadLine(text, lineStart, length, ++lineNumber, report);
+                    }
+                    lineStart = length;
+                } else if (lineStart == 0) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than " + WINDOW_SIZE + " bytes");
+                }
+                position += lineStart; //the next window starts at the first line not read yet
+            }
+            report.addLines(lineNumber - (firstLine - 1));
+        }
+        Journal journal = database.getJournal();
+        if (journal != null) {
+            journal.commitNow(); //the accounts of the part are committed together, not one teller commit per line
+        }
+        report.finish(end - from, System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Reads one line, opens the account it describes, and adds it to the database.
+     *
+     * @param text       the characters of the mapped window
+     * @param start      the position of the first character of the line
+     * @param end        the position of the line break, or the end of the file
+     * @param lineNumber the line number, starting from 1
+     * @param report     the report the result is recorded in
+     */
+    private void loadLine(ByteText text, int start, int end, int lineNumber, LoadReport report) {
+        if (end > start && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        if (isBlank(text, start, end)) {
+            return;
+        }
+        try {
+            int fields = split(text, start, end);
+            database.applyAdd(createAccount(text, fields));
+            report.addLoaded();
+        } catch (IllegalArgumentException e) { //includes NumberFormatException
+            report.addRejected(lineNumber, text.toString(start, end), e.getMessage());
+        }
+    }
+
+    /**
+     * Records the position of each comma-separated field of a line.
+     *
+     * @param text  the characters of the mapped window
+     * @param start the position of the first character of the line
+     * @param end   the position after the last character of the line
+     * @return the number of fields
+     * @throws IllegalArgumentException if the line has more fields than any kind of account
+     */
+    private int split(ByteText text, int start, int end) {
+        int fields = 0;
+        int fieldBegin = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || text.charAt(i) == ',') {
+                if (fields == CERTIFICATE_FIELDS) {
+                    throw new IllegalArgumentException("too many fields");
+                }
+                fieldStart[fields] = fieldBegin;
+                fieldEnd[fields] = i;
+                fields++;
+                fieldBegin = i + 1;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Opens the account described by the fields of a line.
+     * A Savings or Money Market account is loyal if its holder already has a Checking account in the database.
+     *
+     * @param text   the characters of the mapped window
+     * @param fields the number of fields of the line
+     * @return the new Account
+     * @throws IllegalArgumentException if a field is missing or cannot be read
+     */
+    private Account createAccount(ByteText text, int fields) {
+        AccountType type = accountType(text);
+        int expected = type == AccountType.COLLEGE_CHECKING ? COLLEGE_FIELDS
+                : type == AccountType.CD ? CERTIFICATE_FIELDS : BASIC_FIELDS;
+        if (fields != expected) {
+            throw new IllegalArgumentException("expected " + expected + " fields, found " + fields);
+        }
+        Branch branch = branch(text);
+        Date dateOfBirth = Date.parse(text, fieldStart[4], fieldEnd[4]);
+        long balance = Money.parse(text, fieldStart[5], fieldEnd[5]);
+        Profile holder = new Profile(text.toString(fieldStart[2], fieldEnd[2]), text.toString(fieldStart[3], fieldEnd[3]),
+                dateOfBirth);
+        return switch (type) {
+            case CHECKING -> new Checking(branch, type, holder, balance);
+            case SAVINGS -> new Savings(branch, type, holder, balance, database.contains(holder, AccountType.CHECKING));
+            case MONEY_MARKET ->
+                    new MoneyMarket(branch, type, holder, balance, database.contains(holder, AccountType.CHECKING));
+            case COLLEGE_CHECKING ->
+                    new CollegeChecking(branch, type, holder, Campus.fromCode(text.toString(fieldStart[6], fieldEnd[6])), balance);
+            case CD -> new CertificateDeposit(branch, type, holder, term(text), Date.parse(text, fieldStart[7], fieldEnd[7]), balance);
+        };
+    }
+
+    /**
+     * Reads the account type in the first field of a line.
+     *
+     * @param text the characters of the mapped window
+     * @return the AccountType named by the field
+     * @throws IllegalArgumentException if the field does not name an account type
+     */
+    private AccountType accountType(ByteText text) {
+        int start = fieldStart[0];
+        int end = fieldEnd[0];
+        if (text.equalsIgnoreCase(start, end, "checking")) {
+            return AccountType.CHECKING;
+        } else if (text.equalsIgnoreCase(start, end, "savings")) {
+            return AccountType.SAVINGS;
+        } else if (text.equalsIgnoreCase(start, end, "moneymarket")) {
+            return AccountType.MONEY_MARKET;
+        } else if (text.equalsIgnoreCase(start, end, "college")) {
+            return AccountType.COLLEGE_CHECKING;
+        } else if (text.equalsIgnoreCase(start, end, "certificate")) {
+            return AccountType.CD;
+        }
+        throw new IllegalArgumentException(text.toString(start, end) + " - invalid account type");
+    }
+
+    /**
+     * Reads the branch in the second field of a line.
+     *
+     * @param text the characters of the mapped window
+     * @return the Branch named by the field, ignoring case
+     * @throws IllegalArgumentException if the field does not name a branch
+     */
+    private Branch branch(ByteText text) {
+        for (Branch branch : BRANCHES) {
+            if (text.equalsIgnoreCase(fieldStart[1], fieldEnd[1], branch.name())) {
+                return branch;
+            }
+        }
+        throw new IllegalArgumentException(text.toString(fieldStart[1], fieldEnd[1]) + " - invalid branch");
+    }
+
+    /**
+     * Reads the term in months of a certificate of deposit from the seventh field of a line.
+     *
+     * @param text the characters of the mapped window
+     * @return the term in months
+     * @throws IllegalArgumentException if the field is not 3, 6, 9, or 12
+     */
+    private int term(ByteText text) {
+        int term = 0;
+        for (int i = fieldStart[6]; i < fieldEnd[6] && term <= CertificateDeposit.TWELVE_MONTH_TERM; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                term = -1;
+                break;
+            }
+            term = term * 10 + (c - '0');
+        }
+        return switch (term) {
+            case CertificateDeposit.THREE_MONTH_TERM, CertificateDeposit.SIX_MONTH_TERM,
+                 CertificateDeposit.NINE_MONTH_TERM, CertificateDeposit.TWELVE_MONTH_TERM -> term;
+            default -> throw new IllegalArgumentException(text.toString(fieldStart[6], fieldEnd[6]) + " - invalid term");
+        };
+    }
+
+    /**
+     * Checks if a line contains only whitespace.
+     *
+     * @param text  the characters of the mapped window
+     * @param start the position of the first character of the line
+     * @param end   the position after the last character of the line
+     * @return true if the line is empty or only whitespace, false otherwise
+     */
+    private static boolean isBlank(ByteText text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,7 +3,7 @@ package com.example.project3.banking;
 import com.example.project3.util.Date;
 
 /**
- * AccountNode class used for the Archive to store closed Accounts in a linked list implementation.
+ * AccountNode class used for the Archive to return a closed Account together with the date it was closed.
  *
  * @author Vishal Saravanan, Yining Chen
  */
@@ -13,14 +13,10 @@ public class AccountNode {
      * Account object with account number, profile of holder, and balance
      */
     private final Account Account;
-    /**
-     * Pointer to the next AccountNode in the Archive.
-     */
-    private AccountNode next;
     /**
      * The date on which the associated account was closed.
      */
-    private Date close;
+    private final Date close;
 
     /**
      * Creates an AccountNode object.
@@ -31,25 +27,24 @@ public class AccountNode {
     public AccountNode(Account account, Date close) {
         this.Account = account;
         this.close = close;
-        this.next = null;
     }
 
     /**
-     * Gets the AccountNode that is being pointed to.
+     * Gets the Account that was closed.
      *
-     * @return the AccountNode being accessed
+     * @return the closed Account
      */
-    public AccountNode getNext() {
-        return this.next;
+    public Account getAccount() {
+        return this.Account;
     }
 
     /**
-     * Replaces the AccountNode that is being pointed to with the one provided.
+     * Gets the date on which the Account was closed.
      *
-     * @param next represents the AccountNode being pointed to
+     * @return the Date the Account was closed
      */
-    public void setNext(AccountNode next) {
-        this.next = next;
+    public Date getClose() {
+        return this.close;
     }
 
     /**
@@ -61,9 +56,10 @@ public class AccountNode {
     public String toString() {
         StringBuilder returnString = new StringBuilder(Account.toString() + " Closed[" + close.toString() + "]");
 
-        if (!Account.getActivities().isEmpty()) {
+        ActivityView activities = Account.getActivities();
+        if (!activities.isEmpty()) {
             returnString.append("\n\t[Activity]");
-            for (Activity activity : Account.getActivities()) {
+            for (Activity activity : activities) {
                 returnString.append("\n\t\t").append(activity.toString());
             }
         }
@@ -1,6 +1,5 @@
 package com.example.project3.banking;
 
-import java.text.DecimalFormat;
 import java.util.Random;
 
 /**
@@ -8,11 +7,18 @@ import java.util.Random;
  * The account number is a  9-digit number composed of a:
  * 3-digit branch code, a 2-digit account type, and a 4-digit serial number randomly generated by the system.
  * For the account type, 01 represents checking, 02 represents regular savings, and 03 represents money market savings.
+ * The three parts are stored together as the int value of the 9-digit number, so comparing, hashing, and parsing
+ * account numbers does not create any objects.
  *
  * @author Vishal Saravanan, Yining Chen
  */
 public class AccountNumber implements Comparable<AccountNumber> {
 
+    /**
+     * Value returned by parse when a String is not a valid account number.
+     */
+    public static final int INVALID = -1;
+
     /**
      * for a fix sequence of random numbers
      */
@@ -24,24 +30,24 @@ public class AccountNumber implements Comparable<AccountNumber> {
     private static final Random RANDOM = new Random(SEED);
 
     /**
-     * Formatting for 4 digits
+     * Number of digits in an account number.
      */
-    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0000");
+    private static final int LENGTH = 9;
 
     /**
-     * Branch object that represents location of bank
+     * Place value of the branch code within the 9-digit number.
      */
-    private Branch branch;
+    private static final int BRANCH_PLACE = 1_000_000;
 
     /**
-     * AccountType object that represents checking/savings/money market account
+     * Place value of the account type code within the 9-digit number.
      */
-    private AccountType type;
+    private static final int TYPE_PLACE = 10_000;
 
     /**
-     * a 4-digit number generated by the Random object
+     * The 9-digit account number: branch code, then account type code, then serial number.
      */
-    private String number;
+    private final int packed;
 
     /**
      * Creates an AccountNumber object.
@@ -50,38 +56,88 @@ public class AccountNumber implements Comparable<AccountNumber> {
      * @param type   2-digit reprsentation of the type of account
      */
     public AccountNumber(Branch branch, AccountType type) {
-        this.branch = branch;
-        this.type = type;
         int num = RANDOM.nextInt(SEED);
-        this.number = DECIMAL_FORMAT.format(num);
+        this.packed = branch.getCodeValue() * BRANCH_PLACE + type.getCodeValue() * TYPE_PLACE + num;
     }
 
     /**
      * Creates an AccountNumber by extracting, branch code, type code, and serial number from a String.
-     * Traverses through branch and sets branchCode to a Branch object,
-     * AccountType to an AccountType object and serial number as a String representation.
      *
      * @param number String representation of the AccountNumber of an Account
+     * @throws IllegalArgumentException if the String is not 9 digits with a valid branch code and account type code
      */
     public AccountNumber(String number) {
-        String branchCode = number.substring(0, 3);
-        String typeCode = number.substring(3, 5);
-        String serialNumber = number.substring(5, 9);
-
-        for (Branch branch : Branch.values()) {
-            if (branch.getBranchCode().equalsIgnoreCase(branchCode)) {
-                this.branch = branch;
-                break;
-            }
+        this(parseValid(number));
+    }
+
+    /**
+     * Creates an AccountNumber from the int value of a 9-digit account number.
+     *
+     * @param number the account number as an int, such as a value returned by parse
+     * @throws IllegalArgumentException if the number does not have a valid branch code and account type code
+     */
+    public AccountNumber(int number) {
+        if (number < 0 || Branch.fromCode(number / BRANCH_PLACE) == null
+                || AccountType.fromCode(number / TYPE_PLACE % 100) == null) {
+            throw new IllegalArgumentException("Invalid account number: " + number);
+        }
+        this.packed = number;
+    }
+
+    /**
+     * Reads a 9-digit account number from the characters of a String without creating any objects.
+     *
+     * @param text the characters of the account number
+     * @return the account number as an int, or INVALID if the text is not 9 digits
+     * with a valid branch code and account type code
+     */
+    public static int parse(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Reads a 9-digit account number from part of a sequence of characters without creating any objects.
+     *
+     * @param text  the characters containing the account number
+     * @param start the position of the first digit
+     * @param end   the position after the last digit
+     * @return the account number as an int, or INVALID if the characters are not 9 digits
+     * with a valid branch code and account type code
+     */
+    public static int parse(CharSequence text, int start, int end) {
+        if (end - start != LENGTH) {
+            return INVALID;
         }
-        for (AccountType type : AccountType.values()) {
-            if (type.getCode().equalsIgnoreCase(typeCode)) {
-                this.type = type;
-                break;
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
             }
+            value = value * 10 + (c - '0');
+        }
+        if (Branch.fromCode(value / BRANCH_PLACE) == null || AccountType.fromCode(value / TYPE_PLACE % 100) == null) {
+            return INVALID;
         }
+        return value;
+    }
 
-        this.number = serialNumber;
+    /**
+     * Reads a 9-digit account number from a String, rejecting invalid account numbers.
+     *
+     * @param text the characters of the account number
+     * @return the account number as an int
+     * @throws IllegalArgumentException if the text is not a valid account number
+     */
+    private static int parseValid(String text) {
+        int value = parse(text);
+        if (value == INVALID) {
+            throw new IllegalArgumentException("Invalid account number: " + text);
+        }
+        return value;
     }
 
     /**
@@ -90,7 +146,7 @@ public class AccountNumber implements Comparable<AccountNumber> {
      * @return Branch object of the AccountNumber
      */
     public Branch getBranch() {
-        return this.branch;
+        return Branch.fromCode(this.packed / BRANCH_PLACE);
     }
 
     /**
@@ -99,7 +155,16 @@ public class AccountNumber implements Comparable<AccountNumber> {
      * @return AccountType object of the AccountNumber
      */
     public AccountType getType() {
-        return this.type;
+        return AccountType.fromCode(this.packed / TYPE_PLACE % 100);
+    }
+
+    /**
+     * Returns the 9-digit account number as an int.
+     *
+     * @return the packed account number
+     */
+    public int intValue() {
+        return this.packed;
     }
 
     /**
@@ -112,19 +177,18 @@ public class AccountNumber implements Comparable<AccountNumber> {
      */
     @Override
     public int compareTo(AccountNumber other) {
-        int aNumber = Integer.parseInt(this.branch.getBranchCode() + this.getType().getCode() + this.number);
-        int bNumber = Integer.parseInt(other.getBranch().getBranchCode() + other.getType().getCode() + other.number);
-        return aNumber - bNumber;
+        return Integer.compare(this.packed, other.packed);
     }
 
     /**
      * Converts AccountNumber to a string that can be printed.
+     * Branch codes start at 100, so the number always has 9 digits.
      *
      * @return the AccountNumber with Branch Code, Account Type, and serial number as a String
      */
     @Override
     public String toString() {
-        return this.branch.getBranchCode() + this.type.getCode() + this.number;
+        return Integer.toString(this.packed);
     }
 
     /**
@@ -138,8 +202,18 @@ public class AccountNumber implements Comparable<AccountNumber> {
     public boolean equals(Object obj) {
         if (obj instanceof AccountNumber) {
             AccountNumber other = (AccountNumber) obj;
-            return this.branch.equals(other.branch) && this.type.equals(other.type) && this.number.equals(other.number);
+            return this.packed == other.packed;
         }
         return false;
     }
+
+    /**
+     * Returns a hash code for the AccountNumber that is consistent with equals.
+     *
+     * @return the packed 9-digit account number
+     */
+    @Override
+    public int hashCode() {
+        return this.packed;
+    }
 }
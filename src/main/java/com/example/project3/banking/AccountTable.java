@@ -0,0 +1,623 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.HashMap;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The AccountTable class stores the core state of accounts outside the Java heap, in fixed-width records
+ * of a MemorySegment. Each record holds the packed account number, the account type and branch, the balance,
+ * the loyalty flag, the number of withdrawals, the term, open date and campus, and the id of the holder.
+ * Holders are stored once each and shared by all their accounts, and rows of removed accounts are reused.
+ * <p>
+ * An AccountDatabase created with an AccountTable moves the state of every account it holds into a record,
+ * and the Account becomes a view over that record. The memory is either anonymous or mapped from a file,
+ * in which case the operating system can page the records out to the file. The file only stores the records
+ * while the program runs; the Snapshot and the Journal still keep the database between runs.
+ * <p>
+ * The table grows by doubling, up to as many records as fit in one ByteBuffer. Records are written by one thread
+ * at a time, except that different records may be written at the same time, as the ActivityIngester does,
+ * and balances, which are changed atomically through a view of the records so that any thread may change them.
+ * In a ConcurrentAccountDatabase, rows are added, removed, and moved to larger memory only under its exclusive lock,
+ * and its readers hold the shared lock, so they always see a row whole. The memory of the records and the array of holders
+ * are published through volatile fields, and memory left behind by growing is freed by the garbage collector once no
+ * thread still reading it can reach it, so a thread reading without a lock sees older values instead of failing.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class AccountTable implements AutoCloseable {
+
+    /**
+     * Number of bytes in one record.
+     */
+    static final int RECORD_BYTES = 32;
+
+    /**
+     * Position in a record of the packed account number.
+     */
+    private static final long NUMBER = 0;
+
+    /**
+     * Position in a record of the holder id.
+     */
+    private static final long HOLDER = 4;
+
+    /**
+     * Position in a record of the balance, in cents.
+     */
+    private static final long BALANCE = 8;
+
+    /**
+     * Position in a record of the number of withdrawals.
+     */
+    private static final long WITHDRAWALS = 16;
+
+    /**
+     * Position in a record of the open date, as days from 1/1/1970.
+     */
+    private static final long OPEN = 20;
+
+    /**
+     * Position in a record of the ordinal of the AccountType.
+     */
+    private static final long TYPE = 24;
+
+    /**
+     * Position in a record of the ordinal of the Branch.
+     */
+    private static final long BRANCH = 25;
+
+    /**
+     * Position in a record of the loyalty flag.
+     */
+    private static final long LOYAL = 26;
+
+    /**
+     * Position in a record of the term, in months.
+     */
+    private static final long TERM = 27;
+
+    /**
+     * Position in a record of the ordinal of the Campus, or -1.
+     */
+    private static final long CAMPUS = 28;
+
+    /**
+     * Number of records the table starts with.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Largest number of records the table can hold, so that the records fit in one ByteBuffer.
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_BYTES;
+
+    /**
+     * Gives atomic access to the longs of the records through a ByteBuffer view of their memory.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Gives atomic access to the ints of the records through a ByteBuffer view of their memory.
+     */
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /**
+     * The file the records are mapped from, or null if the memory is anonymous.
+     */
+    private final Path file;
+
+    /**
+     * The open file, or null if the memory is anonymous.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The memory holding the records, or null once the table is closed. Replaced whenever the table grows.
+     */
+    private volatile MemorySegment records;
+
+    /**
+     * A view of the memory holding the records, used for the atomic changes of balances.
+     */
+    private volatile ByteBuffer view;
+
+    /**
+     * Number of records the memory can hold.
+     */
+    private int capacity;
+
+    /**
+     * Number of rows ever handed out, including freed rows.
+     */
+    private int used;
+
+    /**
+     * Freed rows waiting to be reused.
+     */
+    private int[] free = new int[16];
+
+    /**
+     * Number of freed rows waiting to be reused.
+     */
+    private int freeCount;
+
+    /**
+     * Every holder, indexed by holder id, or null where the id is free. Replaced by a larger copy when it is full.
+     */
+    private volatile Profile[] holders = new Profile[16];
+
+    /**
+     * Number of holder ids ever handed out, including free ids.
+     */
+    private int holderCount;
+
+    /**
+     * Number of rows in use that hold each holder id.
+     */
+    private int[] holderRows = new int[16];
+
+    /**
+     * Holder ids no longer used by any row, waiting to be reused.
+     */
+    private int[] freeHolders = new int[16];
+
+    /**
+     * Number of holder ids waiting to be reused.
+     */
+    private int freeHolderCount;
+
+    /**
+     * Maps each holder, spelled exactly as given, to its id.
+     * Profiles are not used as keys because they compare names ignoring case, and each account keeps its own spelling.
+     */
+    private final HashMap<String, Integer> holderIds = new HashMap<>();
+
+    /**
+     * Creates an AccountTable in anonymous memory outside the heap.
+     */
+    public AccountTable() {
+        this.file = null;
+        this.channel = null;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an AccountTable whose records are mapped from a file, replacing the file if it exists.
+     *
+     * @param file the file the records are mapped from
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public AccountTable(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            map(INITIAL_CAPACITY);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of accounts stored in the table.
+     *
+     * @return the number of rows in use
+     */
+    public int size() {
+        return used - freeCount;
+    }
+
+    /**
+     * Returns the number of bytes of memory holding the records.
+     *
+     * @return the size of the records in bytes
+     */
+    public long byteSize() {
+        return records().byteSize();
+    }
+
+    /**
+     * Returns the file the records are mapped from.
+     *
+     * @return the path of the file, or null if the memory is anonymous
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Lets go of the memory of the records, and writes them to the file and closes it if the table is file-backed.
+     * The memory is freed by the garbage collector. The accounts stored in the table must not be used afterwards.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        MemorySegment closing = records;
+        if (closing == null) {
+            return;
+        }
+        if (channel != null) {
+            closing.force();
+        }
+        records = null;
+        view = null;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Stores an account in a new row.
+     *
+     * @param number  the packed account number
+     * @param type    the type of the account
+     * @param branch  the branch of the account
+     * @param holder  the holder of the account
+     * @param balance the balance, in cents
+     * @return the row holding the account
+     * @throws IllegalStateException if the table is closed
+     */
+    int add(int number, AccountType type, Branch branch, Profile holder, long balance) {
+        if (records == null) {
+            throw new IllegalStateException("The account table is closed");
+        }
+        int row;
+        if (freeCount > 0) {
+            row = free[--freeCount];
+        } else {
+            if (used == capacity) {
+                grow();
+            }
+            row = used++;
+        }
+        long base = (long) row * RECORD_BYTES;
+        MemorySegment records = records();
+        records.asSlice(base, RECORD_BYTES).fill((byte) 0);
+        records.set(ValueLayout.JAVA_INT, base + NUMBER, number);
+        records.set(ValueLayout.JAVA_INT, base + HOLDER, holderId(holder));
+        records.set(ValueLayout.JAVA_LONG, base + BALANCE, balance);
+        records.set(ValueLayout.JAVA_BYTE, base + TYPE, (byte) type.ordinal());
+        records.set(ValueLayout.JAVA_BYTE, base + BRANCH, (byte) branch.ordinal());
+        records.set(ValueLayout.JAVA_BYTE, base + CAMPUS, (byte) -1);
+        return row;
+    }
+
+    /**
+     * Frees a row so it can be reused by the next account stored.
+     * The holder is forgotten once no other row holds it, so closed accounts do not keep their holders in memory.
+     *
+     * @param row the row of the removed account
+     */
+    void remove(int row) {
+        releaseHolder(records().get(ValueLayout.JAVA_INT, (long) row * RECORD_BYTES + HOLDER));
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = row;
+    }
+
+    /**
+     * Returns the packed account number stored in a row.
+     *
+     * @param row the row of the account
+     * @return the packed account number
+     */
+    int getNumber(int row) {
+        return records().get(ValueLayout.JAVA_INT, (long) row * RECORD_BYTES + NUMBER);
+    }
+
+    /**
+     * Returns the holder stored in a row.
+     *
+     * @param row the row of the account
+     * @return the Profile of the holder, shared by all the holder's accounts in the table
+     */
+    Profile getHolder(int row) {
+        return holders[records().get(ValueLayout.JAVA_INT, (long) row * RECORD_BYTES + HOLDER)];
+    }
+
+    /**
+     * Returns the balance stored in a row.
+     *
+     * @param row the row of the account
+     * @return the balance, in cents
+     */
+    long getBalance(int row) {
+        return records().get(ValueLayout.JAVA_LONG, (long) row * RECORD_BYTES + BALANCE);
+    }
+
+    /**
+     * Changes the balance stored in a row.
+     *
+     * @param row     the row of the account
+     * @param balance the new balance, in cents
+     */
+    void setBalance(int row, long balance) {
+        records().set(ValueLayout.JAVA_LONG, (long) row * RECORD_BYTES + BALANCE, balance);
+    }
+
+    /**
+     * Atomically adds an amount to the balance stored in a row.
+     *
+     * @param row    the row of the account
+     * @param amount the amount added, negative to take money out, in cents
+     * @return the balance after the amount was added, in cents
+     */
+    long addBalance(int row, long amount) {
+        return (long) LONGS.getAndAdd(view(), row * RECORD_BYTES + (int) BALANCE, amount) + amount;
+    }
+
+    /**
+     * Atomically takes an amount out of the balance stored in a row if the balance covers it.
+     *
+     * @param row    the row of the account
+     * @param amount the amount taken out, in cents
+     * @return the balance left, or the balance minus the amount, which is negative, if the amount was not taken out
+     */
+    long takeBalance(int row, long amount) {
+        ByteBuffer view = view();
+        int index = row * RECORD_BYTES + (int) BALANCE;
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(view, index);
+            if (current < amount) {
+                return current - amount;
+            }
+        } while (!LONGS.compareAndSet(view, index, current, current - amount));
+        return current - amount;
+    }
+
+    /**
+     * Returns the loyalty flag stored in a row.
+     *
+     * @param row the row of the account
+     * @return true if the account is loyal, false otherwise
+     */
+    boolean isLoyal(int row) {
+        return records().get(ValueLayout.JAVA_BYTE, (long) row * RECORD_BYTES + LOYAL) != 0;
+    }
+
+    /**
+     * Changes the loyalty flag stored in a row.
+     *
+     * @param row     the row of the account
+     * @param isLoyal true if the account is loyal, false otherwise
+     */
+    void setLoyal(int row, boolean isLoyal) {
+        records().set(ValueLayout.JAVA_BYTE, (long) row * RECORD_BYTES + LOYAL, (byte) (isLoyal ? 1 : 0));
+    }
+
+    /**
+     * Returns the number of withdrawals stored in a row.
+     *
+     * @param row the row of the account
+     * @return the number of withdrawals
+     */
+    int getWithdrawals(int row) {
+        return records().get(ValueLayout.JAVA_INT, (long) row * RECORD_BYTES + WITHDRAWALS);
+    }
+
+    /**
+     * Changes the number of withdrawals stored in a row.
+     *
+     * @param row         the row of the account
+     * @param withdrawals the new number of withdrawals
+     */
+    void setWithdrawals(int row, int withdrawals) {
+        records().set(ValueLayout.JAVA_INT, (long) row * RECORD_BYTES + WITHDRAWALS, withdrawals);
+    }
+
+    /**
+     * Atomically adds one to the number of withdrawals stored in a row.
+     *
+     * @param row the row of the account
+     */
+    void countWithdrawal(int row) {
+        INTS.getAndAdd(view(), row * RECORD_BYTES + (int) WITHDRAWALS, 1);
+    }
+
+    /**
+     * Stores the term and open date of a certificate of deposit in a row.
+     *
+     * @param row     the row of the account
+     * @param term    the term, in months
+     * @param openDay the open date as days from 1/1/1970
+     */
+    void setCertificate(int row, int term, int openDay) {
+        long base = (long) row * RECORD_BYTES;
+        MemorySegment records = records();
+        records.set(ValueLayout.JAVA_BYTE, base + TERM, (byte) term);
+        records.set(ValueLayout.JAVA_INT, base + OPEN, openDay);
+    }
+
+    /**
+     * Returns the term stored in a row.
+     *
+     * @param row the row of the account
+     * @return the term in months, or 0 if the account is not a certificate of deposit
+     */
+    int getTerm(int row) {
+        return records().get(ValueLayout.JAVA_BYTE, (long) row * RECORD_BYTES + TERM);
+    }
+
+    /**
+     * Returns the open date stored in a row.
+     *
+     * @param row the row of the account
+     * @return the open date as days from 1/1/1970, or 0 if the account is not a certificate of deposit
+     */
+    int getOpenDay(int row) {
+        return records().get(ValueLayout.JAVA_INT, (long) row * RECORD_BYTES + OPEN);
+    }
+
+    /**
+     * Stores the campus of a college checking account in a row.
+     *
+     * @param row    the row of the account
+     * @param campus the campus
+     */
+    void setCampus(int row, Campus campus) {
+        records().set(ValueLayout.JAVA_BYTE, (long) row * RECORD_BYTES + CAMPUS, (byte) campus.ordinal());
+    }
+
+    /**
+     * Returns the ordinal of the campus stored in a row.
+     *
+     * @param row the row of the account
+     * @return the ordinal of the Campus, or -1 if the account is not a college checking account
+     */
+    int getCampus(int row) {
+        return records().get(ValueLayout.JAVA_BYTE, (long) row * RECORD_BYTES + CAMPUS);
+    }
+
+    /**
+     * Returns the memory holding the records.
+     *
+     * @return the current memory of the records
+     * @throws IllegalStateException if the table is closed
+     */
+    private MemorySegment records() {
+        MemorySegment current = records;
+        if (current == null) {
+            throw new IllegalStateException("The account table is closed");
+        }
+        return current;
+    }
+
+    /**
+     * Returns the view of the memory holding the records, used for the atomic changes of balances.
+     *
+     * @return the current view of the records
+     * @throws IllegalStateException if the table is closed
+     */
+    private ByteBuffer view() {
+        ByteBuffer current = view;
+        if (current == null) {
+            throw new IllegalStateException("The account table is closed");
+        }
+        return current;
+    }
+
+    /**
+     * Returns the id of a holder for a new row, giving it a free or new id if it is not in the table yet.
+     *
+     * @param holder the holder
+     * @return the id of the holder
+     */
+    private int holderId(Profile holder) {
+        String key = holderKey(holder);
+        Integer id = holderIds.get(key);
+        if (id == null) {
+            if (freeHolderCount > 0) {
+                id = freeHolders[--freeHolderCount];
+            } else {
+                id = holderCount++;
+                if (id == holders.length) {
+                    holders = Arrays.copyOf(holders, id * 2);
+                }
+                if (id == holderRows.length) {
+                    holderRows = Arrays.copyOf(holderRows, id * 2);
+                }
+            }
+            holders[id] = holder;
+            holderIds.put(key, id);
+        }
+        holderRows[id]++;
+        return id;
+    }
+
+    /**
+     * Counts one row fewer holding a holder id, and frees the id when no row holds it.
+     *
+     * @param id the id of the holder
+     */
+    private void releaseHolder(int id) {
+        if (--holderRows[id] > 0) {
+            return;
+        }
+        holderIds.remove(holderKey(holders[id]));
+        holders[id] = null;
+        if (freeHolderCount == freeHolders.length) {
+            freeHolders = Arrays.copyOf(freeHolders, freeHolderCount * 2);
+        }
+        freeHolders[freeHolderCount++] = id;
+    }
+
+    /**
+     * Returns the key of a holder in holderIds, spelled exactly as given.
+     *
+     * @param holder the holder
+     * @return the names and the date of birth of the holder
+     */
+    private static String holderKey(Profile holder) {
+        return holder.getFirstName() + '\n' + holder.getLastName() + '\n' + holder.getDateOfBirth().toEpochDay();
+    }
+
+    /**
+     * Doubles the number of records the table can hold, up to the largest number, copying the records to the new memory.
+     */
+    private void grow() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Too many accounts: " + capacity);
+        }
+        int newCapacity = (int) Math.min((long) capacity * 2, MAX_CAPACITY);
+        if (channel == null) {
+            allocate(newCapacity);
+        } else {
+            try {
+                map(newCapacity);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot grow " + file + " - " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Moves the records to new anonymous memory that holds the given number of records.
+     * The old memory is not freed here: it belongs to an automatic arena, so the garbage collector frees it once
+     * no thread that read the old field can still reach it.
+     *
+     * @param newCapacity the number of records the memory must hold
+     */
+    private void allocate(int newCapacity) {
+        MemorySegment newRecords = Arena.ofAuto().allocate((long) newCapacity * RECORD_BYTES, Long.BYTES);
+        if (records != null) {
+            MemorySegment.copy(records, 0, newRecords, 0, (long) used * RECORD_BYTES);
+        }
+        view = newRecords.asByteBuffer();
+        records = newRecords; //published after the copy, so a reader of the new memory sees every record
+        capacity = newCapacity;
+    }
+
+    /**
+     * Extends the file and maps it again so that it holds the given number of records.
+     * Mapping the larger file keeps the records already written to it.
+     *
+     * @param newCapacity the number of records the file must hold
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(int newCapacity) throws IOException {
+        if (records != null) {
+            records.force();
+        }
+        MemorySegment newRecords = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * RECORD_BYTES,
+                Arena.ofAuto()); //the old mapping is unmapped by the garbage collector once no thread can reach it
+        view = newRecords.asByteBuffer();
+        records = newRecords;
+        capacity = newCapacity;
+    }
+}
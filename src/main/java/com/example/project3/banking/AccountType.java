@@ -38,6 +38,22 @@ public enum AccountType {
      */
     private final String code;
 
+    /**
+     * The 2-digit account type code as an int.
+     */
+    private final int codeValue;
+
+    /**
+     * Lookup table from a 2-digit account type code to its AccountType, null for codes that are not used.
+     */
+    private static final AccountType[] BY_CODE = new AccountType[100];
+
+    static {
+        for (AccountType type : values()) {
+            BY_CODE[type.codeValue] = type;
+        }
+    }
+
     /**
      * Creates an AccountType object.
      * The three types of accounts are: Checking(01), Savings(02), and Money_Market(03).
@@ -46,6 +62,26 @@ public enum AccountType {
      */
     AccountType(String code) {
         this.code = code;
+        this.codeValue = Integer.parseInt(code);
+    }
+
+    /**
+     * Finds the AccountType with the given 2-digit code without creating any objects.
+     *
+     * @param code the account type code as an int
+     * @return the AccountType with that code, or null if no AccountType has that code
+     */
+    public static AccountType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Returns the 2-digit account type code as an int.
+     *
+     * @return int representation of the account type code
+     */
+    public int getCodeValue() {
+        return this.codeValue;
     }
 
     /**
@@ -1,8 +1,7 @@
 package com.example.project3.banking;
 
 import com.example.project3.util.Date;
-
-import java.text.DecimalFormat;
+import com.example.project3.util.Money;
 
 /**
  * Represents a banking activity such as a deposit or withdrawal.
@@ -13,11 +12,6 @@ import java.text.DecimalFormat;
  */
 public class Activity implements Comparable<Activity> {
 
-    /**
-     * Formatting numbers for easy readability.
-     */
-    private static final DecimalFormat df = new DecimalFormat("#,##0.00");
-
     /**
      * Represents the date of the activity.
      */
@@ -35,11 +29,11 @@ public class Activity implements Comparable<Activity> {
     private char type;
 
     /**
-     * Represents the monetary value associated with the activity.
+     * Represents the monetary value associated with the activity, in cents.
      * This variable stores the amount involved in the activity, which can represent either
      * a deposit or a withdrawal, depending on the type of activity.
      */
-    private double amount;
+    private long amount;
 
     /**
      * Indicates whether the activity was performed at an ATM.
@@ -53,10 +47,10 @@ public class Activity implements Comparable<Activity> {
      * @param date     the date of the activity
      * @param location the branch location where the activity took place
      * @param type     the type of activity, represented as a character ('D' for deposit, 'W' for withdrawal)
-     * @param amount   the monetary amount involved in the activity
+     * @param amount   the monetary amount involved in the activity, in cents
      * @param atm      a boolean indicating whether the activity was performed at an ATM
      */
-    public Activity(Date date, Branch location, char type, double amount, boolean atm) {
+    public Activity(Date date, Branch location, char type, long amount, boolean atm) {
         this.date = date;
         this.location = location;
         this.type = type;
@@ -64,6 +58,51 @@ public class Activity implements Comparable<Activity> {
         this.atm = atm;
     }
 
+    /**
+     * Returns the date of the activity.
+     *
+     * @return the Date of the activity
+     */
+    public Date getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the branch location where the activity took place.
+     *
+     * @return the Branch of the activity
+     */
+    public Branch getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the type of the activity.
+     *
+     * @return 'D' for deposit or 'W' for withdrawal
+     */
+    public char getType() {
+        return type;
+    }
+
+    /**
+     * Returns the monetary amount involved in the activity.
+     *
+     * @return the amount of the activity, in cents
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Checks if the activity was performed at an ATM.
+     *
+     * @return true if the activity was performed at an ATM, false otherwise
+     */
+    public boolean isAtm() {
+        return atm;
+    }
+
     /**
      * Compares this Activity object with the specified Activity object for order based on the date field.
      *
@@ -85,8 +124,19 @@ public class Activity implements Comparable<Activity> {
      */
     @Override
     public String toString() {
-        String transactionType = (type == 'D') ? "deposit" : "withdrawal";
-        return date + "::" + location + (atm ? "[ATM]" : "") + "::" + transactionType + "::$" + df.format(amount);
+        return appendTo(new StringBuilder()).toString();
+    }
 
+    /**
+     * Appends the formatted Activity, in the same format as toString, to the given StringBuilder.
+     *
+     * @param out the StringBuilder the Activity is appended to
+     * @return the same StringBuilder, for chaining
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        String transactionType = (type == 'D') ? "deposit" : "withdrawal";
+        out.append(date).append("::").append(location).append(atm ? "[ATM]" : "")
+                .append("::").append(transactionType).append("::$");
+        return Money.format(amount, out);
     }
 }
@@ -0,0 +1,517 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.ByteText;
+import com.example.project3.util.Date;
+import com.example.project3.util.List;
+import com.example.project3.util.Money;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The ActivityIngester class applies the deposits and withdrawals listed in a text file to the accounts of an
+ * AccountDatabase, using several threads. Each line has the form type,account number,date,branch,amount,
+ * where the type is D for a deposit or W for a withdrawal.
+ * The file is split into chunks at line breaks and the chunks are read at the same time, each into a TransactionBatch.
+ * The batches are then applied in file order with AccountDatabase.applyBatch, which divides the accounts of a large
+ * batch between partitions applied at the same time, so the activities of one account are applied in the order they
+ * appear in the file while different accounts are updated concurrently, and the balances, withdrawal counts, and
+ * activity log end up exactly as if the lines had been applied one by one.
+ * If the database has a Journal, every activity of a batch is recorded in it, in file order, before the batch is applied.
+ * The database must not be changed by other threads while the file is being applied.
+ * The reading threads are created by the first ingest and reused by the following ones until the ingester is closed,
+ * so an ingester called again and again, such as the one of an ActivityTailer, does not start new threads every time.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ActivityIngester implements AutoCloseable {
+
+    /**
+     * Smallest chunk worth reading on its own thread, in bytes.
+     */
+    private static final long MIN_CHUNK_BYTES = 1 << 16;
+
+    /**
+     * Largest chunk mapped into memory at once, in bytes.
+     */
+    private static final long MAX_CHUNK_BYTES = 1 << 26;
+
+    /**
+     * Expected number of bytes per line, used to size the activities of a chunk.
+     */
+    private static final int AVERAGE_LINE_BYTES = 32;
+
+    /**
+     * Number of fields of an activity line.
+     */
+    private static final int FIELDS = 5;
+
+    /**
+     * Every Branch, searched when reading the branch field.
+     */
+    private static final Branch[] BRANCHES = Branch.values();
+
+    /**
+     * The database the activities are applied to.
+     */
+    private final AccountDatabase database;
+
+    /**
+     * Number of threads reading chunks and applying partitions.
+     */
+    private final int threads;
+
+    /**
+     * Threads reading the chunks, created by the first ingest, or null until then or once the ingester is closed.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Creates an ActivityIngester that uses one thread per available processor.
+     *
+     * @param database the database the activities are applied to
+     */
+    public ActivityIngester(AccountDatabase database) {
+        this(database, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an ActivityIngester that uses the given number of threads.
+     *
+     * @param database the database the activities are applied to
+     * @param threads  the number of threads, which is also the number of partitions
+     * @throws IllegalArgumentException if the number of threads is less than 1
+     */
+    public ActivityIngester(AccountDatabase database, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        this.database = database;
+        this.threads = threads;
+    }
+
+    /**
+     * Applies every activity listed in a file to the accounts of the database.
+     * Blank lines are skipped. Lines that cannot be read, or that name an account not in the database,
+     * are recorded as rejected and the other lines are still applied.
+     *
+     * @param file the file listing the activities
+     * @return the number of activities applied, the rejected lines, and the throughput
+     * @throws IOException if the file cannot be read, or the reading threads are interrupted
+     */
+    public LoadReport ingest(Path file) throws IOException {
+        return ingest(file, 0, -1, 1);
+    }
+
+    /**
+     * Applies the activities listed in part of a file to the accounts of the database.
+     * The part should start at the beginning of a line and end after a line break, so that no line is split.
+     * Blank lines are skipped. Lines that cannot be read, or that name an account not in the database,
+     * are recorded as rejected and the other lines are still applied.
+     *
+     * @param file      the file listing the activities
+     * @param from      the position in the file of the first byte to be read
+     * @param to        the position after the last byte to be read, or -1 to read to the end of the file
+     * @param firstLine the line number of the first line read, used to number the rejected lines
+     * @return the number of activities applied and lines read, the rejected lines, and the throughput
+     * @throws IOException              if the file cannot be read, or the reading threads are interrupted
+     * @throws IllegalArgumentException if the part is not inside the file
+     */
+    public LoadReport ingest(Path file, long from, long to, int firstLine) throws IOException {
+        Lock exclusive = database.exclusiveLock(); //no teller changes an account while the threads apply activities
+        if (exclusive != null) {
+            exclusive.lock();
+        }
+        try {
+            return ingestRange(file, from, to, firstLine);
+        } finally {
+            if (exclusive != null) {
+                exclusive.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies the activities listed in part of a file, once no other thread can change the database.
+     *
+     * @param file      the file listing the activities
+     * @param from      the position in the file of the first byte to be read
+     * @param to        the position after the last byte to be read, or -1 to read to the end of the file
+     * @param firstLine the line number of the first line read, used to number the rejected lines
+     * @return the number of activities applied and lines read, the rejected lines, and the throughput
+     * @throws IOException              if the file cannot be read, or the reading threads are interrupted
+     * @throws IllegalArgumentException if the part is not inside the file
+     */
+    private LoadReport ingestRange(Path file, long from, long to, int firstLine) throws IOException {
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        ExecutorService readers = readers();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = to == -1 ? channel.size() : to;
+            if (from < 0 || from > end || end > channel.size()) {
+                throw new IllegalArgumentException("Invalid range " + from + "-" + to + " of " + file);
+            }
+            Chunk[] chunks = split(channel, from, end);
+            List<Callable<Void>> tasks = new List<>();
+            for (Chunk chunk : chunks) {
+                tasks.add(() -> {
+                    chunk.read(channel);
+                    return null;
+                });
+            }
+            runAll(readers, tasks);
+
+            int lineOffset = firstLine - 1;
+            for (Chunk chunk : chunks) {
+                chunk.report(database.applyBatch(chunk.batch, threads), lineOffset, report);
+                lineOffset += chunk.lines;
+            }
+            report.addLines(lineOffset - (firstLine - 1));
+            report.finish(end - from, System.nanoTime() - start);
+        }
+        return report;
+    }
+
+    /**
+     * Stops the reading threads. An ingester can still be used after it is closed, and then starts new threads.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Returns the threads reading the chunks, starting them on the first call.
+     * The threads are daemon threads, so an ingester that is never closed does not keep the program running.
+     *
+     * @return the executor of the reading threads
+     */
+    private synchronized ExecutorService readers() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "activity-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Divides part of a file into chunks that each end with a line break, except possibly the last one.
+     * There are enough chunks to keep every thread busy, unless the part is small, and no chunk is much
+     * larger than the largest mapped size.
+     *
+     * @param channel the open file
+     * @param from    the position in the file of the first byte of the part
+     * @param to      the position after the last byte of the part
+     * @return the chunks in file order
+     * @throws IOException if the file cannot be read
+     */
+    private Chunk[] split(FileChannel channel, long from, long to) throws IOException {
+        long size = to - from;
+        long bySize = (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES;
+        long byThreads = Math.min(threads, (size + MIN_CHUNK_BYTES - 1) / MIN_CHUNK_BYTES);
+        int count = (int) Math.max(1, Math.max(bySize, byThreads));
+        Chunk[] chunks = new Chunk[count];
+        ByteBuffer buffer = ByteBuffer.allocate(BatchFiles.SCAN_BYTES);
+        long start = from;
+        for (int i = 0; i < count; i++) {
+            long end = i == count - 1 ? to
+                    : BatchFiles.lineEnd(channel, Math.max(start, from + size / count * (i + 1)), to, buffer);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("A line is longer than " + Integer.MAX_VALUE + " bytes");
+            }
+            chunks[i] = new Chunk(start, (int) (end - start));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Runs tasks on the executor and waits for all of them to finish.
+     *
+     * @param executor the executor running the tasks
+     * @param tasks    the tasks to be run
+     * @throws IOException if a task failed reading the file, or the waiting thread is interrupted
+     */
+    private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) throws IOException {
+        List<Future<Void>> futures = new List<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while processing activities");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * A part of the file that is read on its own thread.
+     * The activities read are kept in a TransactionBatch in file order, with the line each one was read from.
+     */
+    private final class Chunk {
+
+        /**
+         * Position in the file of the first byte of the chunk.
+         */
+        private final long start;
+
+        /**
+         * Number of bytes in the chunk.
+         */
+        private final int length;
+
+        /**
+         * Field positions of the line being read.
+         */
+        private final int[] fieldStart = new int[FIELDS];
+
+        /**
+         * Positions after the end of each field of the line being read.
+         */
+        private final int[] fieldEnd = new int[FIELDS];
+
+        /**
+         * Activities read from the chunk, in file order.
+         */
+        private TransactionBatch batch;
+
+        /**
+         * Line number of each activity of the batch, counted from the start of the chunk.
+         */
+        private int[] lineNumbers;
+
+        /**
+         * Position in the chunk of the first character of the line of each activity of the batch.
+         */
+        private int[] lineStarts;
+
+        /**
+         * The characters of the mapped chunk, kept to quote the lines whose account is not in the database.
+         */
+        private ByteText text;
+
+        /**
+         * Lines that could not be read, numbered from the start of the chunk.
+         */
+        private final List<RejectedLine> rejected = new List<>();
+
+        /**
+         * Number of lines in the chunk.
+         */
+        private int lines;
+
+        /**
+         * Creates a chunk covering part of the file.
+         *
+         * @param start  the position in the file of the first byte
+         * @param length the number of bytes
+         */
+        private Chunk(long start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        /**
+         * Maps the chunk into memory and reads every line.
+         *
+         * @param channel the open file
+         * @throws IOException if the file cannot be read
+         */
+        private void read(FileChannel channel) throws IOException {
+            int expected = length / AVERAGE_LINE_BYTES + 1;
+            batch = new TransactionBatch(expected);
+            lineNumbers = new int[expected];
+            lineStarts = new int[expected];
+            if (length == 0) {
+                return;
+            }
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            text = new ByteText(window);
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '\n') {
+                    readLine(text, lineStart, i, ++lines);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < length) {
+                readLine(text, lineStart, length, ++lines);
+            }
+        }
+
+        /**
+         * Reads one line and adds its activity to the batch.
+         *
+         * @param text       the characters of the mapped chunk
+         * @param start      the position of the first character of the line
+         * @param end        the position of the line break, or the end of the chunk
+         * @param lineNumber the line number, counted from the start of the chunk
+         */
+        private void readLine(ByteText text, int start, int end, int lineNumber) {
+            if (end > start && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+            if (isBlank(text, start, end)) {
+                return;
+            }
+            try {
+                split(text, start, end);
+                char type = fieldEnd[0] - fieldStart[0] == 1 ? text.charAt(fieldStart[0]) : 0;
+                if (type != 'D' && type != 'W') {
+                    throw new IllegalArgumentException(text.toString(fieldStart[0], fieldEnd[0]) + " - invalid activity type");
+                }
+                int number = AccountNumber.parse(text, fieldStart[1], fieldEnd[1]);
+                if (number == AccountNumber.INVALID) {
+                    throw new IllegalArgumentException(text.toString(fieldStart[1], fieldEnd[1]) + " - invalid account number");
+                }
+                Date date = Date.parse(text, fieldStart[2], fieldEnd[2]);
+                Branch branch = branch(text);
+                long amount = Money.parse(text, fieldStart[4], fieldEnd[4]);
+                int added = batch.size();
+                if (added == lineNumbers.length) {
+                    lineNumbers = Arrays.copyOf(lineNumbers, added + (added >> 1) + 1);
+                    lineStarts = Arrays.copyOf(lineStarts, lineNumbers.length);
+                }
+                batch.add(number, date.toEpochDay(), branch, type, amount);
+                lineNumbers[added] = lineNumber;
+                lineStarts[added] = start;
+            } catch (IllegalArgumentException e) { //includes NumberFormatException
+                rejected.add(new RejectedLine(lineNumber, text.toString(start, end), e.getMessage()));
+            }
+        }
+
+        /**
+         * Adds the activities applied from the chunk and its rejected lines to a report, in line order.
+         * Lines that could not be read and lines whose account is not in the database are both rejected.
+         *
+         * @param results    the result of each activity of the batch, from AccountDatabase.applyBatch
+         * @param lineOffset the number of lines of the file before the chunk
+         * @param report     the report being built
+         */
+        private void report(byte[] results, int lineOffset, LoadReport report) {
+            int unreadable = 0;
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == TransactionBatch.APPLIED) {
+                    report.addLoaded();
+                    continue;
+                }
+                while (unreadable < rejected.size() && rejected.get(unreadable).getLineNumber() < lineNumbers[i]) {
+                    addRejected(rejected.get(unreadable++), lineOffset, report);
+                }
+                int end = lineStarts[i];
+                while (end < length && text.charAt(end) != '\n') {
+                    end++;
+                }
+                if (end > lineStarts[i] && text.charAt(end - 1) == '\r') {
+                    end--;
+                }
+                split(text, lineStarts[i], end);
+                report.addRejected(lineOffset + lineNumbers[i], text.toString(lineStarts[i], end),
+                        text.toString(fieldStart[1], fieldEnd[1]) + " is not in the database");
+            }
+            while (unreadable < rejected.size()) {
+                addRejected(rejected.get(unreadable++), lineOffset, report);
+            }
+        }
+
+        /**
+         * Adds a line that could not be read to a report, numbered from the start of the file.
+         *
+         * @param line       the line, numbered from the start of the chunk
+         * @param lineOffset the number of lines of the file before the chunk
+         * @param report     the report being built
+         */
+        private void addRejected(RejectedLine line, int lineOffset, LoadReport report) {
+            report.addRejected(lineOffset + line.getLineNumber(), line.getText(), line.getReason());
+        }
+
+        /**
+         * Records the position of each comma-separated field of a line.
+         *
+         * @param text  the characters of the mapped chunk
+         * @param start the position of the first character of the line
+         * @param end   the position after the last character of the line
+         * @throws IllegalArgumentException if the line does not have exactly five fields
+         */
+        private void split(ByteText text, int start, int end) {
+            int fields = 0;
+            int fieldBegin = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || text.charAt(i) == ',') {
+                    if (fields == FIELDS) {
+                        throw new IllegalArgumentException("too many fields");
+                    }
+                    fieldStart[fields] = fieldBegin;
+                    fieldEnd[fields] = i;
+                    fields++;
+                    fieldBegin = i + 1;
+                }
+            }
+            if (fields != FIELDS) {
+                throw new IllegalArgumentException("expected " + FIELDS + " fields, found " + fields);
+            }
+        }
+
+        /**
+         * Reads the branch in the fourth field of a line.
+         *
+         * @param text the characters of the mapped chunk
+         * @return the Branch named by the field, ignoring case
+         * @throws IllegalArgumentException if the field does not name a branch
+         */
+        private Branch branch(ByteText text) {
+            for (Branch branch : BRANCHES) {
+                if (text.equalsIgnoreCase(fieldStart[3], fieldEnd[3], branch.name())) {
+                    return branch;
+                }
+            }
+            throw new IllegalArgumentException(text.toString(fieldStart[3], fieldEnd[3]) + " - invalid branch");
+        }
+    }
+
+    /**
+     * Checks if a line contains only whitespace.
+     *
+     * @param text  the characters of the mapped chunk
+     * @param start the position of the first character of the line
+     * @param end   the position after the last character of the line
+     * @return true if the line is empty or only whitespace, false otherwise
+     */
+    private static boolean isBlank(ByteText text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,551 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.BinaryInput;
+import com.example.project3.util.BinaryOutput;
+import com.example.project3.util.Date;
+import com.example.project3.util.IntHashIndex;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The ActivityLog class records the deposits and withdrawals of many accounts in one append-only store.
+ * Every field of an activity is kept in its own primitive array (a column), so recording an activity does not create
+ * any objects. The columns are split into chunks that double in size, and a full log adds a chunk instead of copying
+ * its columns, so a position never moves once it has been handed out.
+ * The activities of one account are linked together in the order they were recorded: each account remembers the
+ * position of its first and last activity, and each entry remembers the position of the next activity of the same account.
+ * Positions are reserved by atomically moving the end of the log, so threads recording activities of different accounts
+ * append at the same time without waiting for each other; only adding a chunk, once every doubling, takes a lock.
+ * Each thread fills in its own positions, and an entry is published to readers by the release write that links it
+ * after the previous activity of its account.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ActivityLog {
+
+    /**
+     * Position used to mark the end of the activities of an account.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Number of bits of the size of the first chunk.
+     */
+    private static final int FIRST_CHUNK_BITS = 4;
+
+    /**
+     * Number of activities in the first chunk. Each later chunk is twice as large as the one before it.
+     */
+    private static final int FIRST_CHUNK = 1 << FIRST_CHUNK_BITS;
+
+    /**
+     * Largest number of activities in a log, so that the position after the last one still fits in an int.
+     */
+    private static final int MAX_SIZE = Integer.MAX_VALUE - FIRST_CHUNK;
+
+    /**
+     * Number of chunks needed to hold MAX_SIZE activities.
+     */
+    private static final int MAX_CHUNKS = 31 - FIRST_CHUNK_BITS;
+
+    /**
+     * Every Branch, indexed by ordinal, for turning the stored location back into a Branch.
+     */
+    private static final Branch[] BRANCHES = Branch.values();
+
+    /**
+     * Gives atomic access to the number of reserved positions.
+     */
+    private static final VarHandle SIZE;
+
+    /**
+     * Gives release and acquire access to the chunks, so a chunk added by one thread is seen whole by the others.
+     */
+    private static final VarHandle CHUNKS = MethodHandles.arrayElementVarHandle(Chunk[].class);
+
+    /**
+     * Gives release and acquire access to the next column, which publishes each linked entry.
+     */
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(int[].class);
+
+    static {
+        try {
+            SIZE = MethodHandles.lookup().findVarHandle(ActivityLog.class, "size", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The chunks holding the columns, smallest first, or null where a chunk has not been added yet.
+     */
+    private final Chunk[] chunks = new Chunk[MAX_CHUNKS];
+
+    /**
+     * Number of positions reserved, filled in or not.
+     */
+    private volatile int size;
+
+    /**
+     * Constructs an empty ActivityLog.
+     */
+    public ActivityLog() {
+        this(FIRST_CHUNK);
+    }
+
+    /**
+     * Constructs an empty ActivityLog with room for the given number of activities.
+     *
+     * @param initialCapacity the number of activities to make room for
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public ActivityLog(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+        addChunks(initialCapacity);
+    }
+
+    /**
+     * Returns the number of positions reserved in the log.
+     * A position reserved by a thread that is still recording its activity is counted before it is filled in.
+     *
+     * @return the number of activities recorded or being recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Makes sure the log can hold at least the given number of activities without adding a chunk.
+     *
+     * @param minCapacity the number of activities the log must be able to hold
+     * @throws IllegalStateException if the log cannot hold that many activities
+     */
+    public void ensureCapacity(int minCapacity) {
+        addChunks(minCapacity);
+    }
+
+    /**
+     * Records an activity at the end of the log. The activity is not linked to the activities of its account yet.
+     *
+     * @param accountId the id of the Account the activity belongs to
+     * @param epochDay  the date of the activity as the number of days from 1/1/1970
+     * @param location  the branch where the activity took place
+     * @param type      'D' for deposit or 'W' for withdrawal
+     * @param amount    the amount of money of the activity, in cents
+     * @param atm       true if the activity was performed at an ATM
+     * @return the position of the new activity
+     * @throws IllegalStateException if the log is full
+     */
+    public int append(int accountId, int epochDay, Branch location, char type, long amount, boolean atm) {
+        return set(reserve(1), accountId, epochDay, location, type, amount, atm);
+    }
+
+    /**
+     * Adds the given number of empty positions to the end of the log, to be filled in later with set.
+     * Lets several threads record activities at positions decided in advance, each thread filling in its own positions,
+     * so that the log ends up the same as if the activities had been appended one by one in that order.
+     *
+     * @param count the number of positions to reserve
+     * @return the first reserved position
+     * @throws IllegalStateException if the log cannot hold that many more activities
+     */
+    public int reserve(int count) {
+        int first = (int) SIZE.getAndAdd(this, count);
+        if (first > MAX_SIZE - count) {
+            SIZE.getAndAdd(this, -count);
+            throw new IllegalStateException("Activity log is full: " + first + " + " + count);
+        }
+        addChunks(first + count);
+        return first;
+    }
+
+    /**
+     * Records an activity at a reserved position. The activity is the latest one of its account until link is called.
+     *
+     * @param index     the position of the activity, reserved with reserve
+     * @param accountId the id of the Account the activity belongs to
+     * @param epochDay  the date of the activity as the number of days from 1/1/1970
+     * @param location  the branch where the activity took place
+     * @param type      'D' for deposit or 'W' for withdrawal
+     * @param amount    the amount of money of the activity, in cents
+     * @param atm       true if the activity was performed at an ATM
+     * @return the position of the activity
+     */
+    public int set(int index, int accountId, int epochDay, Branch location, char type, long amount, boolean atm) {
+        Chunk chunk = chunk(chunkOf(index));
+        int at = offsetOf(index);
+        chunk.epochDays[at] = epochDay;
+        chunk.accountIds[at] = accountId;
+        chunk.locations[at] = (byte) location.ordinal();
+        chunk.types[at] = (byte) type;
+        chunk.amounts[at] = amount;
+        chunk.atms[at] = atm;
+        chunk.next[at] = NONE;
+        return index;
+    }
+
+    /**
+     * Links an activity after the previous activity of the same account. The release write publishes every value
+     * set before it, so a reader that follows the link sees the whole activity.
+     *
+     * @param previous the position of the previous activity of the account
+     * @param index    the position of the activity
+     */
+    public void link(int previous, int index) {
+        NEXT.setRelease(chunk(chunkOf(previous)).next, offsetOf(previous), index);
+    }
+
+    /**
+     * Returns the date of an activity as the number of days from 1/1/1970.
+     *
+     * @param index the position of the activity
+     * @return the epoch day of the activity
+     */
+    public int getEpochDay(int index) {
+        return chunk(chunkOf(index)).epochDays[offsetOf(index)];
+    }
+
+    /**
+     * Returns the id of the Account an activity belongs to.
+     *
+     * @param index the position of the activity
+     * @return the id of the Account
+     */
+    public int getAccountId(int index) {
+        return chunk(chunkOf(index)).accountIds[offsetOf(index)];
+    }
+
+    /**
+     * Returns the Branch where an activity took place.
+     *
+     * @param index the position of the activity
+     * @return the location of the activity
+     */
+    public Branch getLocation(int index) {
+        return BRANCHES[chunk(chunkOf(index)).locations[offsetOf(index)]];
+    }
+
+    /**
+     * Returns the type of an activity.
+     *
+     * @param index the position of the activity
+     * @return 'D' for deposit or 'W' for withdrawal
+     */
+    public char getType(int index) {
+        return (char) chunk(chunkOf(index)).types[offsetOf(index)];
+    }
+
+    /**
+     * Returns the amount of money of an activity.
+     *
+     * @param index the position of the activity
+     * @return the amount of the activity, in cents
+     */
+    public long getAmount(int index) {
+        return chunk(chunkOf(index)).amounts[offsetOf(index)];
+    }
+
+    /**
+     * Checks if an activity was performed at an ATM.
+     *
+     * @param index the position of the activity
+     * @return true if the activity was performed at an ATM, false otherwise
+     */
+    public boolean isAtm(int index) {
+        return chunk(chunkOf(index)).atms[offsetOf(index)];
+    }
+
+    /**
+     * Returns the position of the next activity of the same account.
+     *
+     * @param index the position of the activity
+     * @return the position of the next activity, or NONE if it is the latest activity of the account
+     */
+    public int next(int index) {
+        return (int) NEXT.getAcquire(chunk(chunkOf(index)).next, offsetOf(index));
+    }
+
+    /**
+     * Creates an Activity object holding a copy of the activity at the given position.
+     *
+     * @param index the position of the activity
+     * @return the Activity at that position
+     */
+    public Activity getActivity(int index) {
+        Chunk chunk = chunk(chunkOf(index));
+        int at = offsetOf(index);
+        return new Activity(Date.ofEpochDay(chunk.epochDays[at]), BRANCHES[chunk.locations[at]], (char) chunk.types[at],
+                chunk.amounts[at], chunk.atms[at]);
+    }
+
+    /**
+     * Writes every activity to a snapshot, one whole column at a time.
+     * The id of the Account of each activity is written as the position of the Account in the snapshot.
+     * Every reserved position must be filled in, so the caller holds back the threads recording activities,
+     * and every activity must belong to an Account in the snapshot, so the caller compacts the log first.
+     *
+     * @param out   the output the columns are written to
+     * @param ranks maps the id of each Account in the snapshot to its position in the snapshot
+     * @throws IOException           if the output cannot be written
+     * @throws IllegalStateException if an activity belongs to an Account that is not in the snapshot
+     */
+    void write(BinaryOutput out, IntHashIndex ranks) throws IOException {
+        int count = size;
+        out.writeInt(count);
+        forEachRange(0, count, (chunk, at, length) -> out.writeInts(chunk.epochDays, at, length));
+        forEachRange(0, count, (chunk, at, length) -> {
+            for (int i = at; i < at + length; i++) {
+                int rank = ranks.get(chunk.accountIds[i]);
+                if (rank == IntHashIndex.NOT_FOUND) {
+                    throw new IllegalStateException("Activity of an account not in the snapshot: " + chunk.accountIds[i]);
+                }
+                out.writeInt(rank);
+            }
+        });
+        forEachRange(0, count, (chunk, at, length) -> out.writeBytes(chunk.locations, at, length));
+        forEachRange(0, count, (chunk, at, length) -> out.writeBytes(chunk.types, at, length));
+        forEachRange(0, count, (chunk, at, length) -> out.writeLongs(chunk.amounts, at, length));
+        forEachRange(0, count, (chunk, at, length) -> out.writeBooleans(chunk.atms, at, length));
+        forEachRange(0, count, (chunk, at, length) -> out.writeInts(chunk.next, at, length));
+    }
+
+    /**
+     * Reads activities written by write and adds them to the end of the log, one whole column at a time.
+     * Positions of the next activity are moved by the number of activities already in the log.
+     *
+     * @param in  the input the columns are read from
+     * @param ids the id of each Account in the snapshot, indexed by its position in the snapshot
+     * @return the position in this log of the first activity read
+     * @throws IOException if the input cannot be read or does not hold a valid log
+     */
+    int read(BinaryInput in, int[] ids) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of activities: " + count);
+        }
+        int base = reserve(count);
+        int end = base + count;
+        forEachRange(base, end, (chunk, at, length) -> in.readInts(chunk.epochDays, at, length));
+        forEachRange(base, end, (chunk, at, length) -> {
+            in.readInts(chunk.accountIds, at, length);
+            for (int i = at; i < at + length; i++) {
+                int rank = chunk.accountIds[i];
+                if (rank < NONE || rank >= ids.length) {
+                    throw new IOException("Invalid account in activity: " + rank);
+                }
+                chunk.accountIds[i] = rank == NONE ? NONE : ids[rank];
+            }
+        });
+        forEachRange(base, end, (chunk, at, length) -> in.readBytes(chunk.locations, at, length));
+        forEachRange(base, end, (chunk, at, length) -> in.readBytes(chunk.types, at, length));
+        forEachRange(base, end, (chunk, at, length) -> in.readLongs(chunk.amounts, at, length));
+        forEachRange(base, end, (chunk, at, length) -> in.readBooleans(chunk.atms, at, length));
+        forEachRange(base, end, (chunk, at, length) -> {
+            in.readInts(chunk.next, at, length);
+            for (int i = at; i < at + length; i++) {
+                if (chunk.locations[i] < 0 || chunk.locations[i] >= BRANCHES.length
+                        || chunk.next[i] < NONE || chunk.next[i] >= count) {
+                    throw new IOException("Invalid activity: branch " + chunk.locations[i] + ", next " + chunk.next[i]);
+                }
+                if (chunk.next[i] != NONE) {
+                    chunk.next[i] += base;
+                }
+            }
+        });
+        return base;
+    }
+
+    /**
+     * Adds every activity of another log to the end of this log, in the same order.
+     * Positions of the next activity are moved by the number of activities already in this log.
+     *
+     * @param other the log whose activities are added
+     * @return the position in this log of the first activity added
+     */
+    int appendAll(ActivityLog other) {
+        int count = other.size;
+        int base = reserve(count);
+        int from = 0;
+        while (from < count) {
+            Chunk source = other.chunk(chunkOf(from));
+            int sourceAt = offsetOf(from);
+            Chunk target = chunk(chunkOf(base + from));
+            int targetAt = offsetOf(base + from);
+            int length = Math.min(count - from, Math.min(source.length() - sourceAt, target.length() - targetAt));
+            System.arraycopy(source.epochDays, sourceAt, target.epochDays, targetAt, length);
+            System.arraycopy(source.accountIds, sourceAt, target.accountIds, targetAt, length);
+            System.arraycopy(source.locations, sourceAt, target.locations, targetAt, length);
+            System.arraycopy(source.types, sourceAt, target.types, targetAt, length);
+            System.arraycopy(source.amounts, sourceAt, target.amounts, targetAt, length);
+            System.arraycopy(source.atms, sourceAt, target.atms, targetAt, length);
+            for (int i = 0; i < length; i++) {
+                int following = source.next[sourceAt + i];
+                target.next[targetAt + i] = following == NONE ? NONE : following + base;
+            }
+            from += length;
+        }
+        return base;
+    }
+
+    /**
+     * Calls an action on each piece of a range of positions that lies in one chunk, in order.
+     *
+     * @param from   the first position of the range
+     * @param to     the position after the last one of the range
+     * @param action the action called with the chunk, the offset in the chunk, and the length of each piece
+     * @throws IOException if the action throws it
+     */
+    private void forEachRange(int from, int to, RangeAction action) throws IOException {
+        int at = from;
+        while (at < to) {
+            Chunk chunk = chunk(chunkOf(at));
+            int offset = offsetOf(at);
+            int length = Math.min(to - at, chunk.length() - offset);
+            action.apply(chunk, offset, length);
+            at += length;
+        }
+    }
+
+    /**
+     * Adds the chunks needed to hold the given number of activities. Private, so the constructor can call it.
+     *
+     * @param minCapacity the number of activities the log must be able to hold
+     * @throws IllegalStateException if the log cannot hold that many activities
+     */
+    private void addChunks(int minCapacity) {
+        if (minCapacity > 0) {
+            chunk(chunkOf(minCapacity - 1));
+        }
+    }
+
+    /**
+     * Returns a chunk, adding it and every smaller chunk that is missing.
+     *
+     * @param number the number of the chunk
+     * @return the chunk
+     * @throws IllegalStateException if the number is past the last chunk a log can have
+     */
+    private Chunk chunk(int number) {
+        Chunk chunk = (Chunk) CHUNKS.getAcquire(chunks, number);
+        if (chunk != null) {
+            return chunk;
+        }
+        if (number >= MAX_CHUNKS) {
+            throw new IllegalStateException("Activity log is full");
+        }
+        synchronized (chunks) {
+            for (int i = 0; i <= number; i++) {
+                if (CHUNKS.getAcquire(chunks, i) == null) {
+                    CHUNKS.setRelease(chunks, i, new Chunk(FIRST_CHUNK << i));
+                }
+            }
+            return chunks[number];
+        }
+    }
+
+    /**
+     * Returns the number of the chunk holding a position.
+     *
+     * @param index the position
+     * @return the number of the chunk
+     */
+    private static int chunkOf(int index) {
+        return 31 - Integer.numberOfLeadingZeros(index + FIRST_CHUNK) - FIRST_CHUNK_BITS;
+    }
+
+    /**
+     * Returns the offset of a position in its chunk.
+     *
+     * @param index the position
+     * @return the offset in the chunk
+     */
+    private static int offsetOf(int index) {
+        int shifted = index + FIRST_CHUNK;
+        return shifted - Integer.highestOneBit(shifted);
+    }
+
+    /**
+     * An action called on a piece of the log that lies in one chunk.
+     */
+    private interface RangeAction {
+
+        /**
+         * Acts on a piece of a chunk.
+         *
+         * @param chunk  the chunk
+         * @param at     the offset of the piece in the chunk
+         * @param length the number of positions of the piece
+         * @throws IOException if the piece cannot be read or written
+         */
+        void apply(Chunk chunk, int at, int length) throws IOException;
+    }
+
+    /**
+     * One chunk of the columns of the log.
+     */
+    private static final class Chunk {
+
+        /**
+         * Date of each activity as the number of days from 1/1/1970.
+         */
+        private final int[] epochDays;
+
+        /**
+         * Id of the Account each activity belongs to.
+         */
+        private final int[] accountIds;
+
+        /**
+         * Ordinal of the Branch where each activity took place.
+         */
+        private final byte[] locations;
+
+        /**
+         * Type of each activity: 'D' for deposit or 'W' for withdrawal.
+         */
+        private final byte[] types;
+
+        /**
+         * Amount of money of each activity, in cents.
+         */
+        private final long[] amounts;
+
+        /**
+         * Whether each activity was performed at an ATM.
+         */
+        private final boolean[] atms;
+
+        /**
+         * Position of the next activity of the same account, or NONE if it is the latest one.
+         */
+        private final int[] next;
+
+        /**
+         * Creates an empty chunk.
+         *
+         * @param capacity the number of activities the chunk holds
+         */
+        private Chunk(int capacity) {
+            this.epochDays = new int[capacity];
+            this.accountIds = new int[capacity];
+            this.locations = new byte[capacity];
+            this.types = new byte[capacity];
+            this.amounts = new long[capacity];
+            this.atms = new boolean[capacity];
+            this.next = new int[capacity];
+        }
+
+        /**
+         * Returns the number of activities the chunk holds.
+         *
+         * @return the capacity of the chunk
+         */
+        private int length() {
+            return next.length;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.project3.banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ActivityTailer class follows an activities file that other programs keep appending to,
+ * and applies only the lines added since the last time it looked.
+ * Each poll reads the complete lines between the position reached and the last line break of the file, so a line that
+ * is still being written is left for the next poll, and applies them in batches with an ActivityIngester.
+ * If the database has a Journal, each batch and the position it reached are recorded as one compound journal record
+ * while the database is locked, so a restarted program restores the position with the activities it covers and
+ * resumes exactly where processing stopped, instead of applying some transactions twice.
+ * Without a Journal the position is saved to a checkpoint file next to the activities file after each batch.
+ * The ingester and its reading threads are kept from one poll to the next until the tailer is closed.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ActivityTailer implements AutoCloseable {
+
+    /**
+     * Ending added to the name of the activities file to name its checkpoint file.
+     */
+    public static final String CHECKPOINT_SUFFIX = ".offset";
+
+    /**
+     * Beginning of the name under which the position of a followed file is kept in the database.
+     */
+    public static final String SOURCE_PREFIX = "tail:";
+
+    /**
+     * Number of bytes of the file applied in each batch, so the journal record of a batch stays small.
+     */
+    private static final int BATCH_BYTES = BulkImport.DEFAULT_BATCH_BYTES;
+
+    /**
+     * The file being followed.
+     */
+    private final Path file;
+
+    /**
+     * The file the position reached is saved to after each batch when the database has no Journal.
+     */
+    private final Path checkpoint;
+
+    /**
+     * The name under which the position of the file is kept in the database.
+     */
+    private final String source;
+
+    /**
+     * The database the activities are applied to, which keeps the position reached.
+     */
+    private final AccountDatabase database;
+
+    /**
+     * Applies the lines of each batch.
+     */
+    private final ActivityIngester ingester;
+
+    /**
+     * Position in the file of the first byte not processed yet.
+     */
+    private volatile long offset;
+
+    /**
+     * Line number of the first line not processed yet.
+     */
+    private volatile int line = 1;
+
+    /**
+     * Creates an ActivityTailer that resumes from the position kept in the database if it has a Journal,
+     * and otherwise from the checkpoint next to the file if it exists.
+     *
+     * @param database the database the activities are applied to
+     * @param file     the file being followed
+     * @throws IOException if the checkpoint exists but cannot be read
+     */
+    public ActivityTailer(AccountDatabase database, Path file) throws IOException {
+        this(database, file, file.resolveSibling(file.getFileName() + CHECKPOINT_SUFFIX));
+    }
+
+    /**
+     * Creates an ActivityTailer that saves its checkpoint to the given file when the database has no Journal.
+     * The tailer resumes from the position kept in the database if it has a Journal,
+     * and otherwise from the checkpoint if it exists.
+     *
+     * @param database   the database the activities are applied to
+     * @param file       the file being followed
+     * @param checkpoint the checkpoint file
+     * @throws IOException if the checkpoint exists but cannot be read
+     */
+    public ActivityTailer(AccountDatabase database, Path file, Path checkpoint) throws IOException {
+        this.file = file;
+        this.checkpoint = checkpoint;
+        this.source = SOURCE_PREFIX + file.toAbsolutePath();
+        this.database = database;
+        this.ingester = new ActivityIngester(database);
+        if (database.getJournal() != null) {
+            ImportPosition saved = database.getPosition(source);
+            if (saved != null) {
+                offset = saved.getOffset();
+                line = saved.getLine();
+            }
+        } else if (Files.exists(checkpoint)) {
+            readCheckpoint();
+        }
+    }
+
+    /**
+     * Applies the complete lines appended to the file since the last poll, one batch at a time,
+     * recording the position reached with each batch.
+     * Nothing is read if the file does not exist yet or has no new complete line.
+     *
+     * @return the number of activities applied and lines read, and at most BulkImport.KEPT_REJECTED of the rejected
+     * lines numbered as in the file
+     * @throws IOException if the file or the checkpoint cannot be read or written,
+     *                     or the file is now shorter than the position reached
+     */
+    public LoadReport poll() throws IOException {
+        LoadReport report = new LoadReport();
+        if (!Files.exists(file)) {
+            return report;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                throw new IOException(file + " is shorter than the position reached, byte " + offset);
+            }
+            ByteBuffer scan = ByteBuffer.allocate(BatchFiles.SCAN_BYTES);
+            long end = BatchFiles.lastLineEnd(channel, offset, size, scan);
+            while (offset < end) {
+                long batchEnd = end - offset <= BATCH_BYTES ? end
+                        : BatchFiles.lineEnd(channel, offset + BATCH_BYTES, end, scan);
+                report.add(applyBatch(batchEnd), BulkImport.KEPT_REJECTED);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Stops the reading threads of the ingester.
+     */
+    @Override
+    public void close() {
+        ingester.close();
+    }
+
+    /**
+     * Returns the file being followed.
+     *
+     * @return the path of the activities file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the position in the file of the first byte not processed yet.
+     *
+     * @return the byte offset reached
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the line number of the first line not processed yet.
+     *
+     * @return the line number reached
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Applies the lines up to the given position and records the position reached.
+     * With a Journal, the activities and the position are recorded as one compound record while the database is
+     * locked, and the record is forced to disk before the next batch; without one, the checkpoint file is replaced.
+     * If the batch fails partway, neither its activities nor the position are recorded.
+     *
+     * @param end the position after the last line break of the batch
+     * @return the report of the batch
+     * @throws IOException if the file cannot be read, or the journal or the checkpoint cannot be written
+     */
+    private LoadReport applyBatch(long end) throws IOException {
+        LoadReport batch = BatchFiles.apply(database, () -> {
+            LoadReport applied = ingester.ingest(file, offset, end, line);
+            database.setPosition(new ImportPosition(source, end, line + applied.getLines(), 0, 0, 0, false));
+            return applied;
+        });
+        Journal journal = database.getJournal();
+        if (journal != null) {
+            journal.sync();
+        } else {
+            writeCheckpoint(end, line + batch.getLines());
+        }
+        offset = end;
+        line += batch.getLines();
+        return batch;
+    }
+
+    /**
+     * Reads the position and line number saved in the checkpoint file.
+     *
+     * @throws IOException if the checkpoint cannot be read or is not valid
+     */
+    private void readCheckpoint() throws IOException {
+        String[] fields = Files.readString(checkpoint, StandardCharsets.US_ASCII).trim().split(",");
+        try {
+            if (fields.length != 2) {
+                throw new NumberFormatException("expected 2 fields, found " + fields.length);
+            }
+            long savedOffset = Long.parseLong(fields[0]);
+            int savedLine = Integer.parseInt(fields[1]);
+            if (savedOffset < 0 || savedLine < 1) {
+                throw new NumberFormatException("negative position");
+            }
+            offset = savedOffset;
+            line = savedLine;
+        } catch (NumberFormatException e) {
+            throw new IOException(checkpoint + " is not a valid checkpoint - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the position and line number reached, replacing the checkpoint file only once the new one is on disk.
+     *
+     * @param newOffset the position of the first byte not processed yet
+     * @param newLine   the line number of the first line not processed yet
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private void writeCheckpoint(long newOffset, int newLine) throws IOException {
+        BatchFiles.replace(checkpoint, newOffset + "," + newLine + "\n");
+    }
+}
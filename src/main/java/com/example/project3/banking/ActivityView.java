@@ -0,0 +1,98 @@
+package com.example.project3.banking;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only view of the activities of one Account, stored in an ActivityLog.
+ * The view holds only the position of the first activity and the number of activities,
+ * and creates an Activity object for each activity as it is visited.
+ * While another thread is still linking an activity of the Account, the iterator stops at the last linked one.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ActivityView implements Iterable<Activity> {
+
+    /**
+     * The log that stores the activities, null if the Account has none.
+     */
+    private final ActivityLog log;
+
+    /**
+     * Position of the first activity of the Account in the log.
+     */
+    private final int first;
+
+    /**
+     * Number of activities visible through this view.
+     */
+    private final int count;
+
+    /**
+     * Creates a view of the activities of an Account.
+     *
+     * @param log   the log that stores the activities, null if there are none
+     * @param first the position of the first activity in the log
+     * @param count the number of activities of the Account
+     */
+    ActivityView(ActivityLog log, int first, int count) {
+        this.log = log;
+        this.first = first;
+        this.count = count;
+    }
+
+    /**
+     * Returns the number of activities in the view.
+     *
+     * @return the number of activities
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Checks if the view is empty.
+     *
+     * @return true if the Account has no activities, false otherwise
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns an iterator over the activities in the order they were recorded.
+     *
+     * @return an {@code Iterator<Activity>} for traversing the activities
+     */
+    @Override
+    public Iterator<Activity> iterator() {
+        return new Iterator<>() {
+
+            /**
+             * Position of the next activity to be visited.
+             */
+            private int current = first;
+
+            /**
+             * Number of activities already visited.
+             */
+            private int visited = 0;
+
+            @Override
+            public boolean hasNext() {
+                return visited < count && current != ActivityLog.NONE; //a later activity may not be linked yet
+            }
+
+            @Override
+            public Activity next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Activity activity = log.getActivity(current);
+                current = log.next(current);
+                visited++;
+                return activity;
+            }
+        };
+    }
+}
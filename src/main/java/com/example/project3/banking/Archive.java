@@ -1,49 +1,404 @@
 package com.example.project3.banking;
 
+import com.example.project3.util.BinaryInput;
+import com.example.project3.util.BinaryOutput;
 import com.example.project3.util.Date;
+import com.example.project3.util.IntHashIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
- * Archive will hold Accounts that have been closed
+ * Archive will hold Accounts that have been closed.
+ * Closed Accounts are not kept in memory: each one is appended, with its close date and activities,
+ * to the newest of a series of segment files, and a new segment is started every SEGMENT_ENTRIES accounts.
+ * Only the number of accounts in each segment and an index from account number to segment stay in memory.
+ * Iterating over the Archive reads one segment at a time, newest first, and recreates its AccountNodes.
+ * The AccountDatabase drops the activities of closed Accounts from its log once they make up most of it,
+ * so the size of the Archive does not count against the memory of the program.
+ * Adding, finding, and reading a segment are synchronized, so accounts closed by one thread can be read by another.
  *
  * @author Vishal Saravanan, Yining Chen
  */
-public class Archive {
+public class Archive implements Iterable<AccountNode> {
+
+    /**
+     * Number of closed Accounts written to each segment file.
+     */
+    private static final int SEGMENT_ENTRIES = 4096;
+
+    /**
+     * Size of the buffer used to read and write segment files, in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Every Branch, indexed by ordinal.
+     */
+    private static final Branch[] BRANCHES = Branch.values();
+
+    /**
+     * Directory holding the segment files, or null until the first Account is closed.
+     */
+    private Path directory;
+
+    /**
+     * True if the directory was created by the Archive and is removed when the program ends.
+     */
+    private final boolean temporary;
+
+    /**
+     * Number of closed Accounts in each segment, in the order the segments were written.
+     */
+    private int[] segmentSizes = new int[8];
 
     /**
-     * 'first' represents the head node of the linked list of Account objects
+     * Number of segments written.
      */
-    private AccountNode first;
+    private int segments;
 
     /**
-     * Creates a new Archive that holds all closed Accounts
-     * Linked List data structure representation using AccountNodes are used for the Archive
+     * Number of closed Accounts in the Archive.
+     */
+    private int size;
+
+    /**
+     * Maps the account number of each closed Account to the segment holding it.
+     */
+    private final IntHashIndex bySegment = new IntHashIndex();
+
+    /**
+     * The newest segment file, open for writing, or null if no segment is open.
+     */
+    private FileChannel channel;
+
+    /**
+     * Writes to the newest segment file.
+     */
+    private BinaryOutput out;
+
+    /**
+     * Creates a new Archive that writes its segments to a temporary directory, which is removed when the program ends.
      */
     public Archive() {
-        this.first = null;
+        this.directory = null;
+        this.temporary = true;
+    }
+
+    /**
+     * Creates a new Archive that writes its segments to the given directory.
+     * Segments already in the directory are replaced.
+     *
+     * @param directory the directory holding the segment files
+     */
+    public Archive(Path directory) {
+        this.directory = directory;
+        this.temporary = false;
     }
 
     /**
-     * Adds an AccountNode object to the front of the linked list instance variable, first.
+     * Adds a closed Account to the Archive, writing it to the newest segment file with its activities.
      *
-     * @param account object that will be used to create a AccountNode and will be added to the front of the linked list instance variable, first
-     * @param close Date object that represents the Date at which the Account was closed
+     * @param account the Account that was closed
+     * @param close   Date object that represents the Date at which the Account was closed
+     * @throws UncheckedIOException if the segment file cannot be written
      */
-    public void add(Account account, Date close) {
-        AccountNode newNode = new AccountNode(account, close);
-        if (first != null) {
-            newNode.setNext(first);
+    public synchronized void add(Account account, Date close) {
+        try {
+            if (out == null || segmentSizes[segments - 1] == SEGMENT_ENTRIES) {
+                startSegment();
+            }
+            out.writeInt(close.toEpochDay());
+            writeEntry(out, account);
+            segmentSizes[segments - 1]++;
+            size++;
+            bySegment.put(account.getAccountNumber().intValue(), segments - 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        first = newNode;
     }
 
     /**
-     * Returns the first AccountNode in the AccountDatabase
+     * Returns the number of closed Accounts in the Archive.
      *
-     * @return AccountNode that represents an Account in the AccountDatabase
+     * @return the number of closed Accounts
      */
-    public AccountNode getFirst() {
-        return first;
+    public synchronized int size() {
+        return size;
     }
 
+    /**
+     * Checks if no Account has been closed.
+     *
+     * @return true if the Archive is empty, false otherwise
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds the most recently closed Account with the given account number, reading only the segment holding it.
+     *
+     * @param number the account number of the closed Account
+     * @return the AccountNode of the closed Account, or null if no Account with the number was closed
+     * @throws UncheckedIOException if the segment file cannot be read
+     */
+    public synchronized AccountNode find(AccountNumber number) {
+        int segment = bySegment.get(number.intValue());
+        if (segment == IntHashIndex.NOT_FOUND) {
+            return null;
+        }
+        AccountNode[] nodes = readSegment(segment);
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            if (nodes[i].getAccount().getAccountNumber().equals(number)) {
+                return nodes[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an iterator over the closed Accounts, most recently closed first.
+     * Segments are read one at a time as the iterator reaches them.
+     *
+     * @return an Iterator of AccountNodes
+     * @throws UncheckedIOException if a segment file cannot be read
+     */
+    @Override
+    public synchronized Iterator<AccountNode> iterator() {
+        return new Iterator<>() {
+            private int segment = segments;
+            private AccountNode[] nodes = new AccountNode[0];
+            private int index = -1;
+
+            @Override
+            public boolean hasNext() {
+                while (index < 0 && segment > 0) {
+                    nodes = readSegment(--segment);
+                    index = nodes.length - 1;
+                }
+                return index >= 0;
+            }
+
+            @Override
+            public AccountNode next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return nodes[index--];
+            }
+        };
+    }
+
+    /**
+     * Returns the first closed Accounts added to the Archive, oldest first, such as the Accounts it held at some earlier
+     * time. Accounts closed later are not visited. Segments are read one at a time as the iterator reaches them.
+     *
+     * @param count the number of closed Accounts visited, at most the size of the Archive
+     * @return the AccountNodes of the first count closed Accounts
+     * @throws UncheckedIOException if a segment file cannot be read
+     */
+    Iterable<AccountNode> oldest(int count) {
+        return () -> new Iterator<>() {
+            private int segment = 0;
+            private AccountNode[] nodes = new AccountNode[0];
+            private int index = 0;
+            private int remaining = count;
+
+            @Override
+            public boolean hasNext() {
+                while (remaining > 0 && index == nodes.length) {
+                    nodes = readSegment(segment++);
+                    index = 0;
+                }
+                return remaining > 0;
+            }
 
+            @Override
+            public AccountNode next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return nodes[index++];
+            }
+        };
+    }
+
+    /**
+     * Writes every closed Account, oldest first, with its close date and activities.
+     *
+     * @param output the output the Archive is written to
+     * @throws IOException if the output cannot be written or a segment file cannot be read
+     */
+    synchronized void write(BinaryOutput output) throws IOException {
+        output.writeInt(size);
+        for (int segment = 0; segment < segments; segment++) {
+            for (AccountNode node : readSegment(segment)) {
+                output.writeInt(node.getClose().toEpochDay());
+                writeEntry(output, node.getAccount());
+            }
+        }
+    }
+
+    /**
+     * Reads closed Accounts written by write and adds them to the Archive in the same order.
+     *
+     * @param input the input the Archive is read from
+     * @throws IOException if the input cannot be read or does not hold a valid Archive
+     */
+    synchronized void read(BinaryInput input) throws IOException {
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of closed accounts: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            Date close = Date.ofEpochDay(input.readInt());
+            add(readEntry(input), close);
+        }
+    }
+
+    /**
+     * Adds every closed Account of another Archive to this Archive, oldest first, reading one segment at a time.
+     *
+     * @param other the Archive whose closed Accounts are added
+     * @throws UncheckedIOException if a segment file cannot be read or written
+     */
+    synchronized void addAll(Archive other) {
+        for (int segment = 0; segment < other.segments; segment++) {
+            for (AccountNode node : other.readSegment(segment)) {
+                add(node.getAccount(), node.getClose());
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment file, closing the current one.
+     *
+     * @throws IOException if the segment file cannot be created
+     */
+    private void startSegment() throws IOException {
+        closeSegment();
+        if (directory == null) {
+            directory = Files.createTempDirectory("archive");
+            directory.toFile().deleteOnExit();
+        } else {
+            Files.createDirectories(directory);
+        }
+        Path file = segmentFile(segments);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        if (temporary) {
+            file.toFile().deleteOnExit(); //deleted before the directory, which was registered first
+        }
+        out = new BinaryOutput(channel, BUFFER_SIZE);
+        if (segments == segmentSizes.length) {
+            segmentSizes = Arrays.copyOf(segmentSizes, segments * 2);
+        }
+        segmentSizes[segments++] = 0;
+    }
+
+    /**
+     * Writes the rest of the current segment file and closes it.
+     *
+     * @throws IOException if the segment file cannot be written
+     */
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            out.flush();
+            channel.close();
+            channel = null;
+            out = null;
+        }
+    }
+
+    /**
+     * Reads every closed Account of a segment, oldest first.
+     * Accounts still waiting in the buffer of the newest segment are written to the file first.
+     *
+     * @param segment the number of the segment
+     * @return the AccountNodes of the segment
+     * @throws UncheckedIOException if the segment file cannot be read
+     */
+    private synchronized AccountNode[] readSegment(int segment) {
+        try {
+            if (segment == segments - 1 && out != null) {
+                out.flush();
+            }
+            AccountNode[] nodes = new AccountNode[segmentSizes[segment]];
+            try (FileChannel file = FileChannel.open(segmentFile(segment), StandardOpenOption.READ)) {
+                BinaryInput input = new BinaryInput(file, BUFFER_SIZE);
+                for (int i = 0; i < nodes.length; i++) {
+                    Date close = Date.ofEpochDay(input.readInt());
+                    nodes[i] = new AccountNode(readEntry(input), close);
+                }
+            }
+            return nodes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the path of a segment file.
+     *
+     * @param segment the number of the segment
+     * @return the path of the segment file
+     */
+    private Path segmentFile(int segment) {
+        return directory.resolve(String.format("segment-%06d.bin", segment));
+    }
+
+    /**
+     * Writes a closed Account and its activities.
+     *
+     * @param output  the output the Account is written to
+     * @param account the closed Account
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeEntry(BinaryOutput output, Account account) throws IOException {
+        Snapshot.writeAccount(output, account);
+        ActivityView activities = account.getActivities();
+        output.writeInt(activities.size());
+        for (Activity activity : activities) {
+            output.writeInt(activity.getDate().toEpochDay());
+            output.writeByte(activity.getLocation().ordinal());
+            output.writeByte(activity.getType());
+            output.writeLong(activity.getAmount());
+            output.writeBoolean(activity.isAtm());
+        }
+    }
+
+    /**
+     * Reads a closed Account and its activities written by writeEntry.
+     *
+     * @param input the input the Account is read from
+     * @return the recreated Account, holding its activities in its own log
+     * @throws IOException if the input cannot be read or does not hold a valid Account
+     */
+    private static Account readEntry(BinaryInput input) throws IOException {
+        Account account = Snapshot.readAccount(input);
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of activities: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            Date date = Date.ofEpochDay(input.readInt());
+            int location = input.readByte();
+            if (location < 0 || location >= BRANCHES.length) {
+                throw new IOException("Invalid branch: " + location);
+            }
+            char type = (char) input.readByte();
+            long amount = input.readLong();
+            account.addActivity(new Activity(date, BRANCHES[location], type, amount, input.readBoolean()));
+        }
+        return account;
+    }
 }
@@ -0,0 +1,181 @@
+package com.example.project3.banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The BatchFiles class holds the steps shared by the classes that apply an input file to a database in batches,
+ * such as BulkImport and ActivityTailer: finding the line breaks that end a batch, applying a batch as one compound
+ * journal record while the database is locked, and replacing a checkpoint file.
+ * It only has static methods and is never instantiated.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+final class BatchFiles {
+
+    /**
+     * Number of bytes read at a time when looking for a line break.
+     */
+    static final int SCAN_BYTES = 4096;
+
+    /**
+     * A batch applied to a database by apply.
+     *
+     * @param <T> the type of the result of the batch
+     */
+    @FunctionalInterface
+    interface Batch<T> {
+
+        /**
+         * Applies the changes of the batch.
+         *
+         * @return the result of the batch
+         * @throws IOException if the input cannot be read or written
+         */
+        T apply() throws IOException;
+    }
+
+    /**
+     * Prevents instances, as the class only has static methods.
+     */
+    private BatchFiles() {
+    }
+
+    /**
+     * Applies a batch while the database is locked, so no teller changes it between the changes of the batch.
+     * If the database has a Journal, the records of the batch are collected into one compound record, written once
+     * the batch is applied; if the batch fails partway, the collected records are dropped instead, so the journal
+     * never holds part of a batch without the position it reached. The record is durable once committed,
+     * for example with sync.
+     *
+     * @param database the database changed by the batch
+     * @param batch    the batch
+     * @param <T>      the type of the result of the batch
+     * @return the result of the batch
+     * @throws IOException if the batch cannot read or write its input
+     */
+    static <T> T apply(AccountDatabase database, Batch<T> batch) throws IOException {
+        Lock exclusive = database.exclusiveLock();
+        if (exclusive != null) {
+            exclusive.lock();
+        }
+        try {
+            Journal journal = database.getJournal();
+            if (journal == null) {
+                return batch.apply();
+            }
+            journal.beginGroup();
+            T result;
+            try {
+                result = batch.apply();
+            } catch (Throwable e) {
+                journal.abortGroup();
+                throw e;
+            }
+            journal.endGroup();
+            return result;
+        } finally {
+            if (exclusive != null) {
+                exclusive.unlock();
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the line containing the byte before a position.
+     *
+     * @param channel  the open file
+     * @param position the position the search starts from
+     * @param size     the position the search stops at
+     * @param buffer   the buffer the file is read into
+     * @return the position after the first line break at or after position - 1, or size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    static long lineEnd(FileChannel channel, long position, long size, ByteBuffer buffer) throws IOException {
+        long at = Math.max(position - 1, 0);
+        while (at < size) {
+            int read = read(channel, at, (int) Math.min(buffer.capacity(), size - at), buffer);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return size;
+    }
+
+    /**
+     * Finds the end of the last complete line before a position.
+     *
+     * @param channel the open file
+     * @param from    the position the search stops at
+     * @param size    the position the search starts from, usually the size of the file
+     * @param buffer  the buffer the file is read into
+     * @return the position after the last line break at or after from, or from if there is none
+     * @throws IOException if the file cannot be read
+     */
+    static long lastLineEnd(FileChannel channel, long from, long size, ByteBuffer buffer) throws IOException {
+        long at = size;
+        while (at > from) {
+            int length = (int) Math.min(buffer.capacity(), at - from);
+            long start = at - length;
+            read(channel, start, length, buffer);
+            for (int i = length - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            at = start;
+        }
+        return from;
+    }
+
+    /**
+     * Writes a checkpoint file, replacing the old one only once the new one is on disk,
+     * so a crash leaves either the old checkpoint or the new one.
+     *
+     * @param checkpoint the checkpoint file
+     * @param text       the new content of the checkpoint
+     * @throws IOException if the checkpoint cannot be written
+     */
+    static void replace(Path checkpoint, String text) throws IOException {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads bytes of a file into the start of a buffer.
+     *
+     * @param channel  the open file
+     * @param position the position of the first byte read
+     * @param length   the number of bytes to read, at most the capacity of the buffer
+     * @param buffer   the buffer the bytes are read into
+     * @return the number of bytes read
+     * @throws IOException if the file cannot be read or ends before the last byte
+     */
+    private static int read(FileChannel channel, long position, int length, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of input");
+            }
+        }
+        return length;
+    }
+}
@@ -48,6 +48,22 @@ public enum Branch {
      */
     private final String county;
 
+    /**
+     * The 3-digit branch code as an int.
+     */
+    private final int codeValue;
+
+    /**
+     * Lookup table from a 3-digit branch code to its Branch, null for codes that are not used.
+     */
+    private static final Branch[] BY_CODE = new Branch[1000];
+
+    static {
+        for (Branch branch : values()) {
+            BY_CODE[branch.codeValue] = branch;
+        }
+    }
+
     /**
      * Creates a Branch object.
      *
@@ -59,6 +75,26 @@ public enum Branch {
         this.zip = zip;
         this.branchCode = branchCode;
         this.county = county;
+        this.codeValue = Integer.parseInt(branchCode);
+    }
+
+    /**
+     * Finds the Branch with the given 3-digit branch code without creating any objects.
+     *
+     * @param code the branch code as an int
+     * @return the Branch with that code, or null if no Branch has that code
+     */
+    public static Branch fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Returns the 3-digit branch code as an int.
+     *
+     * @return int representation of the branch code
+     */
+    public int getCodeValue() {
+        return this.codeValue;
     }
 
     /**
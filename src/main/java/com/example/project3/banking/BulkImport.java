@@ -0,0 +1,460 @@
+package com.example.project3.banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The BulkImport class loads a large accounts file or activities file in batches that can be resumed.
+ * Each batch is a run of complete lines loaded with an AccountLoader or applied with an ActivityIngester.
+ * A line that cannot be loaded does not stop the import: it is written to a quarantine file next to the input,
+ * with its line number and the reason it was rejected, and the import continues with the next line.
+ * Each batch is loaded while the database is locked, its rejected lines are forced to the quarantine file, and the
+ * position reached and the running totals are kept in the database. If the database has a Journal, the changes of
+ * the batch and its position are recorded as one compound journal record and forced to disk together, so after a
+ * crash the journal restores either both or neither, and importing the same file again resumes from the position
+ * restored with the database: no line is loaded twice and no line is skipped.
+ * After each batch a checkpoint file next to the input is also replaced with the position and the totals; it holds the
+ * summary of the import once the whole file is loaded, and is where an import into a database without a Journal resumes.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class BulkImport {
+
+    /**
+     * Ending added to the name of the input file to name its checkpoint file.
+     */
+    public static final String CHECKPOINT_SUFFIX = ".import";
+
+    /**
+     * Ending added to the name of the input file to name its quarantine file.
+     */
+    public static final String QUARANTINE_SUFFIX = ".rejected";
+
+    /**
+     * Number of bytes of the input loaded in each batch, unless another size is given.
+     */
+    public static final int DEFAULT_BATCH_BYTES = 1 << 24;
+
+    /**
+     * Largest number of rejected lines kept in the LoadReport of a run. Every rejected line is still quarantined.
+     */
+    public static final int KEPT_REJECTED = 100;
+
+    /**
+     * Beginning of the name under which the position of an imported file is kept in the database.
+     */
+    public static final String SOURCE_PREFIX = "import:";
+
+    /**
+     * Number of bytes in one kilobyte, the unit progress is reported in.
+     */
+    private static final int KILOBYTE = 1024;
+
+    /**
+     * Status saved in the checkpoint while the import is not finished.
+     */
+    private static final String RUNNING = "running";
+
+    /**
+     * Status saved in the checkpoint once the whole file is loaded.
+     */
+    private static final String COMPLETE = "complete";
+
+    /**
+     * The database the file is loaded into.
+     */
+    private final AccountDatabase database;
+
+    /**
+     * The file being imported.
+     */
+    private final Path file;
+
+    /**
+     * The file the position reached and the totals are saved to after each batch.
+     */
+    private final Path checkpoint;
+
+    /**
+     * The file the rejected lines are written to.
+     */
+    private final Path quarantine;
+
+    /**
+     * The name under which the position of the file is kept in the database.
+     */
+    private final String source;
+
+    /**
+     * True if the file lists activities, false if it lists accounts.
+     */
+    private final boolean activities;
+
+    /**
+     * Number of bytes of the file loaded in each batch.
+     */
+    private final int batchBytes;
+
+    /**
+     * Position in the file of the first byte not loaded yet.
+     */
+    private long offset;
+
+    /**
+     * Line number of the first line not loaded yet.
+     */
+    private int line = 1;
+
+    /**
+     * Number of lines loaded by every committed batch.
+     */
+    private long loaded;
+
+    /**
+     * Number of lines rejected by every committed batch.
+     */
+    private long rejected;
+
+    /**
+     * Size of the quarantine file holding the rejected lines of every committed batch.
+     */
+    private long quarantineBytes;
+
+    /**
+     * True once the whole file has been loaded.
+     */
+    private boolean complete;
+
+    /**
+     * Creates a BulkImport that loads the file in batches of the given size, resuming from the position kept
+     * in the database if it has a Journal, and otherwise from the checkpoint next to the file if it exists.
+     *
+     * @param database   the database the file is loaded into
+     * @param file       the file being imported
+     * @param activities true if the file lists activities, false if it lists accounts
+     * @param batchBytes the number of bytes loaded in each batch
+     * @throws IOException              if the checkpoint exists but cannot be read
+     * @throws IllegalArgumentException if the batch size is not positive
+     */
+    public BulkImport(AccountDatabase database, Path file, boolean activities, int batchBytes) throws IOException {
+        if (batchBytes <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchBytes);
+        }
+        this.database = database;
+        this.file = file;
+        this.checkpoint = file.resolveSibling(file.getFileName() + CHECKPOINT_SUFFIX);
+        this.quarantine = file.resolveSibling(file.getFileName() + QUARANTINE_SUFFIX);
+        this.source = SOURCE_PREFIX + file.toAbsolutePath();
+        this.activities = activities;
+        this.batchBytes = batchBytes;
+        if (database.getJournal() != null) { //the journal decides which batches are in the database
+            ImportPosition saved = database.getPosition(source);
+            if (saved != null) {
+                offset = saved.getOffset();
+                line = saved.getLine();
+                loaded = saved.getLoaded();
+                rejected = saved.getRejected();
+                quarantineBytes = saved.getQuarantineBytes();
+                complete = saved.isComplete();
+            }
+        } else if (Files.exists(checkpoint)) {
+            readCheckpoint();
+        }
+    }
+
+    /**
+     * Creates a BulkImport of an accounts file, resuming from the position reached by an earlier import of it.
+     *
+     * @param database the database the accounts are added to
+     * @param file     the file listing the accounts
+     * @return the BulkImport of the file
+     * @throws IOException if the checkpoint exists but cannot be read
+     */
+    public static BulkImport accounts(AccountDatabase database, Path file) throws IOException {
+        return new BulkImport(database, file, false, DEFAULT_BATCH_BYTES);
+    }
+
+    /**
+     * Creates a BulkImport of an activities file, resuming from the position reached by an earlier import of it.
+     *
+     * @param database the database the activities are applied to
+     * @param file     the file listing the activities
+     * @return the BulkImport of the file
+     * @throws IOException if the checkpoint exists but cannot be read
+     */
+    public static BulkImport activities(AccountDatabase database, Path file) throws IOException {
+        return new BulkImport(database, file, true, DEFAULT_BATCH_BYTES);
+    }
+
+    /**
+     * Loads the rest of the file one batch at a time, committing each batch and its position before the next one starts.
+     * Rejected lines of a batch that was never committed are removed from the quarantine file first.
+     * Nothing is loaded if the import is already complete and the file has not grown.
+     * If the progress reports that the import was cancelled, the run stops before the next batch
+     * and the import is left incomplete, to be resumed by a later run.
+     *
+     * @param progress receives the number of kilobytes of the file committed and the report of each batch,
+     *                 and can cancel the run, or null
+     * @return the lines loaded and rejected by this run, with at most KEPT_REJECTED of the rejected lines
+     * @throws IOException if the file, the quarantine, or the checkpoint cannot be read or written,
+     *                     or the file is now shorter than the position reached
+     */
+    public LoadReport run(Progress progress) throws IOException {
+        LoadReport report = new LoadReport();
+        AccountLoader loader = activities ? null : new AccountLoader(database);
+        try (ActivityIngester ingester = activities ? new ActivityIngester(database) : null;
+             FileChannel input = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel rejects = FileChannel.open(quarantine, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long size = input.size();
+            if (size < offset) {
+                throw new IOException(file + " is shorter than the position reached, byte " + offset);
+            }
+            rejects.truncate(quarantineBytes);
+            rejects.position(quarantineBytes);
+            ByteBuffer scan = ByteBuffer.allocate(BatchFiles.SCAN_BYTES);
+            while (offset < size) {
+                if (progress != null && progress.isCancelled()) {
+                    return report;
+                }
+                long end = size - offset <= batchBytes ? size
+                        : BatchFiles.lineEnd(input, offset + batchBytes, size, scan);
+                if (progress != null) {
+                    progress.batchStarted();
+                }
+                LoadReport batch = load(loader, ingester, rejects, end, end == size);
+                report.add(batch, KEPT_REJECTED);
+                if (progress != null) {
+                    progress.batchFinished(batch);
+                    progress.update((int) (offset / KILOBYTE), (int) (size / KILOBYTE));
+                }
+            }
+            if (!complete) {
+                ImportPosition reached = new ImportPosition(source, offset, line, loaded, rejected, quarantineBytes, true);
+                BatchFiles.apply(database, () -> {
+                    database.setPosition(reached);
+                    return reached;
+                });
+                commit(reached);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Returns the file being imported.
+     *
+     * @return the path of the input file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the file the rejected lines are written to.
+     *
+     * @return the path of the quarantine file
+     */
+    public Path getQuarantine() {
+        return quarantine;
+    }
+
+    /**
+     * Returns the file the position reached and the totals are saved to.
+     *
+     * @return the path of the checkpoint file
+     */
+    public Path getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Returns the position in the file of the first byte not loaded yet.
+     *
+     * @return the committed byte offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the line number of the first line not loaded yet.
+     *
+     * @return the committed line number
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the number of lines loaded by every committed batch, including those of earlier runs.
+     *
+     * @return the total number of loaded lines
+     */
+    public long getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the number of lines rejected by every committed batch, including those of earlier runs.
+     *
+     * @return the total number of rejected lines
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Checks if the whole file has been loaded.
+     *
+     * @return true if the import is complete, false otherwise
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Converts the BulkImport to a string that can be printed.
+     *
+     * @return the totals of every committed batch and the line reached
+     */
+    @Override
+    public String toString() {
+        return String.format("%s %,d loaded, %,d rejected, %s at line %,d",
+                file.getFileName(), loaded, rejected, complete ? COMPLETE : RUNNING, line);
+    }
+
+    /**
+     * Loads one batch while the database is locked, quarantines its rejected lines, and records the position reached.
+     * If the database has a Journal, the changes of the batch and the position are collected into one compound record,
+     * which is forced to disk before the checkpoint file is replaced. If the batch fails partway, neither its changes
+     * nor the position are recorded, and its rejected lines are removed from the quarantine file by the next run.
+     *
+     * @param loader   the loader of an accounts file, or null
+     * @param ingester the ingester of an activities file, or null
+     * @param rejects  the open quarantine file
+     * @param end      the position after the last line of the batch
+     * @param last     true if the batch ends at the end of the file
+     * @return the report of the batch
+     * @throws IOException if the file or the quarantine cannot be read or written, or the journal cannot be committed
+     */
+    private LoadReport load(AccountLoader loader, ActivityIngester ingester, FileChannel rejects, long end, boolean last)
+            throws IOException {
+        LoadReport batch = BatchFiles.apply(database, () -> {
+            LoadReport applied = activities ? ingester.ingest(file, offset, end, line)
+                    : loader.load(file, offset, end, line);
+            long written = quarantine(rejects, applied); //on disk before the position that counts it is recorded
+            database.setPosition(new ImportPosition(source, end, line + applied.getLines(),
+                    loaded + applied.getLoaded(), rejected + applied.getRejectedCount(), quarantineBytes + written, last));
+            return applied;
+        });
+        commit(database.getPosition(source));
+        return batch;
+    }
+
+    /**
+     * Forces the journal record holding a position to disk, and then saves the position to the checkpoint file.
+     *
+     * @param reached the position reached
+     * @throws IOException if the journal or the checkpoint cannot be written
+     */
+    private void commit(ImportPosition reached) throws IOException {
+        if (database.getJournal() != null) {
+            database.getJournal().sync();
+        }
+        writeCheckpoint(reached);
+    }
+
+    /**
+     * Appends the rejected lines of a batch to the quarantine file, one per line as line number, reason, and text
+     * separated by tabs, and forces them to disk.
+     *
+     * @param rejects the open quarantine file
+     * @param batch   the report of the batch
+     * @return the number of bytes written
+     * @throws IOException if the quarantine file cannot be written
+     */
+    private static long quarantine(FileChannel rejects, LoadReport batch) throws IOException {
+        if (batch.getRejected().isEmpty()) {
+            return 0;
+        }
+        StringBuilder text = new StringBuilder();
+        for (RejectedLine rejectedLine : batch.getRejected()) {
+            text.append(rejectedLine.getLineNumber()).append('\t')
+                    .append(rejectedLine.getReason()).append('\t')
+                    .append(rejectedLine.getText()).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        long written = bytes.remaining();
+        while (bytes.hasRemaining()) {
+            rejects.write(bytes);
+        }
+        rejects.force(false);
+        return written;
+    }
+
+    /**
+     * Reads the position, line number, totals, and status saved in the checkpoint file.
+     *
+     * @throws IOException if the checkpoint cannot be read or is not valid
+     */
+    private void readCheckpoint() throws IOException {
+        try {
+            int found = 0;
+            for (String entry : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+                int equals = entry.indexOf('=');
+                if (equals < 0) {
+                    continue;
+                }
+                String value = entry.substring(equals + 1).trim();
+                switch (entry.substring(0, equals).trim()) {
+                    case "offset" -> offset = Long.parseLong(value);
+                    case "line" -> line = Integer.parseInt(value);
+                    case "loaded" -> loaded = Long.parseLong(value);
+                    case "rejected" -> rejected = Long.parseLong(value);
+                    case "quarantine" -> quarantineBytes = Long.parseLong(value);
+                    case "status" -> complete = COMPLETE.equals(value);
+                    default -> {
+                        continue;
+                    }
+                }
+                found++;
+            }
+            if (found != 6) {
+                throw new NumberFormatException("expected 6 entries, found " + found);
+            }
+            if (offset < 0 || line < 1 || loaded < 0 || rejected < 0 || quarantineBytes < 0) {
+                throw new NumberFormatException("negative position");
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException(checkpoint + " is not a valid checkpoint - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the position, line number, totals, and status reached,
+     * replacing the checkpoint file only once the new one is on disk.
+     *
+     * @param reached the position reached and the totals of every committed batch
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private void writeCheckpoint(ImportPosition reached) throws IOException {
+        BatchFiles.replace(checkpoint, "file=" + file.getFileName() + "\n"
+                + "offset=" + reached.getOffset() + "\n"
+                + "line=" + reached.getLine() + "\n"
+                + "loaded=" + reached.getLoaded() + "\n"
+                + "rejected=" + reached.getRejected() + "\n"
+                + "quarantine=" + reached.getQuarantineBytes() + "\n"
+                + "status=" + (reached.isComplete() ? COMPLETE : RUNNING) + "\n");
+        offset = reached.getOffset();
+        line = reached.getLine();
+        loaded = reached.getLoaded();
+        rejected = reached.getRejected();
+        quarantineBytes = reached.getQuarantineBytes();
+        complete = reached.isComplete();
+    }
+}
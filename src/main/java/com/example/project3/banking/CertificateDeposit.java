@@ -1,6 +1,7 @@
 package com.example.project3.banking;
 
 import com.example.project3.util.Date;
+import com.example.project3.util.Money;
 
 /**
  * Represents a Certificate Deposit account, which is a time-bound savings account
@@ -40,22 +41,22 @@ public class CertificateDeposit extends Savings {
     /**
      * Represents the interest rate associated with a three-month term
      */
-    private static final double THREE_MONTH_TERM_INTEREST_RATE = 0.03;
+    private static final int THREE_MONTH_TERM_INTEREST_RATE = 300; //3% in basis points
 
     /**
      * Represents the interest rate for a six-month term certificate of deposit.
      */
-    private static final double SIX_MONTH_TERM_INTEREST_RATE = 0.0325;
+    private static final int SIX_MONTH_TERM_INTEREST_RATE = 325; //3.25% in basis points
 
     /**
      * Represents the interest rate for a nine-month term certificate of deposit.
      */
-    private static final double NINE_MONTH_TERM_INTEREST_RATE = 0.035;
+    private static final int NINE_MONTH_TERM_INTEREST_RATE = 350; //3.5% in basis points
 
     /**
      * Represents the fixed annual interest rate for a twelve-month term Certificate of Deposit.
      */
-    private static final double TWELVE_MONTH_TERM_INTEREST_RATE = 0.04;
+    private static final int TWELVE_MONTH_TERM_INTEREST_RATE = 400; //4% in basis points
 
     /**
      * Represents the term duration of the Certificate Deposit in months.
@@ -76,13 +77,28 @@ public class CertificateDeposit extends Savings {
      * @param holder  the profile of the account holder
      * @param term    the term duration of the certificate deposit in months
      * @param open    the date when the certificate deposit account is opened
-     * @param balance the initial balance of the certificate deposit
+     * @param balance the initial balance of the certificate deposit, in cents
      */
-    public CertificateDeposit(Branch branch, AccountType type, Profile holder, int term, Date open, double balance) {
-        super(branch, type, holder, balance);
+    public CertificateDeposit(Branch branch, AccountType type, Profile holder, int term, Date open, long balance) {
+        super(branch, type, holder, balance, false);
+        this.term = term;
+        this.open = open;
+    }
+
+    /**
+     * Recreates a CertificateDeposit account that already has an AccountNumber.
+     *
+     * @param number  the AccountNumber of the account
+     * @param holder  the profile of the account holder
+     * @param term    the term duration of the certificate deposit in months
+     * @param open    the date when the certificate deposit account was opened
+     * @param balance the balance of the certificate deposit, in cents
+     * @param isLoyal the loyalty status of the account
+     */
+    CertificateDeposit(AccountNumber number, Profile holder, int term, Date open, long balance, boolean isLoyal) {
+        super(number, holder, balance, isLoyal);
         this.term = term;
         this.open = open;
-        this.isLoyal = false;
     }
 
 
@@ -104,14 +120,26 @@ public class CertificateDeposit extends Savings {
         return term;
     }
 
+    /**
+     * Copies the loyalty status, term, and open date into the record of the account.
+     *
+     * @param table the table holding the record
+     * @param row   the row of the record
+     */
+    @Override
+    void storeFields(AccountTable table, int row) {
+        super.storeFields(table, row);
+        table.setCertificate(row, term, open.toEpochDay());
+    }
+
     /**
      * Calculates the interest rate applicable for a Certificate Deposit based on the
      * duration in months between the opening date and the provided closing date.
      *
      * @param closeDate the date when the certificate deposit is closed
-     * @return the applicable interest rate as a double value
+     * @return the applicable interest rate in basis points
      */
-    public double interestRate(Date closeDate) {
+    public int interestRate(Date closeDate) {
         int daysHeld = closeDate.daysFrom(open);
         double monthsHeld = daysHeld / DAYS_IN_MONTHS;
 
@@ -129,10 +157,10 @@ public class CertificateDeposit extends Savings {
     /**
      * Determines the interest rate applicable for the certificate deposit based on the term duration.
      *
-     * @return the applicable interest rate as a double
+     * @return the applicable interest rate in basis points
      */
     @Override
-    public double interestRate() {
+    public int interestRate() {
         return switch (term) {
             case THREE_MONTH_TERM -> THREE_MONTH_TERM_INTEREST_RATE;
             case SIX_MONTH_TERM -> SIX_MONTH_TERM_INTEREST_RATE;
@@ -146,11 +174,11 @@ public class CertificateDeposit extends Savings {
      * Calculates the monthly interest for the Certificate Deposit account based on the current balance and
      * the applicable annual interest rate.
      *
-     * @return the calculated monthly interest as a double
+     * @return the calculated monthly interest in cents, rounded to the nearest cent
      */
     @Override
-    public double interest() {
-        return balance * interestRate() / MONTHS_IN_YEAR;
+    public long interest() {
+        return Money.scale(getBalance(), interestRate(), MONTHLY_RATE_DENOMINATOR);
     }
 
     /**
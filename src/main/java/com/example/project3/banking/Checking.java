@@ -1,5 +1,7 @@
 package com.example.project3.banking;
 
+import com.example.project3.util.Money;
+
 /**
  * The Checking class represents a type of bank account with a specific interest rate,
  * fee structure, and conditions related to balance thresholds.
@@ -13,18 +15,18 @@ public class Checking extends Account {
     /**
      * A constant representing the annual interest rate applicable to the Checking account type.
      */
-    private static final double INTEREST_RATE = 0.015;
+    private static final int INTEREST_RATE = 150; //1.5% in basis points
 
     /**
      * Represents the balance threshold above which no account fee is charged.
      */
-    private static final double FEE_THRESHOLD = 1000;
+    private static final long FEE_THRESHOLD = 100_000; //$1,000.00 in cents
 
     /**
      * A constant representing the fixed account fee charged for the Checking account
      * if the balance does not meet the specified threshold.
      */
-    private static final double ACCOUNT_FEE = 15;
+    private static final long ACCOUNT_FEE = 1_500; //$15.00 in cents
 
     /**
      * Constructs a new Checking account with the specified branch, account type, account holder,
@@ -33,19 +35,30 @@ public class Checking extends Account {
      * @param branch  The branch location where the account is held.
      * @param type    The type of account being created (e.g., Checking).
      * @param holder  The profile of the account holder.
-     * @param balance The initial balance of the account.
+     * @param balance The initial balance of the account, in cents.
      */
-    public Checking(Branch branch, AccountType type, Profile holder, double balance) {
+    public Checking(Branch branch, AccountType type, Profile holder, long balance) {
         super(branch, type, holder, balance);
     }
 
+    /**
+     * Recreates a Checking account that already has an AccountNumber.
+     *
+     * @param number  The AccountNumber of the account.
+     * @param holder  The profile of the account holder.
+     * @param balance The balance of the account, in cents.
+     */
+    Checking(AccountNumber number, Profile holder, long balance) {
+        super(number, holder, balance);
+    }
+
     /**
      * Retrieves the annual interest rate applicable to the Checking account type.
      *
-     * @return the annual interest rate as a double value
+     * @return the annual interest rate in basis points
      */
     @Override
-    public double interestRate() {
+    public int interestRate() {
         return INTEREST_RATE;
     }
 
@@ -53,21 +66,21 @@ public class Checking extends Account {
      * Calculates the monthly interest for the account based on the annual interest rate
      * and the current balance.
      *
-     * @return the monthly interest amount as a double value
+     * @return the monthly interest amount in cents, rounded to the nearest cent
      */
     @Override
-    public double interest() {
-        return this.interestRate() * balance / MONTHS_IN_YEAR;
+    public long interest() {
+        return Money.scale(getBalance(), this.interestRate(), MONTHLY_RATE_DENOMINATOR);
     }
 
     /**
      * Calculates the applicable fee for the Checking account based on the account balance.
      * If the balance meets or exceeds the fee threshold, no fee is charged; otherwise, a fixed account fee applies.
      *
-     * @return the account fee as a double value, either no fee or the fixed account fee
+     * @return the account fee in cents, either no fee or the fixed account fee
      */
     @Override
-    public double fee() {
-        return this.balance >= FEE_THRESHOLD ? NO_FEE : ACCOUNT_FEE;
+    public long fee() {
+        return this.getBalance() >= FEE_THRESHOLD ? NO_FEE : ACCOUNT_FEE;
     }
 }
@@ -25,22 +25,55 @@ public class CollegeChecking extends Checking {
      * @param type    the type of the account, represented as an AccountType enum
      * @param holder  the profile of the account holder
      * @param campus  the campus associated with the account, represented as a Campus enum
-     * @param balance the initial balance of the account
+     * @param balance the initial balance of the account, in cents
      */
-    public CollegeChecking(Branch branch, AccountType type, Profile holder, Campus campus, double balance) {
+    public CollegeChecking(Branch branch, AccountType type, Profile holder, Campus campus, long balance) {
         super(branch, type, holder, balance);
         this.campus = campus;
     }
 
+    /**
+     * Recreates a CollegeChecking account that already has an AccountNumber.
+     *
+     * @param number  the AccountNumber of the account
+     * @param holder  the profile of the account holder
+     * @param campus  the campus associated with the account
+     * @param balance the balance of the account, in cents
+     */
+    CollegeChecking(AccountNumber number, Profile holder, Campus campus, long balance) {
+        super(number, holder, balance);
+        this.campus = campus;
+    }
+
+    /**
+     * Returns the campus associated with the account.
+     *
+     * @return the Campus of the account
+     */
+    public Campus getCampus() {
+        return campus;
+    }
+
+    /**
+     * Copies the campus into the record of the account.
+     *
+     * @param table the table holding the record
+     * @param row   the row of the record
+     */
+    @Override
+    void storeFields(AccountTable table, int row) {
+        table.setCampus(row, campus);
+    }
+
 
     /**
      * Overrides the fee method to calculate the account's monthly fee.
      * For the CollegeChecking account, no fee is applied.
      *
-     * @return the monthly fee for the CollegeChecking account, which is always 0.0
+     * @return the monthly fee for the CollegeChecking account, which is always 0
      */
     @Override
-    public double fee() {
+    public long fee() {
         return NO_FEE;
     }
 
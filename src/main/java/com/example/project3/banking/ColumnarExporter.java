@@ -0,0 +1,633 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.BinaryOutput;
+import com.example.project3.util.List;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The ColumnarExporter class writes the accounts of an AccountDatabase, the closed accounts of its Archive,
+ * and all their activities to a self-describing columnar file that can be read outside the program.
+ * <p>
+ * The file starts with the magic number "BCOL", a format version, and the schema: for each table its id and name,
+ * and for each column its name, physical type, logical type, and, for dictionary columns, the dictionary.
+ * Then come blocks of at most BLOCK_ROWS rows. Each block starts with its table id and number of rows, followed by
+ * one block per column: the number of nulls, the smallest and largest value that is not null, and every value.
+ * The blocks end with the table id END, followed by the total number of rows of each table.
+ * <p>
+ * Physical types are BYTE, INT32, INT64 (big-endian), and STRING (length and UTF-8 bytes).
+ * Nulls are stored as -1 in BYTE columns, as the smallest INT32 or INT64 value in number columns, and never occur in
+ * STRING columns. Logical types say how to read the values: DATE columns hold days from 1/1/1970, CENTS columns hold
+ * amounts of money in cents, BOOLEAN columns hold 0 or 1, and DICTIONARY columns hold the position of a value in the
+ * dictionary of the column, such as a branch, account type, campus, or activity type.
+ * <p>
+ * The export covers the accounts that are open and closed when it starts. The open accounts are then read one block
+ * at a time: while a block of rows is copied into the columns, a shared database keeps its accounts in place, and each
+ * account is read in one state of its own. The lock is released before the block and the activities of its accounts
+ * are written, so tellers only wait for the copy of one block, and deposits and withdrawals never wait at all.
+ * An account closed during the export is exported as open, in the state it was closed in. Activities are never
+ * changed once recorded, so they are written without any lock, and closed accounts are read from the Archive.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ColumnarExporter {
+
+    /**
+     * Number at the start of every columnar file ("BCOL").
+     */
+    private static final int MAGIC = 0x42434F4C;
+
+    /**
+     * Version of the format written by this class.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Largest number of rows in one block.
+     */
+    private static final int BLOCK_ROWS = 1 << 16;
+
+    /**
+     * Size of the buffer used to write the file, in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    /**
+     * Id of the table of accounts.
+     */
+    private static final int ACCOUNTS = 1;
+
+    /**
+     * Id of the table of activities.
+     */
+    private static final int ACTIVITIES = 2;
+
+    /**
+     * Table id marking the end of the blocks.
+     */
+    private static final int END = 0xFF;
+
+    /**
+     * Physical type of columns holding one byte per value.
+     */
+    private static final int BYTE = 1;
+
+    /**
+     * Physical type of columns holding four bytes per value.
+     */
+    private static final int INT32 = 2;
+
+    /**
+     * Physical type of columns holding eight bytes per value.
+     */
+    private static final int INT64 = 3;
+
+    /**
+     * Physical type of columns holding text.
+     */
+    private static final int STRING = 4;
+
+    /**
+     * Logical type of columns whose values are used as they are.
+     */
+    private static final int PLAIN = 0;
+
+    /**
+     * Logical type of columns holding dates as days from 1/1/1970.
+     */
+    private static final int DATE = 1;
+
+    /**
+     * Logical type of columns holding amounts of money in cents.
+     */
+    private static final int CENTS = 2;
+
+    /**
+     * Logical type of columns holding 0 for false and 1 for true.
+     */
+    private static final int BOOLEAN = 3;
+
+    /**
+     * Logical type of columns holding positions in the dictionary of the column.
+     */
+    private static final int DICTIONARY = 4;
+
+    /**
+     * Value stored for a null in BYTE columns.
+     */
+    private static final byte NULL_BYTE = -1;
+
+    /**
+     * Value stored for a null in INT32 columns.
+     */
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    /**
+     * Value stored for a null in INT64 columns.
+     */
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    /**
+     * Dictionary of the activity type column.
+     */
+    private static final String[] ACTIVITY_TYPES = {"D", "W"};
+
+    /**
+     * The database being exported.
+     */
+    private final AccountDatabase database;
+
+    /**
+     * Number of accounts written by the last export.
+     */
+    private int accountsWritten;
+
+    /**
+     * Number of activities written by the last export.
+     */
+    private int activitiesWritten;
+
+    /**
+     * Creates a ColumnarExporter for a database.
+     *
+     * @param database the database being exported
+     */
+    public ColumnarExporter(AccountDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Writes every open and closed account and every activity to a file, replacing the file if it exists.
+     * The file is first written under a temporary name, so a failed export never leaves a half-written file behind.
+     *
+     * @param file     the columnar file
+     * @param progress receives the number of open accounts written, or null
+     * @throws IOException if the file cannot be written
+     */
+    public void export(Path file, Progress progress) throws IOException {
+        List<Account> open;
+        int closed;
+        Lock shared = database.sharedLock(); //the open and closed accounts are listed at the same time
+        if (shared != null) {
+            shared.lock();
+        }
+        try {
+            open = new List<>(database.size());
+            for (Account account : database) {
+                open.add(account);
+            }
+            closed = database.getArchive().size();
+        } finally {
+            if (shared != null) {
+                shared.unlock();
+            }
+        }
+        Table accounts = new Table(ACCOUNTS, "accounts",
+                new Column("account_number", INT32, PLAIN, null),
+                new Column("type", BYTE, DICTIONARY, names(AccountType.values())),
+                new Column("branch", BYTE, DICTIONARY, names(Branch.values())),
+                new Column("first_name", STRING, PLAIN, null),
+                new Column("last_name", STRING, PLAIN, null),
+                new Column("date_of_birth", INT32, DATE, null),
+                new Column("balance", INT64, CENTS, null),
+                new Column("loyal", BYTE, BOOLEAN, null),
+                new Column("withdrawals", INT32, PLAIN, null),
+                new Column("campus", BYTE, DICTIONARY, names(Campus.values())),
+                new Column("term", INT32, PLAIN, null),
+                new Column("open_date", INT32, DATE, null),
+                new Column("close_date", INT32, DATE, null));
+        Table activities = new Table(ACTIVITIES, "activities",
+                new Column("account_number", INT32, PLAIN, null),
+                new Column("date", INT32, DATE, null),
+                new Column("branch", BYTE, DICTIONARY, names(Branch.values())),
+                new Column("type", BYTE, DICTIONARY, ACTIVITY_TYPES),
+                new Column("amount", INT64, CENTS, null),
+                new Column("atm", BYTE, BOOLEAN, null));
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryOutput out = new BinaryOutput(channel, BUFFER_SIZE);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(2); //number of tables
+            accounts.writeSchema(out);
+            activities.writeSchema(out);
+
+            addOpen(out, accounts, activities, open, progress);
+            for (AccountNode node : database.getArchive().oldest(closed)) {
+                Account account = node.getAccount();
+                ActivityView view = copyAccount(accounts.columns, accounts.size, account, node);
+                accounts.addRow(out);
+                addActivities(out, activities, account.getAccountNumber().intValue(), view);
+            }
+            accounts.writeBlock(out);
+            activities.writeBlock(out);
+            out.writeByte(END);
+            out.writeLong(accounts.rows);
+            out.writeLong(activities.rows);
+            out.flush();
+            channel.force(false);
+            accountsWritten = (int) accounts.rows;
+            activitiesWritten = (int) activities.rows;
+            if (progress != null) {
+                progress.update(open.size(), open.size());
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the number of open and closed accounts written by the last export.
+     *
+     * @return the number of rows of the accounts table
+     */
+    public int getAccountsWritten() {
+        return accountsWritten;
+    }
+
+    /**
+     * Returns the number of activities written by the last export.
+     *
+     * @return the number of rows of the activities table
+     */
+    public int getActivitiesWritten() {
+        return activitiesWritten;
+    }
+
+    /**
+     * Adds the rows of the open accounts and of their activities, one block of accounts at a time.
+     * A shared database is locked only while the rows of a block are copied into the columns.
+     *
+     * @param out        the output the blocks are written to
+     * @param accounts   the table of accounts, with an empty block
+     * @param activities the table of activities
+     * @param open       the accounts that were open when the export started
+     * @param progress   receives the number of open accounts written, or null
+     * @throws IOException if the output cannot be written
+     */
+    private void addOpen(BinaryOutput out, Table accounts, Table activities, List<Account> open, Progress progress)
+            throws IOException {
+        int[] numbers = new int[BLOCK_ROWS];
+        ActivityView[] views = new ActivityView[BLOCK_ROWS];
+        Lock shared = database.sharedLock();
+        for (int from = 0; from < open.size(); from += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, open.size() - from);
+            if (shared != null) {
+                shared.lock();
+            }
+            try {
+                for (int row = 0; row < rows; row++) {
+                    int copied = row;
+                    views[row] = database.readAccount(open.get(from + row),
+                            account -> copyAccount(accounts.columns, copied, account, null));
+                    numbers[row] = accounts.columns[0].ints[row];
+                }
+            } finally {
+                if (shared != null) {
+                    shared.unlock();
+                }
+            }
+            accounts.size = rows;
+            accounts.writeBlock(out);
+            for (int row = 0; row < rows; row++) {
+                addActivities(out, activities, numbers[row], views[row]);
+                views[row] = null;
+            }
+            if (progress != null) {
+                progress.update(from + rows, open.size());
+            }
+        }
+    }
+
+    /**
+     * Copies the values of an account into a row of the block of the accounts table.
+     *
+     * @param columns the columns of the accounts table
+     * @param row     the row being filled in
+     * @param account the account being copied
+     * @param closed  the node of the account in the Archive, or null if the account is open
+     * @return the activities of the account in the state copied
+     */
+    private static ActivityView copyAccount(Column[] columns, int row, Account account, AccountNode closed) {
+        columns[0].ints[row] = account.getAccountNumber().intValue();
+        columns[1].bytes[row] = (byte) account.getType().ordinal();
+        columns[2].bytes[row] = (byte) account.getAccountNumber().getBranch().ordinal();
+        columns[3].strings[row] = account.getFirstName();
+        columns[4].strings[row] = account.getLastName();
+        columns[5].ints[row] = account.getDateOfBirth().toEpochDay();
+        columns[6].longs[row] = account.getBalance();
+        columns[7].bytes[row] = account instanceof Savings savings ? (byte) (savings.isLoyal() ? 1 : 0) : NULL_BYTE;
+        columns[8].ints[row] = account instanceof MoneyMarket moneyMarket ? moneyMarket.getWithdrawals() : NULL_INT;
+        columns[9].bytes[row] = account instanceof CollegeChecking college ? (byte) college.getCampus().ordinal() : NULL_BYTE;
+        columns[10].ints[row] = account instanceof CertificateDeposit certificate ? certificate.getTerm() : NULL_INT;
+        columns[11].ints[row] = account instanceof CertificateDeposit certificate
+                ? certificate.getOpen().toEpochDay() : NULL_INT;
+        columns[12].ints[row] = closed != null ? closed.getClose().toEpochDay() : NULL_INT;
+        return account.getActivities();
+    }
+
+    /**
+     * Adds the rows of the activities of an account, writing the blocks that fill up.
+     * The activities of a view are never changed, so no lock is needed.
+     *
+     * @param out        the output the blocks are written to
+     * @param activities the table of activities
+     * @param number     the account number of the account
+     * @param view       the activities of the account
+     * @throws IOException if the output cannot be written
+     */
+    private static void addActivities(BinaryOutput out, Table activities, int number, ActivityView view)
+            throws IOException {
+        Column[] columns = activities.columns;
+        for (Activity activity : view) {
+            int row = activities.size;
+            columns[0].ints[row] = number;
+            columns[1].ints[row] = activity.getDate().toEpochDay();
+            columns[2].bytes[row] = (byte) activity.getLocation().ordinal();
+            columns[3].bytes[row] = (byte) (activity.getType() == 'D' ? 0 : 1);
+            columns[4].longs[row] = activity.getAmount();
+            columns[5].bytes[row] = (byte) (activity.isAtm() ? 1 : 0);
+            activities.addRow(out);
+        }
+    }
+
+    /**
+     * Returns the printed names of the constants of an enum, in ordinal order.
+     *
+     * @param values the constants of the enum
+     * @return the names of the constants, such as NEW_BRUNSWICK for the campus _1
+     */
+    private static String[] names(Enum<?>[] values) {
+        String[] names = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].toString();
+        }
+        return names;
+    }
+
+    /**
+     * A table of the file, holding the rows of the block being filled.
+     */
+    private static final class Table {
+
+        /**
+         * Id written before each block of the table.
+         */
+        private final int id;
+
+        /**
+         * Name of the table.
+         */
+        private final String name;
+
+        /**
+         * Columns of the table.
+         */
+        private final Column[] columns;
+
+        /**
+         * Number of rows in the block being filled.
+         */
+        private int size;
+
+        /**
+         * Number of rows written so far.
+         */
+        private long rows;
+
+        /**
+         * Creates a table with the given columns.
+         *
+         * @param id      the id of the table
+         * @param name    the name of the table
+         * @param columns the columns of the table
+         */
+        private Table(int id, String name, Column... columns) {
+            this.id = id;
+            this.name = name;
+            this.columns = columns;
+        }
+
+        /**
+         * Writes the id and name of the table and the description of each column.
+         *
+         * @param out the output the schema is written to
+         * @throws IOException if the output cannot be written
+         */
+        private void writeSchema(BinaryOutput out) throws IOException {
+            out.writeByte(id);
+            out.writeString(name);
+            out.writeInt(columns.length);
+            for (Column column : columns) {
+                column.writeSchema(out);
+            }
+        }
+
+        /**
+         * Counts the row just filled in, writing the block if it is full.
+         *
+         * @param out the output the block is written to
+         * @throws IOException if the output cannot be written
+         */
+        private void addRow(BinaryOutput out) throws IOException {
+            size++;
+            if (size == BLOCK_ROWS) {
+                writeBlock(out);
+            }
+        }
+
+        /**
+         * Writes the rows of the block being filled, if any, and starts an empty block.
+         *
+         * @param out the output the block is written to
+         * @throws IOException if the output cannot be written
+         */
+        private void writeBlock(BinaryOutput out) throws IOException {
+            if (size == 0) {
+                return;
+            }
+            out.writeByte(id);
+            out.writeInt(size);
+            for (Column column : columns) {
+                column.writeBlock(out, size);
+            }
+            rows += size;
+            size = 0;
+        }
+    }
+
+    /**
+     * A column of a table, holding the values of the block being filled in an array of its physical type.
+     */
+    private static final class Column {
+
+        /**
+         * Name of the column.
+         */
+        private final String name;
+
+        /**
+         * Physical type of the column.
+         */
+        private final int physical;
+
+        /**
+         * Logical type of the column.
+         */
+        private final int logical;
+
+        /**
+         * Values a DICTIONARY column refers to, or null.
+         */
+        private final String[] dictionary;
+
+        /**
+         * Values of a BYTE column.
+         */
+        private byte[] bytes;
+
+        /**
+         * Values of an INT32 column.
+         */
+        private int[] ints;
+
+        /**
+         * Values of an INT64 column.
+         */
+        private long[] longs;
+
+        /**
+         * Values of a STRING column.
+         */
+        private String[] strings;
+
+        /**
+         * Creates a column and the array holding its values.
+         *
+         * @param name       the name of the column
+         * @param physical   the physical type
+         * @param logical    the logical type
+         * @param dictionary the values a DICTIONARY column refers to, or null
+         */
+        private Column(String name, int physical, int logical, String[] dictionary) {
+            this.name = name;
+            this.physical = physical;
+            this.logical = logical;
+            this.dictionary = dictionary;
+            switch (physical) {
+                case BYTE -> bytes = new byte[BLOCK_ROWS];
+                case INT32 -> ints = new int[BLOCK_ROWS];
+                case INT64 -> longs = new long[BLOCK_ROWS];
+                default -> strings = new String[BLOCK_ROWS];
+            }
+        }
+
+        /**
+         * Writes the name and types of the column, and its dictionary.
+         *
+         * @param out the output the description is written to
+         * @throws IOException if the output cannot be written
+         */
+        private void writeSchema(BinaryOutput out) throws IOException {
+            out.writeString(name);
+            out.writeByte(physical);
+            out.writeByte(logical);
+            if (logical == DICTIONARY) {
+                out.writeInt(dictionary.length);
+                for (String value : dictionary) {
+                    out.writeString(value);
+                }
+            }
+        }
+
+        /**
+         * Writes the number of nulls, the smallest and largest values, and the values of the block.
+         * The smallest and largest values are nulls if every value is null.
+         *
+         * @param out  the output the block is written to
+         * @param size the number of rows in the block
+         * @throws IOException if the output cannot be written
+         */
+        private void writeBlock(BinaryOutput out, int size) throws IOException {
+            switch (physical) {
+                case BYTE -> {
+                    int nulls = 0;
+                    byte min = NULL_BYTE;
+                    byte max = NULL_BYTE;
+                    for (int i = 0; i < size; i++) {
+                        byte value = bytes[i];
+                        if (value == NULL_BYTE) {
+                            nulls++;
+                        } else {
+                            min = min == NULL_BYTE || value < min ? value : min;
+                            max = max == NULL_BYTE || value > max ? value : max;
+                        }
+                    }
+                    out.writeInt(nulls);
+                    out.writeByte(min);
+                    out.writeByte(max);
+                    out.writeBytes(bytes, 0, size);
+                }
+                case INT32 -> {
+                    int nulls = 0;
+                    int min = Integer.MAX_VALUE;
+                    int max = NULL_INT;
+                    for (int i = 0; i < size; i++) {
+                        int value = ints[i];
+                        if (value == NULL_INT) {
+                            nulls++;
+                        } else {
+                            min = Math.min(min, value);
+                            max = Math.max(max, value);
+                        }
+                    }
+                    out.writeInt(nulls);
+                    out.writeInt(nulls == size ? NULL_INT : min);
+                    out.writeInt(max);
+                    out.writeInts(ints, 0, size);
+                }
+                case INT64 -> {
+                    int nulls = 0;
+                    long min = Long.MAX_VALUE;
+                    long max = NULL_LONG;
+                    for (int i = 0; i < size; i++) {
+                        long value = longs[i];
+                        if (value == NULL_LONG) {
+                            nulls++;
+                        } else {
+                            min = Math.min(min, value);
+                            max = Math.max(max, value);
+                        }
+                    }
+                    out.writeInt(nulls);
+                    out.writeLong(nulls == size ? NULL_LONG : min);
+                    out.writeLong(max);
+                    out.writeLongs(longs, 0, size);
+                }
+                default -> {
+                    String min = strings[0];
+                    String max = strings[0];
+                    for (int i = 1; i < size; i++) {
+                        String value = strings[i];
+                        min = value.compareTo(min) < 0 ? value : min;
+                        max = value.compareTo(max) > 0 ? value : max;
+                    }
+                    out.writeInt(0);
+                    out.writeString(min);
+                    out.writeString(max);
+                    for (int i = 0; i < size; i++) {
+                        out.writeString(strings[i]);
+                        strings[i] = null;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,731 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.Date;
+import com.example.project3.util.List;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * The ConcurrentAccountDatabase class is an AccountDatabase that can be shared by many threads,
+ * such as several tellers and ATM feeds served by one program.
+ * Changes to the structure of the database (opening, closing, removing, sorting) take the write side of a
+ * read-write lock, so they run one at a time and never while anything else reads or changes the database.
+ * Lookups take the read side, so they never see an Account half-moved by the swap-with-last of removeAt.
+ * Deposits and withdrawals take the read side and the lock of one stripe, chosen by the account number,
+ * so transactions on accounts of different stripes run in parallel while transactions on the same account are serialized.
+ * A lock-free database skips the stripe locks: deposits and withdrawals only take the read side, change the balance
+ * with compare-and-set, and link their activity with an atomic swap, so transactions on the same account also run in
+ * parallel. With a Journal, a lock-free transaction is applied and recorded while holding the lock of its account's
+ * stripe, so the journal lists the transactions of each account in the order they were applied, while transactions of
+ * different stripes only wait for each other to append their records.
+ * The ActivityLog reserves positions atomically, so transactions of different stripes do not wait for each other there.
+ * Iterating over the database or one of its sorted views walks a copy taken under the read lock.
+ * A change recorded in a Journal waits for its record to be durable only after every lock has been released,
+ * so tellers waiting for the same group commit do not hold back each other's changes.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ConcurrentAccountDatabase extends AccountDatabase {
+
+    /**
+     * Number of stripe locks, unless another number is given.
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * Largest number of stripe locks.
+     */
+    private static final int MAX_STRIPES = 1 << 16;
+
+    /**
+     * Multiplier that spreads consecutive account numbers over the stripes.
+     */
+    private static final int SPREAD = 0x9E3779B9;
+
+    /**
+     * Write side held by structural changes, read side held by lookups and transactions.
+     */
+    private final ReentrantReadWriteLock structure = new ReentrantReadWriteLock();
+
+    /**
+     * Locks serializing the transactions of the accounts of each stripe.
+     */
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Number of bits of the spread account number used to choose a stripe.
+     */
+    private final int stripeBits;
+
+    /**
+     * True if deposits and withdrawals change balances with compare-and-set instead of taking the stripe locks.
+     */
+    private final boolean lockFree;
+
+    /**
+     * Constructs an empty ConcurrentAccountDatabase with the default number of stripes.
+     */
+    public ConcurrentAccountDatabase() {
+        this(null, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructs an empty ConcurrentAccountDatabase that stores the records of its accounts in the given table.
+     *
+     * @param accountTable the table the records of the accounts are stored in, or null to keep them in the accounts
+     * @param stripes      the number of stripe locks, rounded up to a power of two
+     * @throws IllegalArgumentException if the number of stripes is not positive or too large
+     */
+    public ConcurrentAccountDatabase(AccountTable accountTable, int stripes) {
+        this(accountTable, stripes, false);
+    }
+
+    /**
+     * Constructs an empty ConcurrentAccountDatabase whose deposits and withdrawals take the stripe locks or not.
+     *
+     * @param accountTable the table the records of the accounts are stored in, or null to keep them in the accounts
+     * @param stripes      the number of stripe locks, rounded up to a power of two
+     * @param lockFree     true to change balances with compare-and-set instead of taking the stripe locks
+     * @throws IllegalArgumentException if the number of stripes is not positive or too large
+     */
+    public ConcurrentAccountDatabase(AccountTable accountTable, int stripes, boolean lockFree) {
+        super(accountTable);
+        if (stripes <= 0 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("Invalid number of stripes: " + stripes);
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(stripes - 1);
+        this.stripes = new ReentrantLock[1 << bits];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.stripeBits = bits;
+        this.lockFree = lockFree;
+    }
+
+    /**
+     * Returns the lock that makes a task the only one reading or changing the database while it is held,
+     * for tasks that go over every account, such as saving a snapshot, exporting, or applying a file of activities.
+     *
+     * @return the write side of the structure lock
+     */
+    @Override
+    public Lock exclusiveLock() {
+        return structure.writeLock();
+    }
+
+    /**
+     * Returns the lock that keeps every account in place while a task reads them all, such as exporting statements,
+     * without holding back deposits and withdrawals.
+     *
+     * @return the read side of the structure lock
+     */
+    @Override
+    public Lock sharedLock() {
+        return structure.readLock();
+    }
+
+    /**
+     * Returns the number of stripe locks.
+     *
+     * @return the number of stripes, a power of two
+     */
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns whether deposits and withdrawals change balances with compare-and-set instead of taking the stripe locks.
+     *
+     * @return true if the database is lock-free
+     */
+    public boolean isLockFree() {
+        return lockFree;
+    }
+
+    /**
+     * Reads an Account while no transaction or structural change can modify it, so every value read belongs
+     * to the same state of the Account.
+     * A lock-free database does not hold its transactions back: the reader is run again until no transaction of the
+     * Account ran at the same time.
+     *
+     * @param number the AccountNumber of the Account
+     * @param reader reads the values needed from the Account
+     * @param <T>    the type of the value read
+     * @return the value returned by the reader, or null if the Account is not in the database
+     */
+    public <T> T read(AccountNumber number, Function<Account, T> reader) {
+        structure.readLock().lock();
+        try {
+            if (lockFree) {
+                int index = locate(number.intValue());
+                return index == -1 ? null : at(index).readConsistent(reader);
+            }
+            ReentrantLock stripe = stripe(number.intValue());
+            stripe.lock();
+            try {
+                int index = locate(number.intValue());
+                return index == -1 ? null : reader.apply(at(index));
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads an Account while holding the lock of its stripe, or until no transaction of the Account ran at the same
+     * time if the database is lock-free. The caller holds the read lock, so the Account stays in the database.
+     *
+     * @param account the Account, which must be in the database
+     * @param reader  reads the values needed from the Account, and may be run more than once
+     * @param <T>     the type of the value read
+     * @return the value returned by the last run of the reader
+     */
+    @Override
+    public <T> T readAccount(Account account, Function<? super Account, T> reader) {
+        if (lockFree) {
+            return account.readConsistent(reader);
+        }
+        ReentrantLock stripe = stripe(account.getAccountNumber().intValue());
+        stripe.lock();
+        try {
+            return reader.apply(account);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Deposits money into an Account while holding the lock of its stripe, or with compare-and-set if the database
+     * is lock-free. The locks are released before deposit waits for the journal.
+     *
+     * @param number AccountNumber that identifies the account
+     * @param amount value of money that will be deposited, in cents
+     */
+    @Override
+    void applyDeposit(AccountNumber number, long amount) {
+        structure.readLock().lock();
+        try {
+            if (lockFree) {
+                depositLockFree(number, amount);
+                return;
+            }
+            ReentrantLock stripe = stripe(number.intValue());
+            stripe.lock();
+            try {
+                super.applyDeposit(number, amount);
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Withdraws money from an Account while holding the lock of its stripe, or with compare-and-set if the database
+     * is lock-free. The locks are released before withdraw waits for the journal.
+     *
+     * @param number AccountNumber that identifies the Account
+     * @param amount value of money that will be withdrawn, in cents
+     * @return true if the amount can be withdrawn, false otherwise
+     */
+    @Override
+    boolean applyWithdraw(AccountNumber number, long amount) {
+        structure.readLock().lock();
+        try {
+            if (lockFree) {
+                return withdrawLockFree(number, amount);
+            }
+            ReentrantLock stripe = stripe(number.intValue());
+            stripe.lock();
+            try {
+                return super.applyWithdraw(number, amount);
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deposits money into an Account with compare-and-set, while holding the read lock.
+     * With a Journal, the deposit is applied and recorded while holding the lock of the account's stripe, so the journal
+     * records the deposits of the account in the order their activities were linked, while accounts of other stripes
+     * go on in parallel.
+     *
+     * @param number AccountNumber that identifies the account
+     * @param amount value of money that will be deposited, in cents
+     */
+    private void depositLockFree(AccountNumber number, long amount) {
+        int index = locate(number.intValue());
+        if (index == -1) {
+            return;
+        }
+        Account account = at(index);
+        int today = new Date().toEpochDay();
+        Journal journal = getJournal();
+        if (journal == null) {
+            account.deposit(amount, today);
+            return;
+        }
+        ReentrantLock stripe = stripe(number.intValue());
+        stripe.lock();
+        try {
+            account.deposit(amount, today);
+            journal.logTransaction(false, number.intValue(), amount, today);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Withdraws money from an Account with compare-and-set, while holding the read lock.
+     * Whether a withdrawal succeeds depends on the order in which concurrent withdrawals reach the balance,
+     * so only withdrawals that succeeded are recorded, after they took place, and they are replayed without checking
+     * the balance. With a Journal, the withdrawal is applied and recorded while holding the lock of the account's stripe.
+     *
+     * @param number AccountNumber that identifies the Account
+     * @param amount value of money that will be withdrawn, in cents
+     * @return true if the amount can be withdrawn, false otherwise
+     */
+    private boolean withdrawLockFree(AccountNumber number, long amount) {
+        int index = locate(number.intValue());
+        if (index == -1) {
+            return false;
+        }
+        Account account = at(index);
+        int today = new Date().toEpochDay();
+        Journal journal = getJournal();
+        if (journal == null) {
+            return account.withdraw(amount, today);
+        }
+        ReentrantLock stripe = stripe(number.intValue());
+        stripe.lock();
+        try {
+            if (!account.withdraw(amount, today)) {
+                return false;
+            }
+            journal.logWithdrawn(number.intValue(), amount, today);
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Applies a batch of deposits and withdrawals while holding the write lock, so no teller changes an account
+     * while the partitions apply the batch. The lock is released before the batch is committed.
+     *
+     * @param batch      the transactions to apply
+     * @param partitions the number of partitions applied at the same time
+     * @return the result of each transaction, APPLIED or UNKNOWN_ACCOUNT, in batch order
+     */
+    @Override
+    byte[] applyTransactions(TransactionBatch batch, int partitions) {
+        structure.writeLock().lock();
+        try {
+            return super.applyTransactions(batch, partitions);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an Account while holding the write lock.
+     *
+     * @param account the Account to be added
+     */
+    @Override
+    void applyAdd(Account account) {
+        structure.writeLock().lock();
+        try {
+            super.applyAdd(account);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds every Account of a list while holding the write lock, so no reader sees only some of them.
+     *
+     * @param accounts the accounts to be added
+     */
+    @Override
+    void applyAddAll(List<? extends Account> accounts) {
+        structure.writeLock().lock();
+        try {
+            super.applyAddAll(accounts);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds every Account of an array while holding the write lock, so no reader sees only some of them.
+     *
+     * @param accounts the accounts to be added
+     */
+    @Override
+    void applyAddAll(Account[] accounts) {
+        structure.writeLock().lock();
+        try {
+            super.applyAddAll(accounts);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the Account with the same AccountNumber while holding the write lock.
+     *
+     * @param account the Account to be removed
+     */
+    @Override
+    public void remove(Account account) {
+        structure.writeLock().lock();
+        try {
+            super.remove(account);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the Account at the given position while holding the write lock,
+     * so the last Account is never seen half-moved into the emptied position.
+     *
+     * @param index the position of the Account to be removed
+     */
+    @Override
+    public void removeAt(int index) {
+        structure.writeLock().lock();
+        try {
+            super.removeAt(index);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the Account at the given position and shifts the later Accounts while holding the write lock.
+     *
+     * @param index the position of the Account to be removed
+     * @return the Account that was removed
+     */
+    @Override
+    public Account removeOrdered(int index) {
+        structure.writeLock().lock();
+        try {
+            return super.removeOrdered(index);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the Account at the given position while holding the write lock.
+     *
+     * @param index   the position in the AccountDatabase
+     * @param account the Account to be stored at that position
+     */
+    @Override
+    public void set(int index, Account account) {
+        structure.writeLock().lock();
+        try {
+            super.set(index, account);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every Account while holding the write lock.
+     */
+    @Override
+    public void clear() {
+        structure.writeLock().lock();
+        try {
+            super.clear();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sorts the Accounts while holding the write lock.
+     *
+     * @param comparator the Comparator that decides the order of the Accounts
+     */
+    @Override
+    public void sort(Comparator<? super Account> comparator) {
+        structure.writeLock().lock();
+        try {
+            super.sort(comparator);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reorders the Accounts while holding the write lock.
+     *
+     * @param accounts every Account of the database, in the new order
+     */
+    @Override
+    public void reorder(Account[] accounts) {
+        structure.writeLock().lock();
+        try {
+            super.reorder(accounts);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Makes room for the given number of accounts while holding the write lock.
+     *
+     * @param minCapacity the number of accounts the database must be able to hold
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        structure.writeLock().lock();
+        try {
+            super.ensureCapacity(minCapacity);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closes an Account while holding the write lock, so the loyalty of the other accounts of the holder,
+     * the Archive, and the list change together.
+     *
+     * @param account   the Account object to be closed
+     * @param closeDate the Date on which the account is closed
+     */
+    @Override
+    void applyClose(Account account, Date closeDate) {
+        structure.writeLock().lock();
+        try {
+            super.applyClose(account, closeDate);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closes every Account of a holder while holding the write lock.
+     *
+     * @param holder    Profile of the account holder
+     * @param closeDate the Date on which the accounts are closed
+     */
+    @Override
+    void applyCloseAll(Profile holder, Date closeDate) {
+        structure.writeLock().lock();
+        try {
+            super.applyCloseAll(holder, closeDate);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the Account at the given position while holding the read lock.
+     *
+     * @param index the position of the Account
+     * @return the Account at that position
+     */
+    @Override
+    public Account get(int index) {
+        structure.readLock().lock();
+        try {
+            return super.get(index);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of Accounts while holding the read lock.
+     *
+     * @return the number of Accounts
+     */
+    @Override
+    public int size() {
+        structure.readLock().lock();
+        try {
+            return super.size();
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the database has no Account while holding the read lock.
+     *
+     * @return true if the database is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        structure.readLock().lock();
+        try {
+            return super.isEmpty();
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the position of the Account with the given packed account number while holding the read lock.
+     * Every other find and contains method of AccountDatabase ends here or in the holder lookups below.
+     *
+     * @param accountNumber the account number as an int
+     * @return index of the Account when found, -1 otherwise
+     */
+    @Override
+    public int find(int accountNumber) {
+        structure.readLock().lock();
+        try {
+            return super.find(accountNumber);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the first account of a holder while holding the read lock.
+     *
+     * @param firstName   the first name of the account holder
+     * @param lastName    the last name of the account holder
+     * @param dateOfBirth the date of birth of the account holder
+     * @return the index of the account if found, -1 otherwise
+     */
+    @Override
+    public int find(String firstName, String lastName, Date dateOfBirth) {
+        structure.readLock().lock();
+        try {
+            return super.find(firstName, lastName, dateOfBirth);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if a holder has an account of the given type while holding the read lock.
+     *
+     * @param holder Profile object representing the account holder
+     * @param type   AccountType object representing the type of account
+     * @return true if an account with the holder and type is found, false otherwise
+     */
+    @Override
+    public boolean contains(Profile holder, AccountType type) {
+        structure.readLock().lock();
+        try {
+            return super.contains(holder, type);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every Account of a holder while holding the read lock.
+     *
+     * @param holder Profile of the account holder
+     * @return a list of the holder's accounts, empty if the holder has none
+     */
+    @Override
+    public List<Account> findAll(Profile holder) {
+        structure.readLock().lock();
+        try {
+            return super.findAll(holder);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a copy of the Accounts taken under the read lock.
+     *
+     * @return an Iterator over the Accounts in list order
+     */
+    @Override
+    public Iterator<Account> iterator() {
+        structure.readLock().lock();
+        try {
+            List<Account> copy = new List<>(super.size());
+            for (int i = 0; i < super.size(); i++) {
+                copy.add(super.get(i));
+            }
+            return copy.iterator();
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the Accounts in branch order, taken under the read lock.
+     *
+     * @return the Accounts in branch order
+     */
+    @Override
+    public Iterable<Account> viewByBranch() {
+        return copy(super.viewByBranch());
+    }
+
+    /**
+     * Returns a copy of the Accounts in holder order, taken under the read lock.
+     *
+     * @return the Accounts in holder order
+     */
+    @Override
+    public Iterable<Account> viewByHolder() {
+        return copy(super.viewByHolder());
+    }
+
+    /**
+     * Returns a copy of the Accounts in account type order, taken under the read lock.
+     *
+     * @return the Accounts in account type order
+     */
+    @Override
+    public Iterable<Account> viewByType() {
+        return copy(super.viewByType());
+    }
+
+    /**
+     * Copies a sorted view while holding the read lock.
+     *
+     * @param view the sorted view
+     * @return a list holding the Accounts of the view in order
+     */
+    private List<Account> copy(Iterable<Account> view) {
+        structure.readLock().lock();
+        try {
+            List<Account> copy = new List<>(super.size());
+            for (Account account : view) {
+                copy.add(account);
+            }
+            return copy;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the stripe lock guarding the account with the given number.
+     *
+     * @param accountNumber the account number as an int
+     * @return the lock of its stripe
+     */
+    private ReentrantLock stripe(int accountNumber) {
+        return stripeBits == 0 ? stripes[0] : stripes[(accountNumber * SPREAD) >>> (32 - stripeBits)];
+    }
+}
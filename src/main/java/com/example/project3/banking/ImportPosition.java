@@ -0,0 +1,146 @@
+package com.example.project3.banking;
+
+/**
+ * The position reached in an input file whose lines are applied to an AccountDatabase in batches,
+ * such as a file being imported or an activities file being followed, with the running totals of the lines read.
+ * The database keeps the latest position of each source, and a Journal records it in the same record as the batch
+ * that reached it, so after a crash the position and the applied lines are always restored together.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ImportPosition {
+
+    /**
+     * Name of the source, such as the kind of reader followed by the absolute path of the file.
+     */
+    private final String source;
+
+    /**
+     * Position in the file of the first byte not applied yet.
+     */
+    private final long offset;
+
+    /**
+     * Line number of the first line not applied yet.
+     */
+    private final int line;
+
+    /**
+     * Number of lines applied before the position.
+     */
+    private final long loaded;
+
+    /**
+     * Number of lines rejected before the position.
+     */
+    private final long rejected;
+
+    /**
+     * Size of the quarantine file holding the lines rejected before the position.
+     */
+    private final long quarantineBytes;
+
+    /**
+     * True once the whole file has been applied.
+     */
+    private final boolean complete;
+
+    /**
+     * Creates an ImportPosition.
+     *
+     * @param source          the name of the source
+     * @param offset          the position in the file of the first byte not applied yet
+     * @param line            the line number of the first line not applied yet
+     * @param loaded          the number of lines applied before the position
+     * @param rejected        the number of lines rejected before the position
+     * @param quarantineBytes the size of the quarantine file holding the rejected lines
+     * @param complete        true if the whole file has been applied
+     * @throws IllegalArgumentException if the position or a total is negative
+     */
+    public ImportPosition(String source, long offset, int line, long loaded, long rejected, long quarantineBytes,
+                          boolean complete) {
+        if (offset < 0 || line < 1 || loaded < 0 || rejected < 0 || quarantineBytes < 0) {
+            throw new IllegalArgumentException("Invalid position of " + source + ": " + offset + ", line " + line);
+        }
+        this.source = source;
+        this.offset = offset;
+        this.line = line;
+        this.loaded = loaded;
+        this.rejected = rejected;
+        this.quarantineBytes = quarantineBytes;
+        this.complete = complete;
+    }
+
+    /**
+     * Returns the name of the source.
+     *
+     * @return the source the position belongs to
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the position in the file of the first byte not applied yet.
+     *
+     * @return the byte offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the line number of the first line not applied yet.
+     *
+     * @return the line number, starting from 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the number of lines applied before the position.
+     *
+     * @return the number of loaded lines
+     */
+    public long getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the number of lines rejected before the position.
+     *
+     * @return the number of rejected lines
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the size of the quarantine file holding the lines rejected before the position.
+     *
+     * @return the size of the quarantine file in bytes
+     */
+    public long getQuarantineBytes() {
+        return quarantineBytes;
+    }
+
+    /**
+     * Checks if the whole file has been applied.
+     *
+     * @return true if the file is complete, false otherwise
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Converts the ImportPosition to a string that can be printed.
+     *
+     * @return the source, the byte offset, and the line number
+     */
+    @Override
+    public String toString() {
+        return source + " at byte " + offset + ", line " + line + (complete ? " (complete)" : "");
+    }
+}
@@ -0,0 +1,1338 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.BinaryInput;
+import com.example.project3.util.BinaryOutput;
+import com.example.project3.util.Date;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * The Journal class records every change made to an AccountDatabase in a file before the change is applied,
+ * so the database can be rebuilt after a crash by replaying the file on top of the latest Snapshot.
+ * Opening and closing accounts, deposits, and withdrawals are each written as one small binary record: its length,
+ * a CRC32C checksum, the record type, and the fields of the change. A batch of activities applied from an activities
+ * file is written as one record holding every transaction of the batch, and is forced to disk at once.
+ * Records are numbered in the order they are written, and a Snapshot remembers the number of the next record,
+ * so records already in the snapshot are skipped when the journal is replayed.
+ * Records are forced to disk in groups (group commit): a change made by a teller does not return until its record is
+ * durable, and the first teller waiting once a number of records are waiting, or once the oldest waiting record has
+ * waited a number of milliseconds, forces the whole group to disk for every teller waiting on it.
+ * The file is forced outside the monitor of the journal, so new records are written while a group is being forced.
+ * A thread applying a batch of an input file can record the batch and the position it reached in the file as one
+ * compound record, so after a crash either both are replayed or neither is, and the file resumes from that position.
+ * A record cut short by a crash is detected by its length or checksum, and the journal is truncated before it.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class Journal {
+
+    /**
+     * Default number of records committed together.
+     */
+    public static final int DEFAULT_GROUP_SIZE = 64;
+
+    /**
+     * Default number of milliseconds a record may wait before its group is committed.
+     */
+    public static final long DEFAULT_GROUP_MILLIS = 5;
+
+    /**
+     * Number at the start of every journal file ("BJNL").
+     */
+    private static final int MAGIC = 0x424A4E4C;
+
+    /**
+     * Version of the format written by this class.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of bytes before the first record: the magic number, the version, and the number of the first record.
+     */
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+
+    /**
+     * Number of bytes before the body of each record: its length and its checksum.
+     */
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES * 2;
+
+    /**
+     * Size of the record buffer before it first grows, which is enough for an account with two long names.
+     */
+    private static final int RECORD_BYTES = 1 << 16;
+
+    /**
+     * Largest body of a record. Larger batches are written as several records, and a compound record
+     * holding a batch and its position must fit in one.
+     */
+    private static final int MAX_RECORD_BYTES = 1 << 28;
+
+    /**
+     * Number of bytes of each transaction of a batch record: account number, date, branch, type, and amount.
+     */
+    private static final int BATCH_ENTRY_BYTES = Integer.BYTES * 2 + 2 + Long.BYTES;
+
+    /**
+     * Largest number of transactions written in one batch record.
+     */
+    private static final int MAX_BATCH_ENTRIES = (MAX_RECORD_BYTES - 1 - Integer.BYTES) / BATCH_ENTRY_BYTES;
+
+    /**
+     * Size of the buffer used to read and write the journal, in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Number of records replayed between two progress updates.
+     */
+    private static final int PROGRESS_STEP = 4096;
+
+    /**
+     * Number of bytes in one kilobyte, the unit replay progress is reported in.
+     */
+    private static final int KILOBYTE = 1024;
+
+    /**
+     * Number of nanoseconds in one millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Record type of an opened account.
+     */
+    private static final byte OPEN = 1;
+
+    /**
+     * Record type of a closed account.
+     */
+    private static final byte CLOSE = 2;
+
+    /**
+     * Record type of a deposit made by a teller.
+     */
+    private static final byte DEPOSIT = 3;
+
+    /**
+     * Record type of a withdrawal made by a teller.
+     */
+    private static final byte WITHDRAW = 4;
+
+    /**
+     * Record type of a deposit or withdrawal read from an activities file, one record per activity,
+     * as written before activities were recorded in batch records.
+     */
+    private static final byte ACTIVITY = 5;
+
+    /**
+     * Record type of a withdrawal that already took place, replayed without checking the balance.
+     */
+    private static final byte WITHDRAWN = 6;
+
+    /**
+     * Record type of a batch of deposits and withdrawals applied from an activities file.
+     */
+    private static final byte BATCH = 7;
+
+    /**
+     * Record type of the position reached in an input file applied in batches.
+     */
+    private static final byte POSITION = 8;
+
+    /**
+     * Record type of a compound record holding the records of one batch of an input file and the position it reached.
+     */
+    private static final byte GROUP = 9;
+
+    /**
+     * Every AccountType, indexed by ordinal.
+     */
+    private static final AccountType[] TYPES = AccountType.values();
+
+    /**
+     * Every Branch, indexed by ordinal.
+     */
+    private static final Branch[] BRANCHES = Branch.values();
+
+    /**
+     * Every Campus, indexed by ordinal.
+     */
+    private static final Campus[] CAMPUSES = Campus.values();
+
+    /**
+     * The journal file.
+     */
+    private final Path file;
+
+    /**
+     * Number of records that are committed together.
+     */
+    private final int groupSize;
+
+    /**
+     * Number of nanoseconds a record may wait before its group is committed, or 0 to commit without waiting.
+     */
+    private final long groupNanos;
+
+    /**
+     * Body of the record being written or read, replaced by a larger buffer when a record does not fit.
+     */
+    private ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+
+    /**
+     * Checksum of the record being written or read.
+     */
+    private final CRC32C checksum = new CRC32C();
+
+    /**
+     * The database whose changes are recorded, set by recover.
+     */
+    private AccountDatabase database;
+
+    /**
+     * The open journal file, positioned at the end of the last record.
+     */
+    private FileChannel channel;
+
+    /**
+     * Buffers records until they are committed.
+     */
+    private BinaryOutput out;
+
+    /**
+     * Held while deciding which thread forces the next group and while publishing the records it made durable.
+     * Taken after the monitor of the journal, never before it. Threads waiting for their records wait on
+     * its condition, so virtual threads waiting for a commit do not hold on to their carrier thread.
+     */
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    /**
+     * Signalled when a group has been forced to disk, when a commit fails, and when a group is full.
+     */
+    private final Condition committed = commitLock.newCondition();
+
+    /**
+     * True while a thread is forcing a group to disk. Guarded by the commit lock.
+     */
+    private boolean committing;
+
+    /**
+     * Number of the next record written.
+     */
+    private volatile long nextSequence;
+
+    /**
+     * Number of records forced to disk: every record numbered below it is durable.
+     */
+    private volatile long durableSequence;
+
+    /**
+     * Number of records written to the buffer since it was last written to the file.
+     */
+    private int pending;
+
+    /**
+     * Time the oldest record still in the buffer was written, from System.nanoTime.
+     */
+    private volatile long oldestPendingNanos;
+
+    /**
+     * Error from forcing a group to disk, reported by every later record and every thread waiting for a commit.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Thread whose records are collected into one compound record, or null if no thread is collecting records.
+     */
+    private Thread groupOwner;
+
+    /**
+     * Records collected for the compound record, each as its length followed by its body.
+     */
+    private ByteBuffer group;
+
+    /**
+     * Number of records collected for the compound record.
+     */
+    private int groupCount;
+
+    /**
+     * Number of groups committed.
+     */
+    private long commits;
+
+    /**
+     * Number of records committed.
+     */
+    private long committedRecords;
+
+    /**
+     * Sum over all groups of the time from the oldest record of the group being written to the group being forced to disk.
+     */
+    private long totalLatencyNanos;
+
+    /**
+     * Longest time from the oldest record of a group being written to the group being forced to disk.
+     */
+    private long maxLatencyNanos;
+
+    /**
+     * Creates a Journal that commits records in groups of the default size and wait.
+     *
+     * @param file the journal file
+     */
+    public Journal(Path file) {
+        this(file, DEFAULT_GROUP_SIZE, DEFAULT_GROUP_MILLIS);
+    }
+
+    /**
+     * Creates a Journal with the given group commit settings. The file is not opened until recover is called.
+     *
+     * @param file        the journal file
+     * @param groupSize   the number of records committed together, 1 to commit every record
+     * @param groupMillis the number of milliseconds a record may wait before its group is committed,
+     *                    or 0 to commit as soon as the previous group is on disk
+     * @throws IllegalArgumentException if the group size is less than 1 or the wait is negative
+     */
+    public Journal(Path file, int groupSize, long groupMillis) {
+        if (groupSize < 1 || groupMillis < 0) {
+            throw new IllegalArgumentException("Invalid group commit: " + groupSize + " records, " + groupMillis + " ms");
+        }
+        this.file = file;
+        this.groupSize = groupSize;
+        this.groupNanos = TimeUnit.MILLISECONDS.toNanos(groupMillis);
+    }
+
+    /**
+     * Replays the records of the journal file that are not already in the database, and then starts recording
+     * the changes of the database. The file is created if it does not exist, and a record cut short by a crash
+     * is removed. The database should be empty, or restored from a Snapshot, and must not have another journal.
+     *
+     * @param database the database the records are replayed into and whose changes are recorded
+     * @return the number of records replayed, the records that could not be applied, and the replay throughput
+     * @throws IOException           if the file cannot be read or written, or is not a journal
+     * @throws IllegalStateException if this journal or the database is already recording changes
+     */
+    public LoadReport recover(AccountDatabase database) throws IOException {
+        return recover(database, null);
+    }
+
+    /**
+     * Replays the records of the journal file that are not already in the database, reporting the number of
+     * kilobytes of the file replayed, and then starts recording the changes of the database.
+     *
+     * @param database the database the records are replayed into and whose changes are recorded
+     * @param progress receives the number of kilobytes of the journal replayed, or null
+     * @return the number of records replayed, the records that could not be applied, and the replay throughput
+     * @throws IOException           if the file cannot be read or written, or is not a journal
+     * @throws IllegalStateException if this journal or the database is already recording changes
+     */
+    public synchronized LoadReport recover(AccountDatabase database, Progress progress) throws IOException {
+        if (this.database != null || database.getJournal() != null) {
+            throw new IllegalStateException("The journal is already recording changes");
+        }
+        if (!Files.exists(file)) {
+            create(file, database.getSequence());
+        }
+        LoadReport report = new LoadReport();
+        long start = System.nanoTime();
+        long end;
+        try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+            end = replay(new BinaryInput(input, BUFFER_SIZE), database, report, progress,
+                    (int) (input.size() / KILOBYTE));
+        }
+        report.finish(end, System.nanoTime() - start);
+
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.truncate(end);
+        channel.position(end);
+        out = new BinaryOutput(channel, BUFFER_SIZE);
+        durableSequence = nextSequence;
+        this.database = database;
+        database.setJournal(this);
+        return report;
+    }
+
+    /**
+     * Saves a Snapshot of the database and empties the journal, whose records are then all in the snapshot.
+     * If the program stops before the journal is emptied, the records already in the snapshot are skipped on replay.
+     * The exclusive lock of the database is taken before the monitor of the journal, in the same order as a change
+     * to the database, which is recorded while the database is locked.
+     *
+     * @param snapshot the snapshot file restored when the program starts
+     * @throws IOException if the snapshot or the journal cannot be written
+     */
+    public void checkpoint(Path snapshot) throws IOException {
+        checkpoint(snapshot, null);
+    }
+
+    /**
+     * Saves a Snapshot of the database and empties the journal, reporting the number of accounts saved.
+     *
+     * @param snapshot the snapshot file restored when the program starts
+     * @param progress receives the number of live accounts saved, or null
+     * @throws IOException if the snapshot or the journal cannot be written
+     */
+    public void checkpoint(Path snapshot, Progress progress) throws IOException {
+        Lock exclusive = exclusiveLock();
+        try {
+            synchronized (this) {
+                requireOpen();
+                saveCheckpoint(snapshot, progress);
+            }
+        } finally {
+            if (exclusive != null) {
+                exclusive.unlock();
+            }
+        }
+    }
+
+    /**
+     * Saves a Snapshot of the database and empties the journal, while holding the monitor of the journal.
+     *
+     * @param snapshot the snapshot file restored when the program starts
+     * @param progress receives the number of live accounts saved, or null
+     * @throws IOException if the snapshot or the journal cannot be written
+     */
+    private void saveCheckpoint(Path snapshot, Progress progress) throws IOException {
+        if (groupOwner != null) {
+            throw new IllegalStateException("A batch of an input file is being recorded");
+        }
+        force();
+        Snapshot.save(database, snapshot, progress);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        create(temporary, nextSequence);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        out = new BinaryOutput(channel, BUFFER_SIZE);
+    }
+
+    /**
+     * Replaces the accounts of the empty database with those of a snapshot file, such as a backup,
+     * and then saves a checkpoint so the restored accounts survive a restart.
+     * The records already in the journal are numbered before the restored accounts, so they are never replayed
+     * on top of the restored snapshot.
+     *
+     * @param source   the snapshot file being restored
+     * @param snapshot the snapshot file restored when the program starts
+     * @throws IOException           if a snapshot or the journal cannot be read or written
+     * @throws IllegalStateException if the database or its Archive is not empty
+     */
+    public void restore(Path source, Path snapshot) throws IOException {
+        restore(source, snapshot, null);
+    }
+
+    /**
+     * Replaces the accounts of the empty database with those of a snapshot file, and then saves a checkpoint,
+     * reporting the number of accounts read from the snapshot.
+     *
+     * @param source   the snapshot file being restored
+     * @param snapshot the snapshot file restored when the program starts
+     * @param progress receives the number of live accounts read, or null
+     * @throws IOException           if a snapshot or the journal cannot be read or written
+     * @throws IllegalStateException if the database or its Archive is not empty
+     */
+    public void restore(Path source, Path snapshot, Progress progress) throws IOException {
+        Lock exclusive = exclusiveLock();
+        try {
+            synchronized (this) {
+                requireOpen();
+                force();
+                database.setJournal(null);
+                try {
+                    Snapshot.restore(source, database, progress);
+                } finally {
+                    database.setJournal(this);
+                }
+                nextSequence = Math.max(database.getSequence(), nextSequence);
+                durableSequence = nextSequence;
+                database.setSequence(nextSequence);
+                saveCheckpoint(snapshot, null);
+            }
+        } finally {
+            if (exclusive != null) {
+                exclusive.unlock();
+            }
+        }
+    }
+
+    /**
+     * Forces every waiting record to disk now, without waiting for its group to fill.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public void sync() throws IOException {
+        synchronized (this) {
+            requireOpen();
+        }
+        try {
+            commitNow();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Commits every waiting record, stops recording the changes of the database, and closes the file.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            force();
+        } finally {
+            channel.close();
+            channel = null;
+            database.setJournal(null);
+        }
+    }
+
+    /**
+     * Returns the number of groups of records forced to disk.
+     *
+     * @return the number of commits
+     */
+    public long getCommits() {
+        commitLock.lock();
+        try {
+            return commits;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of records forced to disk.
+     *
+     * @return the number of committed records
+     */
+    public long getCommittedRecords() {
+        commitLock.lock();
+        try {
+            return committedRecords;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the average time from the oldest record of a group being written to the group being forced to disk.
+     *
+     * @return the average commit latency in milliseconds, or 0 if nothing was committed
+     */
+    public double getAverageLatencyMillis() {
+        commitLock.lock();
+        try {
+            return commits == 0 ? 0 : totalLatencyNanos / NANOS_PER_MILLI / commits;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the longest time from the oldest record of a group being written to the group being forced to disk.
+     *
+     * @return the longest commit latency in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        commitLock.lock();
+        try {
+            return maxLatencyNanos / NANOS_PER_MILLI;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Converts the commit statistics of the Journal to a string that can be printed.
+     *
+     * @return the number of records and commits, and the average and longest commit latency
+     */
+    @Override
+    public String toString() {
+        commitLock.lock();
+        try {
+            return String.format(Locale.US, "%,d records in %,d commits, commit latency %.2f ms average, %.2f ms max",
+                    committedRecords, commits, getAverageLatencyMillis(), getMaxLatencyMillis());
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record written so far, including those of the calling thread, is forced to disk.
+     * The thread joins the group being committed, and forces the group itself if no other thread is forcing one and
+     * the group is full or its oldest record has waited long enough. Called after the database is unlocked.
+     *
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    void awaitDurable() {
+        await(false);
+    }
+
+    /**
+     * Forces every record written so far to disk now, without waiting for its group to fill,
+     * such as the record of a batch of activities.
+     *
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    void commitNow() {
+        await(true);
+    }
+
+    /**
+     * Records that an account was opened, with its number and the state it was opened with.
+     *
+     * @param account the account added to the database
+     */
+    synchronized void logOpen(Account account) {
+        record.clear();
+        record.put(OPEN);
+        record.put((byte) account.getType().ordinal());
+        record.putInt(account.getAccountNumber().intValue());
+        putString(account.getFirstName());
+        putString(account.getLastName());
+        record.putInt(account.getDateOfBirth().toEpochDay());
+        record.putLong(account.getBalance());
+        record.put((byte) (account instanceof Savings savings && savings.isLoyal() ? 1 : 0));
+        record.put((byte) (account instanceof CollegeChecking college ? college.getCampus().ordinal() : 0));
+        if (account instanceof CertificateDeposit certificate) {
+            record.put((byte) certificate.getTerm());
+            record.putInt(certificate.getOpen().toEpochDay());
+        }
+        append();
+    }
+
+    /**
+     * Records that an account was closed.
+     *
+     * @param number    the account number
+     * @param closeDate the date the account was closed
+     */
+    synchronized void logClose(int number, Date closeDate) {
+        record.clear();
+        record.put(CLOSE);
+        record.putInt(number);
+        record.putInt(closeDate.toEpochDay());
+        append();
+    }
+
+    /**
+     * Records a deposit or a withdrawal made by a teller.
+     *
+     * @param withdrawal true for a withdrawal, false for a deposit
+     * @param number     the account number
+     * @param amount     the amount of money, in cents
+     * @param epochDay   the date as the number of days from 1/1/1970
+     */
+    synchronized void logTransaction(boolean withdrawal, int number, long amount, int epochDay) {
+        record.clear();
+        record.put(withdrawal ? WITHDRAW : DEPOSIT);
+        record.putInt(number);
+        record.putLong(amount);
+        record.putInt(epochDay);
+        append();
+    }
+
+    /**
+     * Records a withdrawal made by a teller after it took place, so that replaying it does not check the balance.
+     *
+     * @param number   the account number
+     * @param amount   the amount of money, in cents
+     * @param epochDay the date as the number of days from 1/1/1970
+     */
+    synchronized void logWithdrawn(int number, long amount, int epochDay) {
+        record.clear();
+        record.put(WITHDRAWN);
+        record.putInt(number);
+        record.putLong(amount);
+        record.putInt(epochDay);
+        append();
+    }
+
+    /**
+     * Records the position reached in an input file applied in batches.
+     *
+     * @param position the position reached
+     */
+    synchronized void logPosition(ImportPosition position) {
+        record.clear();
+        record.put(POSITION);
+        putString(position.getSource());
+        record.putLong(position.getOffset());
+        record.putInt(position.getLine());
+        record.putLong(position.getLoaded());
+        record.putLong(position.getRejected());
+        record.putLong(position.getQuarantineBytes());
+        record.put((byte) (position.isComplete() ? 1 : 0));
+        append();
+    }
+
+    /**
+     * Starts collecting the records written by the calling thread into one compound record, written by endGroup,
+     * so that a batch of an input file and the position it reached are replayed together or not at all.
+     * The caller holds the exclusive lock of the database until endGroup, so no other change is recorded
+     * between the changes of the batch.
+     *
+     * @throws IllegalStateException if the journal is not open or a thread is already collecting records
+     */
+    synchronized void beginGroup() {
+        requireOpen();
+        if (groupOwner != null) {
+            throw new IllegalStateException("A batch of an input file is already being recorded");
+        }
+        groupOwner = Thread.currentThread();
+        group = ByteBuffer.allocate(RECORD_BYTES);
+        groupCount = 0;
+    }
+
+    /**
+     * Writes the records collected since beginGroup as one compound record. The record is durable once committed,
+     * for example with sync.
+     *
+     * @throws IllegalStateException if the calling thread did not begin the group
+     * @throws UncheckedIOException  if the journal cannot be written
+     */
+    synchronized void endGroup() {
+        if (groupOwner != Thread.currentThread()) {
+            throw new IllegalStateException("The batch was not begun by this thread");
+        }
+        groupOwner = null;
+        ByteBuffer collected = group;
+        group = null;
+        if (groupCount == 0) {
+            return;
+        }
+        prepare(1 + Integer.BYTES + collected.position());
+        record.put(GROUP);
+        record.putInt(groupCount);
+        record.put(collected.array(), 0, collected.position());
+        append();
+    }
+
+    /**
+     * Drops the records collected since beginGroup without writing them, for a batch that failed partway,
+     * so the journal never holds part of a batch without the position it reached.
+     * Changes of the batch already applied stay in memory only; a restarted program recovers without them and loads
+     * the whole batch again.
+     *
+     * @throws IllegalStateException if the calling thread did not begin the group
+     */
+    synchronized void abortGroup() {
+        if (groupOwner != Thread.currentThread()) {
+            throw new IllegalStateException("The batch was not begun by this thread");
+        }
+        groupOwner = null;
+        group = null;
+        groupCount = 0;
+    }
+
+    /**
+     * Records the transactions of a batch that were applied, in batch order, as one batch record,
+     * or as several records if the batch is too large for one.
+     *
+     * @param batch   the transactions of the batch
+     * @param results the result of each transaction; only APPLIED transactions are recorded
+     * @param applied the number of APPLIED transactions
+     */
+    synchronized void logBatch(TransactionBatch batch, byte[] results, int applied) {
+        int index = 0;
+        while (applied > 0) {
+            int count = Math.min(applied, MAX_BATCH_ENTRIES);
+            prepare(1 + Integer.BYTES + count * BATCH_ENTRY_BYTES);
+            record.put(BATCH);
+            record.putInt(count);
+            for (int written = 0; written < count; index++) {
+                if (results[index] != TransactionBatch.APPLIED) {
+                    continue;
+                }
+                record.putInt(batch.getNumber(index));
+                record.putInt(batch.getEpochDay(index));
+                record.put((byte) batch.getLocation(index).ordinal());
+                record.put((byte) batch.getType(index));
+                record.putLong(batch.getAmount(index));
+                written++;
+            }
+            append();
+            applied -= count;
+        }
+    }
+
+    /**
+     * Clears the record buffer, replacing it with a larger one if the record being built does not fit.
+     *
+     * @param bytes the number of bytes of the record being built
+     */
+    private void prepare(int bytes) {
+        if (bytes > record.capacity()) {
+            record = ByteBuffer.allocate(Math.max(bytes, record.capacity() * 2));
+        }
+        record.clear();
+    }
+
+    /**
+     * Writes the record being built to the buffer of the journal. The record is durable once its group is committed
+     * by a thread waiting for it, and the waiting threads are woken up once a group is full.
+     *
+     * @throws UncheckedIOException if the journal cannot be written or a commit has failed
+     */
+    private void append() {
+        requireOpen();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            record.flip();
+            if (groupOwner == Thread.currentThread()) {
+                collect();
+                return;
+            }
+            checksum.reset();
+            checksum.update(record.array(), 0, record.limit());
+            out.writeInt(record.limit());
+            out.writeInt((int) checksum.getValue());
+            out.writeBytes(record.array(), 0, record.limit());
+            if (pending++ == 0) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            nextSequence++;
+            database.setSequence(nextSequence);
+            if (pending == groupSize) {
+                commitLock.lock();
+                try {
+                    committed.signalAll();
+                } finally {
+                    commitLock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write journal " + file, e);
+        }
+    }
+
+    /**
+     * Adds the record being built to the records collected for the compound record of the calling thread.
+     */
+    private void collect() {
+        int length = record.limit();
+        if (group.remaining() < Integer.BYTES + length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(group.capacity() * 2, group.position() + Integer.BYTES + length));
+            larger.put(group.array(), 0, group.position());
+            group = larger;
+        }
+        group.putInt(length);
+        group.put(record.array(), 0, length);
+        groupCount++;
+    }
+
+    /**
+     * Waits until every record written before the call is durable, forcing a group to disk when it is this
+     * thread's turn. Only one thread forces a group at a time; the others wait for it and find their records
+     * in the group, or force the next group themselves.
+     *
+     * @param now true to force the records now, false to wait for the group to fill or its oldest record to wait long enough
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    private void await(boolean now) {
+        long target = nextSequence;
+        commitLock.lock();
+        try {
+            while (durableSequence < target) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Cannot write journal " + file, failure);
+                }
+                if (committing) {
+                    committed.awaitUninterruptibly();
+                    continue;
+                }
+                long wait = groupNanos - (System.nanoTime() - oldestPendingNanos);
+                if (!now && wait > 0 && nextSequence - durableSequence < groupSize) {
+                    try {
+                        committed.awaitNanos(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        now = true; //an interrupted teller stops waiting for others and commits its own record
+                    }
+                    continue;
+                }
+                commitLock.unlock();
+                try {
+                    commitGroup();
+                } finally {
+                    commitLock.lock();
+                }
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        if (failure != null && durableSequence < target) {
+            throw new UncheckedIOException("Cannot write journal " + file, failure);
+        }
+    }
+
+    /**
+     * Forces the records waiting in the buffer to disk as one group, unless another thread is already forcing a group.
+     * The buffer is written to the file under the monitor of the journal, and the file is forced outside of it,
+     * so other threads keep writing records for the next group while this one is forced.
+     */
+    private void commitGroup() {
+        FileChannel target;
+        long upTo;
+        int count;
+        long oldest;
+        synchronized (this) {
+            commitLock.lock();
+            try {
+                if (committing || durableSequence >= nextSequence || channel == null) {
+                    return;
+                }
+                committing = true;
+            } finally {
+                commitLock.unlock();
+            }
+            target = channel;
+            upTo = nextSequence;
+            count = pending;
+            oldest = oldestPendingNanos;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                finishGroup(upTo, count, oldest, e);
+                return;
+            }
+            pending = 0;
+        }
+        IOException error = null;
+        try {
+            target.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        finishGroup(upTo, count, oldest, error);
+    }
+
+    /**
+     * Publishes the end of a commit: the records of the group become durable, or the error is kept
+     * and reported to every thread waiting for a commit.
+     *
+     * @param upTo   the number of records durable once the group is on disk
+     * @param count  the number of records in the group
+     * @param oldest the time the oldest record of the group was written, from System.nanoTime
+     * @param error  the error forcing the group to disk, or null if it is durable
+     */
+    private void finishGroup(long upTo, int count, long oldest, IOException error) {
+        long latency = System.nanoTime() - oldest;
+        commitLock.lock();
+        try {
+            committing = false;
+            if (error != null) {
+                failure = error;
+            } else {
+                durableSequence = Math.max(durableSequence, upTo);
+                if (count > 0) {
+                    commits++;
+                    committedRecords += count;
+                    totalLatencyNanos += latency;
+                    maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                }
+            }
+            committed.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every waiting record to the file and forces the file to disk, while holding the monitor of the journal,
+     * once the group being forced by another thread, if any, is on disk.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    private void force() throws IOException {
+        commitLock.lock();
+        try {
+            while (committing) {
+                committed.awaitUninterruptibly(); //the committing thread no longer needs the monitor
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (durableSequence >= nextSequence) {
+                return;
+            }
+            long latency;
+            try {
+                out.flush();
+                channel.force(false);
+                latency = System.nanoTime() - oldestPendingNanos;
+            } catch (IOException e) {
+                failure = e;
+                committed.signalAll();
+                throw e;
+            }
+            commits++;
+            committedRecords += pending;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            pending = 0;
+            durableSequence = nextSequence;
+            committed.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Takes the exclusive lock of the database being recorded, if it has one.
+     *
+     * @return the lock taken, or null if the database has no exclusive lock
+     * @throws IllegalStateException if the journal is not open
+     */
+    private Lock exclusiveLock() {
+        AccountDatabase recorded;
+        synchronized (this) {
+            requireOpen();
+            recorded = database;
+        }
+        Lock exclusive = recorded.exclusiveLock();
+        if (exclusive != null) {
+            exclusive.lock();
+        }
+        return exclusive;
+    }
+
+    /**
+     * Makes sure the journal is recording changes.
+     *
+     * @throws IllegalStateException if recover has not been called or the journal is closed
+     */
+    private void requireOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("The journal is not open");
+        }
+    }
+
+    /**
+     * Reads every record of the journal and applies the ones not already in the database.
+     * Reading stops at the end of the file or at the first record that is cut short or fails its checksum.
+     *
+     * @param in       the input the journal is read from
+     * @param database the database the records are applied to
+     * @param report   the report the applied and rejected records are recorded in
+     * @param progress receives the number of kilobytes replayed, or null
+     * @param total    the size of the file in kilobytes
+     * @return the position in the file after the last complete record
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    private long replay(BinaryInput in, AccountDatabase database, LoadReport report, Progress progress, int total)
+            throws IOException {
+        long sequence;
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a journal");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported journal version: " + version);
+            }
+            sequence = in.readLong();
+        } catch (EOFException e) {
+            throw new IOException(file + " is not a journal", e);
+        }
+        if (sequence > database.getSequence()) {
+            throw new IOException("The journal starts at record " + sequence + " but the database ends at record "
+                    + database.getSequence());
+        }
+        long position = HEADER_BYTES;
+        while (readRecord(in)) {
+            if (sequence >= database.getSequence()) {
+                try {
+                    apply(database);
+                    report.addLoaded();
+                } catch (IllegalArgumentException e) {
+                    report.addRejected((int) Math.min(sequence, Integer.MAX_VALUE), describe(), e.getMessage());
+                }
+                database.setSequence(sequence + 1);
+            }
+            sequence++;
+            position += RECORD_HEADER_BYTES + record.limit();
+            if (progress != null && sequence % PROGRESS_STEP == 0) {
+                progress.update((int) (position / KILOBYTE), total);
+            }
+        }
+        nextSequence = sequence;
+        if (progress != null) {
+            progress.update(total, total);
+        }
+        return position;
+    }
+
+    /**
+     * Reads the next record into the record buffer and checks its checksum.
+     *
+     * @param in the input the journal is read from
+     * @return true if a complete record was read, false at the end of the file or at a damaged record
+     * @throws IOException if the file cannot be read
+     */
+    private boolean readRecord(BinaryInput in) throws IOException {
+        try {
+            int length = in.readInt();
+            int expected = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return false;
+            }
+            prepare(length);
+            in.readBytes(record.array(), 0, length);
+            record.limit(length);
+            checksum.reset();
+            checksum.update(record.array(), 0, length);
+            return (int) checksum.getValue() == expected;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Applies the record in the record buffer to the database.
+     *
+     * @param database the database the record is applied to
+     * @throws IllegalArgumentException if the record is not valid or names an account that is not in the database
+     */
+    private void apply(AccountDatabase database) {
+        try {
+            byte type = record.get();
+            switch (type) {
+                case OPEN -> database.add(readAccount());
+                case CLOSE -> {
+                    Account account = account(database, record.getInt());
+                    database.closeAccount(account, Date.ofEpochDay(record.getInt()));
+                }
+                case DEPOSIT -> {
+                    Account account = account(database, record.getInt());
+                    account.deposit(record.getLong(), record.getInt());
+                }
+                case WITHDRAW -> {
+                    Account account = account(database, record.getInt());
+                    account.withdraw(record.getLong(), record.getInt());
+                }
+                case WITHDRAWN -> {
+                    Account account = account(database, record.getInt());
+                    account.withdraw(record.getLong(), record.getInt(), false);
+                }
+                case BATCH -> applyBatch(database);
+                case POSITION -> database.setPosition(readPosition());
+                case GROUP -> applyGroup(database);
+                case ACTIVITY -> {
+                    Account account = account(database, record.getInt());
+                    int epochDay = record.getInt();
+                    Branch location = BRANCHES[record.get()];
+                    char activity = (char) record.get();
+                    long amount = record.getLong();
+                    if (activity == 'W') {
+                        account.withdraw(epochDay, location, amount, ActivityLog.NONE);
+                    } else {
+                        account.deposit(epochDay, location, amount, ActivityLog.NONE);
+                    }
+                }
+                default -> throw new IllegalArgumentException("unknown record type " + type);
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("damaged record", e);
+        }
+    }
+
+    /**
+     * Applies the transactions of the batch record in the record buffer to the database, as one TransactionBatch.
+     *
+     * @param database the database the batch is applied to
+     * @throws IllegalArgumentException if the record is not valid or names accounts that are not in the database
+     */
+    private void applyBatch(AccountDatabase database) {
+        int count = record.getInt();
+        if (count < 0 || count > record.remaining() / BATCH_ENTRY_BYTES) {
+            throw new IllegalArgumentException("damaged batch of " + count + " transactions");
+        }
+        TransactionBatch batch = new TransactionBatch(count);
+        for (int i = 0; i < count; i++) {
+            int number = record.getInt();
+            int epochDay = record.getInt();
+            Branch location = BRANCHES[record.get()];
+            batch.add(number, epochDay, location, (char) record.get(), record.getLong());
+        }
+        int unknown = 0;
+        for (byte result : database.applyBatch(batch)) {
+            if (result != TransactionBatch.APPLIED) {
+                unknown++;
+            }
+        }
+        if (unknown > 0) {
+            throw new IllegalArgumentException(unknown + " of " + count + " transactions name accounts not in the database");
+        }
+    }
+
+    /**
+     * Applies every record of the compound record in the record buffer, in the order they were collected.
+     * A record that cannot be applied does not stop the others, as when records are replayed one by one.
+     *
+     * @param database the database the records are applied to
+     * @throws IllegalArgumentException if the record is not valid or some of its records could not be applied
+     */
+    private void applyGroup(AccountDatabase database) {
+        int count = record.getInt();
+        ByteBuffer collected = record;
+        record = ByteBuffer.allocate(RECORD_BYTES);
+        int failed = 0;
+        String firstFailure = null;
+        try {
+            for (int i = 0; i < count; i++) {
+                int length = collected.getInt();
+                if (length <= 0 || length > collected.remaining()) {
+                    throw new IllegalArgumentException("damaged group of " + count + " records");
+                }
+                prepare(length);
+                collected.get(record.array(), 0, length);
+                record.limit(length);
+                try {
+                    apply(database);
+                } catch (IllegalArgumentException e) {
+                    if (failed++ == 0) {
+                        firstFailure = e.getMessage();
+                    }
+                }
+            }
+        } finally {
+            record = collected;
+        }
+        if (failed > 0) {
+            throw new IllegalArgumentException(failed + " of " + count + " grouped records failed, first: " + firstFailure);
+        }
+    }
+
+    /**
+     * Reads the position of a position record from the record buffer.
+     *
+     * @return the position recorded
+     */
+    private ImportPosition readPosition() {
+        String source = getString();
+        long offset = record.getLong();
+        int line = record.getInt();
+        long loaded = record.getLong();
+        long rejected = record.getLong();
+        long quarantineBytes = record.getLong();
+        return new ImportPosition(source, offset, line, loaded, rejected, quarantineBytes, record.get() != 0);
+    }
+
+    /**
+     * Recreates the account of an open record, with the account number and state it was opened with.
+     *
+     * @return the recreated Account
+     */
+    private Account readAccount() {
+        AccountType type = TYPES[record.get()];
+        AccountNumber number = new AccountNumber(record.getInt());
+        String firstName = getString();
+        String lastName = getString();
+        Profile holder = new Profile(firstName, lastName, Date.ofEpochDay(record.getInt()));
+        long balance = record.getLong();
+        boolean isLoyal = record.get() != 0;
+        Campus campus = CAMPUSES[record.get()];
+        return switch (type) {
+            case CHECKING -> new Checking(number, holder, balance);
+            case COLLEGE_CHECKING -> new CollegeChecking(number, holder, campus, balance);
+            case SAVINGS -> new Savings(number, holder, balance, isLoyal);
+            case MONEY_MARKET -> new MoneyMarket(number, holder, balance, isLoyal, 0);
+            case CD -> {
+                int term = record.get();
+                yield new CertificateDeposit(number, holder, term, Date.ofEpochDay(record.getInt()), balance, isLoyal);
+            }
+        };
+    }
+
+    /**
+     * Finds the account named by a record.
+     *
+     * @param database the database being searched
+     * @param number   the account number
+     * @return the Account with the number
+     * @throws IllegalArgumentException if the account is not in the database
+     */
+    private static Account account(AccountDatabase database, int number) {
+        int index = database.find(number);
+        if (index == -1) {
+            throw new IllegalArgumentException(number + " is not in the database");
+        }
+        return database.get(index);
+    }
+
+    /**
+     * Describes the record in the record buffer for a report.
+     *
+     * @return the record type and length
+     */
+    private String describe() {
+        return "record type " + record.get(0) + ", " + record.limit() + " bytes";
+    }
+
+    /**
+     * Adds a String to the record being built as the number of bytes of its UTF-8 encoding followed by those bytes.
+     *
+     * @param value the String being added
+     */
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        record.putShort((short) bytes.length);
+        record.put(bytes);
+    }
+
+    /**
+     * Reads a String added by putString from the record buffer.
+     *
+     * @return the String read
+     */
+    private String getString() {
+        int length = Short.toUnsignedInt(record.getShort());
+        String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    /**
+     * Creates an empty journal file whose first record will have the given number, and forces it to disk.
+     *
+     * @param target   the file being created
+     * @param sequence the number of the first record
+     * @throws IOException if the file cannot be written
+     */
+    private static void create(Path target, long sequence) throws IOException {
+        try (FileChannel created = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(sequence).flip();
+            while (header.hasRemaining()) {
+                created.write(header);
+            }
+            created.force(false);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.List;
+
+import java.util.Locale;
+
+/**
+ * The LoadReport class summarizes the loading of an input file: how many lines were loaded,
+ * which lines were rejected and why, and how quickly the file was read.
+ * Reports of several batches can be added together; the combined report may keep only the first rejected lines
+ * while still counting all of them.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class LoadReport {
+
+    /**
+     * Number of nanoseconds in one second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Number of bytes in one megabyte.
+     */
+    private static final double BYTES_PER_MEGABYTE = 1 << 20;
+
+    /**
+     * Number of lines that were loaded.
+     */
+    private int loaded;
+
+    /**
+     * Lines that could not be loaded, in the order they appear in the file.
+     */
+    private final List<RejectedLine> rejected = new List<>();
+
+    /**
+     * Number of lines that could not be loaded, including those not kept in the list.
+     */
+    private int rejectedCount;
+
+    /**
+     * Number of lines read from the file, including blank lines.
+     */
+    private int lines;
+
+    /**
+     * Number of bytes read from the file.
+     */
+    private long bytes;
+
+    /**
+     * Time taken to load the file, in nanoseconds.
+     */
+    private long elapsedNanos;
+
+    /**
+     * Records that a line was loaded.
+     */
+    public void addLoaded() {
+        loaded++;
+    }
+
+    /**
+     * Records that several lines were loaded.
+     *
+     * @param count the number of loaded lines
+     */
+    public void addLoaded(int count) {
+        loaded += count;
+    }
+
+    /**
+     * Records that a line could not be loaded.
+     *
+     * @param lineNumber the line number in the file, starting from 1
+     * @param text       the text of the line
+     * @param reason     why the line was rejected
+     */
+    public void addRejected(int lineNumber, String text, String reason) {
+        rejected.add(new RejectedLine(lineNumber, text, reason));
+        rejectedCount++;
+    }
+
+    /**
+     * Adds the counts, size, and time of another report to this one, keeping at most the given number of rejected lines.
+     *
+     * @param other the report being added, usually of the next batch of the same file
+     * @param keep  the largest number of rejected lines kept in this report
+     */
+    public void add(LoadReport other, int keep) {
+        loaded += other.loaded;
+        lines += other.lines;
+        bytes += other.bytes;
+        elapsedNanos += other.elapsedNanos;
+        for (int i = 0; i < other.rejected.size() && rejected.size() < keep; i++) {
+            rejected.add(other.rejected.get(i));
+        }
+        rejectedCount += other.rejectedCount;
+    }
+
+    /**
+     * Records that lines were read from the file, whether they were loaded, rejected, or blank.
+     *
+     * @param count the number of lines read
+     */
+    public void addLines(int count) {
+        lines += count;
+    }
+
+    /**
+     * Records the size of the file and the time taken to load it, once loading is finished.
+     *
+     * @param bytes        the number of bytes read
+     * @param elapsedNanos the time taken, in nanoseconds
+     */
+    public void finish(long bytes, long elapsedNanos) {
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of lines that were loaded.
+     *
+     * @return the number of loaded lines
+     */
+    public int getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the lines that could not be loaded.
+     *
+     * @return the rejected lines, in the order they appear in the file
+     */
+    public List<RejectedLine> getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of lines that could not be loaded, including those not kept by add.
+     *
+     * @return the number of rejected lines
+     */
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the number of lines read from the file, including blank lines.
+     *
+     * @return the number of lines read
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of bytes read from the file.
+     *
+     * @return the size of the file in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the time taken to load the file.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of lines, loaded or rejected, processed per second.
+     *
+     * @return the throughput in lines per second
+     */
+    public double getLinesPerSecond() {
+        return (loaded + rejectedCount) * NANOS_PER_SECOND / Math.max(elapsedNanos, 1);
+    }
+
+    /**
+     * Returns the number of megabytes read per second.
+     *
+     * @return the throughput in megabytes per second
+     */
+    public double getMegabytesPerSecond() {
+        return bytes / BYTES_PER_MEGABYTE * NANOS_PER_SECOND / Math.max(elapsedNanos, 1);
+    }
+
+    /**
+     * Converts the LoadReport to a string that can be printed.
+     *
+     * @return the number of loaded and rejected lines, the time taken, and the throughput
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%,d loaded, %,d rejected in %.1f ms (%,.0f lines/s, %.1f MB/s)",
+                loaded, rejectedCount, elapsedNanos / 1e6, getLinesPerSecond(), getMegabytesPerSecond());
+    }
+}
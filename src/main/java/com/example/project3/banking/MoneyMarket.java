@@ -1,12 +1,15 @@
 package com.example.project3.banking;
 
-import com.example.project3.util.Date;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * Represents a Money Market account, which is a specialized type of Savings account
  * that offers distinct features such as higher interest rates, specific fee structures,
  * and withdrawal limitations. The MoneyMarket account also includes a loyalty status
  * based on the account balance, which influences the applicable interest rate.
+ * The withdrawal count and the loyalty status are changed without a lock, together with the balance, while the
+ * Account counts the change as running, so deposits and withdrawals made by several threads never wait for each other.
  *
  * @author Vishal Saravanan, Yining Chen
  */
@@ -16,49 +19,62 @@ public class MoneyMarket extends Savings {
      * Represents the maximum number of allowed withdrawals in a statement cycle
      * without incurring additional fees for a Money Market account.
      */
-    private static final double WITHDRAWAL_THRESHOLD = 3;
+    private static final int WITHDRAWAL_THRESHOLD = 3;
 
     /**
      * Represents the fixed fee applied to withdrawals that exceed the allowed threshold
      * in a Money Market account's statement cycle.
      */
-    private static final double WITHDRAWAL_FEE = 10;
+    private static final long WITHDRAWAL_FEE = 1_000; //$10.00 in cents
 
     /**
      * Represents the fixed account maintenance fee applied to a Money Market account.
      */
-    private static final double ACCOUNT_FEE = 25;
+    private static final long ACCOUNT_FEE = 2_500; //$25.00 in cents
 
     /**
      * Represents the minimum balance required in a Money Market account
      * to achieve loyalty status. Loyalty status can influence aspects
      * such as interest rates and account benefits.
      */
-    private static final double LOYALTY_THRESHOLD = 5000;
+    private static final long LOYALTY_THRESHOLD = 500_000; //$5,000.00 in cents
 
     /**
      * Represents the minimum account balance required to avoid incurring an
      * account maintenance fee in a Money Market account.
      */
-    private static final double FEE_THRESHOLD = 2000;
+    private static final long FEE_THRESHOLD = 200_000; //$2,000.00 in cents
 
     /**
      * Represents the annual interest rate applied to a Money Market account
      * when the account holder qualifies for loyalty status.
      */
-    private static final double LOYAL_INTEREST_RATE = 0.0375;
+    private static final int LOYAL_INTEREST_RATE = 375; //3.75% in basis points
 
     /**
      * Represents the annual interest rate applied to a Money Market account when
      * the account holder does not meet the criteria for loyalty status.
      * It is a lower interest rate compared to the one provided for loyal accounts.
      */
-    private static final double NOT_LOYAL_INTEREST_RATE = 0.035;
+    private static final int NOT_LOYAL_INTEREST_RATE = 350; //3.5% in basis points
 
     /**
-     * Number of withdrawals in the current statement cycle.
+     * Gives atomic access to the number of withdrawals.
      */
-    private int withdrawal = 0;
+    private static final VarHandle WITHDRAWAL;
+
+    static {
+        try {
+            WITHDRAWAL = MethodHandles.lookup().findVarHandle(MoneyMarket.class, "withdrawal", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Number of withdrawals in the current statement cycle. Not used while the account is stored in an AccountTable.
+     */
+    private volatile int withdrawal = 0;
 
     /**
      * Constructs a MoneyMarket account with the specified branch, account type, holder details, and initial balance.
@@ -67,87 +83,118 @@ public class MoneyMarket extends Savings {
      * @param branch  the branch where the account is opened
      * @param type    the type of the account
      * @param holder  the profile of the account holder
-     * @param balance the initial balance of the account
+     * @param balance the initial balance of the account, in cents
+     * @param isLoyal true if the holder already has a Checking account
      */
-    public MoneyMarket(Branch branch, AccountType type, Profile holder, double balance) {
-        super(branch, type, holder, balance);
-        if (balance >= LOYALTY_THRESHOLD) {
-            this.isLoyal = true;
-        }
+    public MoneyMarket(Branch branch, AccountType type, Profile holder, long balance, boolean isLoyal) {
+        super(branch, type, holder, balance, isLoyal || balance >= LOYALTY_THRESHOLD);
     }
 
     /**
-     * Calculates the interest rate for the MoneyMarket account based on loyalty status.
+     * Recreates a MoneyMarket account that already has an AccountNumber, a loyalty status, and withdrawals.
      *
-     * @return the interest rate applicable for the account. If the account is marked
+     * @param number     the AccountNumber of the account
+     * @param holder     the profile of the account holder
+     * @param balance    the balance of the account, in cents
+     * @param isLoyal    the loyalty status of the account
+     * @param withdrawal the number of withdrawals in the current statement cycle
      */
-    @Override
-    public double interestRate() {
-        return isLoyal ? LOYAL_INTEREST_RATE : NOT_LOYAL_INTEREST_RATE;
+    MoneyMarket(AccountNumber number, Profile holder, long balance, boolean isLoyal, int withdrawal) {
+        super(number, holder, balance, isLoyal);
+        this.withdrawal = withdrawal;
     }
 
     /**
-     * Calculates the fee associated with the MoneyMarket account.
-     * The fee is determined based on the account balance and the number of withdrawals.
-     * If the account balance meets or exceeds a specified threshold,
-     * a standard account fee is not applied; otherwise, a fee is charged.
-     * Additional withdrawal fees may apply if the number of withdrawals exceeds the withdrawal threshold.
+     * Returns the number of withdrawals in the current statement cycle.
      *
-     * @return the total fee amount as a double, combining account and withdrawal fees if applicable
+     * @return the number of withdrawals
+     */
+    public int getWithdrawals() {
+        return table() == null ? withdrawal : table().getWithdrawals(row());
+    }
+
+    /**
+     * Atomically adds one to the number of withdrawals in the current statement cycle after each successful withdrawal.
      */
     @Override
-    public double fee() {
-        return (this.balance >= FEE_THRESHOLD ? NO_FEE : ACCOUNT_FEE) + (this.withdrawal > WITHDRAWAL_THRESHOLD ? WITHDRAWAL_FEE : NO_FEE);
+    void withdrawn() {
+        if (table() == null) {
+            WITHDRAWAL.getAndAdd(this, 1);
+        } else {
+            table().countWithdrawal(row());
+        }
     }
 
     /**
-     * Deducts the specified amount from the account balance and updates the loyalty status
-     * if the balance falls below the defined loyalty threshold. Additionally, increments
-     * the withdrawal count for the account.
+     * Copies the loyalty status and the number of withdrawals into the record of the account.
      *
-     * @param amount the amount to be withdrawn from the account
+     * @param table the table holding the record
+     * @param row   the row of the record
      */
     @Override
-    public boolean withdraw(double amount) {
-        boolean success = super.withdraw(amount);
-
-        if (success) {
-            withdrawal++;
-        }
+    void storeFields(AccountTable table, int row) {
+        super.storeFields(table, row);
+        table.setWithdrawals(row, withdrawal);
+    }
 
-        if (this.getBalance() < LOYALTY_THRESHOLD) {
-            this.setIsLoyal(false);
-        }
+    /**
+     * Copies the loyalty status and the number of withdrawals out of the record of the account.
+     *
+     * @param table the table holding the record
+     * @param row   the row of the record
+     */
+    @Override
+    void loadFields(AccountTable table, int row) {
+        super.loadFields(table, row);
+        withdrawal = table.getWithdrawals(row);
+    }
 
-        return success;
+    /**
+     * Calculates the interest rate for the MoneyMarket account based on loyalty status.
+     *
+     * @return the interest rate applicable for the account. If the account is marked
+     */
+    @Override
+    public int interestRate() {
+        return isLoyal() ? LOYAL_INTEREST_RATE : NOT_LOYAL_INTEREST_RATE;
     }
 
     /**
-     * Processes a withdrawal from the MoneyMarket account on the given date, from a specified branch, and for a specified amount.
-     * Updates the withdrawal count for the account after the transaction is completed.
+     * Calculates the fee associated with the MoneyMarket account.
+     * The fee is determined based on the account balance and the number of withdrawals.
+     * If the account balance meets or exceeds a specified threshold,
+     * a standard account fee is not applied; otherwise, a fee is charged.
+     * Additional withdrawal fees may apply if the number of withdrawals exceeds the withdrawal threshold.
      *
-     * @param date   the date of the withdrawal transaction
-     * @param branch the branch where the withdrawal is being made
-     * @param amount the amount to withdraw from the account
+     * @return the total fee amount in cents, combining account and withdrawal fees if applicable
      */
     @Override
-    public void withdraw(Date date, Branch branch, double amount) {
-        super.withdraw(date, branch, amount);
-        withdrawal++;
+    public long fee() {
+        return (this.getBalance() >= FEE_THRESHOLD ? NO_FEE : ACCOUNT_FEE) + (this.getWithdrawals() > WITHDRAWAL_THRESHOLD ? WITHDRAWAL_FEE : NO_FEE);
     }
 
     /**
-     * Deposits a specified amount into the MoneyMarket account and updates the loyalty status
-     * if the account balance meets or exceeds the loyalty threshold.
+     * Updates the loyalty status after a deposit or withdrawal made by a teller: a deposit that leaves the balance at or
+     * above the loyalty threshold makes the account loyal, and a withdrawal that leaves or finds it below the threshold
+     * makes it not loyal. Other changes keep the status.
+     * Changes made at the same time may store their status in any order, so a change that decides the status stores
+     * the one matching the current balance, again until the balance stays the same while it is stored. Whichever
+     * deciding change was the last one to reach the balance, that is the status it would have left.
      *
-     * @param amount the amount of money to be deposited into the account
+     * @param type    'D' for deposit or 'W' for withdrawal
+     * @param balance the balance left by the change, in cents
      */
     @Override
-    public void deposit(double amount) {
-        super.deposit(amount);
-        if (this.getBalance() >= LOYALTY_THRESHOLD) {
-            this.setIsLoyal(true);
+    void balanceChanged(char type, long balance) {
+        if (type == 'D' ? balance < LOYALTY_THRESHOLD : balance >= LOYALTY_THRESHOLD) {
+            return;
         }
+        long current;
+        do {
+            current = this.getBalance();
+            this.setIsLoyal(current >= LOYALTY_THRESHOLD);
+            VarHandle.fullFence(); //the status must be stored before the balance is read again
+        } while (this.getBalance() != current);
     }
 
     /**
@@ -157,6 +204,6 @@ public class MoneyMarket extends Savings {
      */
     @Override
     public String toString() {
-        return super.toString() + " Withdrawal[" + withdrawal + "]";
+        return super.toString() + " Withdrawal[" + getWithdrawals() + "]";
     }
 }
@@ -113,4 +113,31 @@ public class Profile implements Comparable<Profile> {
         }
         return false;
     }
+
+    /**
+     * Returns a hash code for the Profile that is consistent with equals.
+     * Each character of the names is case-folded the same way equalsIgnoreCase compares them.
+     *
+     * @return hash code computed from the case-folded names and the date of birth
+     */
+    @Override
+    public int hashCode() {
+        int hash = foldedHash(this.firstName);
+        hash = 31 * hash + foldedHash(this.lastName);
+        return 31 * hash + this.dateOfBirth.hashCode();
+    }
+
+    /**
+     * Computes a hash code of a String that ignores case.
+     *
+     * @param name the String being hashed
+     * @return hash code of the case-folded characters of the String
+     */
+    private static int foldedHash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return hash;
+    }
 }
@@ -0,0 +1,40 @@
+package com.example.project3.banking;
+
+/**
+ * Receives the progress of a long task, such as an export of the accounts of an AccountDatabase or an import of a file.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public interface Progress {
+
+    /**
+     * Called after every few accounts, or other units of work, are processed, and once all of them are processed.
+     *
+     * @param done  the number of units processed so far
+     * @param total the number of units being processed
+     */
+    void update(int done, int total);
+
+    /**
+     * Checked by tasks that can stop early, such as a BulkImport, between two units of work.
+     *
+     * @return true if the task should stop, false to let it go on
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Called by tasks that change a database in batches, such as a BulkImport, just before a batch is applied.
+     */
+    default void batchStarted() {
+    }
+
+    /**
+     * Called once a batch has been applied and committed and the database is no longer locked for it.
+     *
+     * @param batch the lines loaded and rejected by the batch
+     */
+    default void batchFinished(LoadReport batch) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.project3.banking;
+
+/**
+ * A line of an input file that could not be loaded, with its line number and the reason it was rejected.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class RejectedLine {
+
+    /**
+     * Line number in the file, starting from 1.
+     */
+    private final int lineNumber;
+
+    /**
+     * The text of the line.
+     */
+    private final String text;
+
+    /**
+     * Why the line was rejected.
+     */
+    private final String reason;
+
+    /**
+     * Creates a RejectedLine.
+     *
+     * @param lineNumber the line number in the file, starting from 1
+     * @param text       the text of the line
+     * @param reason     why the line was rejected
+     */
+    public RejectedLine(int lineNumber, String text, String reason) {
+        this.lineNumber = lineNumber;
+        this.text = text;
+        this.reason = reason;
+    }
+
+    /**
+     * Returns the line number in the file.
+     *
+     * @return the line number, starting from 1
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the text of the line.
+     *
+     * @return the line as it appears in the file
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns why the line was rejected.
+     *
+     * @return the reason the line was rejected
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Converts the RejectedLine to a string that can be printed.
+     *
+     * @return the line number, the reason, and the text of the line
+     */
+    @Override
+    public String toString() {
+        return "Line " + lineNumber + " rejected - " + reason + ": " + text;
+    }
+}
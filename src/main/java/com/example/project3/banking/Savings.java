@@ -1,6 +1,6 @@
 package com.example.project3.banking;
 
-import com.example.project3.Controller;
+import com.example.project3.util.Money;
 
 /**
  * Extends the account class
@@ -12,28 +12,29 @@ public class Savings extends Account {
     /**
      * Represents the interest rate applied to savings accounts for loyal customers.
      */
-    private static final double LOYAL_INTEREST_RATE = 0.0275;
+    private static final int LOYAL_INTEREST_RATE = 275; //2.75% in basis points
 
     /**
      * Represents the interest rate applied to savings accounts for non-loyal customers.
      */
-    private static final double NOT_LOYAL_INTEREST_RATE = 0.025;
+    private static final int NOT_LOYAL_INTEREST_RATE = 250; //2.5% in basis points
 
     /**
      * Represents the fixed account fee applied to savings accounts.
      */
-    private static final double ACCOUNT_FEE = 25;
+    private static final long ACCOUNT_FEE = 2_500; //$25.00 in cents
 
     /**
      * Represents the minimum account balance threshold required to avoid fees.
      * If the account balance meets or exceeds this value, no fees will be applied.
      */
-    private static final double ACCOUNT_THRESHOLD = 500;
+    private static final long ACCOUNT_THRESHOLD = 50_000; //$500.00 in cents
 
     /**
      * Loyal customer status that will result in a higher interest rate.
+     * Not used while the account is stored in an AccountTable.
      */
-    protected boolean isLoyal;
+    private volatile boolean isLoyal;
 
     /**
      * Constructs a Savings account object.
@@ -41,11 +42,26 @@ public class Savings extends Account {
      * @param branch  The branch where the account is created.
      * @param type    The type of account being opened, typically AccountType.SAVINGS.
      * @param holder  The profile of the account holder.
-     * @param balance The initial balance in the savings account.
+     * @param balance The initial balance in the savings account, in cents.
+     * @param isLoyal The loyalty status of the account, true if the holder already has a Checking account.
      */
-    public Savings(Branch branch, AccountType type, Profile holder, double balance) {
+    public Savings(Branch branch, AccountType type, Profile holder, long balance, boolean isLoyal) {
         super(branch, type, holder, balance);
-        isLoyal = Controller.accountDatabase.contains(holder, AccountType.CHECKING);
+        this.isLoyal = isLoyal;
+    }
+
+    /**
+     * Recreates a Savings account that already has an AccountNumber and a loyalty status.
+     * The loyalty status is not looked up in the database.
+     *
+     * @param number  The AccountNumber of the account.
+     * @param holder  The profile of the account holder.
+     * @param balance The balance in the savings account, in cents.
+     * @param isLoyal The loyalty status of the account.
+     */
+    Savings(AccountNumber number, Profile holder, long balance, boolean isLoyal) {
+        super(number, holder, balance);
+        this.isLoyal = isLoyal;
     }
 
     /**
@@ -55,7 +71,11 @@ public class Savings extends Account {
      * @param isLoyal a boolean indicating whether the account holder is a loyal customer
      */
     public void setIsLoyal(boolean isLoyal) {
-        this.isLoyal = isLoyal;
+        if (table() == null) {
+            this.isLoyal = isLoyal;
+        } else {
+            table().setLoyal(row(), isLoyal);
+        }
     }
 
     /**
@@ -64,7 +84,29 @@ public class Savings extends Account {
      * @return the provided loyalty status as a boolean
      */
     public boolean isLoyal() {
-        return isLoyal;
+        return table() == null ? isLoyal : table().isLoyal(row());
+    }
+
+    /**
+     * Copies the loyalty status into the record of the account.
+     *
+     * @param table the table holding the record
+     * @param row   the row of the record
+     */
+    @Override
+    void storeFields(AccountTable table, int row) {
+        table.setLoyal(row, isLoyal);
+    }
+
+    /**
+     * Copies the loyalty status out of the record of the account.
+     *
+     * @param table the table holding the record
+     * @param row   the row of the record
+     */
+    @Override
+    void loadFields(AccountTable table, int row) {
+        isLoyal = table.isLoyal(row);
     }
 
     /**
@@ -76,8 +118,8 @@ public class Savings extends Account {
      * otherwise returns the standard interest rate for non-loyal customers
      */
     @Override
-    public double interestRate() {
-        return isLoyal ? LOYAL_INTEREST_RATE : NOT_LOYAL_INTEREST_RATE;
+    public int interestRate() {
+        return isLoyal() ? LOYAL_INTEREST_RATE : NOT_LOYAL_INTEREST_RATE;
     }
 
     /**
@@ -86,8 +128,8 @@ public class Savings extends Account {
      * @return the monthly interest amount based on the account balance and interest rate
      */
     @Override
-    public double interest() {
-        return balance * this.interestRate() / MONTHS_IN_YEAR;
+    public long interest() {
+        return Money.scale(getBalance(), this.interestRate(), MONTHLY_RATE_DENOMINATOR);
     }
 
     /**
@@ -97,8 +139,8 @@ public class Savings extends Account {
      * or the predefined account fee for accounts below the threshold
      */
     @Override
-    public double fee() {
-        return balance >= ACCOUNT_THRESHOLD ? NO_FEE : ACCOUNT_FEE;
+    public long fee() {
+        return getBalance() >= ACCOUNT_THRESHOLD ? NO_FEE : ACCOUNT_FEE;
     }
 
     /**
@@ -109,6 +151,6 @@ public class Savings extends Account {
      */
     @Override
     public String toString() {
-        return super.toString() + (isLoyal ? " [LOYAL]" : "");
+        return super.toString() + (isLoyal() ? " [LOYAL]" : "");
     }
 }
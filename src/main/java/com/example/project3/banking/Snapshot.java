@@ -0,0 +1,432 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.BinaryInput;
+import com.example.project3.util.BinaryOutput;
+import com.example.project3.util.Date;
+import com.example.project3.util.IntHashIndex;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The Snapshot class saves an AccountDatabase, its Archive, and all their activities to a binary file,
+ * and restores them from that file.
+ * A snapshot starts with a magic number, a format version, and the number of the next Journal record, followed by:
+ * every live account in the order they were created, with the fields of its subclass;
+ * the position of each live account in the database; the activities of the live accounts, one whole column at a time;
+ * the closed accounts of the Archive, oldest first, each with its close date and its own activities;
+ * and the position reached in each input file applied in batches, so imports resume where the snapshot left them.
+ * Restored accounts keep their account numbers, loyalty status, withdrawal counts, terms, campuses, and activities,
+ * and no new account numbers are generated. Files are read and written through channels with large buffers,
+ * and a snapshot is first written to a temporary file that then replaces the old snapshot,
+ * so a failed save never leaves a half-written snapshot behind.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class Snapshot {
+
+    /**
+     * Number at the start of every snapshot file ("BSNP").
+     */
+    private static final int MAGIC = 0x42534E50;
+
+    /**
+     * Version of the format written by this class.
+     */
+    private static final int VERSION = 4;
+
+    /**
+     * Oldest version of the format that can still be restored. Version 1 has no journal sequence number,
+     * versions 1 and 2 keep closed accounts with the live accounts and their activities in the log,
+     * and versions before 4 have no import positions.
+     */
+    private static final int OLDEST_VERSION = 1;
+
+    /**
+     * Number of accounts written or read between two progress updates.
+     */
+    private static final int PROGRESS_STEP = 1024;
+
+    /**
+     * Size of the buffer used to read and write snapshot files, in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 22;
+
+    /**
+     * Every AccountType, indexed by ordinal.
+     */
+    private static final AccountType[] TYPES = AccountType.values();
+
+    /**
+     * Every Campus, indexed by ordinal.
+     */
+    private static final Campus[] CAMPUSES = Campus.values();
+
+    /**
+     * Orders accounts by the order they were created.
+     */
+    private static final Comparator<Account> CREATION_ORDER = Comparator.comparingInt(Account::getId);
+
+    /**
+     * Snapshot only has static methods and is never instantiated.
+     */
+    private Snapshot() {
+    }
+
+    /**
+     * Saves the accounts, closed accounts, and activities of a database to a file, replacing the file if it exists.
+     *
+     * @param database the database being saved
+     * @param file     the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(AccountDatabase database, Path file) throws IOException {
+        save(database, file, null);
+    }
+
+    /**
+     * Saves the accounts, closed accounts, and activities of a database to a file, replacing the file if it exists,
+     * and reports the number of accounts written.
+     *
+     * @param database the database being saved
+     * @param file     the snapshot file
+     * @param progress receives the number of live accounts written, or null
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(AccountDatabase database, Path file, Progress progress) throws IOException {
+        Lock exclusive = database.exclusiveLock(); //every account is saved in the same state
+        if (exclusive != null) {
+            exclusive.lock();
+        }
+        try {
+            write(database, file, progress);
+        } finally {
+            if (exclusive != null) {
+                exclusive.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes every account, closed account, and activity of the database to a file, once no other thread can change it.
+     * The log of the database is compacted first, so activities of closed accounts are only written with the Archive.
+     *
+     * @param database the database being saved
+     * @param file     the file the snapshot is written to
+     * @param progress receives the number of live accounts written, or null
+     * @throws IOException if the file cannot be written
+     */
+    private static void write(AccountDatabase database, Path file, Progress progress) throws IOException {
+        database.compactActivities(); //the log written holds only activities of live accounts
+        Account[] live = new Account[database.size()];
+        for (int i = 0; i < live.length; i++) {
+            live[i] = database.get(i);
+        }
+        Account[] accounts = live.clone();
+        Arrays.sort(accounts, CREATION_ORDER);
+        IntHashIndex ranks = new IntHashIndex(accounts.length);
+        for (int i = 0; i < accounts.length; i++) {
+            ranks.put(accounts[i].getId(), i);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryOutput out = new BinaryOutput(channel, BUFFER_SIZE);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(database.getSequence());
+            out.writeInt(accounts.length);
+            for (int i = 0; i < accounts.length; i++) {
+                writeAccount(out, accounts[i]);
+                writeActivities(out, accounts[i], database.getActivityLog());
+                if (progress != null && (i + 1) % PROGRESS_STEP == 0) {
+                    progress.update(i + 1, accounts.length);
+                }
+            }
+            out.writeInt(live.length);
+            for (Account account : live) {
+                out.writeInt(ranks.get(account.getId()));
+            }
+            database.getActivityLog().write(out, ranks);
+            database.getArchive().write(out);
+            ImportPosition[] positions = database.getPositions();
+            out.writeInt(positions.length);
+            for (ImportPosition position : positions) {
+                out.writeString(position.getSource());
+                out.writeLong(position.getOffset());
+                out.writeInt(position.getLine());
+                out.writeLong(position.getLoaded());
+                out.writeLong(position.getRejected());
+                out.writeLong(position.getQuarantineBytes());
+                out.writeBoolean(position.isComplete());
+            }
+            out.flush();
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (progress != null) {
+            progress.update(accounts.length, accounts.length);
+        }
+    }
+
+    /**
+     * Restores the accounts, closed accounts, and activities saved in a snapshot file into an empty database.
+     * Accounts are added to the database in the order they were in when the snapshot was saved.
+     * The whole file is read and checked into a staging log and Archive first, and only then moved into the database,
+     * so a snapshot that turns out to be corrupt leaves the database, its log, and its Archive unchanged.
+     *
+     * @param file     the snapshot file
+     * @param database the empty database the snapshot is restored into
+     * @throws IOException           if the file cannot be read, or is not a snapshot of a supported version
+     * @throws IllegalStateException if the database or its Archive is not empty, or the database has a Journal
+     */
+    public static void restore(Path file, AccountDatabase database) throws IOException {
+        restore(file, database, null);
+    }
+
+    /**
+     * Restores the accounts, closed accounts, and activities saved in a snapshot file into an empty database,
+     * and reports the number of accounts read.
+     *
+     * @param file     the snapshot file
+     * @param database the empty database the snapshot is restored into
+     * @param progress receives the number of live accounts read, or null
+     * @throws IOException           if the file cannot be read, or is not a snapshot of a supported version
+     * @throws IllegalStateException if the database or its Archive is not empty, or the database has a Journal
+     */
+    public static void restore(Path file, AccountDatabase database, Progress progress) throws IOException {
+        if (!database.isEmpty() || !database.getArchive().isEmpty()) {
+            throw new IllegalStateException("A snapshot can only be restored into an empty database");
+        }
+        if (database.getJournal() != null) {
+            throw new IllegalStateException("A snapshot cannot be restored while the database is journaled");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BinaryInput in = new BinaryInput(channel, BUFFER_SIZE);
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a snapshot");
+            }
+            int version = in.readInt();
+            if (version < OLDEST_VERSION || version > VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            long sequence = version >= 2 ? in.readLong() : 0;
+            Account[] accounts = new Account[count(in)];
+            int[] ids = new int[accounts.length];
+            int[] activities = new int[accounts.length * 3]; //first, last, and count of each account
+            for (int i = 0; i < accounts.length; i++) {
+                accounts[i] = readAccount(in);
+                ids[i] = accounts[i].getId();
+                activities[i * 3] = in.readInt();
+                activities[i * 3 + 1] = in.readInt();
+                activities[i * 3 + 2] = in.readInt();
+                if (progress != null && (i + 1) % PROGRESS_STEP == 0) {
+                    progress.update(i + 1, accounts.length);
+                }
+            }
+            Account[] live = new Account[count(in)];
+            for (int i = 0; i < live.length; i++) {
+                live[i] = accounts[rank(in, accounts.length)];
+            }
+            int archived = version < 3 ? count(in) : 0;
+            Account[] closed = new Account[archived];
+            Date[] closeDates = new Date[archived];
+            for (int i = 0; i < archived; i++) {
+                closed[i] = accounts[rank(in, accounts.length)];
+                closeDates[i] = Date.ofEpochDay(in.readInt());
+            }
+
+            ActivityLog staged = new ActivityLog(0);
+            staged.read(in, ids);
+            for (int i = 0; i < accounts.length; i++) {
+                position(activities[i * 3], 0, staged);
+                position(activities[i * 3 + 1], 0, staged);
+            }
+            Archive stagedArchive = new Archive();
+            if (version >= 3) {
+                stagedArchive.read(in);
+            }
+            ImportPosition[] positions = new ImportPosition[version >= 4 ? count(in) : 0];
+            for (int i = 0; i < positions.length; i++) {
+                try {
+                    positions[i] = new ImportPosition(in.readString(), in.readLong(), in.readInt(), in.readLong(),
+                            in.readLong(), in.readLong(), in.readBoolean());
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e.getMessage());
+                }
+            }
+
+            ActivityLog log = database.getActivityLog(); //the whole file is valid, so nothing below can fail on it
+            int base = log.appendAll(staged);
+            for (int i = 0; i < accounts.length; i++) {
+                int first = position(activities[i * 3], base, log);
+                int last = position(activities[i * 3 + 1], base, log);
+                accounts[i].restoreActivities(log, first, last, activities[i * 3 + 2]);
+            }
+            database.ensureCapacity(live.length);
+            database.addAll(live);
+            database.setSequence(sequence);
+            for (int i = archived - 1; i >= 0; i--) { //older versions list the most recently closed first
+                database.getArchive().add(closed[i], closeDates[i]);
+            }
+            database.getArchive().addAll(stagedArchive);
+            for (ImportPosition position : positions) {
+                database.setPosition(position);
+            }
+            if (progress != null) {
+                progress.update(accounts.length, accounts.length);
+            }
+        }
+    }
+
+    /**
+     * Writes one account: its type and number, its holder, its balance, and the fields of its subclass.
+     * The Archive writes closed accounts the same way.
+     *
+     * @param out     the output the account is written to
+     * @param account the account being written
+     * @throws IOException if the output cannot be written
+     */
+    static void writeAccount(BinaryOutput out, Account account) throws IOException {
+        AccountType type = account.getType();
+        out.writeByte(type.ordinal());
+        out.writeInt(account.getAccountNumber().intValue());
+        out.writeString(account.getFirstName());
+        out.writeString(account.getLastName());
+        out.writeInt(account.getDateOfBirth().toEpochDay());
+        out.writeLong(account.getBalance());
+        switch (type) {
+            case CHECKING -> {
+            }
+            case COLLEGE_CHECKING -> out.writeByte(((CollegeChecking) account).getCampus().ordinal());
+            case SAVINGS -> out.writeBoolean(((Savings) account).isLoyal());
+            case MONEY_MARKET -> {
+                out.writeBoolean(((MoneyMarket) account).isLoyal());
+                out.writeInt(((MoneyMarket) account).getWithdrawals());
+            }
+            case CD -> {
+                CertificateDeposit certificate = (CertificateDeposit) account;
+                out.writeBoolean(certificate.isLoyal());
+                out.writeByte(certificate.getTerm());
+                out.writeInt(certificate.getOpen().toEpochDay());
+            }
+        }
+    }
+
+    /**
+     * Writes the positions of the first and latest activities of an account in the log, and its number of activities.
+     *
+     * @param out     the output the positions are written to
+     * @param account the account being written
+     * @param log     the log of the database
+     * @throws IOException           if the output cannot be written
+     * @throws IllegalStateException if the activities of the account are not in the log of the database
+     */
+    private static void writeActivities(BinaryOutput out, Account account, ActivityLog log) throws IOException {
+        if (account.firstActivity() != ActivityLog.NONE && account.activityLog() != log) {
+            throw new IllegalStateException("Activities of " + account.getAccountNumber() + " are not in the database log");
+        }
+        out.writeInt(account.firstActivity());
+        out.writeInt(account.lastActivity());
+        out.writeInt(account.getActivities().size());
+    }
+
+    /**
+     * Reads one account written by writeAccount.
+     *
+     * @param in the input the account is read from
+     * @return the recreated Account, without activities
+     * @throws IOException if the input cannot be read or does not hold a valid account
+     */
+    static Account readAccount(BinaryInput in) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= TYPES.length) {
+            throw new IOException("Invalid account type: " + ordinal);
+        }
+        AccountNumber number;
+        try {
+            number = new AccountNumber(in.readInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+        String firstName = in.readString();
+        String lastName = in.readString();
+        Profile holder = new Profile(firstName, lastName, Date.ofEpochDay(in.readInt()));
+        long balance = in.readLong();
+        return switch (TYPES[ordinal]) {
+            case CHECKING -> new Checking(number, holder, balance);
+            case COLLEGE_CHECKING -> {
+                int campus = in.readByte();
+                if (campus < 0 || campus >= CAMPUSES.length) {
+                    throw new IOException("Invalid campus: " + campus);
+                }
+                yield new CollegeChecking(number, holder, CAMPUSES[campus], balance);
+            }
+            case SAVINGS -> new Savings(number, holder, balance, in.readBoolean());
+            case MONEY_MARKET -> new MoneyMarket(number, holder, balance, in.readBoolean(), in.readInt());
+            case CD -> {
+                boolean isLoyal = in.readBoolean();
+                int term = in.readByte();
+                yield new CertificateDeposit(number, holder, term, Date.ofEpochDay(in.readInt()), balance, isLoyal);
+            }
+        };
+    }
+
+    /**
+     * Reads the number of items of a section.
+     *
+     * @param in the input the number is read from
+     * @return the number of items
+     * @throws IOException if the input cannot be read or the number is negative
+     */
+    private static int count(BinaryInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Moves the position of an activity in the snapshot to its position in the log it was read into.
+     *
+     * @param position the position in the snapshot, or ActivityLog.NONE
+     * @param base     the position in the log of the first activity read
+     * @param log      the log the activities were read into
+     * @return the position in the log, or ActivityLog.NONE
+     * @throws IOException if the position is out of range
+     */
+    private static int position(int position, int base, ActivityLog log) throws IOException {
+        if (position == ActivityLog.NONE) {
+            return position;
+        }
+        if (position < 0 || base + position >= log.size()) {
+            throw new IOException("Invalid activity position: " + position);
+        }
+        return base + position;
+    }
+
+    /**
+     * Reads the position of an account in the snapshot.
+     *
+     * @param in       the input the position is read from
+     * @param accounts the number of accounts in the snapshot
+     * @return the position of the account
+     * @throws IOException if the input cannot be read or the position is out of range
+     */
+    private static int rank(BinaryInput in, int accounts) throws IOException {
+        int rank = in.readInt();
+        if (rank < 0 || rank >= accounts) {
+            throw new IOException("Invalid account position: " + rank);
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.List;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The StatementExporter class writes the statement of every account in an AccountDatabase to text files,
+ * grouped by account holder in the same layout as the statements printed on screen.
+ * Statements are written one at a time through a single reused StringBuilder and one direct buffer that is sent to
+ * the file whenever it fills up, so the memory used stays the same however many accounts are exported.
+ * A large export can be split into several files: a new file is started once a file holds the given number of
+ * accounts, but never between two accounts of the same holder. Holders keep their numbering across files.
+ * A shared database keeps its accounts in place during the export while deposits and withdrawals go on,
+ * and each statement is read so that it shows one state of its account.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class StatementExporter {
+
+    /**
+     * Size of the buffer used to write the files, in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Size the StringBuilder holding one statement is trimmed back to after an unusually long statement.
+     */
+    private static final int STATEMENT_CAPACITY = 1 << 12;
+
+    /**
+     * Number of accounts written between two progress updates.
+     */
+    private static final int PROGRESS_STEP = 1024;
+
+    /**
+     * The database whose statements are exported.
+     */
+    private final AccountDatabase database;
+
+    /**
+     * Number of accounts after which a new file is started, or 0 to write every statement to one file.
+     */
+    private final int accountsPerFile;
+
+    /**
+     * Holds the text of the statement being written.
+     */
+    private StringBuilder text = new StringBuilder(STATEMENT_CAPACITY);
+
+    /**
+     * Bytes waiting to be written to the current file.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Converts the text into UTF-8 bytes.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    /**
+     * Creates a StatementExporter that writes every statement to one file.
+     *
+     * @param database the database whose statements are exported
+     */
+    public StatementExporter(AccountDatabase database) {
+        this(database, 0);
+    }
+
+    /**
+     * Creates a StatementExporter that starts a new file every given number of accounts.
+     *
+     * @param database        the database whose statements are exported
+     * @param accountsPerFile the number of accounts after which a new file is started, or 0 for a single file
+     * @throws IllegalArgumentException if the number of accounts per file is negative
+     */
+    public StatementExporter(AccountDatabase database, int accountsPerFile) {
+        if (accountsPerFile < 0) {
+            throw new IllegalArgumentException("Invalid number of accounts per file: " + accountsPerFile);
+        }
+        this.database = database;
+        this.accountsPerFile = accountsPerFile;
+    }
+
+    /**
+     * Writes the statements of every account, ordered by holder, replacing the files if they exist.
+     * If the statements fit in one file they are written to the given file. Otherwise the files are named after it,
+     * with -1, -2, and so on added before the extension.
+     *
+     * @param file     the file the statements are written to
+     * @param progress receives the number of accounts written, or null
+     * @return the files written, in order
+     * @throws IOException if a file cannot be written
+     */
+    public List<Path> export(Path file, Progress progress) throws IOException {
+        Lock shared = database.sharedLock(); //no account is opened or closed during the export
+        if (shared != null) {
+            shared.lock();
+        }
+        try {
+            return exportAll(file, progress);
+        } finally {
+            if (shared != null) {
+                shared.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the statements of every account, once no other thread can open or close an account.
+     *
+     * @param file     the file the statements are written to
+     * @param progress receives the number of accounts written, or null
+     * @return the files written, in order
+     * @throws IOException if a file cannot be written
+     */
+    private List<Path> exportAll(Path file, Progress progress) throws IOException {
+        int total = database.size();
+        boolean split = accountsPerFile > 0 && total > accountsPerFile;
+        List<Path> files = new List<>();
+        FileChannel channel = null;
+        try {
+            int exported = 0;
+            int inFile = 0;
+            int holderCount = 0;
+            Profile previous = null;
+            for (Account account : database.viewByHolder()) {
+                boolean newHolder = previous == null || !account.getHolder().equals(previous);
+                if (channel == null || (split && newHolder && inFile >= accountsPerFile)) {
+                    if (channel != null) {
+                        finish(channel);
+                    }
+                    Path next = split ? numbered(file, files.size() + 1) : file;
+                    channel = start(next);
+                    files.add(next);
+                    inFile = 0;
+                }
+                if (newHolder) {
+                    holderCount++;
+                    text.append(holderCount).append('.').append(account.getHolder()).append('\n');
+                }
+                previous = account.getHolder();
+                text.append("\t[Account#] ").append(account.getAccountNumber()).append('\n');
+                appendStatement(account);
+                text.append('\n');
+                write(channel);
+                inFile++;
+                exported++;
+                if (progress != null && exported % PROGRESS_STEP == 0) {
+                    progress.update(exported, total);
+                }
+            }
+            if (channel == null) {
+                channel = start(file);
+                files.add(file);
+            }
+            finish(channel);
+            channel = null;
+            if (progress != null) {
+                progress.update(exported, total);
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+            buffer.clear();
+            text.setLength(0);
+        }
+        return files;
+    }
+
+    /**
+     * Adds the statement of an account to the text, read while no deposit or withdrawal changes the account.
+     *
+     * @param account the account whose statement is added
+     */
+    private void appendStatement(Account account) {
+        int mark = text.length();
+        database.readAccount(account, read -> {
+            text.setLength(mark); //a lock-free read may run again
+            read.appendStatement(text);
+            return null;
+        });
+    }
+
+    /**
+     * Opens a file and writes the heading of the statements.
+     *
+     * @param file the file being started
+     * @return the open file
+     * @throws IOException if the file cannot be opened or written
+     */
+    private FileChannel start(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        text.append("*Account statements by account holder.\n");
+        write(channel);
+        return channel;
+    }
+
+    /**
+     * Writes the end of the statements, sends the remaining bytes to a file, and closes it.
+     *
+     * @param channel the open file
+     * @throws IOException if the file cannot be written
+     */
+    private void finish(FileChannel channel) throws IOException {
+        try (channel) {
+            text.append("*end of statements.\n");
+            write(channel);
+            flush(channel);
+        }
+    }
+
+    /**
+     * Encodes the text into the buffer, sending the buffer to the file whenever it fills up, and clears the text.
+     *
+     * @param channel the open file
+     * @throws IOException if the file cannot be written
+     */
+    private void write(FileChannel channel) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isUnderflow()) {
+                result = encoder.flush(buffer);
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+            if (result.isOverflow()) {
+                flush(channel);
+            } else {
+                result.throwException();
+            }
+        }
+        if (text.capacity() > STATEMENT_CAPACITY * 16) {
+            text = new StringBuilder(STATEMENT_CAPACITY);
+        } else {
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * Sends every buffered byte to the file.
+     *
+     * @param channel the open file
+     * @throws IOException if the file cannot be written
+     */
+    private void flush(FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Names one of several files after the file chosen for the export.
+     *
+     * @param file   the file chosen for the export
+     * @param number the number of the file, starting from 1
+     * @return the file with the number added before its extension
+     */
+    private static Path numbered(Path file, int number) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String numberedName = dot > 0
+                ? name.substring(0, dot) + "-" + number + name.substring(dot)
+                : name + "-" + number;
+        return file.resolveSibling(numberedName);
+    }
+}
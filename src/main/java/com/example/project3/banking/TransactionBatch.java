@@ -0,0 +1,216 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.Date;
+
+import java.util.Arrays;
+
+/**
+ * The TransactionBatch class holds deposits and withdrawals waiting to be applied together with
+ * AccountDatabase.applyBatch. Like the ActivityLog, every field is kept in its own primitive array, so adding a
+ * transaction does not create any objects, and the batch grows by half of its capacity whenever it is full.
+ * Transactions name their account by its packed account number, and are applied in the order they were added.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class TransactionBatch {
+
+    /**
+     * Result of a transaction that was applied.
+     */
+    public static final byte APPLIED = 0;
+
+    /**
+     * Result of a transaction whose account is not in the database.
+     */
+    public static final byte UNKNOWN_ACCOUNT = 1;
+
+    /**
+     * The capacity of a batch created without a requested capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Every Branch, indexed by ordinal, for turning the stored location back into a Branch.
+     */
+    private static final Branch[] BRANCHES = Branch.values();
+
+    /**
+     * Packed account number of each transaction.
+     */
+    private int[] numbers;
+
+    /**
+     * Date of each transaction as the number of days from 1/1/1970.
+     */
+    private int[] epochDays;
+
+    /**
+     * Ordinal of the Branch where each transaction took place.
+     */
+    private byte[] locations;
+
+    /**
+     * Type of each transaction: 'D' for deposit or 'W' for withdrawal.
+     */
+    private byte[] types;
+
+    /**
+     * Amount of money of each transaction, in cents.
+     */
+    private long[] amounts;
+
+    /**
+     * Number of transactions in the batch.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty TransactionBatch.
+     */
+    public TransactionBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty TransactionBatch with room for the given number of transactions.
+     *
+     * @param initialCapacity the number of transactions to make room for
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public TransactionBatch(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+        this.numbers = new int[initialCapacity];
+        this.epochDays = new int[initialCapacity];
+        this.locations = new byte[initialCapacity];
+        this.types = new byte[initialCapacity];
+        this.amounts = new long[initialCapacity];
+    }
+
+    /**
+     * Adds a deposit or a withdrawal to the end of the batch.
+     *
+     * @param number   the account the transaction is made on
+     * @param date     the date of the transaction
+     * @param location the branch where the transaction took place
+     * @param type     'D' for deposit or 'W' for withdrawal
+     * @param amount   the amount of money, in cents
+     * @throws IllegalArgumentException if the type is neither 'D' nor 'W'
+     */
+    public void add(AccountNumber number, Date date, Branch location, char type, long amount) {
+        add(number.intValue(), date.toEpochDay(), location, type, amount);
+    }
+
+    /**
+     * Adds a deposit or a withdrawal to the end of the batch.
+     *
+     * @param number   the packed account number of the account the transaction is made on
+     * @param epochDay the date of the transaction as the number of days from 1/1/1970
+     * @param location the branch where the transaction took place
+     * @param type     'D' for deposit or 'W' for withdrawal
+     * @param amount   the amount of money, in cents
+     * @throws IllegalArgumentException if the type is neither 'D' nor 'W'
+     */
+    public void add(int number, int epochDay, Branch location, char type, long amount) {
+        if (type != 'D' && type != 'W') {
+            throw new IllegalArgumentException(type + " - invalid activity type");
+        }
+        if (size == numbers.length) {
+            grow();
+        }
+        numbers[size] = number;
+        epochDays[size] = epochDay;
+        locations[size] = (byte) location.ordinal();
+        types[size] = (byte) type;
+        amounts[size] = amount;
+        size++;
+    }
+
+    /**
+     * Returns the number of transactions in the batch.
+     *
+     * @return the number of transactions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the batch has no transactions.
+     *
+     * @return true if the batch is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every transaction, keeping the capacity so the batch can be filled again.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the packed account number of a transaction.
+     *
+     * @param index the position of the transaction in the batch
+     * @return the packed account number
+     */
+    public int getNumber(int index) {
+        return numbers[index];
+    }
+
+    /**
+     * Returns the date of a transaction.
+     *
+     * @param index the position of the transaction in the batch
+     * @return the date as the number of days from 1/1/1970
+     */
+    public int getEpochDay(int index) {
+        return epochDays[index];
+    }
+
+    /**
+     * Returns the branch where a transaction took place.
+     *
+     * @param index the position of the transaction in the batch
+     * @return the Branch of the transaction
+     */
+    public Branch getLocation(int index) {
+        return BRANCHES[locations[index]];
+    }
+
+    /**
+     * Returns the type of a transaction.
+     *
+     * @param index the position of the transaction in the batch
+     * @return 'D' for deposit or 'W' for withdrawal
+     */
+    public char getType(int index) {
+        return (char) types[index];
+    }
+
+    /**
+     * Returns the amount of a transaction.
+     *
+     * @param index the position of the transaction in the batch
+     * @return the amount of money, in cents
+     */
+    public long getAmount(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Grows every column by half of the current capacity.
+     */
+    private void grow() {
+        int newCapacity = Math.max(numbers.length + (numbers.length >> 1), DEFAULT_CAPACITY);
+        numbers = Arrays.copyOf(numbers, newCapacity);
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        locations = Arrays.copyOf(locations, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        amounts = Arrays.copyOf(amounts, newCapacity);
+    }
+}
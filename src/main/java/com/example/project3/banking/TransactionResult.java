@@ -0,0 +1,112 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.List;
+
+/**
+ * The TransactionResult class holds the outcome of a request made to a TransactionService: its status,
+ * the account it concerns, the balance of that account once the request was carried out, and the messages
+ * to show to the teller, one line each.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class TransactionResult {
+
+    /**
+     * Balance of a result that does not concern one account, or whose account was not found.
+     */
+    public static final long NO_BALANCE = -1;
+
+    /**
+     * How the request ended.
+     */
+    private final TransactionStatus status;
+
+    /**
+     * The account the request concerns, or null if it concerns no single account.
+     */
+    private final AccountNumber number;
+
+    /**
+     * Balance of the account once the request was carried out, in cents, or NO_BALANCE.
+     */
+    private final long balance;
+
+    /**
+     * Messages to show to the teller, one line each, without line breaks.
+     */
+    private final List<String> messages;
+
+    /**
+     * Creates a TransactionResult.
+     *
+     * @param status   how the request ended
+     * @param number   the account the request concerns, or null
+     * @param balance  the balance of the account once the request was carried out, in cents, or NO_BALANCE
+     * @param messages the messages to show to the teller, one line each
+     */
+    TransactionResult(TransactionStatus status, AccountNumber number, long balance, List<String> messages) {
+        this.status = status;
+        this.number = number;
+        this.balance = balance;
+        this.messages = messages;
+    }
+
+    /**
+     * Returns how the request ended.
+     *
+     * @return the status of the request
+     */
+    public TransactionStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns whether the request was carried out.
+     *
+     * @return true if the status is COMPLETED
+     */
+    public boolean isCompleted() {
+        return status == TransactionStatus.COMPLETED;
+    }
+
+    /**
+     * Returns the account the request concerns.
+     *
+     * @return the AccountNumber, or null if the request concerns no single account
+     */
+    public AccountNumber getAccountNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the balance of the account once the request was carried out.
+     *
+     * @return the balance in cents, or NO_BALANCE if the request concerns no single account
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Returns the messages to show to the teller.
+     *
+     * @return the messages, one line each, without line breaks
+     */
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Converts the TransactionResult to a string that can be printed.
+     *
+     * @return the status followed by the messages, one per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(status.toString());
+        for (String message : messages) {
+            text.append('\n').append(message);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,454 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.Date;
+import com.example.project3.util.List;
+import com.example.project3.util.Money;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * The TransactionService class carries out the requests of tellers on an AccountDatabase without any user interface:
+ * opening and closing accounts, deposits and withdrawals. It applies the rules of the bank, such as the minimum
+ * balances and the ages of holders, and answers each request with a TransactionResult holding the same messages
+ * the tellers have always been shown.
+ * <p>
+ * Each request returns at once with a result that is completed when the request is done, so a caller such as the
+ * JavaFX thread never waits for the database. With a ConcurrentAccountDatabase, each request runs on its own virtual
+ * thread, so one service can have tens of thousands of requests in flight: deposits and withdrawals run in parallel,
+ * and requests that open or close accounts hold the exclusive lock of the database, so that checking for a duplicate
+ * account and adding the account happen together. Any other AccountDatabase is not safe to share, so the service
+ * queues its requests and runs them one at a time on a single thread, without any lock.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class TransactionService implements AutoCloseable {
+
+    /**
+     * Minimum balance of a Money Market account, in cents.
+     */
+    private static final long MONEY_MARKET_MINIMUM = 200_000; //$2,000.00 in cents
+
+    /**
+     * Minimum balance to open a Certificate of Deposit, in cents.
+     */
+    private static final long CD_MINIMUM = 100_000; //$1,000.00 in cents
+
+    /**
+     * Represents ten percent in basis points, the share of the interest charged as a penalty
+     * when a Certificate of Deposit is closed before it matures.
+     */
+    private static final int TEN_PERCENT = 1_000;
+
+    /**
+     * Amount of days in one year is 365.
+     */
+    private static final int DAYS_IN_YEAR = 365;
+
+    /**
+     * Denominator that turns a yearly interest rate in basis points into a daily fraction of the balance.
+     */
+    private static final long DAILY_RATE_DENOMINATOR = (long) Money.BASIS_POINTS * DAYS_IN_YEAR;
+
+    /**
+     * The database the requests are carried out on.
+     */
+    private final AccountDatabase database;
+
+    /**
+     * Runs every request on a new virtual thread if the database can be shared by several threads,
+     * and one request at a time on a single thread otherwise.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a TransactionService that carries out requests on the given database.
+     *
+     * @param database the database the requests are carried out on
+     */
+    public TransactionService(AccountDatabase database) {
+        this.database = database;
+        this.executor = database.exclusiveLock() != null ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newSingleThreadExecutor(Thread.ofVirtual().name("transactions").factory());
+    }
+
+    /**
+     * Checks the holder of an account to be opened: the branch and date of birth must be given,
+     * the holder must be 18 or older, no older than 24 for a College Checking account, and must have a name.
+     *
+     * @param accountType the type of account to be opened
+     * @param branch      the branch the account is opened at, or null if none was chosen
+     * @param firstName   the first name of the holder
+     * @param lastName    the last name of the holder
+     * @param dateOfBirth the date of birth of the holder, or null if none was given
+     * @return the message explaining why the account cannot be opened, or null if the holder is valid
+     */
+    public static String checkHolder(AccountType accountType, Branch branch, String firstName, String lastName,
+                                     Date dateOfBirth) {
+        if (branch == null) {
+            return "Select Branch";
+        }
+        if (dateOfBirth == null) {
+            return "Date input Invalid";
+        }
+        if (dateOfBirth.isAfterToday()) {
+            return "DOB invalid: " + dateOfBirth + " cannot be today or a future day.";
+        } else if (!dateOfBirth.isEighteen()) {
+            return "Not eligible to open: " + dateOfBirth + " under 18.";
+        } else if (accountType == AccountType.COLLEGE_CHECKING && !dateOfBirth.isOverTwentyFour()) {
+            return "Not eligible to open: " + dateOfBirth + " over 24.";
+        }
+        if (firstName == null || lastName == null || firstName.isEmpty() || lastName.isEmpty()) {
+            return "Name invalid";
+        }
+        return null;
+    }
+
+    /**
+     * Checks the amount of a deposit, which must be positive.
+     *
+     * @param amount the amount deposited, in cents
+     * @return the message explaining why the amount is refused, or null if the amount is valid
+     */
+    public static String checkDeposit(long amount) {
+        return amount <= 0 ? Money.format(amount) + " - deposit amount cannot be 0 or negative." : null;
+    }
+
+    /**
+     * Checks the amount of a withdrawal, which must be positive.
+     *
+     * @param amount the amount withdrawn, in cents
+     * @return the message explaining why the amount is refused, or null if the amount is valid
+     */
+    public static String checkWithdrawal(long amount) {
+        return amount <= 0 ? Money.format(amount) + " withdrawal amount cannot be 0 or negative." : null;
+    }
+
+    /**
+     * Checks the opening balance of an account: it must be positive, and at least the minimum of a
+     * Money Market account or a Certificate of Deposit.
+     *
+     * @param balance     the opening balance, in cents
+     * @param accountType the type of account to be opened
+     * @return the message explaining why the balance is refused, or null if the balance is valid
+     */
+    private static String checkBalance(long balance, AccountType accountType) {
+        if (balance <= 0) { //balance must be more than 0
+            return "Initial deposit cannot be 0 or negative.";
+        } else if (balance < MONEY_MARKET_MINIMUM && accountType == AccountType.MONEY_MARKET) {
+            return "Minimum of $2,000 to open a Money Market account.";
+        } else if (balance < CD_MINIMUM && accountType == AccountType.CD) {
+            return "Minimum of $1,000 to open a Certificate Deposit account.";
+        }
+        return null;
+    }
+
+    /**
+     * Opens an account, unless the holder already has an account of the same type, other than a Certificate of Deposit.
+     * A Savings or Money Market account is loyal if the holder already has a Checking account.
+     *
+     * @param firstName   the first name of the holder
+     * @param lastName    the last name of the holder
+     * @param dateOfBirth the date of birth of the holder
+     * @param accountType the type of account to open
+     * @param branch      the branch the account is opened at
+     * @param balance     the opening balance, in cents
+     * @param campus      the campus of a College Checking account, ignored for other types
+     * @param term        the term in months of a Certificate of Deposit, ignored for other types
+     * @param openDate    the date a Certificate of Deposit is opened, ignored for other types
+     * @return the result of the request, completed once it is carried out
+     */
+    public CompletableFuture<TransactionResult> openAccount(String firstName, String lastName, Date dateOfBirth,
+                                                            AccountType accountType, Branch branch, long balance,
+                                                            Campus campus, int term, Date openDate) {
+        return submitChange(() -> {
+            String invalid = checkHolder(accountType, branch, firstName, lastName, dateOfBirth);
+            if (invalid != null) {
+                return result(TransactionStatus.INVALID, null, TransactionResult.NO_BALANCE, invalid);
+            }
+            if (accountType != AccountType.CD && database.contains(firstName, lastName, dateOfBirth, accountType)) {
+                return result(TransactionStatus.DUPLICATE, null, TransactionResult.NO_BALANCE,
+                        firstName + " " + lastName + " already has a " + accountType + " account.");
+            }
+            invalid = checkBalance(balance, accountType);
+            if (invalid != null) {
+                return result(TransactionStatus.INVALID, null, TransactionResult.NO_BALANCE, invalid);
+            }
+            Profile holder = new Profile(firstName, lastName, dateOfBirth);
+            Account account = switch (accountType) {
+                case CHECKING -> new Checking(branch, AccountType.CHECKING, holder, balance);
+                case SAVINGS -> new Savings(branch, AccountType.SAVINGS, holder, balance,
+                        database.contains(holder, AccountType.CHECKING));
+                case MONEY_MARKET -> new MoneyMarket(branch, AccountType.MONEY_MARKET, holder, balance,
+                        database.contains(holder, AccountType.CHECKING));
+                case COLLEGE_CHECKING -> new CollegeChecking(branch, AccountType.COLLEGE_CHECKING, holder, campus, balance);
+                case CD -> new CertificateDeposit(branch, AccountType.CD, holder, term, openDate, balance);
+            };
+            database.applyAdd(account);
+            AccountNumber number = account.getAccountNumber();
+            return result(TransactionStatus.COMPLETED, number, balance,
+                    number.getType() + " account " + number + " has been opened.");
+        });
+    }
+
+    /**
+     * Deposits money into an account.
+     *
+     * @param number the AccountNumber of the account
+     * @param amount the amount deposited, in cents
+     * @return the result of the request, completed once it is carried out
+     */
+    public CompletableFuture<TransactionResult> deposit(AccountNumber number, long amount) {
+        return submit(() -> {
+            String invalid = checkDeposit(amount);
+            if (invalid != null) {
+                return result(TransactionStatus.INVALID, number, TransactionResult.NO_BALANCE, invalid);
+            }
+            if (!database.contains(number)) {
+                return notFound(number);
+            }
+            database.deposit(number, amount);
+            long balance = balance(number);
+            if (balance == TransactionResult.NO_BALANCE) { //closed by another request in between
+                return notFound(number);
+            }
+            return result(TransactionStatus.COMPLETED, number, balance,
+                    "$" + Money.format(amount) + " deposited to " + number);
+        });
+    }
+
+    /**
+     * Withdraws money from an account if its balance covers the amount.
+     * The message warns when a Money Market account is left below its minimum balance.
+     *
+     * @param number the AccountNumber of the account
+     * @param amount the amount withdrawn, in cents
+     * @return the result of the request, completed once it is carried out
+     */
+    public CompletableFuture<TransactionResult> withdraw(AccountNumber number, long amount) {
+        return submit(() -> {
+            String invalid = checkWithdrawal(amount);
+            if (invalid != null) {
+                return result(TransactionStatus.INVALID, number, TransactionResult.NO_BALANCE, invalid);
+            }
+            if (!database.contains(number)) {
+                return notFound(number);
+            }
+            boolean withdrawn = database.withdraw(number, amount);
+            long balance = balance(number);
+            if (balance == TransactionResult.NO_BALANCE) { //closed by another request in between
+                return notFound(number);
+            }
+            boolean moneyMarket = number.getType() == AccountType.MONEY_MARKET;
+            String formatted = Money.format(amount);
+            if (withdrawn) {
+                return result(TransactionStatus.COMPLETED, number, balance, moneyMarket && balance < MONEY_MARKET_MINIMUM
+                        ? number + " balance below $2,000 - $" + formatted + " withdrawn from " + number
+                        : "$" + formatted + " withdrawn from " + number);
+            }
+            return result(TransactionStatus.INSUFFICIENT_FUNDS, number, balance, moneyMarket
+                    ? number + " balance below $2,000 - withdrawing $" + formatted + " - insufficient funds."
+                    : "$" + formatted + " - insufficient funds.");
+        });
+    }
+
+    /**
+     * Closes an account, moves it to the archive, and reports the interest it earned.
+     *
+     * @param number    the AccountNumber of the account
+     * @param closeDate the date the account is closed
+     * @return the result of the request, completed once it is carried out
+     */
+    public CompletableFuture<TransactionResult> closeAccount(AccountNumber number, Date closeDate) {
+        return submitChange(() -> {
+            if (closeDate == null) {
+                return result(TransactionStatus.INVALID, number, TransactionResult.NO_BALANCE, "Date input Invalid");
+            }
+            int index = database.find(number);
+            if (index == -1) {
+                return result(TransactionStatus.NOT_FOUND, number, TransactionResult.NO_BALANCE,
+                        number + " account does not exist.");
+            }
+            Account account = database.get(index);
+            List<String> messages = new List<>();
+            messages.add("Closing account " + number);
+            addInterest(account, closeDate, "--", messages);
+            long balance = account.getBalance();
+            database.applyClose(account, closeDate);
+            return new TransactionResult(TransactionStatus.COMPLETED, number, balance, messages);
+        });
+    }
+
+    /**
+     * Closes every account of a holder, moves them to the archive, and reports the interest each one earned.
+     *
+     * @param firstName   the first name of the holder
+     * @param lastName    the last name of the holder
+     * @param dateOfBirth the date of birth of the holder
+     * @param closeDate   the date the accounts are closed
+     * @return the result of the request, completed once it is carried out
+     */
+    public CompletableFuture<TransactionResult> closeAccounts(String firstName, String lastName, Date dateOfBirth,
+                                                              Date closeDate) {
+        return submitChange(() -> {
+            if (firstName == null || lastName == null || firstName.isEmpty() || lastName.isEmpty()) {
+                return result(TransactionStatus.INVALID, null, TransactionResult.NO_BALANCE, "Name Invalid");
+            }
+            if (dateOfBirth == null || closeDate == null) {
+                return result(TransactionStatus.INVALID, null, TransactionResult.NO_BALANCE, "Date input Invalid");
+            }
+            Profile holder = new Profile(firstName, lastName, dateOfBirth);
+            String name = firstName + " " + lastName + " " + dateOfBirth;
+            List<Account> accounts = database.findAll(holder);
+            if (accounts.isEmpty()) {
+                return result(TransactionStatus.NOT_FOUND, null, TransactionResult.NO_BALANCE,
+                        name + " does not have any accounts in the database.");
+            }
+            List<String> messages = new List<>();
+            messages.add("Closing accounts for " + name);
+            for (Account account : accounts) {
+                addInterest(account, closeDate, "--" + account.getAccountNumber() + " ", messages);
+            }
+            database.applyCloseAll(holder, closeDate);
+            messages.add("All accounts for " + name + " are closed and moved to archive.");
+            return new TransactionResult(TransactionStatus.COMPLETED, null, TransactionResult.NO_BALANCE, messages);
+        });
+    }
+
+    /**
+     * Waits for the requests in flight to finish and stops accepting new ones.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Runs a request on the executor.
+     *
+     * @param request carries out the request
+     * @return the result of the request, completed once it is carried out
+     */
+    private CompletableFuture<TransactionResult> submit(Supplier<TransactionResult> request) {
+        return CompletableFuture.supplyAsync(request, executor);
+    }
+
+    /**
+     * Runs a request that opens or closes accounts on the executor while holding the exclusive lock of the database.
+     * The changes are recorded in the Journal under the lock, but the request waits for them to be durable only once
+     * the lock is released, so requests waiting for the same group commit do not hold the lock for each other.
+     *
+     * @param request carries out the request, applying its changes without waiting for the Journal
+     * @return the result of the request, completed once its changes are durable
+     */
+    private CompletableFuture<TransactionResult> submitChange(Supplier<TransactionResult> request) {
+        Lock exclusive = database.exclusiveLock();
+        return CompletableFuture.supplyAsync(() -> {
+            TransactionResult result;
+            if (exclusive != null) {
+                exclusive.lock();
+            }
+            try {
+                result = request.get();
+            } finally {
+                if (exclusive != null) {
+                    exclusive.unlock();
+                }
+            }
+            Journal journal = database.getJournal();
+            if (journal != null && result.getStatus() == TransactionStatus.COMPLETED) {
+                journal.awaitDurable();
+            }
+            return result;
+        }, executor);
+    }
+
+    /**
+     * Returns the current balance of an account.
+     *
+     * @param number the AccountNumber of the account
+     * @return the balance in cents, or NO_BALANCE if the account is not in the database
+     */
+    private long balance(AccountNumber number) {
+        if (database instanceof ConcurrentAccountDatabase concurrent) {
+            Long balance = concurrent.read(number, Account::getBalance);
+            return balance == null ? TransactionResult.NO_BALANCE : balance;
+        }
+        int index = database.find(number);
+        return index == -1 ? TransactionResult.NO_BALANCE : database.get(index).getBalance();
+    }
+
+    /**
+     * Adds the interest earned by an Account up to its closing date to the messages,
+     * with the penalty of a Certificate of Deposit closed before it matures.
+     *
+     * @param account   the Account being closed
+     * @param closeDate the date the Account is closed
+     * @param prefix    the text put before the interest
+     * @param messages  the messages the interest is added to
+     */
+    private static void addInterest(Account account, Date closeDate, String prefix, List<String> messages) {
+        StringBuilder text = new StringBuilder(prefix).append("interest earned: $");
+        if (account.getType() == AccountType.CD) {
+            CertificateDeposit cd = (CertificateDeposit) account;
+            Date openDate = cd.getOpen();
+            int daysHeld = closeDate.daysFrom(openDate);
+            if (closeDate.isAfter(openDate.addMonths(cd.getTerm()))) {
+                Money.format(interest(account, account.interestRate(), daysHeld, Money.BASIS_POINTS), text);
+                messages.add(text.toString());
+            } else {
+                int interestRate = cd.interestRate(closeDate);
+                Money.format(interest(account, interestRate, daysHeld, Money.BASIS_POINTS), text);
+                messages.add(text.toString());
+                messages.add(Money.format(interest(account, interestRate, daysHeld, TEN_PERCENT),
+                        new StringBuilder("  [penalty] $")).toString());
+            }
+        } else {
+            Money.format(interest(account, account.interestRate(), closeDate.getDay(), Money.BASIS_POINTS), text);
+            messages.add(text.toString());
+        }
+    }
+
+    /**
+     * Calculates a share of the interest earned by an Account over a number of days, rounded to the nearest cent.
+     * The share is applied before rounding, so a penalty is a share of the exact interest.
+     *
+     * @param account      the Account earning interest
+     * @param interestRate the yearly interest rate in basis points
+     * @param days         the number of days the interest is earned for
+     * @param share        the share of the interest in basis points, Money.BASIS_POINTS for all of it
+     * @return the interest in cents
+     */
+    private static long interest(Account account, int interestRate, int days, int share) {
+        long numerator = (long) interestRate * days * share;
+        return Money.scale(account.getBalance(), numerator, DAILY_RATE_DENOMINATOR * Money.BASIS_POINTS);
+    }
+
+    /**
+     * Creates the result of a request that has one message.
+     *
+     * @param status  how the request ended
+     * @param number  the account the request concerns, or null
+     * @param balance the balance of the account, in cents, or NO_BALANCE
+     * @param message the message to show to the teller
+     * @return the result
+     */
+    private static TransactionResult result(TransactionStatus status, AccountNumber number, long balance, String message) {
+        List<String> messages = new List<>();
+        messages.add(message);
+        return new TransactionResult(status, number, balance, messages);
+    }
+
+    /**
+     * Creates the result of a deposit or withdrawal to an account that is not in the database.
+     *
+     * @param number the AccountNumber of the account
+     * @return the result
+     */
+    private static TransactionResult notFound(AccountNumber number) {
+        return result(TransactionStatus.NOT_FOUND, number, TransactionResult.NO_BALANCE, number + " does not exist.");
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.project3.banking;
+
+/**
+ * The TransactionStatus enum tells how a request made to a TransactionService ended.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public enum TransactionStatus {
+
+    /**
+     * The request was carried out.
+     */
+    COMPLETED,
+
+    /**
+     * The request was refused because one of its values breaks a rule, such as a negative amount or an underage holder.
+     */
+    INVALID,
+
+    /**
+     * The request names an account or a holder that is not in the database.
+     */
+    NOT_FOUND,
+
+    /**
+     * The request would open a second account of the same type for the same holder.
+     */
+    DUPLICATE,
+
+    /**
+     * The withdrawal is more than the balance of the account.
+     */
+    INSUFFICIENT_FUNDS
+}
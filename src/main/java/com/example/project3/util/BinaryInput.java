@@ -0,0 +1,192 @@
+package com.example.project3.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads numbers, Strings, and whole arrays of numbers written by a BinaryOutput from a channel
+ * through one large direct buffer. The buffer is refilled from the channel only when it runs out,
+ * and arrays are copied out of the buffer in bulk.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class BinaryInput {
+
+    /**
+     * The channel the bytes are read from.
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Bytes read from the channel but not yet returned.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a BinaryInput that reads from a channel through a buffer of the given size.
+     *
+     * @param channel    the channel the bytes are read from
+     * @param bufferSize the size of the buffer in bytes, at least 8
+     * @throws IllegalArgumentException if the buffer size is less than 8
+     */
+    public BinaryInput(ReadableByteChannel channel, int bufferSize) {
+        if (bufferSize < Long.BYTES) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.flip(); //starts empty
+    }
+
+    /**
+     * Reads one byte.
+     *
+     * @return the byte read
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public byte readByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    /**
+     * Reads a boolean written as one byte.
+     *
+     * @return true if the byte is not 0, false otherwise
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads an int written as four bytes.
+     *
+     * @return the int read
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long written as eight bytes.
+     *
+     * @return the long read
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public long readLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a String written as the number of bytes of its UTF-8 encoding followed by those bytes.
+     *
+     * @return the String read
+     * @throws IOException if the channel cannot be read or has ended, or the length is negative
+     */
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        readBytes(bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads bytes into part of an array.
+     *
+     * @param values the array
+     * @param offset the position of the first byte to be read
+     * @param length the number of bytes to be read
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public void readBytes(byte[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            require(Byte.BYTES);
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(values, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Reads booleans written as one byte each into part of an array.
+     *
+     * @param values the array
+     * @param offset the position of the first boolean to be read
+     * @param length the number of booleans to be read
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public void readBooleans(boolean[] values, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readBoolean();
+        }
+    }
+
+    /**
+     * Reads ints written as four bytes each into part of an array.
+     *
+     * @param values the array
+     * @param offset the position of the first int to be read
+     * @param length the number of ints to be read
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public void readInts(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            require(Integer.BYTES);
+            int count = Math.min(length, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(values, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Reads longs written as eight bytes each into part of an array.
+     *
+     * @param values the array
+     * @param offset the position of the first long to be read
+     * @param length the number of longs to be read
+     * @throws IOException if the channel cannot be read or has ended
+     */
+    public void readLongs(long[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            require(Long.BYTES);
+            int count = Math.min(length, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().get(values, offset, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of bytes, reading more from the channel if needed.
+     *
+     * @param bytes the number of bytes about to be read
+     * @throws IOException if the channel cannot be read, or ends before that many bytes are available
+     */
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                throw new EOFException("Unexpected end of input");
+            }
+        }
+        buffer.flip();
+    }
+}
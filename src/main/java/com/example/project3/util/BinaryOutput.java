@@ -0,0 +1,194 @@
+package com.example.project3.util;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes numbers, Strings, and whole arrays of numbers to a channel through one large direct buffer.
+ * Values are written big-endian, and the buffer is written to the channel only when it is full or flushed,
+ * so writing many small values costs few system calls. Arrays are copied into the buffer in bulk.
+ * The matching BinaryInput reads the values back in the same order.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class BinaryOutput implements Flushable {
+
+    /**
+     * The channel the bytes are written to.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Bytes written but not yet sent to the channel.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a BinaryOutput that writes to a channel through a buffer of the given size.
+     *
+     * @param channel    the channel the bytes are written to
+     * @param bufferSize the size of the buffer in bytes, at least 8
+     * @throws IllegalArgumentException if the buffer size is less than 8
+     */
+    public BinaryOutput(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < Long.BYTES) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Writes one byte.
+     *
+     * @param value the byte to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeByte(int value) throws IOException {
+        require(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a boolean as one byte, 1 for true and 0 for false.
+     *
+     * @param value the boolean to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes an int as four bytes.
+     *
+     * @param value the int to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeInt(int value) throws IOException {
+        require(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long as eight bytes.
+     *
+     * @param value the long to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeLong(long value) throws IOException {
+        require(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a String as the number of bytes of its UTF-8 encoding followed by those bytes.
+     *
+     * @param value the String to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes part of an array of bytes.
+     *
+     * @param values the array
+     * @param offset the position of the first byte to be written
+     * @param length the number of bytes to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeBytes(byte[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            require(Byte.BYTES);
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(values, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes part of an array of booleans, one byte each.
+     *
+     * @param values the array
+     * @param offset the position of the first boolean to be written
+     * @param length the number of booleans to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeBooleans(boolean[] values, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            writeBoolean(values[i]);
+        }
+    }
+
+    /**
+     * Writes part of an array of ints, four bytes each.
+     *
+     * @param values the array
+     * @param offset the position of the first int to be written
+     * @param length the number of ints to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeInts(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            require(Integer.BYTES);
+            int count = Math.min(length, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes part of an array of longs, eight bytes each.
+     *
+     * @param values the array
+     * @param offset the position of the first long to be written
+     * @param length the number of longs to be written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeLongs(long[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            require(Long.BYTES);
+            int count = Math.min(length, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Sends every buffered byte to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Makes room in the buffer for the given number of bytes, flushing it if needed.
+     *
+     * @param bytes the number of bytes about to be written
+     * @throws IOException if the channel cannot be written
+     */
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
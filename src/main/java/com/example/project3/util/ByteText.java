@@ -0,0 +1,143 @@
+package com.example.project3.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read-only view of the bytes of a ByteBuffer as a sequence of characters, one character per byte.
+ * It lets text stored in a file, such as a memory-mapped file, be scanned and parsed in place
+ * without first being decoded into Strings. Bytes are read as ISO-8859-1, which is exact for ASCII text;
+ * toString(start, end) decodes a range as UTF-8 for text such as names that must become Strings.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ByteText implements CharSequence {
+
+    /**
+     * The bytes being viewed.
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Position in the buffer of the first byte of the view.
+     */
+    private final int offset;
+
+    /**
+     * Number of bytes in the view.
+     */
+    private final int length;
+
+    /**
+     * Creates a view of all the bytes of a buffer from index 0 to its limit.
+     *
+     * @param bytes the bytes being viewed
+     */
+    public ByteText(ByteBuffer bytes) {
+        this(bytes, 0, bytes.limit());
+    }
+
+    /**
+     * Creates a view of part of a buffer.
+     *
+     * @param bytes  the bytes being viewed
+     * @param offset the position in the buffer of the first byte of the view
+     * @param length the number of bytes in the view
+     */
+    private ByteText(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the number of characters in the view.
+     *
+     * @return the number of bytes viewed
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the character at the given position.
+     *
+     * @param index the position of the character
+     * @return the byte at that position as a character from 0 to 255
+     */
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    /**
+     * Returns a view of part of this view, sharing the same bytes.
+     *
+     * @param start the position of the first character
+     * @param end   the position after the last character
+     * @return the view of the characters from start to end
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new ByteText(bytes, offset + start, end - start);
+    }
+
+    /**
+     * Decodes part of the view as UTF-8.
+     *
+     * @param start the position of the first byte
+     * @param end   the position after the last byte
+     * @return the decoded String
+     */
+    public String toString(int start, int end) {
+        byte[] copy = new byte[end - start];
+        bytes.get(offset + start, copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks if part of the view is the same as a String, ignoring the case of ASCII letters.
+     *
+     * @param start the position of the first byte
+     * @param end   the position after the last byte
+     * @param other the String being compared with
+     * @return true if the characters from start to end match the String, false otherwise
+     */
+    public boolean equalsIgnoreCase(int start, int end, String other) {
+        if (end - start != other.length()) {
+            return false;
+        }
+        for (int i = 0; i < other.length(); i++) {
+            char a = charAt(start + i);
+            char b = other.charAt(i);
+            if (a != b && toLowerAscii(a) != toLowerAscii(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the whole view as UTF-8.
+     *
+     * @return the decoded String
+     */
+    @Override
+    public String toString() {
+        return toString(0, length);
+    }
+
+    /**
+     * Converts an ASCII upper case letter to lower case, leaving other characters unchanged.
+     *
+     * @param c the character being converted
+     * @return the lower case character
+     */
+    private static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.project3.util;
 
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * The Date enum class has the information to provide the day, month, and year of a transaction.
@@ -8,6 +9,10 @@ import java.util.Calendar;
  * April, June, September, and November each has 30 days;
  * February has 28 days in a non-leap year, and 29 days in a leap year;
  * Quadrennial is 4 years, centennial is 100 years, and quarter centennial is 400 years.
+ * Besides its day, month, and year, a Date stores the number of days from 1/1/1970 (its epoch day),
+ * so comparing Dates and counting the days between them is a subtraction. Dates are immutable.
+ * Dates from 1900 to 2100 obtained through valueOf, parse, ofEpochDay, or addMonths are canonical:
+ * there is only one such Date object for each day, so equal Dates can be compared with ==.
  *
  * @author Vishal Saravanan, Yining Chen
  */
@@ -16,17 +21,22 @@ public class Date implements Comparable<Date> {
     /**
      * Year of the date.
      */
-    private int year;
+    private final int year;
 
     /**
      * Month of the date.
      */
-    private int month;
+    private final int month;
 
     /**
      * Day of the date.
      */
-    private int day;
+    private final int day;
+
+    /**
+     * Number of days from 1/1/1970 to the date, negative for earlier dates.
+     */
+    private final int epochDay;
 
     /**
      * Calendar months are 0-based, so an offset of 1 is needed.
@@ -78,8 +88,75 @@ public class Date implements Comparable<Date> {
      */
     public static final int DAYS_IN_FEBRUARY_LEAP = 29;
 
+    /**
+     * Number of months in one year.
+     */
+    private static final int MONTHS_IN_YEAR = 12;
+
+    /**
+     * Number of days in a year that is not a leap year.
+     */
+    private static final int DAYS_IN_YEAR = 365;
+
+    /**
+     * Number of days in each month of a year that is not a leap year, indexed from 0 for January.
+     */
+    private static final int[] DAYS_IN_MONTH = {
+            DAYS_IN_LONG_MONTH, DAYS_IN_FEBRUARY_NORMAL, DAYS_IN_LONG_MONTH, DAYS_IN_SHORT_MONTH,
+            DAYS_IN_LONG_MONTH, DAYS_IN_SHORT_MONTH, DAYS_IN_LONG_MONTH, DAYS_IN_LONG_MONTH,
+            DAYS_IN_SHORT_MONTH, DAYS_IN_LONG_MONTH, DAYS_IN_SHORT_MONTH, DAYS_IN_LONG_MONTH
+    };
+
+    /**
+     * Number of days in a year that is not a leap year before the first day of each month, indexed from 0 for January.
+     */
+    private static final int[] DAYS_BEFORE_MONTH = daysBeforeMonth();
+
+    /**
+     * Number of days in a 400-year cycle of the Gregorian calendar.
+     */
+    private static final int DAYS_PER_ERA = 146097;
+
+    /**
+     * Number of days from 3/1/0000 to 1/1/1970.
+     */
+    private static final int EPOCH_OFFSET = 719468;
+
+    /**
+     * Number of days from 1/1/0001 to 1/1/1970.
+     */
+    private static final int DAYS_BEFORE_EPOCH = daysBeforeYear(1970);
+
+    /**
+     * First year whose Dates are kept in the cache of canonical Dates.
+     */
+    private static final int CACHE_FIRST_YEAR = 1900;
+
+    /**
+     * Last year whose Dates are kept in the cache of canonical Dates.
+     */
+    private static final int CACHE_LAST_YEAR = 2100;
+
+    /**
+     * Epoch day of the first day kept in the cache of canonical Dates.
+     */
+    private static final int CACHE_FIRST_DAY = daysBeforeYear(CACHE_FIRST_YEAR) - DAYS_BEFORE_EPOCH;
+
+    /**
+     * Canonical Dates from 1900 to 2100, indexed by the number of days from 1/1/1900, created when first requested.
+     */
+    private static final AtomicReferenceArray<Date> CACHE =
+            new AtomicReferenceArray<>(daysBeforeYear(CACHE_LAST_YEAR + 1) - daysBeforeYear(CACHE_FIRST_YEAR));
+
+    /**
+     * Largest number of digits accepted for the month, day, or year of a parsed date.
+     */
+    private static final int MAX_FIELD_DIGITS = 9;
+
     /**
      * Creates a Date object.
+     * A day or month outside the usual range rolls over into the following or previous months,
+     * for example 2/30/2023 is the same day as 3/2/2023.
      *
      * @param year  time period in #### format
      * @param month time period in ## format
@@ -89,18 +166,117 @@ public class Date implements Comparable<Date> {
         this.month = month;
         this.day = day;
         this.year = year;
+        this.epochDay = epochDay(month, day, year);
     }
 
     /**
      * Creates a Date object initialized with the current date.
-     * This constructor retrieves the current date using the `Calendar` class.
+     * This constructor retrieves the current date in the default time zone.
      */
     public Date() {
-        Calendar today = Calendar.getInstance();
-        this.year = today.get(Calendar.YEAR);
-        // Calendar months are 0-based, so add MONTH_OFFSET (which is 1) to adjust.
-        this.month = today.get(Calendar.MONTH) + MONTH_OFFSET;
-        this.day = today.get(Calendar.DAY_OF_MONTH);
+        this(LocalDate.now());
+    }
+
+    /**
+     * Creates a Date object with the same day, month, and year as a LocalDate.
+     *
+     * @param date the LocalDate being copied
+     */
+    private Date(LocalDate date) {
+        this.year = date.getYear();
+        this.month = date.getMonthValue();
+        this.day = date.getDayOfMonth();
+        this.epochDay = (int) date.toEpochDay();
+    }
+
+    /**
+     * Returns the Date with the given day, month, and year.
+     * Dates from 1900 to 2100 are returned from a cache, so the same object is returned for the same day;
+     * other dates, and days or months outside the usual range, are created as new Date objects.
+     *
+     * @param month time period in ## format
+     * @param day   time period in ## format
+     * @param year  time period in #### format
+     * @return the Date of that day
+     */
+    public static Date valueOf(int month, int day, int year) {
+        if (year < CACHE_FIRST_YEAR || year > CACHE_LAST_YEAR || month < 1 || month > MONTHS_IN_YEAR
+                || day < 1 || day > daysInMonth(month, year)) {
+            return new Date(month, day, year);
+        }
+        int slot = epochDay(month, day, year) - CACHE_FIRST_DAY;
+        Date cached = CACHE.get(slot);
+        if (cached == null) {
+            Date created = new Date(month, day, year);
+            cached = CACHE.compareAndExchange(slot, null, created); //another thread may have stored one first
+            if (cached == null) {
+                cached = created;
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Reads a date written as month/day/year, such as "3/14/2024" or "03/14/2024".
+     *
+     * @param text the characters of the date
+     * @return the Date of that day, canonical for years 1900 to 2100
+     * @throws NumberFormatException if the text is not three numbers separated by '/'
+     */
+    public static Date parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Reads a date written as month/day/year from part of a sequence of characters, without copying the characters.
+     *
+     * @param text  the characters containing the date
+     * @param start the position of the first character of the date
+     * @param end   the position after the last character of the date
+     * @return the Date of that day, canonical for years 1900 to 2100
+     * @throws NumberFormatException if the characters are not three numbers separated by '/'
+     */
+    public static Date parse(CharSequence text, int start, int end) {
+        int month = 0;
+        int day = 0;
+        int year = 0;
+        int field = 0; //0 while reading the month, 1 for the day, 2 for the year
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '/' && field < 2 && digits > 0) {
+                field++;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < MAX_FIELD_DIGITS) {
+                int digit = c - '0';
+                if (field == 0) {
+                    month = month * 10 + digit;
+                } else if (field == 1) {
+                    day = day * 10 + digit;
+                } else {
+                    year = year * 10 + digit;
+                }
+                digits++;
+            } else {
+                throw invalidDate(text, start, end);
+            }
+        }
+        if (field != 2 || digits == 0) {
+            throw invalidDate(text, start, end);
+        }
+        return valueOf(month, day, year);
+    }
+
+    /**
+     * Creates the exception thrown when characters are not a valid date.
+     *
+     * @param text  the characters containing the date
+     * @param start the position of the first character of the date
+     * @param end   the position after the last character of the date
+     * @return the exception to be thrown
+     */
+    private static NumberFormatException invalidDate(CharSequence text, int start, int end) {
+        return new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
     }
 
     /**
@@ -132,83 +308,62 @@ public class Date implements Comparable<Date> {
 
     /**
      * Checks if the Account holder is 18 years or older.
-     * Uses the Calendar library to import the actual date for calculations.
-     * Note: Month is 0-based in Calendar.
+     * The date must be strictly before the same day 18 years ago.
      *
      * @return true if the account holder is 18 years or older
      * false otherwise
      */
     public boolean isEighteen() {
-        Calendar today = Calendar.getInstance();
-        Calendar birthDate = Calendar.getInstance();
-        birthDate.set(this.year, this.month - MONTH_OFFSET, this.day); //must subtract 1 because month is 0-based
-        today.add(Calendar.YEAR, -MINIMUM_AGE_YEARS);
-        return !birthDate.after(today);
+        return this.epochDay < yearsAgo(MINIMUM_AGE_YEARS);
     }
 
     /**
      * Checks if the date represents someone who is over 24 years of age.
+     * Despite its name, this returns true when the date is on or after the same day 24 years ago,
+     * which is when the person is young enough for a college checking account.
      *
      * @return true if the individual is over 24 years old, false otherwise
      */
     public boolean isOverTwentyFour() {
-        Calendar today = Calendar.getInstance();
-        Calendar birthDate = Calendar.getInstance();
-        birthDate.set(this.year, this.month - MONTH_OFFSET, this.day); //must subtract 1 because month is 0-based
-        today.add(Calendar.YEAR, -MAXIMUM_AGE_YEARS);
-        return !birthDate.before(today);
+        return this.epochDay >= yearsAgo(MAXIMUM_AGE_YEARS);
     }
 
     /**
      * Adds the specified number of months to the current date and returns a new Date object
-     * representing the updated date. The method accounts for month and year rollovers.
+     * representing the updated date. The method accounts for month and year rollovers,
+     * and a day that does not exist in the new month becomes the last day of that month.
      *
      * @param monthsToAdd the number of months to add to the current date
      * @return a new Date object representing the updated date after adding the specified number of months
      */
     public Date addMonths(int monthsToAdd) {
-        // Create a Calendar instance and set it to the date values.
-        // Note: Calendar months are 0-based, so subtract the MONTH_OFFSET.
-        Calendar cal = Calendar.getInstance();
-        cal.set(this.year, this.month - MONTH_OFFSET, this.day);
-
-        // Add the specified number of months.
-        cal.add(Calendar.MONTH, monthsToAdd);
-
-        // Retrieve the new year, month, and day.
-        int newYear = cal.get(Calendar.YEAR);
-        int newMonth = cal.get(Calendar.MONTH) + MONTH_OFFSET; // Adjust back to 1-based month.
-        int newDay = cal.get(Calendar.DAY_OF_MONTH);
-
-        // Return a new Date object with the updated values.
-        return new Date(newMonth, newDay, newYear);
+        int months = this.year * MONTHS_IN_YEAR + (this.month - MONTH_OFFSET) + monthsToAdd;
+        int newYear = Math.floorDiv(months, MONTHS_IN_YEAR);
+        int newMonth = Math.floorMod(months, MONTHS_IN_YEAR) + MONTH_OFFSET;
+        int newDay = Math.min(this.day, daysInMonth(newMonth, newYear));
+        return valueOf(newMonth, newDay, newYear);
     }
 
     /**
      * Compares this date with another date to determine if this date occurs after the provided date.
+     * A date is counted as occurring after itself.
      *
      * @param other the date to compare with this date
-     * @return true if this date occurs after the provided date, false otherwise
+     * @return true if this date is the same as or later than the provided date, false otherwise
      */
     public boolean isAfter(Date other) {
-        Calendar otherDate = Calendar.getInstance();
-        otherDate.set(other.getYear(), other.getMonth() - MONTH_OFFSET, other.getDay());
-        Calendar thisDate = Calendar.getInstance();
-        thisDate.set(this.year, this.month - MONTH_OFFSET, this.day);
-        return thisDate.after(otherDate);
+        return this.epochDay >= other.epochDay;
     }
 
     /**
      * Checks if the birthdate comes after today's date.
+     * Today's date is counted as coming after today.
      *
-     * @return true if birthdate comes after today's date
+     * @return true if birthdate is today or later
      * false otherwise
      */
     public boolean isAfterToday() {
-        Calendar today = Calendar.getInstance();
-        Calendar birthDate = Calendar.getInstance();
-        birthDate.set(this.year, this.month - MONTH_OFFSET, this.day);
-        return birthDate.after(today);
+        return this.epochDay >= (int) LocalDate.now().toEpochDay();
     }
 
     /**
@@ -219,6 +374,56 @@ public class Date implements Comparable<Date> {
      * false otherwise
      */
     public boolean isLeapYear() {
+        return isLeapYear(this.year);
+    }
+
+    /**
+     * Calculates the number of days from the given date to the current date.
+     * Both dates are counted, so a date is 1 day from itself; a later given date also gives 1.
+     *
+     * @param other the Date object to compare with the current date
+     * @return the number of days from the specified date to the current one
+     */
+    public int daysFrom(Date other) {
+        return Math.max(this.epochDay - other.epochDay, 0) + 1;
+    }
+
+    /**
+     * Returns the number of days from 1/1/1970 to this date, negative for earlier dates.
+     * Uses the proleptic Gregorian calendar, so the result matches LocalDate.toEpochDay.
+     *
+     * @return the epoch day of this date
+     */
+    public int toEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * Creates the Date that is the given number of days after 1/1/1970.
+     *
+     * @param epochDay the number of days from 1/1/1970, negative for earlier dates
+     * @return the Date of that day
+     */
+    public static Date ofEpochDay(int epochDay) {
+        int days = epochDay + EPOCH_OFFSET;
+        int era = Math.floorDiv(days, DAYS_PER_ERA);
+        int dayOfEra = days - era * DAYS_PER_ERA;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (DAYS_PER_ERA - 1)) / DAYS_IN_YEAR;
+        int dayOfYear = dayOfEra - (yearOfEra * DAYS_IN_YEAR + yearOfEra / QUADRENNIAL - yearOfEra / CENTENNIAL);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153; //0 is March
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * QUARTERCENTENNIAL + (month <= 2 ? 1 : 0);
+        return valueOf(month, day, year);
+    }
+
+    /**
+     * Checks if a year is a leap year.
+     *
+     * @param year the year being checked
+     * @return true if the year is a leap year, false otherwise
+     */
+    private static boolean isLeapYear(int year) {
         if (year % QUADRENNIAL != 0) {
             return false;
         }
@@ -226,36 +431,69 @@ public class Date implements Comparable<Date> {
     }
 
     /**
-     * Resets the time fields (hour, minute, second, millisecond) of the given Calendar object to 0.
+     * Returns the number of days in a month.
      *
-     * @param cal the Calendar object whose time fields are to be cleared
+     * @param month the month, from 1 to 12
+     * @param year  the year of the month
+     * @return the number of days in the month
      */
-    private static void clearTime(Calendar cal) {
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
+    private static int daysInMonth(int month, int year) {
+        if (month == 2 && isLeapYear(year)) {
+            return DAYS_IN_FEBRUARY_LEAP;
+        }
+        return DAYS_IN_MONTH[month - MONTH_OFFSET];
     }
 
     /**
-     * Calculates the number of days from the given date to the current date.
+     * Returns the epoch day of the same day a number of years before today.
+     * If that day does not exist (February 29 in a year that is not a leap year), February 28 is used.
      *
-     * @param other the Date object to compare with the current date
-     * @return the number of days from the specified date to the current one
+     * @param years the number of years
+     * @return the epoch day of the day that many years ago
      */
-    public int daysFrom(Date other) {
-        Calendar calThis = Calendar.getInstance();
-        Calendar calOther = Calendar.getInstance();
-        calThis.set(this.year, this.month - MONTH_OFFSET, this.day);
-        calOther.set(other.year, other.month - MONTH_OFFSET, other.day);
-        clearTime(calThis);
-        clearTime(calOther);
-        int days = 1;
-        while (calOther.before(calThis)) {
-            calOther.add(Calendar.DAY_OF_MONTH, 1);
-            days++;
+    private static int yearsAgo(int years) {
+        return new Date().addMonths(-years * MONTHS_IN_YEAR).epochDay;
+    }
+
+    /**
+     * Computes the epoch day of a day, month, and year, rolling over a day or month outside the usual range.
+     *
+     * @param month the month
+     * @param day   the day of the month
+     * @param year  the year
+     * @return the number of days from 1/1/1970
+     */
+    private static int epochDay(int month, int day, int year) {
+        int monthIndex = month - MONTH_OFFSET;
+        int y = year + Math.floorDiv(monthIndex, MONTHS_IN_YEAR);
+        monthIndex = Math.floorMod(monthIndex, MONTHS_IN_YEAR);
+        int leapDay = monthIndex > 1 && isLeapYear(y) ? 1 : 0;
+        return daysBeforeYear(y) - DAYS_BEFORE_EPOCH + DAYS_BEFORE_MONTH[monthIndex] + leapDay + day - 1;
+    }
+
+    /**
+     * Returns the number of days from 1/1/0001 to the first day of a year.
+     *
+     * @param year the year
+     * @return the number of days before the year, negative for years before 1
+     */
+    private static int daysBeforeYear(int year) {
+        int y = year - 1;
+        return y * DAYS_IN_YEAR + Math.floorDiv(y, QUADRENNIAL) - Math.floorDiv(y, CENTENNIAL)
+                + Math.floorDiv(y, QUARTERCENTENNIAL);
+    }
+
+    /**
+     * Builds the table of the number of days before each month in a year that is not a leap year.
+     *
+     * @return the days before each month, indexed from 0 for January
+     */
+    private static int[] daysBeforeMonth() {
+        int[] before = new int[MONTHS_IN_YEAR];
+        for (int i = 1; i < MONTHS_IN_YEAR; i++) {
+            before[i] = before[i - 1] + DAYS_IN_MONTH[i - 1];
         }
-        return days;
+        return before;
     }
 
     /**
@@ -268,20 +506,7 @@ public class Date implements Comparable<Date> {
      */
     @Override
     public int compareTo(Date other) {
-        if (this.year < other.year) {
-            return -1;
-        } else if (this.year > other.year) {
-            return 1;
-        } else if (this.month < other.month) {
-            return -1;
-        } else if (this.month > other.month) {
-            return 1;
-        } else if (this.day < other.day) {
-            return -1;
-        } else if (this.day > other.day) {
-            return 1;
-        }
-        return 0;
+        return Integer.compare(this.epochDay, other.epochDay);
     }
 
     /**
@@ -309,4 +534,14 @@ public class Date implements Comparable<Date> {
         }
         return false;
     }
+
+    /**
+     * Returns a hash code for the Date that is consistent with equals.
+     *
+     * @return the epoch day of the date
+     */
+    @Override
+    public int hashCode() {
+        return this.epochDay;
+    }
 }
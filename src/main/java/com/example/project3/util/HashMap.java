@@ -0,0 +1,212 @@
+package com.example.project3.util;
+
+import java.util.Arrays;
+
+/**
+ * A generic hash map that associates keys with values using each key's hashCode and equals methods.
+ * The map uses open addressing with linear probing, and doubles its capacity whenever it becomes more than half full.
+ * Null keys are not permitted.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of values associated with the keys
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class HashMap<K, V> {
+
+    /**
+     * The starting number of slots in the table, must be a power of two.
+     */
+    private static final int STARTING_CAPACITY = 16;
+
+    /**
+     * Multiplier used to spread hash codes across the table (the golden ratio as a 32-bit integer).
+     */
+    private static final int SPREAD = 0x9E3779B9;
+
+    /**
+     * Keys of the entries, null when the slot is unused.
+     */
+    private K[] keys;
+
+    /**
+     * Values of the entries, stored in the same slot as their keys.
+     */
+    private V[] values;
+
+    /**
+     * Number of entries currently in the map.
+     */
+    private int size;
+
+    /**
+     * Bit mask used to wrap a slot number around the end of the table.
+     */
+    private int mask;
+
+    /**
+     * Constructs an empty HashMap.
+     */
+    public HashMap() {
+        allocate(STARTING_CAPACITY);
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of keys that have a value
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if the map contains no entries, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value associated with the given key.
+     *
+     * @param key the key whose value is to be returned
+     * @return the value associated with the key, or null if the key is not in the map
+     */
+    public V get(K key) {
+        int slot = find(key);
+        return slot == -1 ? null : values[slot];
+    }
+
+    /**
+     * Associates the given value with the given key, replacing any previous value.
+     *
+     * @param key   the key, must not be null
+     * @param value the value to associate with the key
+     * @return the previous value associated with the key, or null if there was none
+     */
+    public V put(K key, V value) {
+        int slot = find(key);
+        if (slot != -1) {
+            V previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(key, value);
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the entry for the given key.
+     * Entries that follow it in the same probe sequence are shifted back so no tombstones are left behind.
+     *
+     * @param key the key whose entry is to be removed
+     * @return the value that was associated with the key, or null if the key was not in the map
+     */
+    public V remove(K key) {
+        int hole = find(key);
+        if (hole == -1) {
+            return null;
+        }
+        V previous = values[hole];
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (keys[slot] == null) {
+                break;
+            }
+            int home = slot(keys[slot]);
+            //the entry may move into the hole only if the hole lies between its home slot and where it is now
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        return previous;
+    }
+
+    /**
+     * Removes every entry from the map, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Finds the slot holding the given key.
+     *
+     * @param key the key being searched for
+     * @return the slot of the key, or -1 if the key is not in the map
+     */
+    private int find(K key) {
+        for (int slot = slot(key); keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores an entry in the first free slot of its probe sequence, without checking the capacity.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     */
+    private void insert(K key, V value) {
+        int slot = slot(key);
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Computes the home slot of a key.
+     *
+     * @param key the key being hashed
+     * @return the slot where the probe sequence for the key begins
+     */
+    private int slot(Object key) {
+        int h = key.hashCode() * SPREAD;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Doubles the number of slots and re-inserts every entry.
+     */
+    private void grow() {
+        K[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates empty key and value arrays with the given number of slots.
+     *
+     * @param capacity number of slots, must be a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        this.keys = (K[]) new Object[capacity];
+        this.values = (V[]) new Object[capacity];
+        this.mask = capacity - 1;
+    }
+}
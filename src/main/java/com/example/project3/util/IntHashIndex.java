@@ -0,0 +1,277 @@
+package com.example.project3.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash index that maps int keys to non-negative int values, such as positions in a List.
+ * The index uses open addressing with linear probing, so lookups do not allocate and do not box keys.
+ * The same key may be stored more than once with different values; each (key, value) pair is an entry.
+ * The table doubles in capacity whenever it becomes more than half full.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class IntHashIndex {
+
+    /**
+     * The value returned when a key is not found in the index.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * The starting number of slots in the table, must be a power of two.
+     */
+    private static final int STARTING_CAPACITY = 16;
+
+    /**
+     * Marks a slot that does not hold an entry. Values stored in the index are never negative.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * Multiplier used to spread keys across the table (the golden ratio as a 32-bit integer).
+     */
+    private static final int SPREAD = 0x9E3779B9;
+
+    /**
+     * Keys of the entries, stored in the same slot as their values.
+     */
+    private int[] keys;
+
+    /**
+     * Values of the entries, EMPTY when the slot is unused.
+     */
+    private int[] values;
+
+    /**
+     * Number of entries currently in the index.
+     */
+    private int size;
+
+    /**
+     * Bit mask used to wrap a slot number around the end of the table.
+     */
+    private int mask;
+
+    /**
+     * Constructs an empty IntHashIndex.
+     */
+    public IntHashIndex() {
+        this(STARTING_CAPACITY / 2);
+    }
+
+    /**
+     * Constructs an empty IntHashIndex large enough to hold the given number of entries without growing.
+     *
+     * @param expectedSize number of entries the index is expected to hold
+     */
+    public IntHashIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Makes sure the index can hold the given number of entries without growing again.
+     *
+     * @param expectedSize number of entries the index is expected to hold
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Computes the number of slots needed to keep the table at most half full.
+     *
+     * @param expectedSize number of entries the table should hold
+     * @return a power of two that is at least twice the expected size
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = STARTING_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     *
+     * @return the number of (key, value) entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a value stored for the given key.
+     * If the key was stored more than once, one of its values is returned.
+     *
+     * @param key the key to search for
+     * @return a value stored for the key, or NOT_FOUND if the key is not in the index
+     */
+    public int get(int key) {
+        for (int slot = slot(key); values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Adds a (key, value) entry to the index. Existing entries for the same key are kept.
+     *
+     * @param key   the key of the entry
+     * @param value the non-negative value of the entry
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(key, value);
+        size++;
+    }
+
+    /**
+     * Changes the value of the entry (key, oldValue) to newValue.
+     *
+     * @param key      the key of the entry
+     * @param oldValue the current value of the entry
+     * @param newValue the value to store instead
+     * @return true if the entry was found and changed, false otherwise
+     * @throws IllegalArgumentException if the new value is negative
+     */
+    public boolean replace(int key, int oldValue, int newValue) {
+        if (newValue < 0) {
+            throw new IllegalArgumentException("Negative value: " + newValue);
+        }
+        int slot = find(key, oldValue);
+        if (slot == NOT_FOUND) {
+            return false;
+        }
+        values[slot] = newValue;
+        return true;
+    }
+
+    /**
+     * Removes the entry (key, value) from the index.
+     * Entries that follow it in the same probe sequence are shifted back so no tombstones are left behind.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     * @return true if the entry was found and removed, false otherwise
+     */
+    public boolean remove(int key, int value) {
+        int hole = find(key, value);
+        if (hole == NOT_FOUND) {
+            return false;
+        }
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == EMPTY) {
+                break;
+            }
+            int home = slot(keys[slot]);
+            //the entry may move into the hole only if the hole lies between its home slot and where it is now
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        values[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes every entry from the index, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Finds the slot holding the entry (key, value).
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     * @return the slot of the entry, or NOT_FOUND if it is not in the index
+     */
+    private int find(int key, int value) {
+        for (int slot = slot(key); values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key && values[slot] == value) {
+                return slot;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Stores an entry in the first free slot of its probe sequence, without checking the capacity.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     */
+    private void insert(int key, int value) {
+        int slot = slot(key);
+        while (values[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Computes the home slot of a key.
+     *
+     * @param key the key being hashed
+     * @return the slot where the probe sequence for the key begins
+     */
+    private int slot(int key) {
+        int h = key * SPREAD;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Doubles the number of slots and re-inserts every entry.
+     */
+    private void grow() {
+        rehash(keys.length * 2);
+    }
+
+    /**
+     * Moves every entry into a new table with the given number of slots.
+     *
+     * @param capacity number of slots, must be a power of two
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates empty key and value arrays with the given number of slots.
+     *
+     * @param capacity number of slots, must be a power of two
+     */
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(this.values, EMPTY);
+        this.mask = capacity - 1;
+    }
+}
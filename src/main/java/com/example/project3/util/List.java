@@ -1,11 +1,17 @@
 package com.example.project3.util;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 
 /**
  * A generic List implementation that provides dynamic resizing, element addition,
  * removal, and search capabilities. This list dynamically grows its internal
  * storage as elements are added, and supports sequential traversal using iterators.
+ * The capacity grows by half of its current length whenever it is exceeded, so adding n elements
+ * copies O(n) references in total. Iterators are fail-fast: they throw a ConcurrentModificationException
+ * if the list is structurally changed while it is being traversed.
  *
  * @param <E> the type of elements maintained by this list
  * @author Vishal Saravanan, Yining Chen
@@ -13,10 +19,14 @@ import java.util.Iterator;
 public class List<E> implements Iterable<E> {
 
     /**
-     * The growth size used to expand the internal storage of the list when its capacity is exceeded.
-     * This constant determines the number of additional slots added to the array during resizing.
+     * The capacity of a list created without a requested capacity.
      */
-    private static final int GROW_SIZE = 4;
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /**
+     * The largest array length that is safe to request from the virtual machine.
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
 
     /**
      * The starting size of the AccountDatabase
@@ -40,13 +50,32 @@ public class List<E> implements Iterable<E> {
      */
     private int size;
 
+    /**
+     * Number of structural changes (additions, removals, and sorts) made to the list,
+     * used by iterators to detect changes made during traversal.
+     */
+    private int modCount;
+
     /**
      * Constructs a new instance of the List. Initializes the internal storage
      * array with a default initial capacity and sets the initial size of the
      * list.
      */
     public List() {
-        this.objects = (E[]) new Object[GROW_SIZE];
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty List that can hold the given number of elements before it needs to grow.
+     *
+     * @param initialCapacity the number of elements to make room for
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public List(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+        this.objects = (E[]) new Object[initialCapacity];
         this.size = STARTING_SIZE;
     }
 
@@ -66,15 +95,32 @@ public class List<E> implements Iterable<E> {
     }
 
     /**
-     * Increases the capacity of the internal storage array to accommodate more elements.
+     * Increases the capacity of the internal storage array so that it can hold at least the given number of elements.
+     * The new capacity is at least one and a half times the old one.
+     *
+     * @param minCapacity the number of elements the array must be able to hold
      */
-    private void grow() {
-        int newLength = this.objects.length + GROW_SIZE; //the new length can hold 4 more accounts than the old length
-        E[] newObjects = (E[]) new Object[newLength];
-        for (int i = 0; i < this.size; i++) {
-            newObjects[i] = this.objects[i];
+    private void grow(int minCapacity) {
+        int newLength = this.objects.length + (this.objects.length >> 1);
+        if (newLength < minCapacity || newLength < 0) {
+            newLength = minCapacity;
+        }
+        if (newLength > MAX_CAPACITY) {
+            newLength = Math.max(minCapacity, MAX_CAPACITY);
+        }
+        this.objects = Arrays.copyOf(this.objects, newLength);
+    }
+
+    /**
+     * Makes sure the list can hold at least the given number of elements without growing again.
+     * Useful before adding many elements whose count is known in advance.
+     *
+     * @param minCapacity the number of elements the list must be able to hold
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > this.objects.length) {
+            grow(minCapacity);
         }
-        this.objects = newObjects;
     }
 
     /**
@@ -94,12 +140,40 @@ public class List<E> implements Iterable<E> {
      * @param e the element to be added to the list
      */
     public void add(E e) {
-        if (this.size == this.objects.length - 1) {
-            grow();
+        if (this.size == this.objects.length) {
+            grow(this.size + 1);
         }
 
         this.objects[this.size] = e;
         this.size++;
+        this.modCount++;
+    }
+
+    /**
+     * Adds every element of another list to the end of this list, in order.
+     * The capacity is increased at most once.
+     *
+     * @param other the list whose elements are to be added
+     */
+    public void addAll(List<? extends E> other) {
+        int count = other.size;
+        ensureCapacity(this.size + count);
+        System.arraycopy(other.objects, 0, this.objects, this.size, count);
+        this.size += count;
+        this.modCount++;
+    }
+
+    /**
+     * Adds every element of an array to the end of this list, in order.
+     * The capacity is increased at most once.
+     *
+     * @param elements the array whose elements are to be added
+     */
+    public void addAll(E[] elements) {
+        ensureCapacity(this.size + elements.length);
+        System.arraycopy(elements, 0, this.objects, this.size, elements.length);
+        this.size += elements.length;
+        this.modCount++;
     }
 
     /**
@@ -113,9 +187,78 @@ public class List<E> implements Iterable<E> {
         if (index == -1) {
             return;
         }
+        removeAt(index);
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     * The last element in the list is moved into the emptied position, and the size of the list is decreased.
+     *
+     * @param index the position of the element to be removed
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     */
+    public void removeAt(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
         this.objects[index] = this.objects[this.size - 1];
         this.objects[this.size - 1] = null;
         this.size--;
+        this.modCount++;
+    }
+
+    /**
+     * Removes the element at the specified position in this list and shifts every later element one position
+     * towards the beginning, so the order of the remaining elements is kept.
+     *
+     * @param index the position of the element to be removed
+     * @return the element that was removed
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     */
+    public E removeOrdered(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        E removed = this.objects[index];
+        System.arraycopy(this.objects, index + 1, this.objects, index, this.size - index - 1);
+        this.objects[this.size - 1] = null;
+        this.size--;
+        this.modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes every element from the list, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(this.objects, 0, this.size, null);
+        this.size = STARTING_SIZE;
+        this.modCount++;
+    }
+
+    /**
+     * Sorts the list using the given Comparator.
+     * The sort is stable: elements that compare as equal keep their relative order.
+     *
+     * @param comparator the Comparator that decides the order of the elements
+     */
+    public void sort(Comparator<? super E> comparator) {
+        Arrays.sort(this.objects, 0, this.size, comparator);
+        this.modCount++;
+    }
+
+    /**
+     * Replaces the elements of the list with the same elements in a new order, such as the result of a sort.
+     *
+     * @param elements every element of the list, in the new order
+     * @throws IllegalArgumentException if the array does not have the same size as the list
+     */
+    public void reorder(E[] elements) {
+        if (elements.length != this.size) {
+            throw new IllegalArgumentException("Expected " + this.size + " elements, got " + elements.length);
+        }
+        System.arraycopy(elements, 0, this.objects, 0, this.size);
+        this.modCount++;
     }
 
     /**
@@ -194,6 +337,11 @@ public class List<E> implements Iterable<E> {
          */
         int current = 0; //current index when traversing the list (array)
 
+        /**
+         * The modCount of the list when the iterator was created.
+         */
+        final int expectedModCount = modCount;
+
         /**
          * Indicates whether there are more elements to iterate over in the collection.
          *
@@ -209,9 +357,13 @@ public class List<E> implements Iterable<E> {
          *
          * @return the next element in the iteration
          * @throws java.util.NoSuchElementException if there are no more elements to iterate
+         * @throws ConcurrentModificationException if the list was structurally changed after the iterator was created
          */
         @Override
         public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
             if (!hasNext()) {
                 throw new java.util.NoSuchElementException();
             }
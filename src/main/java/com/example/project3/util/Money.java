@@ -0,0 +1,279 @@
+package com.example.project3.util;
+
+import java.math.BigInteger;
+
+/**
+ * The Money class works with amounts of money stored as a whole number of cents in a long.
+ * Amounts are parsed from text, scaled by rates, and formatted as #,##0.00 without using floating point,
+ * so every result is exact up to the documented rounding.
+ * Results that are not a whole number of cents are rounded to the nearest cent, and halves are rounded
+ * to the even cent (banker's rounding), which is the rounding DecimalFormat uses by default.
+ * The class has no state, so its methods can be called from any number of threads at the same time.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public final class Money {
+
+    /**
+     * Number of cents in one dollar.
+     */
+    public static final int CENTS_PER_DOLLAR = 100;
+
+    /**
+     * Number of basis points in a rate of 100%; a basis point is one hundredth of a percent.
+     */
+    public static final int BASIS_POINTS = 10_000;
+
+    /**
+     * Number of decimal places in a formatted amount.
+     */
+    private static final int DECIMALS = 2;
+
+    /**
+     * Number of digits in each group separated by a comma.
+     */
+    private static final int GROUP_SIZE = 3;
+
+    /**
+     * Number of decimal places read while parsing a number that has no decimal point.
+     */
+    private static final int NOT_SEEN = -1;
+
+    /**
+     * The Money class only has static methods and is never instantiated.
+     */
+    private Money() {
+    }
+
+    /**
+     * Reads an amount of money written as a decimal number, such as "1500", "-20.5", or "0.125".
+     * Leading and trailing whitespace is ignored. Digits after the second decimal place are rounded
+     * to the nearest cent, with halves rounded to the even cent.
+     *
+     * @param text the characters of the amount
+     * @return the amount in cents
+     * @throws NumberFormatException if the text is not a decimal number or the amount does not fit in a long
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Reads an amount of money written as a decimal number from part of a sequence of characters,
+     * without copying the characters.
+     *
+     * @param text  the characters containing the amount
+     * @param start the position of the first character of the amount
+     * @param end   the position after the last character of the amount
+     * @return the amount in cents
+     * @throws NumberFormatException if the characters are not a decimal number or the amount does not fit in a long
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        int first = start;
+        int last = end;
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negative = text.charAt(start) == '-';
+            start++;
+        }
+        long cents = 0; //kept negative while reading so that Long.MIN_VALUE can be parsed
+        int digits = 0;
+        int decimals = NOT_SEEN;
+        int roundDigit = 0;
+        boolean sticky = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals == NOT_SEEN) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw invalid(text, first, last);
+            }
+            digits++;
+            if (decimals < DECIMALS) {
+                cents = appendDigit(cents, c - '0', text, first, last);
+                if (decimals != NOT_SEEN) {
+                    decimals++;
+                }
+            } else if (decimals == DECIMALS) {
+                roundDigit = c - '0';
+                decimals++;
+            } else if (c != '0') {
+                sticky = true;
+            }
+        }
+        if (digits == 0) {
+            throw invalid(text, first, last);
+        }
+        for (int i = Math.max(decimals, 0); i < DECIMALS; i++) {
+            cents = appendDigit(cents, 0, text, first, last);
+        }
+        boolean odd = (cents & 1) != 0;
+        if (roundDigit > 5 || roundDigit == 5 && (sticky || odd)) {
+            if (cents == Long.MIN_VALUE) {
+                throw invalid(text, first, last);
+            }
+            cents--;
+        }
+        if (negative) {
+            return cents;
+        }
+        if (cents == Long.MIN_VALUE) {
+            throw invalid(text, first, last);
+        }
+        return -cents;
+    }
+
+    /**
+     * Multiplies an amount by the fraction numerator / denominator and rounds the result to the nearest cent,
+     * with halves rounded to the even cent. For example, the monthly interest at a yearly rate given in basis points
+     * is {@code scale(balance, rate, BASIS_POINTS * 12)}.
+     *
+     * @param cents       the amount in cents
+     * @param numerator   the numerator of the fraction
+     * @param denominator the denominator of the fraction, must be positive
+     * @return the scaled amount in cents
+     * @throws IllegalArgumentException if the denominator is not positive
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long scale(long cents, long numerator, long denominator) {
+        if (denominator <= 0) {
+            throw new IllegalArgumentException("Denominator must be positive: " + denominator);
+        }
+        long product;
+        try {
+            product = Math.multiplyExact(cents, numerator);
+        } catch (ArithmeticException e) {
+            return scaleExact(cents, numerator, denominator);
+        }
+        long quotient = Math.floorDiv(product, denominator);
+        long remainder = Math.floorMod(product, denominator); //0 <= remainder < denominator
+        long twice = remainder * 2; //cannot overflow because the denominator is a positive long
+        if (twice < 0 || twice > denominator || twice == denominator && (quotient & 1) != 0) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Formats an amount as #,##0.00, for example 1234567 cents as "12,345.67" and -5 cents as "-0.05".
+     *
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        return format(cents, new StringBuilder(24)).toString();
+    }
+
+    /**
+     * Appends an amount formatted as #,##0.00 to the given StringBuilder without creating any other objects.
+     *
+     * @param cents the amount in cents
+     * @param out   the StringBuilder the formatted amount is appended to
+     * @return the same StringBuilder, for chaining
+     */
+    public static StringBuilder format(long cents, StringBuilder out) {
+        //work with the negative value so that Long.MIN_VALUE has a magnitude
+        long negated = cents < 0 ? cents : -cents;
+        if (cents < 0) {
+            out.append('-');
+        }
+        long dollars = -(negated / CENTS_PER_DOLLAR);
+        int fraction = (int) -(negated % CENTS_PER_DOLLAR);
+        appendGrouped(dollars, out);
+        out.append('.');
+        out.append((char) ('0' + fraction / 10));
+        out.append((char) ('0' + fraction % 10));
+        return out;
+    }
+
+    /**
+     * Adds one digit to the end of a negative number being parsed.
+     *
+     * @param negated the number read so far, negated
+     * @param digit   the digit being added
+     * @param text    the characters being parsed, for the error message
+     * @param start   the position of the first character being parsed
+     * @param end     the position after the last character being parsed
+     * @return the new number, negated
+     * @throws NumberFormatException if the number no longer fits in a long
+     */
+    private static long appendDigit(long negated, int digit, CharSequence text, int start, int end) {
+        if (negated < Long.MIN_VALUE / 10) {
+            throw invalid(text, start, end);
+        }
+        long shifted = negated * 10;
+        if (shifted < Long.MIN_VALUE + digit) {
+            throw invalid(text, start, end);
+        }
+        return shifted - digit;
+    }
+
+    /**
+     * Appends a non-negative whole number with a comma between each group of three digits.
+     *
+     * @param value the number to be appended
+     * @param out   the StringBuilder the number is appended to
+     */
+    private static void appendGrouped(long value, StringBuilder out) {
+        int length = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        long place = 1;
+        for (int i = 1; i < length; i++) {
+            place *= 10;
+        }
+        for (int i = length; i > 0; i--) {
+            out.append((char) ('0' + value / place % 10));
+            if (i > 1 && (i - 1) % GROUP_SIZE == 0) {
+                out.append(',');
+            }
+            place /= 10;
+        }
+    }
+
+    /**
+     * Multiplies an amount by a fraction using arbitrary precision, for products that do not fit in a long.
+     *
+     * @param cents       the amount in cents
+     * @param numerator   the numerator of the fraction
+     * @param denominator the denominator of the fraction, positive
+     * @return the scaled amount in cents, rounded half to even
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    private static long scaleExact(long cents, long numerator, long denominator) {
+        BigInteger product = BigInteger.valueOf(cents).multiply(BigInteger.valueOf(numerator));
+        BigInteger[] division = product.divideAndRemainder(BigInteger.valueOf(denominator));
+        BigInteger quotient = division[0];
+        BigInteger remainder = division[1];
+        if (remainder.signum() < 0) { //make the remainder non-negative, as floorMod does
+            quotient = quotient.subtract(BigInteger.ONE);
+            remainder = remainder.add(BigInteger.valueOf(denominator));
+        }
+        int half = remainder.shiftLeft(1).compareTo(BigInteger.valueOf(denominator));
+        if (half > 0 || half == 0 && quotient.testBit(0)) {
+            quotient = quotient.add(BigInteger.ONE);
+        }
+        return quotient.longValueExact();
+    }
+
+    /**
+     * Creates the exception thrown when characters are not a valid amount.
+     *
+     * @param text  the characters containing the amount
+     * @param start the position of the first character of the amount
+     * @param end   the position after the last character of the amount
+     * @return the exception to be thrown
+     */
+    private static NumberFormatException invalid(CharSequence text, int start, int end) {
+        return new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+    }
+}
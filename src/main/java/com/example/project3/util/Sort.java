@@ -2,18 +2,79 @@ package com.example.project3.util;
 
 import com.example.project3.banking.Account;
 import com.example.project3.banking.AccountDatabase;
+import com.example.project3.banking.Branch;
+
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * This class provides sorting functionality for accounts in an {@code AccountDatabase}.
- * It employs a selection sort algorithm to order the accounts based on a specified key.
+ * The sort key of each account is extracted once, then the keys are sorted with an O(n log n) algorithm.
+ * Orderings by branch and by account type use a packed long key per account; the ordering by holder uses
+ * case-folded copies of the names. Every ordering is stable, so accounts with equal keys keep their relative order.
+ * Lists with at least {@link #getParallelThreshold()} accounts are sorted in parallel.
  *
  * @author Vishal Saravanan, Yining Chen
  */
 public class Sort {
 
     /**
-     * Sorts the accounts in the given {@code AccountDatabase} using a selection sort
-     * algorithm based on the specified sorting key.
+     * Default number of accounts at which sorting switches to a parallel sort.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Number of low bits of a packed key that hold the position of the account in the unsorted list.
+     */
+    private static final int INDEX_BITS = 31;
+
+    /**
+     * Mask that extracts the position of the account from a packed key.
+     */
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    /**
+     * Number of bits that hold a 9-digit account number, which is always less than 2^29.
+     */
+    private static final int NUMBER_BITS = 29;
+
+    /**
+     * Rank of each Branch, indexed by ordinal, when branches are ordered by county and then by city,
+     * ignoring case.
+     */
+    private static final int[] BRANCH_RANK = rankBranches();
+
+    /**
+     * Number of accounts at which sorting switches to a parallel sort.
+     * Can be set at startup with the system property project3.sort.parallelThreshold.
+     */
+    private static volatile int parallelThreshold =
+            Integer.getInteger("project3.sort.parallelThreshold", DEFAULT_PARALLEL_THRESHOLD);
+
+    /**
+     * Returns the number of accounts at which sorting switches to a parallel sort.
+     *
+     * @return the current parallel threshold
+     */
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the number of accounts at which sorting switches to a parallel sort.
+     *
+     * @param threshold the smallest list size that is sorted in parallel
+     * @throws IllegalArgumentException if the threshold is less than 1
+     */
+    public static void setParallelThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Invalid parallel threshold: " + threshold);
+        }
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * Sorts the accounts in the given {@code AccountDatabase} based on the specified sorting key.
      *
      * @param list the {@code AccountDatabase} containing the accounts to be sorted
      * @param key  the sorting criterion; valid values include:
@@ -23,49 +84,182 @@ public class Sort {
      *             An {@code IllegalArgumentException} is thrown for invalid keys.
      */
     public static void account(AccountDatabase list, char key) {
-        for (int i = 0; i < list.size() - 1; i++) {
-            int minIndex = i;
-            for (int j = i + 1; j < list.size(); j++) {
-                if (compareAccounts(list.get(j), list.get(minIndex), key) < 0) {
-                    minIndex = j;
-                }
-            }
-            if (minIndex != i) {
-                Account temp = list.get(i);
-                list.set(i, list.get(minIndex));
-                list.set(minIndex, temp);
-            }
+        if (key != 'B' && key != 'H' && key != 'T') {
+            throw new IllegalArgumentException("Invalid sort key: " + key);
+        }
+        int size = list.size();
+        Account[] accounts = new Account[size];
+        for (int i = 0; i < size; i++) {
+            accounts[i] = list.get(i);
         }
+        Account[] sorted = key == 'H' ? byHolder(accounts) : byPackedKey(accounts, key);
+        list.reorder(sorted);
     }
 
     /**
-     * Compares two accounts based on the specified sorting key.
+     * Returns the packed sort key of an account for the ordering by branch.
+     * The key orders accounts by county and then by city, ignoring case, as compareByBranch does.
      *
-     * @param a1  the first account to be compared
-     * @param a2  the second account to be compared
-     * @param key the sorting criterion; valid values include:
-     *            'B' for comparison by branch,
-     *            'H' for comparison by account holder name,
-     *            'T' for comparison by account type, with a secondary sort
-     *            by account number in case of ties.
-     *            An {@code IllegalArgumentException} is thrown for invalid keys.
-     * @return a negative integer, zero, or a positive integer as the first account
-     *         is less than, equal to, or greater than the second account based on
-     *         the specified sorting criterion.
-     */
-    private static int compareAccounts(Account a1, Account a2, char key) {
-        if (key == 'B') {
-            return a1.compareByBranch(a2);
-        } else if (key == 'H') {
-            return a1.compareTo(a2);
-        } else if (key == 'T') {
-            int typeComparison = a1.compareByAccountType(a2);
-            if (typeComparison == 0) {
-                return a1.getAccountNumber().compareTo(a2.getAccountNumber());
-            }
-            return typeComparison;
+     * @param account the account whose key is extracted
+     * @return the rank of the account's branch
+     */
+    public static long branchKey(Account account) {
+        return BRANCH_RANK[account.getAccountNumber().getBranch().ordinal()];
+    }
+
+    /**
+     * Returns the packed sort key of an account for the ordering by account type.
+     * The key orders accounts by account type and then by account number, as compareByAccountType does.
+     *
+     * @param account the account whose key is extracted
+     * @return the account type in the high bits and the 9-digit account number in the low bits
+     */
+    public static long typeKey(Account account) {
+        return (long) account.getType().ordinal() << NUMBER_BITS | account.getAccountNumber().intValue();
+    }
+
+    /**
+     * Returns the case-folded form of a name, where every character is mapped the same way
+     * compareToIgnoreCase compares it. Comparing folded names with compareTo gives the same result
+     * as comparing the original names with compareToIgnoreCase.
+     *
+     * @param name the name to be folded
+     * @return the folded name
+     */
+    public static String fold(String name) {
+        char[] folded = new char[name.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Sorts accounts by branch ('B') or by account type ('T') using one packed long per account.
+     * The position of the account is stored in the low bits of its key, so equal keys keep their order.
+     *
+     * @param accounts the accounts in their current order
+     * @param key      'B' or 'T'
+     * @return the accounts in sorted order
+     */
+    private static Account[] byPackedKey(Account[] accounts, char key) {
+        long[] keys = new long[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            long sortKey = key == 'B' ? branchKey(accounts[i]) : typeKey(accounts[i]);
+            keys[i] = sortKey << INDEX_BITS | i;
+        }
+        if (keys.length >= parallelThreshold) {
+            Arrays.parallelSort(keys);
         } else {
-            throw new IllegalArgumentException("Invalid sort key: " + key);
+            Arrays.sort(keys);
+        }
+        Account[] sorted = new Account[accounts.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = accounts[(int) (keys[i] & INDEX_MASK)];
+        }
+        return sorted;
+    }
+
+    /**
+     * Sorts accounts by last name, first name, date of birth, and account number,
+     * comparing names without regard to case.
+     *
+     * @param accounts the accounts in their current order
+     * @return the accounts in sorted order
+     */
+    private static Account[] byHolder(Account[] accounts) {
+        HolderKey[] keys = new HolderKey[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            keys[i] = new HolderKey(accounts[i]);
+        }
+        Comparator<HolderKey> order = HolderKey::compareTo;
+        if (keys.length >= parallelThreshold) {
+            Arrays.parallelSort(keys, order); //both sorts are stable
+        } else {
+            Arrays.sort(keys, order);
+        }
+        Account[] sorted = new Account[accounts.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = keys[i].account;
+        }
+        return sorted;
+    }
+
+    /**
+     * Computes the rank of every Branch when branches are ordered by county and then by city, ignoring case.
+     *
+     * @return the rank of each Branch, indexed by ordinal
+     */
+    private static int[] rankBranches() {
+        Branch[] branches = Branch.values();
+        Arrays.sort(branches, (a, b) -> {
+            int cmp = a.getCounty().compareToIgnoreCase(b.getCounty());
+            return cmp != 0 ? cmp : a.name().compareToIgnoreCase(b.name());
+        });
+        int[] rank = new int[branches.length];
+        for (int i = 0; i < branches.length; i++) {
+            rank[branches[i].ordinal()] = i;
+        }
+        return rank;
+    }
+
+    /**
+     * The sort key of an account for the ordering by holder, extracted once before sorting.
+     */
+    private static class HolderKey implements Comparable<HolderKey> {
+
+        /**
+         * The account this key belongs to.
+         */
+        private final Account account;
+
+        /**
+         * Case-folded last name of the holder.
+         */
+        private final String lastName;
+
+        /**
+         * Case-folded first name of the holder.
+         */
+        private final String firstName;
+
+        /**
+         * Date of birth as YYYYMMDD in the high bits and the 9-digit account number in the low bits.
+         */
+        private final long rest;
+
+        /**
+         * Extracts the sort key of an account.
+         *
+         * @param account the account whose key is extracted
+         */
+        HolderKey(Account account) {
+            this.account = account;
+            this.lastName = fold(account.getLastName());
+            this.firstName = fold(account.getFirstName());
+            Date dob = account.getDateOfBirth();
+            long birth = (dob.getYear() * 100L + dob.getMonth()) * 100 + dob.getDay();
+            this.rest = birth << Integer.SIZE | account.getAccountNumber().intValue();
+        }
+
+        /**
+         * Compares two keys by last name, first name, date of birth, and account number.
+         *
+         * @param other the key being compared to
+         * @return a negative integer, zero, or a positive integer as this key is less than,
+         * equal to, or greater than the other key
+         */
+        @Override
+        public int compareTo(HolderKey other) {
+            int cmp = this.lastName.compareTo(other.lastName);
+            if (cmp != 0) {
+                return cmp;
+            }
+            cmp = this.firstName.compareTo(other.firstName);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return Long.compare(this.rest, other.rest);
         }
     }
 }
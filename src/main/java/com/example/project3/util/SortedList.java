@@ -0,0 +1,355 @@
+package com.example.project3.util;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A collection that keeps its elements ordered by a Comparator as they are added and removed.
+ * The elements are stored in an AVL tree, so adding and removing an element takes O(log n) time,
+ * and iterating visits the elements in sorted order without sorting them.
+ * Elements that compare as equal are kept in the order they were added.
+ * Iterators are fail-fast: they throw a ConcurrentModificationException if the list is changed during traversal.
+ *
+ * @param <E> the type of elements maintained by this list
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class SortedList<E> implements Iterable<E> {
+
+    /**
+     * The Comparator that decides the order of the elements.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * The root node of the tree, null when the list is empty.
+     */
+    private Node<E> root;
+
+    /**
+     * Represents the current number of elements in the list.
+     */
+    private int size;
+
+    /**
+     * Number of changes made to the list, used by iterators to detect changes made during traversal.
+     */
+    private int modCount;
+
+    /**
+     * Constructs an empty SortedList ordered by the given Comparator.
+     *
+     * @param comparator the Comparator that decides the order of the elements
+     */
+    public SortedList(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the number of elements currently in the list.
+     *
+     * @return the current number of elements in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return true if the list contains no elements, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds an element in its sorted position.
+     * An element that compares as equal to elements already in the list is placed after them.
+     *
+     * @param e the element to be added
+     */
+    public void add(E e) {
+        root = insert(root, e);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Removes one element that compares as equal to the given element, if there is one.
+     *
+     * @param e the element to be removed
+     * @return true if an element was removed, false otherwise
+     */
+    public boolean remove(E e) {
+        int before = size;
+        root = delete(root, e);
+        if (size != before) {
+            modCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes every element from the list.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns an iterator that visits the elements in sorted order.
+     *
+     * @return an {@code Iterator<E>} for traversing the list
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new SortedIterator();
+    }
+
+    /**
+     * Inserts an element into a subtree and rebalances it.
+     *
+     * @param node the root of the subtree
+     * @param e    the element to be inserted
+     * @return the new root of the subtree
+     */
+    private Node<E> insert(Node<E> node, E e) {
+        if (node == null) {
+            return new Node<>(e);
+        }
+        if (comparator.compare(e, node.element) < 0) {
+            node.left = insert(node.left, e);
+        } else {
+            node.right = insert(node.right, e);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Deletes one element equal to the given element from a subtree and rebalances it.
+     *
+     * @param node the root of the subtree
+     * @param e    the element to be deleted
+     * @return the new root of the subtree
+     */
+    private Node<E> delete(Node<E> node, E e) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(e, node.element);
+        if (cmp < 0) {
+            node.left = delete(node.left, e);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, e);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<E> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.element = successor.element;
+            node.right = deleteFirst(node.right);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Deletes the first (smallest) node of a subtree and rebalances it.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<E> deleteFirst(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteFirst(node.left);
+        return balance(node);
+    }
+
+    /**
+     * Restores the AVL property of a node whose subtrees differ in height by at most two.
+     *
+     * @param node the node to be balanced
+     * @return the root of the balanced subtree
+     */
+    private Node<E> balance(Node<E> node) {
+        int difference = height(node.left) - height(node.right);
+        if (difference > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            node = rotateRight(node);
+        } else if (difference < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            node = rotateLeft(node);
+        } else {
+            update(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotates a subtree to the left.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<E> rotateLeft(Node<E> node) {
+        Node<E> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Rotates a subtree to the right.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<E> rotateRight(Node<E> node) {
+        Node<E> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Recomputes the height of a node from its children.
+     *
+     * @param node the node to be updated
+     */
+    private void update(Node<E> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    /**
+     * Returns the height of a subtree.
+     *
+     * @param node the root of the subtree
+     * @return the height, 0 for an empty subtree
+     */
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * A node of the tree holding one element.
+     *
+     * @param <E> the type of the element
+     */
+    private static class Node<E> {
+
+        /**
+         * The element stored in this node.
+         */
+        E element;
+
+        /**
+         * The subtree of elements ordered before this one.
+         */
+        Node<E> left;
+
+        /**
+         * The subtree of elements ordered after this one.
+         */
+        Node<E> right;
+
+        /**
+         * Height of the subtree rooted at this node.
+         */
+        int height = 1;
+
+        /**
+         * Creates a leaf node.
+         *
+         * @param element the element stored in the node
+         */
+        Node(E element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * An iterator that walks the tree in order using an explicit stack of the nodes still to be visited.
+     */
+    private class SortedIterator implements Iterator<E> {
+
+        /**
+         * Nodes whose element and right subtree have not been visited yet, deepest last.
+         */
+        private final List<Node<E>> stack = new List<>();
+
+        /**
+         * The modCount of the list when the iterator was created.
+         */
+        private final int expectedModCount = modCount;
+
+        /**
+         * Creates an iterator positioned before the first element.
+         */
+        SortedIterator() {
+            pushLeft(root);
+        }
+
+        /**
+         * Indicates whether there are more elements to iterate over.
+         *
+         * @return true if there are remaining elements to iterate over, false otherwise
+         */
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        /**
+         * Returns the next element in sorted order.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if there are no more elements to iterate
+         * @throws ConcurrentModificationException if the list was changed after the iterator was created
+         */
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = stack.removeOrdered(stack.size() - 1);
+            pushLeft(node.right);
+            return node.element;
+        }
+
+        /**
+         * Pushes a node and all of its left descendants onto the stack.
+         *
+         * @param node the node to start from
+         */
+        private void pushLeft(Node<E> node) {
+            while (node != null) {
+                stack.add(node);
+                node = node.left;
+            }
+        }
+    }
+}
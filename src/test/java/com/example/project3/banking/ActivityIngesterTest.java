@@ -0,0 +1,136 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.Date;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that an activities file applied by an ActivityIngester on several threads leaves the balances, the withdrawal
+ * counts of Money Market accounts, and the activities of every account exactly as applying its lines one by one does.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class ActivityIngesterTest {
+
+    /**
+     * Number of accounts the activities are spread over.
+     */
+    private static final int ACCOUNTS = 300;
+
+    /**
+     * Number of activity lines, enough for the file to be split into several chunks.
+     */
+    private static final int LINES = 40_000;
+
+    /**
+     * Number of threads of the ingester.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * Directory holding the activities file.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Applies the same file to two databases holding the same accounts, in parallel and one line at a time.
+     *
+     * @throws IOException if the activities file cannot be written or read
+     */
+    @Test
+    void parallelIngestMatchesSequentialApply() throws IOException {
+        AccountDatabase parallel = new AccountDatabase();
+        AccountDatabase sequential = new AccountDatabase();
+        AccountNumber[] numbers = addAccounts(parallel, sequential);
+
+        Random random = new Random(12);
+        Branch[] branches = Branch.values();
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            AccountNumber number = numbers[random.nextInt(numbers.length)];
+            boolean deposit = random.nextInt(3) > 0;
+            Date date = Date.valueOf(1 + random.nextInt(12), 1 + random.nextInt(28), 2020 + random.nextInt(5));
+            Branch branch = branches[random.nextInt(branches.length)];
+            long amount = 1 + random.nextInt(100_000);
+            file.append(deposit ? 'D' : 'W').append(',').append(number).append(',').append(date).append(',')
+                    .append(branch.name().toLowerCase()).append(',')
+                    .append(amount / 100).append('.').append(String.format("%02d", amount % 100))
+                    .append(i % 5 == 0 ? "\r\n" : "\n");
+            Account account = sequential.get(sequential.find(number));
+            if (deposit) {
+                account.deposit(date, branch, amount);
+            } else {
+                account.withdraw(date, branch, amount);
+            }
+        }
+        file.append("X,bad\n");
+        Path activities = directory.resolve("activities.txt");
+        Files.writeString(activities, file);
+
+        LoadReport report;
+        try (ActivityIngester ingester = new ActivityIngester(parallel, THREADS)) {
+            report = ingester.ingest(activities);
+        }
+
+        assertEquals(LINES, report.getLoaded());
+        assertEquals(1, report.getRejectedCount());
+        assertEquals(LINES + 1, report.getRejected().get(0).getLineNumber());
+        assertEquals(TestDatabases.dump(sequential), TestDatabases.dump(parallel));
+    }
+
+    /**
+     * Opens the same accounts in two databases: Checking, College Checking, Savings, and Money Market accounts
+     * with the same numbers, holders, and balances.
+     *
+     * @param first  the first database
+     * @param second the second database
+     * @return the numbers of the accounts
+     */
+    private static AccountNumber[] addAccounts(AccountDatabase first, AccountDatabase second) {
+        AccountType[] types = {AccountType.CHECKING, AccountType.COLLEGE_CHECKING, AccountType.SAVINGS,
+                AccountType.MONEY_MARKET};
+        Branch[] branches = Branch.values();
+        Set<Integer> used = new HashSet<>();
+        AccountNumber[] numbers = new AccountNumber[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            AccountType type = types[i % types.length];
+            AccountNumber number;
+            do {
+                number = new AccountNumber(branches[i % branches.length], type);
+            } while (!used.add(number.intValue()));
+            Profile holder = new Profile("First" + i, "Last" + i, Date.valueOf(1 + i % 12, 1 + i % 28, 1990));
+            long balance = 500_000 + i * 100L;
+            first.add(create(number, holder, balance));
+            second.add(create(number, holder, balance));
+            numbers[i] = number;
+        }
+        return numbers;
+    }
+
+    /**
+     * Creates an account with a given number.
+     *
+     * @param number  the number of the account, whose type is the type of account created
+     * @param holder  the holder of the account
+     * @param balance the balance of the account, in cents
+     * @return the new account
+     */
+    private static Account create(AccountNumber number, Profile holder, long balance) {
+        return switch (number.getType()) {
+            case CHECKING -> new Checking(number, holder, balance);
+            case COLLEGE_CHECKING -> new CollegeChecking(number, holder, Campus.values()[0], balance);
+            case SAVINGS -> new Savings(number, holder, balance, false);
+            default -> new MoneyMarket(number, holder, balance, true, 0);
+        };
+    }
+}
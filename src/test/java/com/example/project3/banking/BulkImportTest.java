@@ -0,0 +1,278 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.Date;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that an import of an activities file that is cancelled after a few batches and then resumed, from its
+ * checkpoint file or from the position replayed from a Journal, leaves the database and the quarantine file exactly
+ * as an import of the whole file in one run does.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class BulkImportTest {
+
+    /**
+     * Number of accounts the activities are spread over.
+     */
+    private static final int ACCOUNTS = 50;
+
+    /**
+     * Number of activity lines, every hundredth of them for an account that does not exist.
+     */
+    private static final int LINES = 5_000;
+
+    /**
+     * Number of bytes loaded in each batch, small enough for the file to take dozens of batches.
+     */
+    private static final int BATCH_BYTES = 4096;
+
+    /**
+     * Number of batches loaded before the first run is cancelled.
+     */
+    private static final int BATCHES_BEFORE_CANCEL = 3;
+
+    /**
+     * Directory holding the activities files and the journal.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Cancels an import into a database without a Journal and resumes it from the checkpoint file.
+     *
+     * @throws IOException if a file cannot be written or read
+     */
+    @Test
+    void resumeFromCheckpoint() throws IOException {
+        AccountNumber[] numbers = accountNumbers();
+        String text = activities(numbers);
+        AccountDatabase whole = addAccounts(new AccountDatabase(), numbers);
+        BulkImport single = importWhole(whole, text);
+
+        AccountDatabase resumed = addAccounts(new AccountDatabase(), numbers);
+        Path file = write("resumed", text);
+        BulkImport first = new BulkImport(resumed, file, true, BATCH_BYTES);
+        first.run(new CancelAfter(BATCHES_BEFORE_CANCEL));
+        assertFalse(first.isComplete());
+        assertTrue(first.getOffset() > 0 && first.getOffset() < Files.size(file));
+
+        BulkImport second = new BulkImport(resumed, file, true, BATCH_BYTES);
+        assertEquals(first.getOffset(), second.getOffset());
+        assertEquals(first.getLine(), second.getLine());
+        LoadReport rest = second.run(null);
+        assertEquals(LINES - first.getLoaded() - first.getRejected(), rest.getLoaded() + rest.getRejectedCount());
+
+        assertSameImport(single, whole, second, resumed);
+        assertTrue(new BulkImport(resumed, file, true, BATCH_BYTES).isComplete());
+    }
+
+    /**
+     * Cancels an import into a journaled database, replays the journal into an empty database as after a crash,
+     * and resumes the import from the position restored with the database.
+     *
+     * @throws IOException if a file or the journal cannot be written or read
+     */
+    @Test
+    void resumeFromJournal() throws IOException {
+        AccountNumber[] numbers = accountNumbers();
+        String text = activities(numbers);
+        AccountDatabase whole = addAccounts(new AccountDatabase(), numbers);
+        BulkImport single = importWhole(whole, text);
+
+        Path journalFile = directory.resolve("bank.journal");
+        AccountDatabase crashed = new AccountDatabase();
+        Journal journal = new Journal(journalFile, 1, 0);
+        journal.recover(crashed);
+        addAccounts(crashed, numbers);
+        Path file = write("journaled", text);
+        new BulkImport(crashed, file, true, BATCH_BYTES).run(new CancelAfter(BATCHES_BEFORE_CANCEL));
+        journal.close();
+
+        AccountDatabase resumed = new AccountDatabase();
+        Journal reopened = new Journal(journalFile, 1, 0);
+        assertEquals(0, reopened.recover(resumed).getRejectedCount());
+        assertEquals(TestDatabases.dump(crashed), TestDatabases.dump(resumed));
+        BulkImport second = new BulkImport(resumed, file, true, BATCH_BYTES);
+        assertTrue(second.getOffset() > 0);
+        second.run(null);
+        reopened.close();
+
+        assertSameImport(single, whole, second, resumed);
+        ImportPosition position = resumed.getPosition(BulkImport.SOURCE_PREFIX + file.toAbsolutePath());
+        assertTrue(position.isComplete());
+        assertEquals(Files.size(file), position.getOffset());
+    }
+
+    /**
+     * Imports a copy of an activities file into a database in one run.
+     *
+     * @param database the database the activities are applied to
+     * @param text     the content of the activities file
+     * @return the finished import
+     * @throws IOException if the file cannot be written or read
+     */
+    private BulkImport importWhole(AccountDatabase database, String text) throws IOException {
+        BulkImport single = new BulkImport(database, write("whole", text), true, BATCH_BYTES);
+        LoadReport report = single.run(null);
+        assertEquals(LINES / 100, report.getRejectedCount());
+        assertEquals(LINES - LINES / 100, report.getLoaded());
+        assertTrue(single.isComplete());
+        return single;
+    }
+
+    /**
+     * Checks that a resumed import reached the same totals, database, and quarantine file as a single run.
+     *
+     * @param single   the import done in one run
+     * @param whole    the database of the single run
+     * @param resumed  the import that was cancelled and resumed
+     * @param database the database of the resumed import
+     * @throws IOException if a quarantine file cannot be read
+     */
+    private static void assertSameImport(BulkImport single, AccountDatabase whole, BulkImport resumed,
+                                         AccountDatabase database) throws IOException {
+        assertTrue(resumed.isComplete());
+        assertEquals(single.getOffset(), resumed.getOffset());
+        assertEquals(single.getLine(), resumed.getLine());
+        assertEquals(single.getLoaded(), resumed.getLoaded());
+        assertEquals(single.getRejected(), resumed.getRejected());
+        assertEquals(TestDatabases.dump(whole), TestDatabases.dump(database));
+        assertEquals(Files.readString(single.getQuarantine()), Files.readString(resumed.getQuarantine()));
+    }
+
+    /**
+     * Writes an activities file into a directory of its own, so each import has its own checkpoint and quarantine.
+     *
+     * @param name the name of the directory
+     * @param text the content of the file
+     * @return the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path write(String name, String text) throws IOException {
+        Path file = Files.createDirectory(directory.resolve(name)).resolve("activities.txt");
+        Files.writeString(file, text);
+        return file;
+    }
+
+    /**
+     * Chooses distinct numbers for the Checking accounts the activities are applied to.
+     *
+     * @return the account numbers
+     */
+    private static AccountNumber[] accountNumbers() {
+        Branch[] branches = Branch.values();
+        Set<Integer> used = new HashSet<>();
+        AccountNumber[] numbers = new AccountNumber[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            do {
+                numbers[i] = new AccountNumber(branches[i % branches.length], AccountType.CHECKING);
+            } while (!used.add(numbers[i].intValue()));
+        }
+        return numbers;
+    }
+
+    /**
+     * Opens a Checking account for each of the given numbers.
+     *
+     * @param database the database the accounts are added to
+     * @param numbers  the numbers of the accounts
+     * @return the same database
+     */
+    private static AccountDatabase addAccounts(AccountDatabase database, AccountNumber[] numbers) {
+        for (int i = 0; i < numbers.length; i++) {
+            Profile holder = new Profile("First" + i, "Last" + i, Date.valueOf(1 + i % 12, 1 + i % 28, 1990));
+            database.add(new Checking(numbers[i], holder, 1_000_000));
+        }
+        return database;
+    }
+
+    /**
+     * Writes random deposits and withdrawals to the given accounts, with every hundredth line for an account that
+     * does not exist so that the import quarantines it.
+     *
+     * @param numbers the numbers of the accounts
+     * @return the content of the activities file
+     */
+    private static String activities(AccountNumber[] numbers) {
+        Random random = new Random(20);
+        Branch[] branches = Branch.values();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            String number = i % 100 == 99 ? "999999999" : numbers[random.nextInt(numbers.length)].toString();
+            Date date = Date.valueOf(1 + random.nextInt(12), 1 + random.nextInt(28), 2024);
+            long amount = 1 + random.nextInt(10_000);
+            text.append(random.nextBoolean() ? 'D' : 'W').append(',').append(number).append(',').append(date)
+                    .append(',').append(branches[random.nextInt(branches.length)].name().toLowerCase()).append(',')
+                    .append(amount / 100).append('.').append(String.format("%02d", amount % 100)).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Cancels an import once a number of batches are loaded.
+     */
+    private static class CancelAfter implements Progress {
+
+        /**
+         * Number of batches loaded before the import is cancelled.
+         */
+        private final int batches;
+
+        /**
+         * Number of batches loaded so far.
+         */
+        private int finished;
+
+        /**
+         * Creates a Progress that cancels an import after the given number of batches.
+         *
+         * @param batches the number of batches loaded before the import is cancelled
+         */
+        CancelAfter(int batches) {
+            this.batches = batches;
+        }
+
+        /**
+         * Ignores the progress of the import.
+         *
+         * @param done  the number of kilobytes committed
+         * @param total the size of the file in kilobytes
+         */
+        @Override
+        public void update(int done, int total) {
+        }
+
+        /**
+         * Counts the batches loaded.
+         *
+         * @param batch the report of the batch
+         */
+        @Override
+        public void batchFinished(LoadReport batch) {
+            finished++;
+        }
+
+        /**
+         * Checks if enough batches are loaded.
+         *
+         * @return true once the given number of batches are loaded
+         */
+        @Override
+        public boolean isCancelled() {
+            return finished >= batches;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.project3.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that replaying a Journal into an empty database restores the accounts, the closed accounts, the activities,
+ * and the import positions recorded in it, and that a record cut short by a crash is dropped.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class JournalTest {
+
+    /**
+     * Directory holding the journal file.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Records changes of every kind in a journal and replays them into an empty database.
+     *
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replayRestoresEveryChange() throws IOException {
+        Path file = directory.resolve("bank.journal");
+        AccountDatabase database = new AccountDatabase();
+        Journal journal = new Journal(file, 1, 0);
+        journal.recover(database);
+        TestDatabases.fill(database);
+        journal.close();
+
+        AccountDatabase replayed = new AccountDatabase();
+        Journal reopened = new Journal(file, 1, 0);
+        LoadReport report = reopened.recover(replayed);
+        reopened.close();
+
+        assertEquals(0, report.getRejectedCount());
+        assertEquals(TestDatabases.dump(database), TestDatabases.dump(replayed));
+        assertEquals(database.getSequence(), replayed.getSequence());
+        ImportPosition position = replayed.getPosition(TestDatabases.SOURCE);
+        assertNotNull(position);
+        assertEquals(TestDatabases.OFFSET, position.getOffset());
+        assertEquals(TestDatabases.LINE, position.getLine());
+    }
+
+    /**
+     * Cuts the last record of a journal short and checks that only that record is lost.
+     *
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void tornRecordIsDropped() throws IOException {
+        Path file = directory.resolve("bank.journal");
+        AccountDatabase database = new AccountDatabase();
+        Journal journal = new Journal(file, 1, 0);
+        journal.recover(database);
+        TestDatabases.fill(database);
+        String before = TestDatabases.dump(database);
+        AccountNumber number = database.get(0).getAccountNumber();
+        database.deposit(number, 777);
+        journal.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        AccountDatabase replayed = new AccountDatabase();
+        Journal reopened = new Journal(file, 1, 0);
+        reopened.recover(replayed);
+        reopened.close();
+
+        assertEquals(before, TestDatabases.dump(replayed));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.project3.banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that restoring a Snapshot gives back the accounts, closed accounts, activities, and import positions saved,
+ * and that a corrupt snapshot leaves the database unchanged.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class SnapshotTest {
+
+    /**
+     * Directory holding the snapshot file.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Saves a database and restores it into an empty one, both on the heap and in an AccountTable.
+     *
+     * @throws IOException if the snapshot cannot be written or read
+     */
+    @Test
+    void restoreGivesBackWhatWasSaved() throws IOException {
+        AccountDatabase database = TestDatabases.fill(new AccountDatabase());
+        Path file = directory.resolve("bank.snapshot");
+        Snapshot.save(database, file);
+
+        AccountDatabase restored = new AccountDatabase();
+        Snapshot.restore(file, restored);
+        assertEquals(TestDatabases.dump(database), TestDatabases.dump(restored));
+        assertEquals(database.getSequence(), restored.getSequence());
+        ImportPosition position = restored.getPosition(TestDatabases.SOURCE);
+        assertNotNull(position);
+        assertEquals(TestDatabases.OFFSET, position.getOffset());
+        assertEquals(TestDatabases.LINE, position.getLine());
+
+        AccountDatabase stored = new ConcurrentAccountDatabase(new AccountTable(), 4);
+        Snapshot.restore(file, stored);
+        assertEquals(TestDatabases.dump(database), TestDatabases.dump(stored));
+    }
+
+    /**
+     * Restores a snapshot cut short and checks that the database is left empty.
+     *
+     * @throws IOException if the snapshot cannot be written or read
+     */
+    @Test
+    void truncatedSnapshotLeavesDatabaseEmpty() throws IOException {
+        Path file = directory.resolve("bank.snapshot");
+        Snapshot.save(TestDatabases.fill(new AccountDatabase()), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = directory.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+
+        AccountDatabase restored = new AccountDatabase();
+        assertThrows(IOException.class, () -> Snapshot.restore(truncated, restored));
+        assertTrue(restored.isEmpty());
+        assertTrue(restored.getArchive().isEmpty());
+    }
+}
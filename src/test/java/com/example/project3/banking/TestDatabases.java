@@ -0,0 +1,84 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.Date;
+
+/**
+ * Builds the databases shared by the tests of the banking package, and describes a database so that two of them
+ * can be compared as text.
+ * It only has static methods and is never instantiated.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+final class TestDatabases {
+
+    /**
+     * Name of the import position recorded by fill.
+     */
+    static final String SOURCE = "import:accounts.txt";
+
+    /**
+     * Byte offset of the import position recorded by fill.
+     */
+    static final long OFFSET = 1484;
+
+    /**
+     * Line number of the import position recorded by fill.
+     */
+    static final int LINE = 32;
+
+    /**
+     * Prevents instances, as the class only has static methods.
+     */
+    private TestDatabases() {
+    }
+
+    /**
+     * Opens accounts of every type, makes deposits and withdrawals, closes an account, and records an import position.
+     * Every change goes through the database, so a Journal attached to it records them all.
+     *
+     * @param database the database being filled
+     * @return the same database
+     */
+    static AccountDatabase fill(AccountDatabase database) {
+        Profile holder = new Profile("John", "Doe", Date.valueOf(2, 19, 2000));
+        Profile other = new Profile("Jane", "Roe", Date.valueOf(3, 1, 1995));
+        database.add(new Checking(Branch.EDISON, AccountType.CHECKING, holder, 50_000));
+        database.add(new Savings(Branch.WARREN, AccountType.SAVINGS, holder, 100_000, true));
+        database.add(new MoneyMarket(Branch.PRINCETON, AccountType.MONEY_MARKET, other, 600_000, false));
+        database.add(new CollegeChecking(Branch.PISCATAWAY, AccountType.COLLEGE_CHECKING, other, Campus.values()[0],
+                20_000));
+        database.add(new CertificateDeposit(Branch.BRIDGEWATER, AccountType.CD, other, 12, Date.valueOf(1, 15, 2024),
+                150_000));
+        for (int i = 0; i < database.size(); i++) {
+            AccountNumber number = database.get(i).getAccountNumber();
+            database.deposit(number, 1_000 + i);
+            database.withdraw(number, 500);
+        }
+        database.withdraw(database.get(2).getAccountNumber(), 150_000);
+        database.closeAccount(database.get(0), Date.valueOf(5, 1, 2025));
+        database.setPosition(new ImportPosition(SOURCE, OFFSET, LINE, 30, 0, 0, true));
+        return database;
+    }
+
+    /**
+     * Describes every account of a database with its balance, withdrawal count, and activities in order,
+     * and then every closed account.
+     *
+     * @param database the database
+     * @return the description of the accounts, in the order of the database, and then of the closed accounts
+     */
+    static String dump(AccountDatabase database) {
+        StringBuilder text = new StringBuilder();
+        for (Account account : database) {
+            text.append(account).append(' ').append(account.getBalance());
+            if (account instanceof MoneyMarket moneyMarket) {
+                text.append(" withdrawals ").append(moneyMarket.getWithdrawals());
+            }
+            text.append('\n').append(account.statement());
+        }
+        for (AccountNode node : database.getArchive()) {
+            text.append(node).append('\n');
+        }
+        return text.toString();
+    }
+}
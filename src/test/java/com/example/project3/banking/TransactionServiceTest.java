@@ -0,0 +1,195 @@
+package com.example.project3.banking;
+
+import com.example.project3.util.Date;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks the status, balance, and messages a TransactionService answers each kind of request with,
+ * and that the accounts it opens and closes on a journaled database are in the Journal once the requests complete.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class TransactionServiceTest {
+
+    /**
+     * Date of birth of the holder of the accounts opened by the tests.
+     */
+    private static final Date BORN = Date.valueOf(1, 1, 1990);
+
+    /**
+     * Directory holding the journal file.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Opens an account for John Doe at the Edison branch.
+     *
+     * @param service     the service carrying out the request
+     * @param accountType the type of account to open
+     * @param balance     the opening balance, in cents
+     * @return the result of the request
+     * @throws InterruptedException if the thread is interrupted while waiting for the result
+     * @throws ExecutionException   if the request fails
+     */
+    private static TransactionResult open(TransactionService service, AccountType accountType, long balance)
+            throws InterruptedException, ExecutionException {
+        return service.openAccount("John", "Doe", BORN, accountType, Branch.EDISON, balance, null, 0, null).get();
+    }
+
+    /**
+     * Checks that a result has the given status and only the given message.
+     *
+     * @param status  the status the result should have
+     * @param message the message the result should have
+     * @param result  the result of a request
+     */
+    private static void assertResult(TransactionStatus status, String message, TransactionResult result) {
+        assertEquals(status, result.getStatus());
+        assertEquals(1, result.getMessages().size());
+        assertEquals(message, result.getMessages().get(0));
+    }
+
+    /**
+     * Opens accounts and refuses holders, duplicates, and opening balances the bank does not accept.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void openAccountMessages() throws Exception {
+        try (TransactionService service = new TransactionService(new AccountDatabase())) {
+            TransactionResult opened = open(service, AccountType.CHECKING, 100_000);
+            AccountNumber number = opened.getAccountNumber();
+            assertNotNull(number);
+            assertEquals(100_000, opened.getBalance());
+            assertResult(TransactionStatus.COMPLETED, "CHECKING account " + number + " has been opened.", opened);
+            assertResult(TransactionStatus.DUPLICATE, "John Doe already has a CHECKING account.",
+                    open(service, AccountType.CHECKING, 100_000));
+            assertResult(TransactionStatus.INVALID, "Minimum of $2,000 to open a Money Market account.",
+                    open(service, AccountType.MONEY_MARKET, 199_999));
+            assertResult(TransactionStatus.INVALID, "Initial deposit cannot be 0 or negative.",
+                    open(service, AccountType.SAVINGS, 0));
+            assertResult(TransactionStatus.INVALID, "Not eligible to open: 1/1/1990 over 24.",
+                    open(service, AccountType.COLLEGE_CHECKING, 100_000));
+            LocalDate child = LocalDate.now().minusYears(10);
+            Date born = Date.valueOf(child.getMonthValue(), child.getDayOfMonth(), child.getYear());
+            assertResult(TransactionStatus.INVALID, "Not eligible to open: " + born + " under 18.",
+                    service.openAccount("Jane", "Roe", born, AccountType.CHECKING, Branch.EDISON, 100_000, null, 0,
+                            null).get());
+            assertResult(TransactionStatus.INVALID, "Select Branch", service.openAccount("Jane", "Roe", BORN,
+                    AccountType.CHECKING, null, 100_000, null, 0, null).get());
+            assertResult(TransactionStatus.INVALID, "Name invalid", service.openAccount("", "Roe", BORN,
+                    AccountType.CHECKING, Branch.EDISON, 100_000, null, 0, null).get());
+        }
+    }
+
+    /**
+     * Deposits to and withdraws from a Checking and a Money Market account, including amounts the accounts do not
+     * cover and amounts that are not positive.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void depositAndWithdrawMessages() throws Exception {
+        try (TransactionService service = new TransactionService(new AccountDatabase())) {
+            AccountNumber checking = open(service, AccountType.CHECKING, 100_000).getAccountNumber();
+            AccountNumber moneyMarket = open(service, AccountType.MONEY_MARKET, 250_000).getAccountNumber();
+
+            TransactionResult deposited = service.deposit(checking, 123_456).get();
+            assertResult(TransactionStatus.COMPLETED, "$1,234.56 deposited to " + checking, deposited);
+            assertEquals(223_456, deposited.getBalance());
+            assertResult(TransactionStatus.INVALID, "0.00 - deposit amount cannot be 0 or negative.",
+                    service.deposit(checking, 0).get());
+            assertResult(TransactionStatus.INVALID, "-0.05 withdrawal amount cannot be 0 or negative.",
+                    service.withdraw(checking, -5).get());
+
+            TransactionResult withdrawn = service.withdraw(checking, 23_456).get();
+            assertResult(TransactionStatus.COMPLETED, "$234.56 withdrawn from " + checking, withdrawn);
+            assertEquals(200_000, withdrawn.getBalance());
+            TransactionResult refused = service.withdraw(checking, 500_000).get();
+            assertResult(TransactionStatus.INSUFFICIENT_FUNDS, "$5,000.00 - insufficient funds.", refused);
+            assertEquals(200_000, refused.getBalance());
+
+            assertResult(TransactionStatus.COMPLETED, moneyMarket + " balance below $2,000 - $600.00 withdrawn from "
+                    + moneyMarket, service.withdraw(moneyMarket, 60_000).get());
+            assertResult(TransactionStatus.INSUFFICIENT_FUNDS, moneyMarket
+                    + " balance below $2,000 - withdrawing $5,000.00 - insufficient funds.",
+                    service.withdraw(moneyMarket, 500_000).get());
+        }
+    }
+
+    /**
+     * Closes an account and then every account of its holder, and checks the interest reported and the requests
+     * refused once the accounts are gone.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void closeMessages() throws Exception {
+        try (TransactionService service = new TransactionService(new AccountDatabase())) {
+            AccountNumber checking = open(service, AccountType.CHECKING, 115_000).getAccountNumber();
+            open(service, AccountType.SAVINGS, 50_000);
+            open(service, AccountType.MONEY_MARKET, 300_000);
+
+            //$1,150.00 at 1.5% for the 10 days of the month of closing is $0.4726
+            TransactionResult closed = service.closeAccount(checking, Date.valueOf(5, 10, 2025)).get();
+            assertEquals(TransactionStatus.COMPLETED, closed.getStatus());
+            assertEquals(2, closed.getMessages().size());
+            assertEquals("Closing account " + checking, closed.getMessages().get(0));
+            assertEquals("--interest earned: $0.47", closed.getMessages().get(1));
+            assertEquals(115_000, closed.getBalance());
+            assertResult(TransactionStatus.NOT_FOUND, checking + " account does not exist.",
+                    service.closeAccount(checking, Date.valueOf(5, 10, 2025)).get());
+            assertResult(TransactionStatus.NOT_FOUND, checking + " does not exist.",
+                    service.deposit(checking, 100).get());
+
+            TransactionResult all = service.closeAccounts("John", "Doe", BORN, Date.valueOf(5, 10, 2025)).get();
+            assertEquals(TransactionStatus.COMPLETED, all.getStatus());
+            assertEquals(4, all.getMessages().size());
+            assertEquals("Closing accounts for John Doe 1/1/1990", all.getMessages().get(0));
+            assertEquals("All accounts for John Doe 1/1/1990 are closed and moved to archive.",
+                    all.getMessages().get(3));
+            assertResult(TransactionStatus.NOT_FOUND, "John Doe 1/1/1990 does not have any accounts in the database.",
+                    service.closeAccounts("John", "Doe", BORN, Date.valueOf(5, 10, 2025)).get());
+            assertResult(TransactionStatus.INVALID, "Date input Invalid",
+                    service.closeAccounts("John", "Doe", BORN, null).get());
+        }
+    }
+
+    /**
+     * Carries out requests on a journaled ConcurrentAccountDatabase and replays the journal into an empty database,
+     * which must then hold the same accounts, as each request completes only once its changes are durable.
+     *
+     * @throws Exception if a request fails or the journal cannot be written or read
+     */
+    @Test
+    void completedRequestsAreJournaled() throws Exception {
+        Path file = directory.resolve("bank.journal");
+        ConcurrentAccountDatabase database = new ConcurrentAccountDatabase();
+        Journal journal = new Journal(file, 8, 5);
+        journal.recover(database);
+        try (TransactionService service = new TransactionService(database)) {
+            AccountNumber checking = open(service, AccountType.CHECKING, 100_000).getAccountNumber();
+            AccountNumber savings = open(service, AccountType.SAVINGS, 50_000).getAccountNumber();
+            assertEquals(TransactionStatus.COMPLETED, service.deposit(savings, 2_500).get().getStatus());
+            assertEquals(TransactionStatus.COMPLETED, service.withdraw(checking, 7_500).get().getStatus());
+            assertEquals(TransactionStatus.COMPLETED,
+                    service.closeAccount(checking, Date.valueOf(5, 10, 2025)).get().getStatus());
+        }
+        journal.close();
+
+        AccountDatabase replayed = new AccountDatabase();
+        Journal reopened = new Journal(file, 1, 0);
+        assertEquals(0, reopened.recover(replayed).getRejectedCount());
+        reopened.close();
+        assertEquals(TestDatabases.dump(database), TestDatabases.dump(replayed));
+    }
+}
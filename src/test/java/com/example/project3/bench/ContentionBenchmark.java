@@ -0,0 +1,163 @@
+package com.example.project3.bench;
+
+import com.example.project3.banking.AccountDatabase;
+import com.example.project3.banking.AccountNumber;
+import com.example.project3.banking.AccountType;
+import com.example.project3.banking.Branch;
+import com.example.project3.banking.Checking;
+import com.example.project3.banking.ConcurrentAccountDatabase;
+import com.example.project3.banking.Journal;
+import com.example.project3.banking.Profile;
+import com.example.project3.util.Date;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The ContentionBenchmark class measures how many deposits and withdrawals per second a ConcurrentAccountDatabase
+ * completes when it takes the stripe locks and when it is lock-free, without a Journal and with one attached.
+ * Each mode runs two workloads: every thread picks random accounts among many, so threads rarely meet,
+ * and every thread works on the same few hot accounts, so they always meet.
+ * Each run is repeated after a warm-up run of the same length, and the operations per second of the second run are printed.
+ * The benchmark is kept with the tests and run by hand, so it is not part of the program.
+ * <p>
+ * Arguments: the number of threads (default: the number of processors), and the length of a run in seconds (default 2).
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+public class ContentionBenchmark {
+
+    /**
+     * Number of accounts shared by the threads in the spread-out workload.
+     */
+    private static final int SPREAD_ACCOUNTS = 10_000;
+
+    /**
+     * Number of accounts shared by the threads in the hot-account workload.
+     */
+    private static final int HOT_ACCOUNTS = 1;
+
+    /**
+     * Balance each account opens with, in cents, so that most withdrawals succeed.
+     */
+    private static final long OPENING_BALANCE = 100_000_000;
+
+    /**
+     * Amount of each deposit and withdrawal, in cents.
+     */
+    private static final long AMOUNT = 100;
+
+    /**
+     * Set by the main thread to stop the running threads.
+     */
+    private static volatile boolean stop;
+
+    /**
+     * Runs every mode and workload, and prints the operations per second of each.
+     *
+     * @param args the number of threads and the length of a run in seconds, both optional
+     * @throws InterruptedException if the main thread is interrupted while the threads run
+     * @throws IOException          if a journal cannot be written
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        System.out.println("Threads: " + threads + ", " + seconds + " s per run");
+        Path directory = Files.createTempDirectory("bench");
+        for (boolean journaled : new boolean[]{false, true}) {
+            for (int accounts : new int[]{SPREAD_ACCOUNTS, HOT_ACCOUNTS}) {
+                for (boolean lockFree : new boolean[]{false, true}) {
+                    ConcurrentAccountDatabase database = new ConcurrentAccountDatabase(null,
+                            ConcurrentAccountDatabase.DEFAULT_STRIPES, lockFree);
+                    Path file = directory.resolve("bench.journal");
+                    Journal journal = journaled ? new Journal(file) : null;
+                    if (journal != null) {
+                        journal.recover(database);
+                    }
+                    AccountNumber[] numbers = open(database, accounts);
+                    run(database, numbers, threads, seconds);
+                    long operations = run(database, numbers, threads, seconds);
+                    if (journal != null) {
+                        journal.close();
+                        Files.delete(file);
+                    }
+                    System.out.printf("%-9s %-10s %6d accounts: %,15.0f ops/s%n", lockFree ? "lock-free" : "locked",
+                            journaled ? "journaled" : "in memory", accounts, operations / (double) seconds);
+                }
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Opens the accounts the threads work on.
+     *
+     * @param database the database the accounts are opened in
+     * @param accounts the number of accounts
+     * @return the numbers of the accounts
+     */
+    private static AccountNumber[] open(AccountDatabase database, int accounts) {
+        AccountNumber[] numbers = new AccountNumber[accounts];
+        Date dateOfBirth = new Date(1, 1, 1990);
+        for (int i = 0; i < accounts; i++) {
+            Checking account = new Checking(Branch.values()[i % Branch.values().length], AccountType.CHECKING,
+                    new Profile("Holder" + i, "Bench", dateOfBirth), OPENING_BALANCE);
+            database.add(account);
+            numbers[i] = account.getAccountNumber();
+        }
+        return numbers;
+    }
+
+    /**
+     * Makes every thread deposit to and withdraw from random accounts for the given time.
+     *
+     * @param database the database the transactions are made in
+     * @param numbers  the numbers of the accounts the threads work on
+     * @param threads  the number of threads
+     * @param seconds  the length of the run in seconds
+     * @return the number of transactions made by all the threads
+     * @throws InterruptedException if the main thread is interrupted while the threads run
+     */
+    private static long run(AccountDatabase database, AccountNumber[] numbers, int threads, int seconds)
+            throws InterruptedException {
+        long[] counts = new long[threads];
+        Thread[] workers = new Thread[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        stop = false;
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop) {
+                    AccountNumber number = numbers[random.nextInt(numbers.length)];
+                    if (random.nextBoolean()) {
+                        database.deposit(number, AMOUNT);
+                    } else {
+                        database.withdraw(number, AMOUNT);
+                    }
+                    count++;
+                }
+                counts[worker] = count;
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        stop = true;
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += counts[t];
+        }
+        return total;
+    }
+}
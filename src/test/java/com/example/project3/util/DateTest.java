@@ -0,0 +1,123 @@
+package com.example.project3.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the epoch day arithmetic of Date agrees with LocalDate, including leap years and the ends of months,
+ * and that parsed dates are the canonical cached Date.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class DateTest {
+
+    /**
+     * First day checked by the tests that walk a range of days.
+     */
+    private static final LocalDate FIRST = LocalDate.of(1600, 1, 1);
+
+    /**
+     * Day after the last day checked by the tests that walk a range of days.
+     */
+    private static final LocalDate LAST = LocalDate.of(2401, 1, 1);
+
+    /**
+     * Converts every day of eight centuries to and from an epoch day and compares the result with LocalDate.
+     */
+    @Test
+    void epochDayMatchesLocalDate() {
+        for (LocalDate local = FIRST; local.isBefore(LAST); local = local.plusDays(1)) {
+            int epochDay = (int) local.toEpochDay();
+            Date date = Date.ofEpochDay(epochDay);
+            assertEquals(local.getYear(), date.getYear());
+            assertEquals(local.getMonthValue(), date.getMonth());
+            assertEquals(local.getDayOfMonth(), date.getDay());
+            assertEquals(epochDay, date.toEpochDay());
+            assertEquals(epochDay, new Date(local.getMonthValue(), local.getDayOfMonth(), local.getYear())
+                    .toEpochDay());
+        }
+        assertEquals(0, Date.valueOf(1, 1, 1970).toEpochDay());
+        assertEquals(-1, Date.valueOf(12, 31, 1969).toEpochDay());
+    }
+
+    /**
+     * Checks that a day or month outside the usual range rolls over into the neighbouring months.
+     */
+    @Test
+    void outOfRangeFieldsRollOver() {
+        assertEquals(Date.valueOf(3, 2, 2023).toEpochDay(), new Date(2, 30, 2023).toEpochDay());
+        assertEquals(Date.valueOf(1, 31, 2025).toEpochDay(), new Date(13, 31, 2024).toEpochDay());
+        assertEquals(Date.valueOf(11, 30, 2023).toEpochDay(), new Date(12, 0, 2023).toEpochDay());
+    }
+
+    /**
+     * Adds months to days at the ends of months, where a missing day becomes the last day of the new month.
+     */
+    @Test
+    void addMonthsClampsToTheEndOfTheMonth() {
+        assertEquals(Date.valueOf(2, 29, 2024), Date.valueOf(1, 31, 2024).addMonths(1));
+        assertEquals(Date.valueOf(2, 28, 2023), Date.valueOf(1, 31, 2023).addMonths(1));
+        assertEquals(Date.valueOf(2, 28, 2025), Date.valueOf(2, 29, 2024).addMonths(12));
+        assertEquals(Date.valueOf(2, 29, 2028), Date.valueOf(2, 29, 2024).addMonths(48));
+        assertEquals(Date.valueOf(4, 30, 2024), Date.valueOf(3, 31, 2024).addMonths(1));
+        assertEquals(Date.valueOf(1, 15, 2025), Date.valueOf(1, 15, 2024).addMonths(12));
+        assertEquals(Date.valueOf(12, 31, 2023), Date.valueOf(3, 31, 2024).addMonths(-3));
+        for (LocalDate local = LocalDate.of(1999, 1, 1); local.getYear() < 2002; local = local.plusDays(1)) {
+            Date date = Date.valueOf(local.getMonthValue(), local.getDayOfMonth(), local.getYear());
+            for (int months = -25; months <= 25; months++) {
+                LocalDate expected = local.plusMonths(months);
+                assertEquals(expected.toEpochDay(), date.addMonths(months).toEpochDay());
+            }
+        }
+    }
+
+    /**
+     * Checks the leap year rules for years divisible by 4, 100, and 400.
+     */
+    @Test
+    void leapYears() {
+        assertTrue(Date.valueOf(1, 1, 2024).isLeapYear());
+        assertTrue(Date.valueOf(1, 1, 2000).isLeapYear());
+        assertFalse(Date.valueOf(1, 1, 1900).isLeapYear());
+        assertFalse(Date.valueOf(1, 1, 2023).isLeapYear());
+        assertEquals(Date.valueOf(3, 1, 2100), Date.ofEpochDay(Date.valueOf(2, 28, 2100).toEpochDay() + 1));
+        assertEquals(Date.valueOf(2, 29, 2000), Date.ofEpochDay(Date.valueOf(2, 28, 2000).toEpochDay() + 1));
+    }
+
+    /**
+     * Parses dates with and without leading zeros and checks that days from 1900 to 2100 are the cached Date.
+     */
+    @Test
+    void parseReturnsTheCachedDate() {
+        Date date = Date.parse("03/14/2024");
+        assertEquals(Date.valueOf(3, 14, 2024), date);
+        assertSame(Date.valueOf(3, 14, 2024), date);
+        assertSame(date, Date.parse("3/14/2024"));
+        assertSame(date, Date.ofEpochDay(date.toEpochDay()));
+        assertSame(date, Date.valueOf(2, 14, 2024).addMonths(1));
+        assertSame(date, Date.parse("O,C,3/14/2024,1", 4, 13));
+        Date old = Date.parse("7/4/1776");
+        assertEquals(Date.valueOf(7, 4, 1776), old);
+        assertNotSame(old, Date.valueOf(7, 4, 1776));
+        assertEquals(Date.valueOf(3, 2, 2023).toEpochDay(), Date.parse("2/30/2023").toEpochDay());
+    }
+
+    /**
+     * Checks that text which is not three numbers separated by '/' is refused.
+     */
+    @Test
+    void parseRefusesInvalidText() {
+        for (String text : new String[]{"", "3/14", "3/14/", "/14/2024", "3//2024", "3/14/2024/1", "3-14-2024",
+                "a/1/2024", " 3/14/2024", "3/14/2024 ", "1234567890/1/2024"}) {
+            assertThrows(NumberFormatException.class, () -> Date.parse(text));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.project3.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that an IntHashIndex finds every entry left after removals, which shift the entries that follow in the
+ * same probe sequence back into the freed slot, and that it keeps the entries of a key stored more than once apart.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class IntHashIndexTest {
+
+    /**
+     * Removes entries from the middle of long probe sequences and checks that every other entry is still found.
+     */
+    @Test
+    void removeKeepsTheRestReachable() {
+        IntHashIndex index = new IntHashIndex();
+        Map<Integer, Integer> expected = new HashMap<>();
+        //keys that differ only in their high bits crowd the same few home slots
+        for (int i = 0; i < 200; i++) {
+            int key = i << 20;
+            index.put(key, i);
+            expected.put(key, i);
+        }
+        for (int i = 1; i < 200; i += 3) {
+            assertTrue(index.remove(i << 20, i));
+            expected.remove(i << 20);
+        }
+        assertEquals(expected.size(), index.size());
+        for (int i = 0; i < 200; i++) {
+            Integer value = expected.get(i << 20);
+            assertEquals(value == null ? IntHashIndex.NOT_FOUND : value, index.get(i << 20));
+        }
+    }
+
+    /**
+     * Mixes random puts and removes over a small range of keys and compares the index with a HashMap.
+     */
+    @Test
+    void matchesAHashMap() {
+        IntHashIndex index = new IntHashIndex();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(500) - 250;
+            Integer value = expected.get(key);
+            if (value == null) {
+                index.put(key, step);
+                expected.put(key, step);
+            } else {
+                assertTrue(index.remove(key, value));
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        for (int key = -250; key < 250; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? IntHashIndex.NOT_FOUND : value, index.get(key));
+        }
+    }
+
+    /**
+     * Stores a key three times and removes and replaces its entries one at a time.
+     */
+    @Test
+    void duplicateKeysAreSeparateEntries() {
+        IntHashIndex index = new IntHashIndex();
+        index.put(7, 1);
+        index.put(7, 2);
+        index.put(7, 3);
+        assertEquals(3, index.size());
+        assertFalse(index.remove(7, 4));
+        assertTrue(index.remove(7, 2));
+        assertFalse(index.remove(7, 2));
+        assertTrue(index.replace(7, 3, 5));
+        assertFalse(index.replace(7, 3, 6));
+        ArrayList<Integer> left = new ArrayList<>();
+        while (index.get(7) != IntHashIndex.NOT_FOUND) {
+            int value = index.get(7);
+            left.add(value);
+            assertTrue(index.remove(7, value));
+        }
+        left.sort(null);
+        assertEquals(Arrays.asList(1, 5), left);
+        assertEquals(0, index.size());
+    }
+
+    /**
+     * Checks that negative values, which mark free slots, are refused.
+     */
+    @Test
+    void negativeValuesAreRefused() {
+        IntHashIndex index = new IntHashIndex();
+        assertThrows(IllegalArgumentException.class, () -> index.put(1, -1));
+        index.put(1, 0);
+        assertThrows(IllegalArgumentException.class, () -> index.replace(1, 0, -2));
+        assertEquals(0, index.get(1));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.project3.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that Money parses, scales, and formats amounts the way BigDecimal and DecimalFormat do,
+ * rounding halves to the even cent, and that it refuses text that is not an amount.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class MoneyTest {
+
+    /**
+     * Parses amounts with more than two decimal places, where only an exact half rounds to the even cent.
+     */
+    @Test
+    void parseRoundsHalfToEven() {
+        assertEquals(12, Money.parse("0.125"));
+        assertEquals(14, Money.parse("0.135"));
+        assertEquals(13, Money.parse("0.1251"));
+        assertEquals(12, Money.parse("0.1249"));
+        assertEquals(-12, Money.parse("-0.125"));
+        assertEquals(-14, Money.parse("-0.135"));
+        assertEquals(150_000, Money.parse(" 1500 "));
+        assertEquals(-2_050, Money.parse("-20.5"));
+        assertEquals(5, Money.parse("+.05"));
+        assertEquals(Long.MIN_VALUE, Money.parse("-92233720368547758.08"));
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07"));
+    }
+
+    /**
+     * Parses random amounts with up to four decimal places and compares them with BigDecimal.
+     */
+    @Test
+    void parseMatchesBigDecimal() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(5));
+            long expected = amount.movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+            assertEquals(expected, Money.parse(amount.toPlainString()));
+        }
+    }
+
+    /**
+     * Checks that text which is not an amount, or an amount too large for a long, is refused.
+     */
+    @Test
+    void parseRefusesInvalidText() {
+        for (String text : new String[]{"", " ", "-", ".", "1.2.3", "12a", "1,000", "--1", "92233720368547758.08"}) {
+            assertThrows(NumberFormatException.class, () -> Money.parse(text));
+        }
+    }
+
+    /**
+     * Parses an amount from the middle of a longer sequence of characters.
+     */
+    @Test
+    void parsePartOfText() {
+        String line = "D,C,100.255,1/2/2025";
+        assertEquals(10_026, Money.parse(line, 4, 11));
+    }
+
+    /**
+     * Formats amounts and compares them with DecimalFormat using the same pattern.
+     */
+    @Test
+    void formatMatchesDecimalFormat() {
+        assertEquals("12,345.67", Money.format(1_234_567));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("0.00", Money.format(0));
+        assertEquals("-92,233,720,368,547,758.08", Money.format(Long.MIN_VALUE));
+        DecimalFormat decimalFormat = new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.US));
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long cents = random.nextLong() >> random.nextInt(64);
+            assertEquals(decimalFormat.format(BigDecimal.valueOf(cents, 2)), Money.format(cents));
+        }
+    }
+
+    /**
+     * Scales amounts by fractions, including products too large for a long, and compares them with BigDecimal.
+     */
+    @Test
+    void scaleMatchesBigDecimal() {
+        assertEquals(2, Money.scale(5, 1, 2));
+        assertEquals(4, Money.scale(7, 1, 2));
+        assertEquals(-2, Money.scale(-5, 1, 2));
+        assertEquals(Long.MAX_VALUE / 3, Money.scale(Long.MAX_VALUE, 1_000, 3_000));
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long cents = random.nextLong() >> random.nextInt(64);
+            long numerator = random.nextInt(Money.BASIS_POINTS) - Money.BASIS_POINTS / 2;
+            long denominator = Money.BASIS_POINTS * 12L;
+            long expected = BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(numerator))
+                    .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_EVEN).longValueExact();
+            assertEquals(expected, Money.scale(cents, numerator, denominator));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Money.scale(1, 1, 0));
+    }
+}
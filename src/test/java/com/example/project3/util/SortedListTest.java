@@ -0,0 +1,124 @@
+package com.example.project3.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a SortedList stays in order and balanced as elements are added and removed in any order,
+ * that elements which compare as equal keep the order they were added in, and that its iterators are fail-fast.
+ *
+ * @author Vishal Saravanan, Yining Chen
+ */
+class SortedListTest {
+
+    /**
+     * Number of elements added by the tests that fill a list.
+     */
+    private static final int COUNT = 100_000;
+
+    /**
+     * Adds elements in ascending and then descending order, which would make an unbalanced tree as deep as the list
+     * is long and overflow the stack of the recursive insert, and checks the order of the result.
+     */
+    @Test
+    void sortedInputStaysBalanced() {
+        SortedList<Integer> list = new SortedList<>(Comparator.naturalOrder());
+        for (int i = 0; i < COUNT; i++) {
+            list.add(2 * i);
+        }
+        for (int i = COUNT - 1; i >= 0; i--) {
+            list.add(2 * i + 1);
+        }
+        assertEquals(2 * COUNT, list.size());
+        int expected = 0;
+        for (int element : list) {
+            assertEquals(expected++, element);
+        }
+        for (int i = 0; i < 2 * COUNT; i += 2) {
+            assertTrue(list.remove(i));
+        }
+        assertEquals(COUNT, list.size());
+        expected = 1;
+        for (int element : list) {
+            assertEquals(expected, element);
+            expected += 2;
+        }
+    }
+
+    /**
+     * Adds and removes random elements and compares the list with a sorted ArrayList.
+     */
+    @Test
+    void matchesASortedArrayList() {
+        SortedList<Integer> list = new SortedList<>(Comparator.naturalOrder());
+        ArrayList<Integer> expected = new ArrayList<>();
+        Random random = new Random(1);
+        for (int step = 0; step < 20_000; step++) {
+            Integer element = random.nextInt(1_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(element), list.remove(element));
+            } else {
+                list.add(element);
+                expected.add(element);
+            }
+        }
+        expected.sort(null);
+        assertEquals(expected.size(), list.size());
+        ArrayList<Integer> actual = new ArrayList<>();
+        list.forEach(actual::add);
+        assertEquals(expected, actual);
+        assertFalse(list.remove(-1));
+    }
+
+    /**
+     * Adds many elements with only a few distinct keys and checks that equal elements keep the order they were added
+     * in, even after the rotations made while adding them.
+     */
+    @Test
+    void equalElementsKeepTheirOrder() {
+        SortedList<int[]> list = new SortedList<>(Comparator.comparingInt(pair -> pair[0]));
+        for (int i = 0; i < COUNT; i++) {
+            list.add(new int[]{i % 7, i});
+        }
+        int key = 0;
+        int last = -1;
+        for (int[] pair : list) {
+            if (pair[0] != key) {
+                assertEquals(key + 1, pair[0]);
+                key = pair[0];
+                last = -1;
+            }
+            assertTrue(pair[1] > last);
+            last = pair[1];
+        }
+        assertEquals(6, key);
+    }
+
+    /**
+     * Changes the list during a traversal and checks that the iterator notices.
+     */
+    @Test
+    void iteratorFailsFast() {
+        SortedList<Integer> list = new SortedList<>(Comparator.naturalOrder());
+        list.add(1);
+        list.add(2);
+        Iterator<Integer> iterator = list.iterator();
+        int first = iterator.next();
+        assertEquals(1, first);
+        list.add(3);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(list.iterator().hasNext());
+    }
+}